@@ -0,0 +1,79 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.request.CreateStandingOrderRequest;
+import com.example.bankcards.dto.response.card.StandingOrderExecutionResponse;
+import com.example.bankcards.dto.response.card.StandingOrderResponse;
+import com.example.bankcards.service.interfaces.card.StandingOrderService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/cards/standing-orders")
+@Validated
+@Tag(name = "Standing Orders", description = "Плановые и регулярные переводы между картами пользователя")
+public class StandingOrderController {
+
+    private final StandingOrderService service;
+
+    @Operation(summary = "Создать плановый перевод",
+            description = "Первый перевод выполняется в start_at, далее с указанной периодичностью")
+    @ApiResponse(responseCode = "200", description = "Плановый перевод создан",
+            content = @Content(schema = @Schema(implementation = StandingOrderResponse.class)))
+    @PostMapping
+    public ResponseEntity<StandingOrderResponse> create(
+            @RequestBody @Valid CreateStandingOrderRequest request
+    ) {
+        return ResponseEntity.ok(service.create(request));
+    }
+
+    @Operation(summary = "Получить свои плановые переводы",
+            description = "Возвращает активные плановые переводы текущего пользователя по времени следующего запуска")
+    @ApiResponse(responseCode = "200", description = "Список плановых переводов успешно получен",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = StandingOrderResponse.class))))
+    @GetMapping
+    public ResponseEntity<List<StandingOrderResponse>> getMyOrders() {
+        return ResponseEntity.ok(service.getMyOrders());
+    }
+
+    @Operation(summary = "Отменить плановый перевод",
+            description = "Следующие запуски не выполняются, история исполнений сохраняется")
+    @ApiResponse(responseCode = "204", description = "Плановый перевод отменён")
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> cancel(
+            @Parameter(description = "UUID планового перевода", required = true)
+            @PathVariable UUID id
+    ) {
+        service.cancel(id);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "История исполнений планового перевода",
+            description = "Возвращает результаты запусков от новых к старым")
+    @ApiResponse(responseCode = "200", description = "История исполнений успешно получена",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = StandingOrderExecutionResponse.class))))
+    @GetMapping("/{id}/executions")
+    public ResponseEntity<List<StandingOrderExecutionResponse>> getExecutions(
+            @Parameter(description = "UUID планового перевода", required = true)
+            @PathVariable UUID id,
+            @Parameter(description = "Количество записей (1-500)")
+            @RequestParam(defaultValue = "50") @Min(1) @Max(500) int limit
+    ) {
+        return ResponseEntity.ok(service.getExecutions(id, limit));
+    }
+}
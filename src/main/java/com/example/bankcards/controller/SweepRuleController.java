@@ -0,0 +1,62 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.request.CreateSweepRuleRequest;
+import com.example.bankcards.dto.response.card.SweepRuleResponse;
+import com.example.bankcards.service.interfaces.card.SweepRuleService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/cards/sweep-rules")
+@Validated
+@Tag(name = "Sweep Rules", description = "Автопополнение карты с другой карты пользователя по порогу остатка")
+public class SweepRuleController {
+
+    private final SweepRuleService service;
+
+    @Operation(summary = "Создать правило автопополнения",
+            description = "Когда доступный остаток watched_card_id опускается ниже threshold, карта пополняется с source_card_id до target_balance")
+    @ApiResponse(responseCode = "200", description = "Правило создано",
+            content = @Content(schema = @Schema(implementation = SweepRuleResponse.class)))
+    @PostMapping
+    public ResponseEntity<SweepRuleResponse> create(
+            @RequestBody @Valid CreateSweepRuleRequest request
+    ) {
+        return ResponseEntity.ok(service.create(request));
+    }
+
+    @Operation(summary = "Получить свои правила автопополнения",
+            description = "Возвращает активные правила текущего пользователя")
+    @ApiResponse(responseCode = "200", description = "Список правил успешно получен",
+            content = @Content(array = @ArraySchema(schema = @Schema(implementation = SweepRuleResponse.class))))
+    @GetMapping
+    public ResponseEntity<List<SweepRuleResponse>> getMyRules() {
+        return ResponseEntity.ok(service.getMyRules());
+    }
+
+    @Operation(summary = "Удалить правило автопополнения",
+            description = "Правило перестаёт срабатывать")
+    @ApiResponse(responseCode = "204", description = "Правило удалено")
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> delete(
+            @Parameter(description = "UUID правила", required = true)
+            @PathVariable UUID id
+    ) {
+        service.delete(id);
+        return ResponseEntity.noContent().build();
+    }
+}
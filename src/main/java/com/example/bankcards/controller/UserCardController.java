@@ -1,10 +1,15 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.request.BatchTransferRequest;
 import com.example.bankcards.dto.request.DepositRequest;
+import com.example.bankcards.dto.request.PlaceHoldRequest;
 import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.dto.response.card.BatchTransferResponse;
 import com.example.bankcards.dto.response.card.CardBalanceResponse;
+import com.example.bankcards.dto.response.card.CardHoldResponse;
 import com.example.bankcards.dto.response.card.CardNumberResponse;
 import com.example.bankcards.dto.response.card.CardResponse;
+import com.example.bankcards.dto.response.card.CardTransactionPageResponse;
 import com.example.bankcards.dto.response.card.ListCardResponse;
 import com.example.bankcards.service.interfaces.card.CardOwnerService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -14,8 +19,10 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
@@ -51,12 +58,25 @@ public class UserCardController {
     @ApiResponse(responseCode = "204", description = "Перевод выполнен успешно")
     @PostMapping("/transfer")
     public ResponseEntity<Void> transfer(
+            @Parameter(description = "Ключ идемпотентности: повтор с тем же ключом не списывает деньги второй раз")
+            @RequestHeader(value = "Idempotency-Key", required = false) @Size(max = 100) String idempotencyKey,
             @RequestBody @Valid TransferRequest request
     ) {
-        service.transfer(request);
+        service.transfer(request, idempotencyKey);
         return ResponseEntity.noContent().build();
     }
 
+    @Operation(summary = "Пакетный перевод средств между картами пользователя",
+            description = "Проводит список переводов одной транзакцией: ATOMIC - все или ни одного, BEST_EFFORT - отклонённые переводы пропускаются")
+    @ApiResponse(responseCode = "200", description = "Пакет обработан, результат по каждому переводу в items",
+            content = @Content(schema = @Schema(implementation = BatchTransferResponse.class)))
+    @PostMapping("/transfers/batch")
+    public ResponseEntity<BatchTransferResponse> transferBatch(
+            @RequestBody @Valid BatchTransferRequest request
+    ) {
+        return ResponseEntity.ok(service.transferBatch(request));
+    }
+
     @Operation(summary = "Пополнение баланса карты",
             description = "Позволяет пополнить баланс карты")
     @ApiResponse(responseCode = "200", description = "Баланс успешно пополнен",
@@ -65,9 +85,11 @@ public class UserCardController {
     public ResponseEntity<CardBalanceResponse> deposit(
             @Parameter(description = "UUID карты", required = true)
             @PathVariable UUID id,
+            @Parameter(description = "Ключ идемпотентности: повтор с тем же ключом возвращает сохранённый ответ")
+            @RequestHeader(value = "Idempotency-Key", required = false) @Size(max = 100) String idempotencyKey,
             @RequestBody @Valid DepositRequest request
     ) {
-        return ResponseEntity.ok(service.deposit(id, request));
+        return ResponseEntity.ok(service.deposit(id, request, idempotencyKey));
     }
 
     @Operation(summary = "Запрос на блокировку карты",
@@ -94,6 +116,63 @@ public class UserCardController {
         return ResponseEntity.ok(service.showBalance(id));
     }
 
+    @Operation(summary = "История операций по карте",
+            description = "Возвращает операции от новых к старым; для следующей страницы передайте next_cursor из ответа")
+    @ApiResponse(responseCode = "200", description = "Страница истории успешно получена",
+            content = @Content(schema = @Schema(implementation = CardTransactionPageResponse.class)))
+    @GetMapping("/{id}/transactions")
+    public ResponseEntity<CardTransactionPageResponse> getTransactions(
+            @Parameter(description = "UUID карты", required = true)
+            @PathVariable UUID id,
+            @Parameter(description = "Курсор следующей страницы (next_cursor предыдущего ответа)")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Размер страницы (1-500)")
+            @RequestParam(defaultValue = "50") @Min(1) @Max(500) int limit
+    ) {
+        return ResponseEntity.ok(service.getTransactions(id, cursor, limit));
+    }
+
+    @Operation(summary = "Удержание средств на карте",
+            description = "Резервирует сумму из доступного баланса до списания, отмены или истечения срока")
+    @ApiResponse(responseCode = "200", description = "Удержание создано",
+            content = @Content(schema = @Schema(implementation = CardHoldResponse.class)))
+    @PostMapping("/{id}/holds")
+    public ResponseEntity<CardHoldResponse> placeHold(
+            @Parameter(description = "UUID карты", required = true)
+            @PathVariable UUID id,
+            @RequestBody @Valid PlaceHoldRequest request
+    ) {
+        return ResponseEntity.ok(service.placeHold(id, request));
+    }
+
+    @Operation(summary = "Списание удержания",
+            description = "Списывает удержанную сумму с баланса карты")
+    @ApiResponse(responseCode = "200", description = "Удержание списано",
+            content = @Content(schema = @Schema(implementation = CardHoldResponse.class)))
+    @PostMapping("/{id}/holds/{holdId}/capture")
+    public ResponseEntity<CardHoldResponse> captureHold(
+            @Parameter(description = "UUID карты", required = true)
+            @PathVariable UUID id,
+            @Parameter(description = "UUID удержания", required = true)
+            @PathVariable UUID holdId
+    ) {
+        return ResponseEntity.ok(service.captureHold(id, holdId));
+    }
+
+    @Operation(summary = "Отмена удержания",
+            description = "Возвращает удержанную сумму в доступный баланс карты")
+    @ApiResponse(responseCode = "200", description = "Удержание отменено",
+            content = @Content(schema = @Schema(implementation = CardHoldResponse.class)))
+    @PostMapping("/{id}/holds/{holdId}/release")
+    public ResponseEntity<CardHoldResponse> releaseHold(
+            @Parameter(description = "UUID карты", required = true)
+            @PathVariable UUID id,
+            @Parameter(description = "UUID удержания", required = true)
+            @PathVariable UUID holdId
+    ) {
+        return ResponseEntity.ok(service.releaseHold(id, holdId));
+    }
+
     @Operation(summary = "Показать номер карты",
             description = "Возвращает номер карты без маски")
     @ApiResponse(responseCode = "200", description = "Номер карты успешно получен",
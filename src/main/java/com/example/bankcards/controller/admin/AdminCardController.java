@@ -1,9 +1,16 @@
 package com.example.bankcards.controller.admin;
 
+import com.example.bankcards.dto.request.CardLookupRequest;
 import com.example.bankcards.dto.request.CreateCardRequest;
+import com.example.bankcards.dto.request.FxRateUploadRequest;
+import com.example.bankcards.dto.request.SpendingLimitRequest;
+import com.example.bankcards.dto.response.card.CardBalanceAtResponse;
+import com.example.bankcards.dto.response.card.CardNumberRotationResponse;
 import com.example.bankcards.dto.response.card.CardResponse;
 import com.example.bankcards.dto.response.card.CardWithOwnerResponse;
+import com.example.bankcards.dto.response.card.FxRatesResponse;
 import com.example.bankcards.dto.response.card.ListCardResponse;
+import com.example.bankcards.dto.response.card.SpendingLimitResponse;
 import com.example.bankcards.service.interfaces.card.CardAdminService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -15,10 +22,12 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -47,6 +56,20 @@ public class AdminCardController {
         return ResponseEntity.ok(service.getAll(haveBlockRequest, page, size));
     }
 
+    @Operation(summary = "Получить баланс карты на момент времени",
+            description = "Возвращает остаток на указанный момент: снимок на конец предыдущего дня плюс движения за день")
+    @ApiResponse(responseCode = "200", description = "Баланс на момент времени получен",
+            content = @Content(schema = @Schema(implementation = CardBalanceAtResponse.class)))
+    @GetMapping("/{id}/balance")
+    public ResponseEntity<CardBalanceAtResponse> getBalanceAt(
+            @Parameter(description = "UUID карты", required = true)
+            @PathVariable UUID id,
+            @Parameter(description = "Момент времени в формате ISO-8601, например 2026-10-18T12:00:00Z", required = true)
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime at
+    ){
+        return ResponseEntity.ok(service.getBalanceAt(id, at));
+    }
+
     @Operation(summary = "Удалить карту",
             description = "Удаляет карту по UUID")
     @ApiResponse(responseCode = "204", description = "Карта успешно удалена")
@@ -70,6 +93,17 @@ public class AdminCardController {
         return ResponseEntity.ok(service.create(request));
     }
 
+    @Operation(summary = "Найти карту по номеру",
+            description = "Точный поиск по полному номеру карты; номер передаётся в теле запроса")
+    @ApiResponse(responseCode = "200", description = "Карта найдена",
+            content = @Content(schema = @Schema(implementation = CardWithOwnerResponse.class)))
+    @PostMapping("/lookup")
+    public ResponseEntity<CardWithOwnerResponse> findByNumber(
+            @RequestBody @Valid CardLookupRequest request
+    ){
+        return ResponseEntity.ok(service.findByNumber(request));
+    }
+
     @Operation(summary = "Активировать карту",
             description = "Меняет статус карты на ACTIVE")
     @ApiResponse(responseCode = "200", description = "Карта успешно активирована",
@@ -93,4 +127,125 @@ public class AdminCardController {
     ){
         return ResponseEntity.ok(service.block(id));
     }
+
+    @Operation(summary = "Включить или выключить полосатый баланс",
+            description = "Для горячих карт зачисления распределяются по нескольким строкам-слотам, при выключении слоты сворачиваются в баланс карты")
+    @ApiResponse(responseCode = "200", description = "Режим баланса карты изменён",
+            content = @Content(schema = @Schema(implementation = CardWithOwnerResponse.class)))
+    @PatchMapping("/{id}/striping")
+    public ResponseEntity<CardWithOwnerResponse> setStriping(
+            @Parameter(description = "UUID карты", required = true)
+            @PathVariable UUID id,
+            @Parameter(description = "Включить (true) или выключить (false)", required = true)
+            @RequestParam boolean enabled
+    ){
+        return ResponseEntity.ok(service.setStriping(id, enabled));
+    }
+
+    @Operation(summary = "Лимиты списаний по карте",
+            description = "Возвращает дневной и месячный лимиты карты и списания за скользящие 24 часа и 30 дней")
+    @ApiResponse(responseCode = "200", description = "Лимиты и использование получены",
+            content = @Content(schema = @Schema(implementation = SpendingLimitResponse.class)))
+    @GetMapping("/{id}/limits")
+    public ResponseEntity<SpendingLimitResponse> getCardLimits(
+            @Parameter(description = "UUID карты", required = true)
+            @PathVariable UUID id
+    ){
+        return ResponseEntity.ok(service.getCardLimits(id));
+    }
+
+    @Operation(summary = "Установить лимиты списаний по карте",
+            description = "Пустое значение снимает соответствующий лимит")
+    @ApiResponse(responseCode = "200", description = "Лимиты карты установлены",
+            content = @Content(schema = @Schema(implementation = SpendingLimitResponse.class)))
+    @PutMapping("/{id}/limits")
+    public ResponseEntity<SpendingLimitResponse> setCardLimits(
+            @Parameter(description = "UUID карты", required = true)
+            @PathVariable UUID id,
+            @RequestBody @Valid SpendingLimitRequest request
+    ){
+        return ResponseEntity.ok(service.setCardLimits(id, request));
+    }
+
+    @Operation(summary = "Лимиты списаний пользователя",
+            description = "Возвращает лимиты пользователя по всем его картам и списания за скользящие 24 часа и 30 дней")
+    @ApiResponse(responseCode = "200", description = "Лимиты и использование получены",
+            content = @Content(schema = @Schema(implementation = SpendingLimitResponse.class)))
+    @GetMapping("/owners/{userId}/limits")
+    public ResponseEntity<SpendingLimitResponse> getUserLimits(
+            @Parameter(description = "UUID пользователя", required = true)
+            @PathVariable UUID userId
+    ){
+        return ResponseEntity.ok(service.getUserLimits(userId));
+    }
+
+    @Operation(summary = "Установить лимиты списаний пользователя",
+            description = "Лимит действует на сумму списаний со всех карт пользователя в валюте card.limits.user-currency; "
+                    + "пустое значение снимает лимит")
+    @ApiResponse(responseCode = "200", description = "Лимиты пользователя установлены",
+            content = @Content(schema = @Schema(implementation = SpendingLimitResponse.class)))
+    @PutMapping("/owners/{userId}/limits")
+    public ResponseEntity<SpendingLimitResponse> setUserLimits(
+            @Parameter(description = "UUID пользователя", required = true)
+            @PathVariable UUID userId,
+            @RequestBody @Valid SpendingLimitRequest request
+    ){
+        return ResponseEntity.ok(service.setUserLimits(userId, request));
+    }
+
+    @Operation(summary = "Текущие курсы валют",
+            description = "Возвращает версию и курсы, по которым сейчас проводятся межвалютные переводы")
+    @ApiResponse(responseCode = "200", description = "Курсы получены",
+            content = @Content(schema = @Schema(implementation = FxRatesResponse.class)))
+    @GetMapping("/fx-rates")
+    public ResponseEntity<FxRatesResponse> getFxRates() {
+        return ResponseEntity.ok(service.getFxRates());
+    }
+
+    @Operation(summary = "Загрузить курсы валют",
+            description = "Создаёт новую версию курсов, которая заменяет предыдущую целиком; обратный курс пары досчитывается, если не задан")
+    @ApiResponse(responseCode = "200", description = "Курсы загружены",
+            content = @Content(schema = @Schema(implementation = FxRatesResponse.class)))
+    @PostMapping("/fx-rates")
+    public ResponseEntity<FxRatesResponse> uploadFxRates(
+            @RequestBody @Valid FxRateUploadRequest request
+    ){
+        return ResponseEntity.ok(service.uploadFxRates(request));
+    }
+
+    @Operation(summary = "Состояние перешифровки номеров карт",
+            description = "Статус фоновой перешифровки номеров активным ключом, сохранённая позиция и число оставшихся карт")
+    @ApiResponse(responseCode = "200", description = "Состояние получено",
+            content = @Content(schema = @Schema(implementation = CardNumberRotationResponse.class)))
+    @GetMapping("/number-rotation")
+    public ResponseEntity<CardNumberRotationResponse> getNumberRotation() {
+        return ResponseEntity.ok(service.getNumberRotation());
+    }
+
+    @Operation(summary = "Запустить перешифровку номеров карт",
+            description = "Перешифровывает номера всех карт активным ключом, начиная с начала таблицы; чтение карт при этом не прерывается")
+    @ApiResponse(responseCode = "200", description = "Перешифровка запущена",
+            content = @Content(schema = @Schema(implementation = CardNumberRotationResponse.class)))
+    @PostMapping("/number-rotation/start")
+    public ResponseEntity<CardNumberRotationResponse> startNumberRotation() {
+        return ResponseEntity.ok(service.startNumberRotation());
+    }
+
+    @Operation(summary = "Приостановить перешифровку номеров карт",
+            description = "Задача останавливается после текущей пачки, позиция сохраняется")
+    @ApiResponse(responseCode = "200", description = "Перешифровка приостановлена",
+            content = @Content(schema = @Schema(implementation = CardNumberRotationResponse.class)))
+    @PostMapping("/number-rotation/pause")
+    public ResponseEntity<CardNumberRotationResponse> pauseNumberRotation() {
+        return ResponseEntity.ok(service.pauseNumberRotation());
+    }
+
+    @Operation(summary = "Продолжить перешифровку номеров карт",
+            description = "Продолжает приостановленную задачу с сохранённой позиции")
+    @ApiResponse(responseCode = "200", description = "Перешифровка продолжена",
+            content = @Content(schema = @Schema(implementation = CardNumberRotationResponse.class)))
+    @PostMapping("/number-rotation/resume")
+    public ResponseEntity<CardNumberRotationResponse> resumeNumberRotation() {
+        return ResponseEntity.ok(service.resumeNumberRotation());
+    }
 }
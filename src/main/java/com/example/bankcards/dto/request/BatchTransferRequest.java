@@ -0,0 +1,23 @@
+package com.example.bankcards.dto.request;
+
+import com.example.bankcards.util.enums.BatchTransferMode;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransferRequest {
+    @NotNull
+    private BatchTransferMode mode;
+    @NotEmpty
+    @Size(max = 10000, message = "Batch must contain at most 10000 transfers")
+    private List<@Valid @NotNull TransferRequest> transfers;
+}
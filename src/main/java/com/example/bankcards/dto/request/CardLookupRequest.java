@@ -0,0 +1,17 @@
+package com.example.bankcards.dto.request;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// номер передаётся в теле, чтобы не попадать в журналы запросов
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CardLookupRequest {
+    @NotNull
+    @Pattern(regexp = "^\\d{4} ?\\d{4} ?\\d{4} ?\\d{4}$", message = "Card number must have 16 digits")
+    private String number;
+}
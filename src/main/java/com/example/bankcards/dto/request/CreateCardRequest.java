@@ -1,5 +1,6 @@
 package com.example.bankcards.dto.request;
 
+import com.example.bankcards.util.enums.CardCurrency;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -17,4 +18,10 @@ import java.util.UUID;
 public class CreateCardRequest {
     @NotNull
     private UUID owner;
+    // по умолчанию RUB
+    private CardCurrency currency;
+
+    public CreateCardRequest(UUID owner) {
+        this.owner = owner;
+    }
 }
@@ -0,0 +1,36 @@
+package com.example.bankcards.dto.request;
+
+import com.example.bankcards.util.enums.StandingOrderPeriod;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CreateStandingOrderRequest {
+    @NotNull
+    @JsonProperty("debit_card_id")
+    private UUID debitCardId;
+    @NotNull
+    @JsonProperty("credit_card_id")
+    private UUID creditCardId;
+    @NotNull
+    @DecimalMin(value = "1.00", message = "Transfer amount must be at least 1.00")
+    @DecimalMax(value = "1000000.00", message = "Transfer amount must not exceed 1,000,000.00")
+    @Digits(integer = 7, fraction = 2, message = "Transfer amount must have up to 2 decimal places")
+    private BigDecimal amount;
+    @NotNull
+    private StandingOrderPeriod period;
+    // первый запуск; следующие - через period от него (MONTHLY 31-го числа в коротких месяцах идёт последним днём)
+    @NotNull
+    @Future
+    @JsonProperty("start_at")
+    private OffsetDateTime startAt;
+}
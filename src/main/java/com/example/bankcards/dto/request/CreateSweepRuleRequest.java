@@ -0,0 +1,33 @@
+package com.example.bankcards.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CreateSweepRuleRequest {
+    // карта, которую пополняем
+    @NotNull
+    @JsonProperty("watched_card_id")
+    private UUID watchedCardId;
+    @NotNull
+    @JsonProperty("source_card_id")
+    private UUID sourceCardId;
+    @NotNull
+    @DecimalMin(value = "0.01", message = "Threshold must be at least 0.01")
+    @DecimalMax(value = "1000000.00", message = "Threshold must not exceed 1,000,000.00")
+    @Digits(integer = 7, fraction = 2, message = "Threshold must have up to 2 decimal places")
+    private BigDecimal threshold;
+    // до какого остатка пополнять; по умолчанию до порога
+    @DecimalMax(value = "1000000.00", message = "Target balance must not exceed 1,000,000.00")
+    @Digits(integer = 7, fraction = 2, message = "Target balance must have up to 2 decimal places")
+    @JsonProperty("target_balance")
+    private BigDecimal targetBalance;
+}
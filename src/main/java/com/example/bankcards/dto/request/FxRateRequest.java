@@ -0,0 +1,29 @@
+package com.example.bankcards.dto.request;
+
+import com.example.bankcards.util.enums.CardCurrency;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// сколько единиц quote_currency стоит одна единица base_currency
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FxRateRequest {
+    @NotNull
+    @JsonProperty("base_currency")
+    private CardCurrency baseCurrency;
+    @NotNull
+    @JsonProperty("quote_currency")
+    private CardCurrency quoteCurrency;
+    @NotNull
+    @DecimalMin(value = "0", inclusive = false, message = "Rate must be positive")
+    @Digits(integer = 10, fraction = 8, message = "Rate must have up to 8 decimal places")
+    private BigDecimal rate;
+}
@@ -0,0 +1,19 @@
+package com.example.bankcards.dto.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// загрузка заменяет весь набор курсов; обратный курс пары досчитывается, если не задан
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FxRateUploadRequest {
+    @NotEmpty
+    @Valid
+    private List<FxRateRequest> rates;
+}
@@ -0,0 +1,29 @@
+package com.example.bankcards.dto.request;
+
+import com.example.bankcards.util.money.Money;
+import com.example.bankcards.util.money.MoneyMax;
+import com.example.bankcards.util.money.MoneyMin;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlaceHoldRequest {
+
+    @NotNull
+    @MoneyMin(value = "0.01", message = "Minimum hold amount is 0.01")
+    @MoneyMax(value = "1000000.00", message = "Maximum hold amount is 1,000,000.00")
+    private Money amount;
+
+    // null - срок по умолчанию из настроек
+    @Min(1)
+    @Max(43200)
+    @JsonProperty("ttl_minutes")
+    private Integer ttlMinutes;
+}
@@ -0,0 +1,25 @@
+package com.example.bankcards.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+// null - ограничения нет; оба null снимают лимиты
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SpendingLimitRequest {
+    @DecimalMin(value = "0.00", message = "Limit must not be negative")
+    @Digits(integer = 15, fraction = 2, message = "Limit must have up to 2 decimal places")
+    @JsonProperty("daily_limit")
+    private BigDecimal dailyLimit;
+    @DecimalMin(value = "0.00", message = "Limit must not be negative")
+    @Digits(integer = 15, fraction = 2, message = "Limit must have up to 2 decimal places")
+    @JsonProperty("monthly_limit")
+    private BigDecimal monthlyLimit;
+}
@@ -1,12 +1,14 @@
 package com.example.bankcards.dto.request;
 
+import com.example.bankcards.util.money.Money;
+import com.example.bankcards.util.money.MoneyMax;
+import com.example.bankcards.util.money.MoneyMin;
 import com.fasterxml.jackson.annotation.JsonProperty;
-import jakarta.validation.constraints.*;
+import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.util.UUID;
 
 @Data
@@ -20,8 +22,7 @@ public class TransferRequest {
     @JsonProperty("credit_card_id")
     private UUID creditCardId;
     @NotNull
-    @DecimalMin(value = "1.00", message = "Transfer amount must be at least 1.00")
-    @DecimalMax(value = "1000000.00", message = "Transfer amount must not exceed 1,000,000.00")
-    @Digits(integer = 7, fraction = 2, message = "Transfer amount must have up to 2 decimal places")
-    private BigDecimal amount;
+    @MoneyMin(value = "1.00", message = "Transfer amount must be at least 1.00")
+    @MoneyMax(value = "1000000.00", message = "Transfer amount must not exceed 1,000,000.00")
+    private Money amount;
 }
@@ -0,0 +1,18 @@
+package com.example.bankcards.dto.response.card;
+
+import com.example.bankcards.util.enums.BatchItemStatus;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransferItemResponse {
+    @NotNull
+    private int index;
+    @NotNull
+    private BatchItemStatus status;
+    private String error;
+}
@@ -0,0 +1,23 @@
+package com.example.bankcards.dto.response.card;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransferResponse {
+    @NotNull
+    @JsonProperty("applied_count")
+    private int appliedCount;
+    @NotNull
+    @JsonProperty("rejected_count")
+    private int rejectedCount;
+    @NotNull
+    private List<BatchTransferItemResponse> items;
+}
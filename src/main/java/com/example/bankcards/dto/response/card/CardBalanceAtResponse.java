@@ -0,0 +1,24 @@
+package com.example.bankcards.dto.response.card;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CardBalanceAtResponse {
+    @NotNull
+    private OffsetDateTime at;
+    @NotNull
+    private BigDecimal balance;
+    // null - снимка до этой даты нет, остаток посчитан по журналу проводок
+    @JsonProperty("snapshot_date")
+    private LocalDate snapshotDate;
+}
@@ -1,14 +1,25 @@
 package com.example.bankcards.dto.response.card;
 
+import com.example.bankcards.util.money.Money;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
-
-import java.math.BigDecimal;
+import lombok.NoArgsConstructor;
 
 @AllArgsConstructor
+@NoArgsConstructor
 @Data
 public class CardBalanceResponse {
     @NotNull
-    private BigDecimal balance;
+    private Money balance;
+    // баланс за вычетом удержаний; заполняется только при запросе баланса
+    @JsonProperty("available_balance")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Money availableBalance;
+
+    public CardBalanceResponse(Money balance) {
+        this.balance = balance;
+    }
 }
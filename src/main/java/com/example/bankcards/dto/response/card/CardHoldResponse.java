@@ -0,0 +1,30 @@
+package com.example.bankcards.dto.response.card;
+
+import com.example.bankcards.util.enums.HoldStatus;
+import com.example.bankcards.util.money.Money;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CardHoldResponse {
+    @NotNull
+    private UUID id;
+    @NotNull
+    @JsonProperty("card_id")
+    private UUID cardId;
+    @NotNull
+    private Money amount;
+    @NotNull
+    private HoldStatus status;
+    @NotNull
+    @JsonProperty("expires_at")
+    private OffsetDateTime expiresAt;
+}
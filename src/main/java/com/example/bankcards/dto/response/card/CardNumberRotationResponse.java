@@ -0,0 +1,32 @@
+package com.example.bankcards.dto.response.card;
+
+import com.example.bankcards.util.enums.CardNumberRotationStatus;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CardNumberRotationResponse {
+    @NotNull
+    private CardNumberRotationStatus status;
+    @JsonProperty("target_version")
+    private int targetVersion;
+    @JsonProperty("active_version")
+    private int activeVersion;
+    // последняя обработанная карта, с неё продолжится задача
+    @JsonProperty("last_id")
+    private UUID lastId;
+    private long rotated;
+    // номера, которые не удалось расшифровать за последний проход; остаются под прежним ключом
+    private long failed;
+    private long remaining;
+    @JsonProperty("updated_at")
+    private OffsetDateTime updatedAt;
+}
@@ -1,5 +1,6 @@
 package com.example.bankcards.dto.response.card;
 
+import com.example.bankcards.util.enums.CardCurrency;
 import com.example.bankcards.util.enums.CardStatus;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.validation.constraints.NotNull;
@@ -18,6 +19,8 @@ public class CardResponse {
     @NotNull
     private CardStatus status;
     @NotNull
+    private CardCurrency currency;
+    @NotNull
     @JsonProperty("block_requested")
     private boolean blockRequested;
     @NotNull
@@ -0,0 +1,20 @@
+package com.example.bankcards.dto.response.card;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CardTransactionPageResponse {
+    @NotNull
+    private List<CardTransactionResponse> items;
+    // null - страниц больше нет
+    @JsonProperty("next_cursor")
+    private String nextCursor;
+}
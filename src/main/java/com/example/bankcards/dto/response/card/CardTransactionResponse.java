@@ -0,0 +1,29 @@
+package com.example.bankcards.dto.response.card;
+
+import com.example.bankcards.util.enums.CardTransactionType;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CardTransactionResponse {
+    @NotNull
+    private UUID id;
+    @NotNull
+    private CardTransactionType type;
+    @NotNull
+    private BigDecimal amount;
+    @JsonProperty("counterpart_card_id")
+    private UUID counterpartCardId;
+    @NotNull
+    @JsonProperty("created_at")
+    private OffsetDateTime createdAt;
+}
@@ -10,4 +10,5 @@ import lombok.EqualsAndHashCode;
 public class CardWithOwnerResponse extends CardResponse {
     @NotNull
     private UserResponse owner;
+    private boolean striped;
 }
@@ -0,0 +1,24 @@
+package com.example.bankcards.dto.response.card;
+
+import com.example.bankcards.util.enums.CardCurrency;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FxRateResponse {
+    @NotNull
+    @JsonProperty("base_currency")
+    private CardCurrency baseCurrency;
+    @NotNull
+    @JsonProperty("quote_currency")
+    private CardCurrency quoteCurrency;
+    @NotNull
+    private BigDecimal rate;
+}
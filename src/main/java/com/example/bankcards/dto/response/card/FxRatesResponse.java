@@ -0,0 +1,22 @@
+package com.example.bankcards.dto.response.card;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+// версия 0 - курсы ещё не загружались
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FxRatesResponse {
+    private long version;
+    @JsonProperty("uploaded_at")
+    private OffsetDateTime uploadedAt;
+    @NotNull
+    private List<FxRateResponse> rates;
+}
@@ -0,0 +1,31 @@
+package com.example.bankcards.dto.response.card;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SpendingLimitResponse {
+    // карта или пользователь
+    @NotNull
+    @JsonProperty("subject_id")
+    private UUID subjectId;
+    @JsonProperty("daily_limit")
+    private BigDecimal dailyLimit;
+    @JsonProperty("monthly_limit")
+    private BigDecimal monthlyLimit;
+    // списания за скользящие 24 часа и 30 дней
+    @NotNull
+    @JsonProperty("daily_used")
+    private BigDecimal dailyUsed;
+    @NotNull
+    @JsonProperty("monthly_used")
+    private BigDecimal monthlyUsed;
+}
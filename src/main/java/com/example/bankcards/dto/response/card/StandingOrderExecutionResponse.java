@@ -0,0 +1,25 @@
+package com.example.bankcards.dto.response.card;
+
+import com.example.bankcards.util.enums.StandingOrderExecutionStatus;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StandingOrderExecutionResponse {
+    @NotNull
+    @JsonProperty("scheduled_at")
+    private OffsetDateTime scheduledAt;
+    @NotNull
+    @JsonProperty("executed_at")
+    private OffsetDateTime executedAt;
+    @NotNull
+    private StandingOrderExecutionStatus status;
+    private String error;
+}
@@ -0,0 +1,35 @@
+package com.example.bankcards.dto.response.card;
+
+import com.example.bankcards.util.enums.StandingOrderPeriod;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StandingOrderResponse {
+    @NotNull
+    private UUID id;
+    @NotNull
+    @JsonProperty("debit_card_id")
+    private UUID debitCardId;
+    @NotNull
+    @JsonProperty("credit_card_id")
+    private UUID creditCardId;
+    @NotNull
+    private BigDecimal amount;
+    @NotNull
+    private StandingOrderPeriod period;
+    @NotNull
+    @JsonProperty("next_run_at")
+    private OffsetDateTime nextRunAt;
+    @NotNull
+    private boolean active;
+}
@@ -0,0 +1,29 @@
+package com.example.bankcards.dto.response.card;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SweepRuleResponse {
+    @NotNull
+    private UUID id;
+    @NotNull
+    @JsonProperty("watched_card_id")
+    private UUID watchedCardId;
+    @NotNull
+    @JsonProperty("source_card_id")
+    private UUID sourceCardId;
+    @NotNull
+    private BigDecimal threshold;
+    @NotNull
+    @JsonProperty("target_balance")
+    private BigDecimal targetBalance;
+}
@@ -1,11 +1,13 @@
 package com.example.bankcards.entity;
 
+import com.example.bankcards.util.enums.CardCurrency;
 import com.example.bankcards.util.enums.CardStatus;
+import com.example.bankcards.util.money.Money;
+import com.example.bankcards.util.money.MoneyConverter;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
 
-import java.math.BigDecimal;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
@@ -24,9 +26,17 @@ public class Card {
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
 
-    @Column(name = "encrypt_number", unique = true, nullable = false)
+    // меняется только перешифровкой; сущность, прочитанная до неё, не вернёт старый шифротекст
+    @Column(name = "encrypt_number", nullable = false, updatable = false)
     private String encryptNumber;
 
+    // UPDATE из JPA не трогает колонку: сущность, прочитанная до фонового заполнения, не затрёт значение
+    @Column(name = "last4", length = 4, updatable = false)
+    private String last4;// для маски номера без расшифровки
+
+    @Column(name = "number_hash", length = 64, updatable = false)
+    private String numberHash;// HMAC номера, уникален
+
     @ManyToOne
     @JoinColumn(name = "owner", nullable = false)
     private UserModel owner;
@@ -38,8 +48,19 @@ public class Card {
             .truncatedTo(ChronoUnit.DAYS);// Истекает через год, оклугляю до начала следующих суток
 
     @Column(name = "balance", nullable = false)
+    @Convert(converter = MoneyConverter.class)
+    @Builder.Default
+    private Money balance = Money.ZERO;
+
+    @Column(name = "held_balance", nullable = false)
+    @Convert(converter = MoneyConverter.class)
+    @Builder.Default
+    private Money heldBalance = Money.ZERO;// зарезервировано удержаниями
+
+    @Column(name = "currency", nullable = false, length = 3)
+    @Enumerated(EnumType.STRING)
     @Builder.Default
-    private BigDecimal balance = BigDecimal.valueOf(0);
+    private CardCurrency currency = CardCurrency.RUB;// баланс и все суммы по карте в этой валюте
 
     @Column(name = "status")
     @Enumerated(EnumType.ORDINAL)
@@ -54,4 +75,17 @@ public class Card {
     @Builder.Default
     private Boolean blockRequested = false;
 
+    @Column(name = "striped", nullable = false)
+    @Builder.Default
+    private Boolean striped = false;// зачисления идут в card_balance_slot
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    // баланс, доступный для списаний: учётный баланс за вычетом удержаний
+    public Money getAvailableBalance() {
+        return balance.minus(heldBalance);
+    }
+
 }
@@ -0,0 +1,58 @@
+package com.example.bankcards.entity;
+
+import com.example.bankcards.util.enums.StandingOrderPeriod;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "standing_order")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class StandingOrder {
+    @Id
+    @Column(name = "id", unique = true, nullable = false)
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner", nullable = false)
+    private UserModel owner;
+
+    @Column(name = "debit_card_id", nullable = false)
+    private UUID debitCardId;
+
+    @Column(name = "credit_card_id", nullable = false)
+    private UUID creditCardId;
+
+    @Column(name = "amount", nullable = false)
+    private BigDecimal amount;
+
+    @Column(name = "period", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private StandingOrderPeriod period;
+
+    @Column(name = "start_at", nullable = false)
+    private OffsetDateTime startAt;
+
+    @Column(name = "next_run_at", nullable = false)
+    private OffsetDateTime nextRunAt;
+
+    @Column(name = "run_count", nullable = false)
+    @Builder.Default
+    private Long runCount = 0L;// следующий запуск = start_at + (run_count) периодов, без накопления сдвига
+
+    @Column(name = "active", nullable = false)
+    @Builder.Default
+    private Boolean active = true;
+
+    @Column(name = "claimed_until")
+    private OffsetDateTime claimedUntil;// до этого момента заказ исполняет узел, который его забрал
+
+}
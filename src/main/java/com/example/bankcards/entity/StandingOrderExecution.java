@@ -0,0 +1,38 @@
+package com.example.bankcards.entity;
+
+import com.example.bankcards.util.enums.StandingOrderExecutionStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "standing_order_execution")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class StandingOrderExecution {
+    @Id
+    @Column(name = "id", unique = true, nullable = false)
+    private UUID id;
+
+    @Column(name = "order_id", nullable = false)
+    private UUID orderId;
+
+    @Column(name = "scheduled_at", nullable = false)
+    private OffsetDateTime scheduledAt;
+
+    @Column(name = "executed_at", nullable = false)
+    private OffsetDateTime executedAt;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private StandingOrderExecutionStatus status;
+
+    @Column(name = "error")
+    private String error;
+
+}
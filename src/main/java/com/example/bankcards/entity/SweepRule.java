@@ -0,0 +1,47 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "sweep_rule")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SweepRule {
+    @Id
+    @Column(name = "id", unique = true, nullable = false)
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner", nullable = false)
+    private UserModel owner;
+
+    @Column(name = "watched_card_id", nullable = false)
+    private UUID watchedCardId;// карта, которую пополняем
+
+    @Column(name = "source_card_id", nullable = false)
+    private UUID sourceCardId;
+
+    @Column(name = "threshold", nullable = false)
+    private BigDecimal threshold;
+
+    @Column(name = "target_balance", nullable = false)
+    private BigDecimal targetBalance;// до этого доступного остатка пополняется карта
+
+    @Column(name = "active", nullable = false)
+    @Builder.Default
+    private Boolean active = true;
+
+    @Column(name = "created_at", nullable = false)
+    @Builder.Default
+    private OffsetDateTime createdAt = OffsetDateTime.now();
+
+}
@@ -0,0 +1,12 @@
+package com.example.bankcards.exception;
+
+import com.example.bankcards.util.constants.ErrorMessages;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+// операция могла быть зафиксирована: резервы под неё не возвращаются, ключ идемпотентности не освобождается
+public class BalanceOutcomeUnknownException extends ResponseStatusException {
+    public BalanceOutcomeUnknownException() {
+        super(HttpStatus.SERVICE_UNAVAILABLE, ErrorMessages.BALANCE_OUTCOME_UNKNOWN);
+    }
+}
@@ -2,6 +2,7 @@ package com.example.bankcards.repository;
 
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.repository.projection.TransferBalances;
 import com.example.bankcards.util.enums.CardStatus;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
@@ -9,9 +10,12 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -22,7 +26,7 @@ public interface CardRepository extends JpaRepository<Card, UUID> {
 
     Page<Card> findByBlockRequestedAndIsDeleted(Boolean blockRequested, Boolean isDeleted, Pageable pageable);
 
-    boolean existsByEncryptNumber(String encryptNumber);
+    Optional<Card> findByNumberHashAndIsDeleted(String numberHash, Boolean isDeleted);
 
     Page<Card> findByIsDeleted(Boolean isDeleted, Pageable pageable);
 
@@ -32,9 +36,59 @@ public interface CardRepository extends JpaRepository<Card, UUID> {
 
     Optional<Card> findByIdAndOwnerAndIsDeleted(UUID id, UserModel owner, Boolean isDeleted);
 
+    List<Card> findByIdInAndOwnerAndIsDeleted(Collection<UUID> ids, UserModel owner, Boolean isDeleted);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("select c from Card c where c.id = ?1 and c.owner = ?2 and c.isDeleted = ?3")
     Optional<Card> findCardWithLock(UUID id, UserModel owner, Boolean isDeleted);
 
+    // блокируем все карты одним запросом в порядке id, чтобы встречные переводы не ловили deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from Card c where c.id in ?1 and c.owner = ?2 and c.isDeleted = ?3 order by c.id")
+    List<Card> findCardsWithLock(Collection<UUID> ids, UserModel owner, Boolean isDeleted);
+
+    @Query(value = """
+            update card set balance = balance + :amount, version = version + 1
+            where id = :id and owner = :owner and status = :status and is_deleted = false
+            returning balance
+            """, nativeQuery = true)
+    Optional<BigDecimal> depositIfActive(@Param("id") UUID id,
+                                         @Param("owner") UUID owner,
+                                         @Param("status") int status,
+                                         @Param("amount") BigDecimal amount);
+
+    // обе карты блокируются в порядке id, списание только при достаточном доступном балансе, активных картах
+    // и одной валюте
+    @Query(value = """
+            with locked as (
+                select id, balance, held_balance, status, currency from card
+                where id in (:debitId, :creditId) and owner = :owner and is_deleted = false
+                order by id
+                for update
+            ),
+            checked as (
+                select 1 from locked d join locked c on d.id = :debitId and c.id = :creditId
+                where d.status = :status and c.status = :status and d.currency = c.currency
+                  and d.balance - d.held_balance >= :amount
+            ),
+            debited as (
+                update card set balance = balance - :amount, version = version + 1
+                where id = :debitId and exists (select 1 from checked)
+                returning balance
+            ),
+            credited as (
+                update card set balance = balance + :amount, version = version + 1
+                where id = :creditId and exists (select 1 from debited)
+                returning balance
+            )
+            select d.balance as "debitBalance", c.balance as "creditBalance"
+            from debited d cross join credited c
+            """, nativeQuery = true)
+    Optional<TransferBalances> transferIfAllowed(@Param("debitId") UUID debitId,
+                                                 @Param("creditId") UUID creditId,
+                                                 @Param("owner") UUID owner,
+                                                 @Param("status") int status,
+                                                 @Param("amount") BigDecimal amount);
+
 
 }
@@ -0,0 +1,54 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.StandingOrderExecution;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface StandingOrderExecutionRepository extends JpaRepository<StandingOrderExecution, UUID> {
+
+    List<StandingOrderExecution> findByOrderIdOrderByScheduledAtDesc(UUID orderId, Pageable pageable);
+
+    // уникальный ключ (order_id, scheduled_at): второй исполнитель того же запуска ничего не вставит
+    @Modifying
+    @Query(value = """
+            insert into standing_order_execution (id, order_id, scheduled_at, executed_at, status, error)
+            values (:id, :orderId, :scheduledAt, :executedAt, 'APPLIED', null)
+            on conflict (order_id, scheduled_at) do nothing
+            """, nativeQuery = true)
+    int insertApplied(@Param("id") UUID id,
+                      @Param("orderId") UUID orderId,
+                      @Param("scheduledAt") OffsetDateTime scheduledAt,
+                      @Param("executedAt") OffsetDateTime executedAt);
+
+    @Modifying
+    @Query(value = """
+            delete from standing_order_execution
+            where order_id = :orderId and scheduled_at = :scheduledAt and status = 'APPLIED'
+            """, nativeQuery = true)
+    int deleteApplied(@Param("orderId") UUID orderId,
+                      @Param("scheduledAt") OffsetDateTime scheduledAt);
+
+    // в SHARDED и JOURNAL запись APPLIED коммитится до перевода и заменяется отказом, если движок его отклонил
+    @Modifying
+    @Query(value = """
+            insert into standing_order_execution (id, order_id, scheduled_at, executed_at, status, error)
+            values (:id, :orderId, :scheduledAt, :executedAt, 'REJECTED', :error)
+            on conflict (order_id, scheduled_at) do update
+                set status = 'REJECTED', error = excluded.error, executed_at = excluded.executed_at
+            """, nativeQuery = true)
+    int upsertRejected(@Param("id") UUID id,
+                       @Param("orderId") UUID orderId,
+                       @Param("scheduledAt") OffsetDateTime scheduledAt,
+                       @Param("executedAt") OffsetDateTime executedAt,
+                       @Param("error") String error);
+
+}
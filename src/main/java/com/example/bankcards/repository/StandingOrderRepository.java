@@ -0,0 +1,66 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.StandingOrder;
+import com.example.bankcards.entity.UserModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface StandingOrderRepository extends JpaRepository<StandingOrder, UUID> {
+
+    List<StandingOrder> findByOwnerAndActiveOrderByNextRunAt(UserModel owner, Boolean active);
+
+    Optional<StandingOrder> findByIdAndOwner(UUID id, UserModel owner);
+
+    // SKIP LOCKED: несколько узлов забирают разные заказы, не дожидаясь друг друга
+    @Query(value = """
+            update standing_order set claimed_until = greatest(next_run_at, :now) + make_interval(secs => :leaseSeconds)
+            where id in (
+                select id from standing_order
+                where active = true and next_run_at <= :horizon
+                  and (claimed_until is null or claimed_until < :now)
+                order by next_run_at
+                limit :batch
+                for update skip locked
+            )
+            returning *
+            """, nativeQuery = true)
+    List<StandingOrder> claimDue(@Param("now") OffsetDateTime now,
+                                 @Param("horizon") OffsetDateTime horizon,
+                                 @Param("leaseSeconds") long leaseSeconds,
+                                 @Param("batch") int batch);
+
+    // сдвиг на следующий запуск удаётся ровно одному исполнителю этого запуска
+    @Modifying
+    @Query(value = """
+            update standing_order set next_run_at = :next, run_count = run_count + 1, claimed_until = null
+            where id = :id and active = true and next_run_at = :scheduled
+            """, nativeQuery = true)
+    int advance(@Param("id") UUID id,
+                @Param("scheduled") OffsetDateTime scheduled,
+                @Param("next") OffsetDateTime next);
+
+    // возврат запуска, сдвиг которого закоммичен до перевода, а перевод не прошёл
+    @Modifying
+    @Query(value = """
+            update standing_order set next_run_at = :scheduled, run_count = run_count - 1, claimed_until = null
+            where id = :id and next_run_at = :next and run_count = :runCount
+            """, nativeQuery = true)
+    int retreat(@Param("id") UUID id,
+                @Param("scheduled") OffsetDateTime scheduled,
+                @Param("next") OffsetDateTime next,
+                @Param("runCount") long runCount);
+
+    @Modifying
+    @Query(value = "update standing_order set claimed_until = null where id = :id", nativeQuery = true)
+    int releaseClaim(@Param("id") UUID id);
+
+}
@@ -0,0 +1,23 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.SweepRule;
+import com.example.bankcards.entity.UserModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface SweepRuleRepository extends JpaRepository<SweepRule, UUID> {
+
+    List<SweepRule> findByOwnerAndActiveOrderByCreatedAt(UserModel owner, Boolean active);
+
+    Optional<SweepRule> findByIdAndOwnerAndActive(UUID id, UserModel owner, Boolean active);
+
+    @Query("select r from SweepRule r join fetch r.owner where r.active = true")
+    List<SweepRule> findAllActive();
+
+}
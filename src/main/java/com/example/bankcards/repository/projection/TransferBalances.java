@@ -0,0 +1,9 @@
+package com.example.bankcards.repository.projection;
+
+import java.math.BigDecimal;
+
+public interface TransferBalances {
+    BigDecimal getDebitBalance();
+
+    BigDecimal getCreditBalance();
+}
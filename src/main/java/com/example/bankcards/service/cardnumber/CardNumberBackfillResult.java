@@ -0,0 +1,5 @@
+package com.example.bankcards.service.cardnumber;
+
+// failedChunks - пачки, упавшие целиком; их карты подхватит следующий проход
+public record CardNumberBackfillResult(int filled, int failedChunks) {
+}
@@ -0,0 +1,163 @@
+package com.example.bankcards.service.cardnumber;
+
+import com.example.bankcards.util.components.CardNumberUtil;
+import com.example.bankcards.util.components.GeneratedCardNumber;
+import com.example.bankcards.util.constants.ErrorMessages;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Разовое заполнение card.last4 и card.number_hash для карт, созданных до появления колонок: каждый номер
+// расшифровывается один раз, дальше маска и поиск по номеру обходятся без расшифровки.
+// Пачки идут по id, поэтому строка, которую не удалось расшифровать, не зацикливает задачу.
+// Упавшая пачка пропускается и пишется в лог, проход продолжается со следующей.
+// Пока проход не завершён, у старых карт нет number_hash: создание карты и поиск по номеру
+// сначала дожидаются прохода (ensureComplete), иначе уникальность и поиск не видят эти карты
+@Component
+@Slf4j
+public class CardNumberBackfillService {
+
+    private static final String CHUNK_SQL = """
+            select id, encrypt_number from card
+            where (last4 is null or number_hash is null) and id > :afterId
+            order by id
+            limit :chunk
+            """;
+    // значения могли уже записать другой узел или создание карты
+    private static final String UPDATE_SQL = """
+            update card set last4 = coalesce(last4, :last4), number_hash = coalesce(number_hash, :numberHash)
+            where id = :id and (last4 is null or number_hash is null)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final CardNumberUtil cardNumberUtil;
+
+    @Value("${card-number.backfill.chunk:1000}")
+    private int chunkSize = 1000;
+    // проход завершился без упавших пачек, повторять его на этом узле незачем
+    private volatile boolean complete;
+
+    public CardNumberBackfillService(NamedParameterJdbcTemplate jdbcTemplate, CardNumberUtil cardNumberUtil) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cardNumberUtil = cardNumberUtil;
+    }
+
+    public synchronized CardNumberBackfillResult backfill() {
+        UUID afterId = new UUID(0, 0);
+        int filled = 0;
+        int failedChunks = 0;
+        while (true) {
+            List<Map<String, Object>> chunk = jdbcTemplate.queryForList(CHUNK_SQL, Map.of(
+                    "afterId", afterId,
+                    "chunk", chunkSize
+            ));
+            if (chunk.isEmpty()) {
+                break;
+            }
+            UUID lastId = (UUID) chunk.get(chunk.size() - 1).get("id");
+            try {
+                filled += fill(chunk);
+            } catch (RuntimeException e) {
+                failedChunks++;
+                log.error("Card number backfill failed for cards after id={} up to id={}", afterId, lastId, e);
+            }
+            afterId = lastId;
+        }
+        if (failedChunks == 0) {
+            complete = true;
+        }
+        return new CardNumberBackfillResult(filled, failedChunks);
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    // проход запускается в потоке запроса, если фоновая задача ещё не закончила
+    public void ensureComplete() {
+        if (complete) {
+            return;
+        }
+        synchronized (this) {
+            if (!complete) {
+                backfill();
+            }
+        }
+        if (!complete) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ErrorMessages.CARD_NUMBER_BACKFILL_PENDING);
+        }
+    }
+
+    private int fill(List<Map<String, Object>> chunk) {
+        List<SqlParameterSource> updates = describe(chunk);
+        if (updates.isEmpty()) {
+            return 0;
+        }
+        int filled = 0;
+        try {
+            for (int rows : jdbcTemplate.batchUpdate(UPDATE_SQL, updates.toArray(SqlParameterSource[]::new))) {
+                filled += Math.max(rows, 0);
+            }
+            return filled;
+        } catch (DuplicateKeyException e) {
+            log.warn("Duplicate card number in backfill chunk, updating cards one by one");
+        }
+        // UPDATE повторяем по одной карте: уже записанные строки он не трогает
+        filled = 0;
+        for (SqlParameterSource update : updates) {
+            try {
+                filled += jdbcTemplate.update(UPDATE_SQL, update);
+            } catch (DuplicateKeyException e) {
+                // два номера совпали ещё до уникального индекса; карта получает только last4
+                log.error("Card id={} has the same number as another card, number hash left empty", update.getValue("id"));
+                filled += jdbcTemplate.update(UPDATE_SQL, new MapSqlParameterSource()
+                        .addValue("id", update.getValue("id"))
+                        .addValue("last4", update.getValue("last4"))
+                        .addValue("numberHash", null));
+            }
+        }
+        return filled;
+    }
+
+    // вся пачка расшифровывается разом; если какой-то номер не расшифровался, пачка разбирается по одному
+    private List<SqlParameterSource> describe(List<Map<String, Object>> chunk) {
+        List<SqlParameterSource> updates = new ArrayList<>(chunk.size());
+        try {
+            List<GeneratedCardNumber> numbers = cardNumberUtil.describeAll(
+                    chunk.stream().map(row -> (String) row.get("encrypt_number")).toList());
+            for (int i = 0; i < chunk.size(); i++) {
+                updates.add(toUpdate((UUID) chunk.get(i).get("id"), numbers.get(i)));
+            }
+            return updates;
+        } catch (RuntimeException e) {
+            log.warn("Chunk of card numbers not decrypted at once, decrypting one by one");
+        }
+        for (Map<String, Object> row : chunk) {
+            UUID id = (UUID) row.get("id");
+            try {
+                updates.add(toUpdate(id, cardNumberUtil.describe((String) row.get("encrypt_number"))));
+            } catch (RuntimeException e) {
+                log.warn("Cannot decrypt number of card id={}, left without last4 and number hash", id);
+            }
+        }
+        return updates;
+    }
+
+    private static SqlParameterSource toUpdate(UUID id, GeneratedCardNumber number) {
+        return new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("last4", number.last4())
+                .addValue("numberHash", number.numberHash());
+    }
+}
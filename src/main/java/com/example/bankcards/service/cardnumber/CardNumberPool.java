@@ -0,0 +1,124 @@
+package com.example.bankcards.service.cardnumber;
+
+import com.example.bankcards.util.components.CardNumberUtil;
+import com.example.bankcards.util.components.GeneratedCardNumber;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Запас номеров для выпуска карт: номер заранее сгенерирован, зашифрован и зарезервирован
+// в card_number_reservation, поэтому создание карты берёт готовый номер из очереди без генерации.
+// Резерв не даёт двум узлам выдать один номер, пока он лежит в очереди; после выпуска карты
+// номер держит уникальный индекс card.number_hash, а резерв удаляется по истечении срока
+@Component
+@Slf4j
+public class CardNumberPool {
+
+    // номер, уже принадлежащий карте, не резервируется
+    private static final String RESERVE_SQL = """
+            insert into card_number_reservation (number_hash, reserved_at)
+            select :numberHash, :reservedAt
+            where not exists (select 1 from card where number_hash = :numberHash)
+            on conflict (number_hash) do nothing
+            """;
+    private static final String PURGE_SQL = "delete from card_number_reservation where reserved_at < :expiredBefore";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final CardNumberUtil cardNumberUtil;
+    private final BlockingQueue<PooledNumber> queue;
+    private final Timer refillDuration;
+    private final Counter misses;
+
+    @Value("${card-number.pool.reservation-ttl-ms:86400000}")
+    private long reservationTtlMs = 86400000;
+
+    public CardNumberPool(NamedParameterJdbcTemplate jdbcTemplate,
+                          CardNumberUtil cardNumberUtil,
+                          MeterRegistry meterRegistry,
+                          @Value("${card-number.pool.size:1000}") int size) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cardNumberUtil = cardNumberUtil;
+        this.queue = new ArrayBlockingQueue<>(size);
+        this.refillDuration = Timer.builder("card.number.pool.refill").register(meterRegistry);
+        this.misses = Counter.builder("card.number.pool.misses").register(meterRegistry);
+        meterRegistry.gauge("card.number.pool.depth", queue, BlockingQueue::size);
+    }
+
+    // пустая очередь не задерживает выпуск: номер генерируется на месте, уникальность проверит индекс
+    public GeneratedCardNumber take() {
+        Instant staleBefore = Instant.now().minus(Duration.ofMillis(reservationTtlMs / 2));
+        PooledNumber pooled;
+        while ((pooled = queue.poll()) != null) {
+            if (pooled.reservedAt().isAfter(staleBefore)) {
+                return pooled.number();
+            }
+        }
+        misses.increment();
+        return cardNumberUtil.generateCardNumber();
+    }
+
+    public int depth() {
+        return queue.size();
+    }
+
+    // дополняет очередь до полной одной пачкой резервов; возвращает число добавленных номеров
+    public synchronized int refill() {
+        int missing = queue.remainingCapacity();
+        if (missing == 0) {
+            return 0;
+        }
+        long started = System.nanoTime();
+        Instant now = Instant.now();
+        jdbcTemplate.update(PURGE_SQL, Map.of(
+                "expiredBefore", Timestamp.from(now.minus(Duration.ofMillis(reservationTtlMs)))
+        ));
+
+        List<GeneratedCardNumber> generated = new ArrayList<>(missing);
+        Set<String> hashes = new HashSet<>(missing * 2);
+        while (generated.size() < missing) {
+            GeneratedCardNumber number = cardNumberUtil.generateCardNumber();
+            if (hashes.add(number.numberHash())) {
+                generated.add(number);
+            }
+        }
+        Timestamp reservedAt = Timestamp.from(now);
+        SqlParameterSource[] batch = generated.stream()
+                .map(number -> new MapSqlParameterSource()
+                        .addValue("numberHash", number.numberHash())
+                        .addValue("reservedAt", reservedAt))
+                .toArray(SqlParameterSource[]::new);
+        int[] reserved = jdbcTemplate.batchUpdate(RESERVE_SQL, batch);
+
+        int added = 0;
+        for (int i = 0; i < reserved.length; i++) {
+            if (reserved[i] > 0 && queue.offer(new PooledNumber(generated.get(i), now))) {
+                added++;
+            }
+        }
+        refillDuration.record(Duration.ofNanos(System.nanoTime() - started));
+        if (added < generated.size()) {
+            log.info("{} of {} generated card numbers already taken", generated.size() - added, generated.size());
+        }
+        return added;
+    }
+
+    private record PooledNumber(GeneratedCardNumber number, Instant reservedAt) {
+    }
+}
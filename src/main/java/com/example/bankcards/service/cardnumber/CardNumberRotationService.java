@@ -0,0 +1,328 @@
+package com.example.bankcards.service.cardnumber;
+
+import com.example.bankcards.util.components.Encryptor;
+import com.example.bankcards.util.constants.ErrorMessages;
+import com.example.bankcards.util.enums.CardNumberRotationStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Перешифровка номеров карт активным ключом без остановки сервиса. Карты идут пачками по id,
+// пачка делится между потоками пула, каждый пишет свою часть пакетным UPDATE. После пачки
+// в card_number_rotation сохраняется последний id, с него задача продолжается после паузы или рестарта.
+// Чтение не прерывается: Encryptor расшифровывает номер ключом той версии, которой он записан.
+// Дойдя до конца таблицы, задача пересчитывает номера под прежними ключами: позади курсора
+// их могли записать узлы, ещё работающие со старым активным ключом во время выкатки, - тогда
+// проход начинается заново. COMPLETED ставится, только когда таких номеров не осталось;
+// если остались лишь нерасшифрованные, задача завершается статусом INCOMPLETE.
+// Старый ключ можно убрать из card-number.encrypt.keys после COMPLETED и только когда
+// все узлы уже шифруют новым активным ключом
+@Component
+@Slf4j
+public class CardNumberRotationService {
+
+    private static final String READ_SQL = """
+            select status, target_version, last_id, rotated, failed, updated_at
+            from card_number_rotation where id = 1
+            """;
+    private static final String REMAINING_SQL = "select count(*) from card where encrypt_number not like :prefix";
+    // новый запуск начинается с начала таблицы; идущий запуск к той же версии не перезапускается
+    private static final String START_SQL = """
+            update card_number_rotation
+            set status = 'RUNNING', target_version = :target, last_id = null, rotated = 0, failed = 0, updated_at = :now
+            where id = 1 and not (status = 'RUNNING' and target_version = :target)
+            """;
+    private static final String PAUSE_SQL = """
+            update card_number_rotation set status = 'PAUSED', updated_at = :now
+            where id = 1 and status = 'RUNNING'
+            """;
+    private static final String RESUME_SQL = """
+            update card_number_rotation set status = 'RUNNING', updated_at = :now
+            where id = 1 and status = 'PAUSED' and target_version = :target
+            """;
+    // задачу ведёт один узел; аренда продлевается каждой пачкой и истекает, если узел упал
+    private static final String CLAIM_SQL = """
+            update card_number_rotation set claimed_by = :runId, claimed_until = :until
+            where id = 1 and status = 'RUNNING' and target_version = :target
+              and (claimed_until is null or claimed_until < :now)
+            """;
+    private static final String CHECKPOINT_SQL = """
+            update card_number_rotation
+            set last_id = :lastId, rotated = rotated + :rotated, failed = failed + :failed,
+                claimed_until = :until, updated_at = :now
+            where id = 1 and status = 'RUNNING' and target_version = :target and claimed_by = :runId
+            """;
+    // новый проход: failed считается заново, перешифрованные за прошлые проходы остаются в rotated
+    private static final String RESCAN_SQL = """
+            update card_number_rotation set last_id = null, failed = 0, claimed_until = :until, updated_at = :now
+            where id = 1 and status = 'RUNNING' and target_version = :target and claimed_by = :runId
+            """;
+    private static final String FINISH_SQL = """
+            update card_number_rotation set status = :status, updated_at = :now
+            where id = 1 and status = 'RUNNING' and target_version = :target and claimed_by = :runId
+            """;
+    private static final String RELEASE_SQL =
+            "update card_number_rotation set claimed_by = null, claimed_until = null where id = 1 and claimed_by = :runId";
+    // префикс активной версии отсекает уже перешифрованные карты, в том числе созданные во время задачи
+    private static final String CHUNK_SQL = """
+            select id, encrypt_number from card
+            where id > :afterId and encrypt_number not like :prefix
+            order by id
+            limit :chunk
+            """;
+    // номер, перешифрованный другим узлом до нас, не перезаписывается
+    private static final String UPDATE_SQL =
+            "update card set encrypt_number = :newNumber where id = :id and encrypt_number = :oldNumber";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final Encryptor encryptor;
+    private final ExecutorService pool;
+    private final int parallelism;
+
+    @Value("${card-number.rotation.chunk:1000}")
+    private int chunkSize = 1000;
+
+    @Value("${card-number.rotation.lease-ms:300000}")
+    private long leaseMs = 300000;
+
+    public CardNumberRotationService(NamedParameterJdbcTemplate jdbcTemplate,
+                                     Encryptor encryptor,
+                                     @Value("${card-number.rotation.parallelism:4}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.encryptor = encryptor;
+        this.parallelism = parallelism;
+        this.pool = Executors.newFixedThreadPool(parallelism);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    public CardNumberRotationState state() {
+        int activeVersion = encryptor.activeVersion();
+        Long remaining = jdbcTemplate.queryForObject(REMAINING_SQL,
+                Map.of("prefix", Encryptor.versionPrefix(activeVersion) + "%"), Long.class);
+        return jdbcTemplate.queryForObject(READ_SQL, Map.of(), (rs, rowNum) -> {
+            Timestamp updatedAt = rs.getTimestamp("updated_at");
+            return new CardNumberRotationState(
+                    CardNumberRotationStatus.valueOf(rs.getString("status")),
+                    rs.getInt("target_version"),
+                    activeVersion,
+                    rs.getObject("last_id", UUID.class),
+                    rs.getLong("rotated"),
+                    rs.getLong("failed"),
+                    remaining == null ? 0 : remaining,
+                    updatedAt == null ? null : updatedAt.toInstant()
+            );
+        });
+    }
+
+    // цель - ключ, активный на узле, принявшем запрос
+    public CardNumberRotationState start() {
+        int started = jdbcTemplate.update(START_SQL, Map.of(
+                "target", encryptor.activeVersion(),
+                "now", Timestamp.from(Instant.now())
+        ));
+        if (started == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.NUMBER_ROTATION_ALREADY_RUNNING);
+        }
+        log.info("Card number re-encryption to key version {} started", encryptor.activeVersion());
+        return state();
+    }
+
+    // узел, ведущий задачу, останавливается после текущей пачки
+    public CardNumberRotationState pause() {
+        if (jdbcTemplate.update(PAUSE_SQL, Map.of("now", Timestamp.from(Instant.now()))) == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.NUMBER_ROTATION_NOT_RUNNING);
+        }
+        log.info("Card number re-encryption paused");
+        return state();
+    }
+
+    public CardNumberRotationState resume() {
+        int resumed = jdbcTemplate.update(RESUME_SQL, Map.of(
+                "target", encryptor.activeVersion(),
+                "now", Timestamp.from(Instant.now())
+        ));
+        if (resumed == 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.NUMBER_ROTATION_NOT_PAUSED);
+        }
+        log.info("Card number re-encryption resumed");
+        return state();
+    }
+
+    // идёт до конца таблицы, паузы или потери аренды; возвращает число перешифрованных карт
+    public long run() {
+        int target = encryptor.activeVersion();
+        UUID runId = UUID.randomUUID();
+        Instant now = Instant.now();
+        int claimed = jdbcTemplate.update(CLAIM_SQL, Map.of(
+                "runId", runId,
+                "target", target,
+                "now", Timestamp.from(now),
+                "until", Timestamp.from(now.plus(Duration.ofMillis(leaseMs)))
+        ));
+        if (claimed == 0) {
+            return 0;
+        }
+        try {
+            return rotateFromCheckpoint(runId, target);
+        } finally {
+            jdbcTemplate.update(RELEASE_SQL, Map.of("runId", runId));
+        }
+    }
+
+    private long rotateFromCheckpoint(UUID runId, int target) {
+        String prefix = Encryptor.versionPrefix(target) + "%";
+        UUID lastId = jdbcTemplate.queryForObject(READ_SQL, Map.of(), (rs, rowNum) -> rs.getObject("last_id", UUID.class));
+        UUID afterId = lastId == null ? new UUID(0, 0) : lastId;
+        long rotated = 0;
+        while (true) {
+            List<Map<String, Object>> chunk = jdbcTemplate.queryForList(CHUNK_SQL, Map.of(
+                    "afterId", afterId,
+                    "prefix", prefix,
+                    "chunk", chunkSize
+            ));
+            if (chunk.isEmpty()) {
+                long remaining = jdbcTemplate.queryForObject(REMAINING_SQL, Map.of("prefix", prefix), Long.class);
+                long failed = jdbcTemplate.queryForObject(READ_SQL, Map.of(), (rs, rowNum) -> rs.getLong("failed"));
+                Instant now = Instant.now();
+                if (remaining > failed) {
+                    int restarted = jdbcTemplate.update(RESCAN_SQL, Map.of(
+                            "runId", runId,
+                            "target", target,
+                            "now", Timestamp.from(now),
+                            "until", Timestamp.from(now.plus(Duration.ofMillis(leaseMs)))
+                    ));
+                    if (restarted == 0) {
+                        return rotated;
+                    }
+                    log.info("{} card numbers behind the cursor are not under key version {}, rescanning", remaining - failed, target);
+                    afterId = new UUID(0, 0);
+                    continue;
+                }
+                CardNumberRotationStatus status = remaining == 0
+                        ? CardNumberRotationStatus.COMPLETED
+                        : CardNumberRotationStatus.INCOMPLETE;
+                jdbcTemplate.update(FINISH_SQL, Map.of(
+                        "runId", runId,
+                        "target", target,
+                        "status", status.name(),
+                        "now", Timestamp.from(now)
+                ));
+                if (status == CardNumberRotationStatus.COMPLETED) {
+                    log.info("Card number re-encryption to key version {} completed, {} cards in this run", target, rotated);
+                } else {
+                    log.warn("Card number re-encryption to key version {} incomplete: {} numbers cannot be decrypted, "
+                            + "previous keys are still required", target, remaining);
+                }
+                return rotated;
+            }
+            SliceResult result = rotate(chunk);
+            rotated += result.rotated();
+            afterId = (UUID) chunk.get(chunk.size() - 1).get("id");
+
+            Instant now = Instant.now();
+            int saved = jdbcTemplate.update(CHECKPOINT_SQL, new MapSqlParameterSource()
+                    .addValue("runId", runId)
+                    .addValue("target", target)
+                    .addValue("lastId", afterId)
+                    .addValue("rotated", result.rotated())
+                    .addValue("failed", result.failed())
+                    .addValue("until", Timestamp.from(now.plus(Duration.ofMillis(leaseMs))))
+                    .addValue("now", Timestamp.from(now)));
+            if (saved == 0) {
+                // пауза, новый запуск к другой версии или аренда истекла и задачу взял другой узел
+                log.info("Card number re-encryption stopped after card id={}, {} cards in this run", afterId, rotated);
+                return rotated;
+            }
+        }
+    }
+
+    private SliceResult rotate(List<Map<String, Object>> chunk) {
+        int sliceSize = (chunk.size() + parallelism - 1) / parallelism;
+        List<Future<SliceResult>> futures = new ArrayList<>(parallelism);
+        for (int from = 0; from < chunk.size(); from += sliceSize) {
+            List<Map<String, Object>> slice = chunk.subList(from, Math.min(from + sliceSize, chunk.size()));
+            futures.add(pool.submit(() -> rotateSlice(slice)));
+        }
+        int rotated = 0;
+        int failed = 0;
+        for (Future<SliceResult> future : futures) {
+            try {
+                SliceResult result = future.get();
+                rotated += result.rotated();
+                failed += result.failed();
+            } catch (ExecutionException e) {
+                futures.forEach(pending -> pending.cancel(true));
+                throw new IllegalStateException("Card number re-encryption chunk failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                futures.forEach(pending -> pending.cancel(true));
+                throw new IllegalStateException("Card number re-encryption interrupted", e);
+            }
+        }
+        return new SliceResult(rotated, failed);
+    }
+
+    // часть пачки расшифровывается разом; если какой-то номер не расшифровался, часть разбирается по одному
+    private SliceResult rotateSlice(List<Map<String, Object>> slice) {
+        List<String> encrypted = slice.stream().map(row -> (String) row.get("encrypt_number")).toList();
+        List<String> numbers;
+        try {
+            numbers = encryptor.decryptAll(encrypted);
+        } catch (RuntimeException e) {
+            numbers = new ArrayList<>(encrypted.size());
+            for (int i = 0; i < encrypted.size(); i++) {
+                try {
+                    numbers.add(encryptor.decrypt(encrypted.get(i)));
+                } catch (RuntimeException ex) {
+                    log.warn("Cannot decrypt number of card id={}, left under its key", slice.get(i).get("id"));
+                    numbers.add(null);
+                }
+            }
+        }
+
+        List<SqlParameterSource> updates = new ArrayList<>(slice.size());
+        int failed = 0;
+        for (int i = 0; i < slice.size(); i++) {
+            if (numbers.get(i) == null) {
+                failed++;
+                continue;
+            }
+            updates.add(new MapSqlParameterSource()
+                    .addValue("id", slice.get(i).get("id"))
+                    .addValue("oldNumber", encrypted.get(i))
+                    .addValue("newNumber", encryptor.encrypt(numbers.get(i))));
+        }
+        int rotated = 0;
+        if (!updates.isEmpty()) {
+            for (int rows : jdbcTemplate.batchUpdate(UPDATE_SQL, updates.toArray(SqlParameterSource[]::new))) {
+                rotated += Math.max(rows, 0);
+            }
+        }
+        return new SliceResult(rotated, failed);
+    }
+
+    private record SliceResult(int rotated, int failed) {
+    }
+}
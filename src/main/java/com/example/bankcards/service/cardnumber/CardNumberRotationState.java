@@ -0,0 +1,17 @@
+package com.example.bankcards.service.cardnumber;
+
+import com.example.bankcards.util.enums.CardNumberRotationStatus;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// remaining - карт, ещё не зашифрованных активным ключом
+public record CardNumberRotationState(CardNumberRotationStatus status,
+                                      int targetVersion,
+                                      int activeVersion,
+                                      UUID lastId,
+                                      long rotated,
+                                      long failed,
+                                      long remaining,
+                                      Instant updatedAt) {
+}
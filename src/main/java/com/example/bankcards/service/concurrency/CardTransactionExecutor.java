@@ -0,0 +1,110 @@
+package com.example.bankcards.service.concurrency;
+
+import com.example.bankcards.util.constants.ErrorMessages;
+import com.example.bankcards.util.enums.ConcurrencyMode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PessimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+@Component
+@Slf4j
+public class CardTransactionExecutor {
+    // 40001 - serialization_failure, 40P01 - deadlock_detected
+    private static final Set<String> RETRYABLE_SQL_STATES = Set.of("40001", "40P01");
+
+    private final TransactionTemplate defaultTemplate;
+    private final TransactionTemplate serializableTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${card.balance.retry.max-attempts:5}")
+    private int maxAttempts = 5;
+    @Value("${card.balance.retry.base-backoff-ms:5}")
+    private long baseBackoffMs = 5;
+    @Value("${card.balance.retry.max-backoff-ms:200}")
+    private long maxBackoffMs = 200;
+
+    public CardTransactionExecutor(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.defaultTemplate = new TransactionTemplate(transactionManager);
+        this.serializableTemplate = new TransactionTemplate(transactionManager);
+        this.serializableTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T execute(ConcurrencyMode mode, String operation, Supplier<T> action) {
+        TransactionTemplate template = mode == ConcurrencyMode.SERIALIZABLE ? serializableTemplate : defaultTemplate;
+        // повторяем только режимы без блокировок, в остальных строка уже заблокирована
+        int attempts = mode == ConcurrencyMode.OPTIMISTIC || mode == ConcurrencyMode.SERIALIZABLE
+                ? maxAttempts
+                : 1;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return template.execute(status -> action.get());
+                } catch (RuntimeException e) {
+                    if (!isRetryable(e)) {
+                        throw e;
+                    }
+                    if (attempt >= attempts) {
+                        meterRegistry.counter("card.balance.retries.exhausted",
+                                "operation", operation, "mode", mode.name()).increment();
+                        log.warn("{} failed after {} attempts in {} mode", operation, attempt, mode);
+                        throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.CONCURRENT_UPDATE);
+                    }
+                    meterRegistry.counter("card.balance.retries",
+                            "operation", operation, "mode", mode.name()).increment();
+                    log.debug("{} conflict on attempt {} in {} mode, retrying", operation, attempt, mode);
+                    backoff(attempt);
+                }
+            }
+        } finally {
+            sample.stop(Timer.builder("card.balance.operation")
+                    .tag("operation", operation)
+                    .tag("mode", mode.name())
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry));
+        }
+    }
+
+    private void backoff(int attempt) {
+        // full jitter: случайная пауза от 0 до экспоненциально растущего потолка
+        long cap = Math.min(maxBackoffMs, baseBackoffMs << Math.min(attempt - 1, 20));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.CONCURRENT_UPDATE);
+        }
+    }
+
+    private boolean isRetryable(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConcurrencyFailureException
+                    || cause instanceof OptimisticLockException
+                    || cause instanceof PessimisticLockException) {
+                return true;
+            }
+            if (cause instanceof SQLException sqlException
+                    && RETRYABLE_SQL_STATES.contains(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
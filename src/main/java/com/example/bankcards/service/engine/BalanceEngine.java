@@ -0,0 +1,386 @@
+package com.example.bankcards.service.engine;
+
+import com.example.bankcards.exception.BalanceOutcomeUnknownException;
+import com.example.bankcards.service.ledger.LedgerPosting;
+import com.example.bankcards.service.ledger.LedgerService;
+import com.example.bankcards.util.constants.ErrorMessages;
+import com.example.bankcards.util.enums.CardStatus;
+import com.example.bankcards.util.enums.ConcurrencyMode;
+import com.example.bankcards.util.money.Money;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Каждая карта закреплена за одним однопоточным шардом, шард копит команды за тик
+// и фиксирует их одной транзакцией (group commit).
+// Команду забирает либо шард, либо истёкшее ожидание вызывающего: отменённая команда не исполняется,
+// а если шард успел её взять, вызывающий дожидается настоящего исхода
+@Component
+@Slf4j
+public class BalanceEngine {
+
+    private static final String LOCK_CARDS_SQL = """
+            select id, owner, balance, held_balance, status, currency, is_deleted from card
+            where id in (:ids)
+            order by id
+            for update
+            """;
+    private static final String UPDATE_BALANCE_SQL =
+            "update card set balance = :balance, version = version + 1 where id = :id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final LedgerService ledgerService;
+
+    @Value("${card.balance.concurrency-mode:PESSIMISTIC}")
+    private ConcurrencyMode concurrencyMode = ConcurrencyMode.PESSIMISTIC;
+    @Value("${card.balance.engine.shards:8}")
+    private int shardCount = 8;
+    @Value("${card.balance.engine.queue-capacity:10000}")
+    private int queueCapacity = 10000;
+    @Value("${card.balance.engine.max-batch:500}")
+    private int maxBatch = 500;
+    @Value("${card.balance.engine.tick-ms:2}")
+    private long tickMs = 2;
+    @Value("${card.balance.engine.await-timeout-ms:5000}")
+    private long awaitTimeoutMs = 5000;
+
+    private Shard[] shards;
+
+    public BalanceEngine(NamedParameterJdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         MeterRegistry meterRegistry,
+                         LedgerService ledgerService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.ledgerService = ledgerService;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (concurrencyMode != ConcurrencyMode.SHARDED) {
+            return;
+        }
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i);
+            shards[i].start();
+        }
+        log.info("Balance engine started with {} shards", shardCount);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (shards == null) {
+            return;
+        }
+        for (Shard shard : shards) {
+            shard.interrupt();
+        }
+    }
+
+    // inTransaction получает баланс после зачисления и выполняется в транзакции пачки, если команда применена
+    public Money deposit(UUID cardId, UUID userId, Money amount, Consumer<Money> inTransaction) {
+        return submit(new Command(cardId, null, userId, amount, inTransaction));
+    }
+
+    public void transfer(UUID debitCardId, UUID creditCardId, UUID userId, Money amount, Runnable inTransaction) {
+        // перевод исполняет шард карты списания, зачисление фиксируется в той же транзакции
+        submit(new Command(debitCardId, creditCardId, userId, amount, balance -> inTransaction.run()));
+    }
+
+    private Money submit(Command command) {
+        if (shards == null) {
+            throw new IllegalStateException("Balance engine is not enabled");
+        }
+        Shard shard = shards[Math.floorMod(command.cardId.hashCode(), shards.length)];
+        if (!shard.queue.offer(command)) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ErrorMessages.BALANCE_ENGINE_OVERLOADED);
+        }
+        try {
+            return await(command, awaitTimeoutMs);
+        } catch (TimeoutException e) {
+            if (command.cancel()) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ErrorMessages.BALANCE_ENGINE_TIMEOUT);
+            }
+            // шард уже взял команду в пачку, исход станет известен после коммита пачки
+            return awaitClaimed(command);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (command.cancel()) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ErrorMessages.BALANCE_ENGINE_TIMEOUT);
+            }
+            throw new BalanceOutcomeUnknownException();
+        }
+    }
+
+    private Money awaitClaimed(Command command) {
+        try {
+            return await(command, 0);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BalanceOutcomeUnknownException();
+        }
+    }
+
+    // timeoutMs = 0 - без ограничения
+    private static Money await(Command command, long timeoutMs) throws TimeoutException, InterruptedException {
+        try {
+            return timeoutMs > 0
+                    ? command.result.get(timeoutMs, TimeUnit.MILLISECONDS)
+                    : command.result.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static final class Command {
+        private static final int PENDING = 0;
+        private static final int CLAIMED = 1;
+        private static final int CANCELLED = 2;
+
+        private final UUID cardId;
+        private final UUID creditCardId;
+        private final UUID userId;
+        private final Money amount;
+        private final Consumer<Money> inTransaction;
+        private final CompletableFuture<Money> result = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private Money balanceAfter;
+        private RuntimeException rejection;
+
+        private Command(UUID cardId, UUID creditCardId, UUID userId, Money amount,
+                        Consumer<Money> inTransaction) {
+            this.cardId = cardId;
+            this.creditCardId = creditCardId;
+            this.userId = userId;
+            this.amount = amount;
+            this.inTransaction = inTransaction;
+        }
+
+        // шард берёт команду в пачку
+        private boolean claim() {
+            return state.compareAndSet(PENDING, CLAIMED);
+        }
+
+        // вызывающий отказывается от команды, которую шард ещё не взял
+        private boolean cancel() {
+            return state.compareAndSet(PENDING, CANCELLED);
+        }
+    }
+
+    private static final class CardState {
+        private UUID owner;
+        private Money balance;
+        private Money held;
+        private int status;
+        private String currency;
+        private boolean deleted;
+        private boolean dirty;
+    }
+
+    private final class Shard extends Thread {
+        private final BlockingQueue<Command> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final DistributionSummary batchSize;
+        private final Timer commitTimer;
+        private boolean committing;
+
+        private Shard(int index) {
+            super("balance-shard-" + index);
+            setDaemon(true);
+            this.batchSize = DistributionSummary.builder("card.balance.engine.batch.size")
+                    .tag("shard", String.valueOf(index))
+                    .register(meterRegistry);
+            this.commitTimer = Timer.builder("card.balance.engine.commit")
+                    .tag("shard", String.valueOf(index))
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public void run() {
+            List<Command> batch = new ArrayList<>(maxBatch);
+            while (!isInterrupted()) {
+                try {
+                    collect(batch);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                batch.removeIf(command -> !command.claim());
+                if (batch.isEmpty()) {
+                    continue;
+                }
+                try {
+                    commitTimer.record(() -> process(batch));
+                    batch.forEach(Shard::complete);
+                } catch (RuntimeException e) {
+                    log.error("Balance engine batch of {} commands failed", batch.size(), e);
+                    // ошибка до коммита откатывает пачку, ошибка самого коммита оставляет исход неизвестным
+                    RuntimeException failure = committing ? new BalanceOutcomeUnknownException() : e;
+                    batch.forEach(command -> command.result.completeExceptionally(failure));
+                }
+                batchSize.record(batch.size());
+                batch.clear();
+            }
+            queue.drainTo(batch);
+            batch.forEach(command -> command.result.completeExceptionally(
+                    new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ErrorMessages.BALANCE_ENGINE_TIMEOUT)));
+        }
+
+        // ждём первую команду, затем добираем пачку до конца тика
+        private void collect(List<Command> batch) throws InterruptedException {
+            batch.add(queue.take());
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(tickMs);
+            while (batch.size() < maxBatch) {
+                queue.drainTo(batch, maxBatch - batch.size());
+                long left = deadline - System.nanoTime();
+                if (batch.size() >= maxBatch || left <= 0) {
+                    return;
+                }
+                Command next = queue.poll(left, TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    return;
+                }
+                batch.add(next);
+            }
+        }
+
+        private void process(List<Command> batch) {
+            committing = false;
+            transactionTemplate.executeWithoutResult(status -> {
+                Map<UUID, CardState> cards = lockCards(batch);
+                List<LedgerPosting> postings = new ArrayList<>(batch.size() * 2);
+                Instant now = Instant.now();
+                for (Command command : batch) {
+                    apply(command, cards);
+                    if (command.rejection == null) {
+                        postings.addAll(command.creditCardId == null
+                                ? LedgerService.deposit(command.cardId, command.amount, now)
+                                : LedgerService.transfer(command.cardId, command.creditCardId, command.amount, now));
+                        command.inTransaction.accept(command.balanceAfter);
+                    }
+                }
+                SqlParameterSource[] updates = cards.entrySet().stream()
+                        .filter(entry -> entry.getValue().dirty)
+                        .map(entry -> new MapSqlParameterSource()
+                                .addValue("id", entry.getKey())
+                                .addValue("balance", entry.getValue().balance.toBigDecimal()))
+                        .toArray(SqlParameterSource[]::new);
+                if (updates.length > 0) {
+                    jdbcTemplate.batchUpdate(UPDATE_BALANCE_SQL, updates);
+                }
+                ledgerService.write(postings);
+                committing = true;
+            });
+        }
+
+        private Map<UUID, CardState> lockCards(List<Command> batch) {
+            Set<UUID> ids = new LinkedHashSet<>();
+            for (Command command : batch) {
+                ids.add(command.cardId);
+                if (command.creditCardId != null) {
+                    ids.add(command.creditCardId);
+                }
+            }
+            Map<UUID, CardState> cards = new HashMap<>();
+            jdbcTemplate.query(LOCK_CARDS_SQL, Map.of("ids", ids), (RowCallbackHandler) rs -> {
+                CardState state = new CardState();
+                state.owner = rs.getObject("owner", UUID.class);
+                state.balance = Money.of(rs.getBigDecimal("balance"));
+                state.held = Money.of(rs.getBigDecimal("held_balance"));
+                state.status = rs.getInt("status");
+                state.currency = rs.getString("currency");
+                state.deleted = rs.getBoolean("is_deleted");
+                cards.put(rs.getObject("id", UUID.class), state);
+            });
+            return cards;
+        }
+
+        private void apply(Command command, Map<UUID, CardState> cards) {
+            CardState card = findOwned(cards, command.cardId, command.userId);
+            CardState credit = command.creditCardId == null ? null : findOwned(cards, command.creditCardId, command.userId);
+            if (card == null || (command.creditCardId != null && credit == null)) {
+                command.rejection = new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.CARD_NOT_FOUND);
+                return;
+            }
+            if (card.status != CardStatus.ACTIVE.ordinal()
+                    || (credit != null && credit.status != CardStatus.ACTIVE.ordinal())) {
+                command.rejection = new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.CARD_NOT_ACTIVE);
+                return;
+            }
+            // конвертация идёт только по строкам card, движок переводит в одной валюте
+            if (credit != null && !card.currency.equals(credit.currency)) {
+                command.rejection = new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.CROSS_CURRENCY_NOT_SUPPORTED);
+                return;
+            }
+            if (credit == null) {
+                card.balance = card.balance.plus(command.amount);
+                card.dirty = true;
+                command.balanceAfter = card.balance;
+                return;
+            }
+            if (card.balance.minus(card.held).isLessThan(command.amount)) {
+                command.rejection = new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.NOT_ENOUGH_FUNDS);
+                return;
+            }
+            card.balance = card.balance.minus(command.amount);
+            credit.balance = credit.balance.plus(command.amount);
+            card.dirty = true;
+            credit.dirty = true;
+            command.balanceAfter = card.balance;
+        }
+
+        private CardState findOwned(Map<UUID, CardState> cards, UUID cardId, UUID userId) {
+            CardState state = cards.get(cardId);
+            if (state == null || state.deleted || !state.owner.equals(userId)) {
+                return null;
+            }
+            return state;
+        }
+
+        private static void complete(Command command) {
+            if (command.rejection != null) {
+                command.result.completeExceptionally(command.rejection);
+            } else {
+                command.result.complete(command.balanceAfter);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.bankcards.service.fx;
+
+import com.example.bankcards.util.enums.CardCurrency;
+import com.example.bankcards.util.money.Money;
+
+import java.math.BigDecimal;
+
+// пересчёт суммы перевода по курсу конкретной версии; debitAmount в base, creditAmount в quote
+public record FxConversion(long rateVersion,
+                           CardCurrency base,
+                           CardCurrency quote,
+                           BigDecimal rate,
+                           Money debitAmount,
+                           Money creditAmount) {
+}
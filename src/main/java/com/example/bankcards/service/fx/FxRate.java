@@ -0,0 +1,9 @@
+package com.example.bankcards.service.fx;
+
+import com.example.bankcards.util.enums.CardCurrency;
+
+import java.math.BigDecimal;
+
+// сколько единиц quote даёт одна единица base
+public record FxRate(CardCurrency base, CardCurrency quote, BigDecimal rate) {
+}
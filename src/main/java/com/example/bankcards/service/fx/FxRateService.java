@@ -0,0 +1,128 @@
+package com.example.bankcards.service.fx;
+
+import com.example.bankcards.util.constants.ErrorMessages;
+import com.example.bankcards.util.enums.CardCurrency;
+import com.example.bankcards.util.money.Money;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Курсы валют в памяти: перевод берёт курс из текущего неизменяемого снимка без обращения к БД.
+// Загрузка администратором создаёт новую версию в fx_rate и подменяет снимок; остальные узлы
+// подхватывают версию периодическим refresh. Снимок меняется только на более новую версию
+@Component
+@Slf4j
+public class FxRateService {
+
+    public static final int RATE_SCALE = 8;
+
+    private static final String NEXT_VERSION_SQL = "select nextval('fx_rate_version_seq')";
+    private static final String LATEST_VERSION_SQL = "select coalesce(max(version), 0) from fx_rate";
+    private static final String LOAD_SQL =
+            "select base_currency, quote_currency, rate, uploaded_at from fx_rate where version = :version";
+    private static final String INSERT_SQL = """
+            insert into fx_rate (version, base_currency, quote_currency, rate, uploaded_at)
+            values (:version, :base, :quote, :rate, :uploadedAt)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicReference<FxRateSnapshot> snapshot = new AtomicReference<>(FxRateSnapshot.EMPTY);
+
+    public FxRateService(NamedParameterJdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public FxRateSnapshot current() {
+        return snapshot.get();
+    }
+
+    public FxConversion convert(Money amount, CardCurrency base, CardCurrency quote) {
+        FxConversion conversion = snapshot.get().convert(amount, base, quote);
+        if (conversion == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.FX_RATE_NOT_FOUND);
+        }
+        return conversion;
+    }
+
+    // обратный курс досчитывается, если его нет в загрузке
+    public FxRateSnapshot upload(List<FxRate> rates) {
+        Map<String, FxRate> pairs = new LinkedHashMap<>();
+        for (FxRate rate : rates) {
+            if (rate.base() == rate.quote()) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ErrorMessages.FX_RATE_SAME_CURRENCY);
+            }
+            if (pairs.put(rate.base() + "/" + rate.quote(), rate) != null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ErrorMessages.FX_RATE_DUPLICATE_PAIR);
+            }
+        }
+        for (FxRate rate : rates) {
+            BigDecimal inverse = BigDecimal.ONE.divide(rate.rate(), RATE_SCALE, RoundingMode.HALF_EVEN);
+            if (inverse.signum() > 0) {
+                pairs.putIfAbsent(rate.quote() + "/" + rate.base(), new FxRate(rate.quote(), rate.base(), inverse));
+            }
+        }
+        List<FxRate> complete = new ArrayList<>(pairs.values());
+
+        FxRateSnapshot uploaded = transactionTemplate.execute(status -> {
+            long version = jdbcTemplate.queryForObject(NEXT_VERSION_SQL, Map.of(), Long.class);
+            Instant uploadedAt = Instant.now();
+            SqlParameterSource[] batch = complete.stream()
+                    .map(rate -> new MapSqlParameterSource()
+                            .addValue("version", version)
+                            .addValue("base", rate.base().name())
+                            .addValue("quote", rate.quote().name())
+                            .addValue("rate", rate.rate())
+                            .addValue("uploadedAt", Timestamp.from(uploadedAt)))
+                    .toArray(SqlParameterSource[]::new);
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+            return new FxRateSnapshot(version, uploadedAt, complete);
+        });
+        install(uploaded);
+        log.info("FX rates version {} uploaded with {} pairs", uploaded.version(), complete.size());
+        return uploaded;
+    }
+
+    // дешёвая проверка версии, набор курсов читается только при её смене
+    @PostConstruct
+    public void refresh() {
+        long latest = jdbcTemplate.queryForObject(LATEST_VERSION_SQL, Map.of(), Long.class);
+        if (latest <= snapshot.get().version()) {
+            return;
+        }
+        List<FxRate> rates = new ArrayList<>();
+        Instant[] uploadedAt = new Instant[1];
+        jdbcTemplate.query(LOAD_SQL, Map.of("version", latest), rs -> {
+            rates.add(new FxRate(
+                    CardCurrency.valueOf(rs.getString("base_currency")),
+                    CardCurrency.valueOf(rs.getString("quote_currency")),
+                    rs.getBigDecimal("rate")
+            ));
+            uploadedAt[0] = rs.getTimestamp("uploaded_at").toInstant();
+        });
+        install(new FxRateSnapshot(latest, uploadedAt[0], rates));
+        log.info("FX rates version {} loaded with {} pairs", latest, rates.size());
+    }
+
+    private void install(FxRateSnapshot next) {
+        snapshot.accumulateAndGet(next, (current, candidate) -> candidate.version() > current.version() ? candidate : current);
+    }
+}
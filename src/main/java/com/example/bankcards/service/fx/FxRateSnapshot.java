@@ -0,0 +1,63 @@
+package com.example.bankcards.service.fx;
+
+import com.example.bankcards.util.enums.CardCurrency;
+import com.example.bankcards.util.money.Money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.List;
+
+// Неизменяемый набор курсов одной версии. Курсы лежат в матрице по ordinal валют,
+// поиск курса на переводе - два обращения к массиву
+public final class FxRateSnapshot {
+
+    // объявлено до EMPTY: иначе пустой снимок построится с матрицей нулевой длины
+    private static final int CURRENCIES = CardCurrency.values().length;
+
+    public static final FxRateSnapshot EMPTY = new FxRateSnapshot(0, null, List.of());
+
+    private final long version;
+    private final Instant uploadedAt;
+    private final List<FxRate> rates;
+    private final BigDecimal[] matrix = new BigDecimal[CURRENCIES * CURRENCIES];
+
+    public FxRateSnapshot(long version, Instant uploadedAt, List<FxRate> rates) {
+        this.version = version;
+        this.uploadedAt = uploadedAt;
+        this.rates = List.copyOf(rates);
+        for (FxRate rate : rates) {
+            matrix[index(rate.base(), rate.quote())] = rate.rate();
+        }
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public Instant uploadedAt() {
+        return uploadedAt;
+    }
+
+    public List<FxRate> rates() {
+        return rates;
+    }
+
+    public BigDecimal rate(CardCurrency base, CardCurrency quote) {
+        return matrix[index(base, quote)];
+    }
+
+    // null - курса для пары в этой версии нет
+    public FxConversion convert(Money amount, CardCurrency base, CardCurrency quote) {
+        BigDecimal rate = rate(base, quote);
+        if (rate == null) {
+            return null;
+        }
+        Money credited = Money.of(amount.toBigDecimal().multiply(rate).setScale(Money.SCALE, RoundingMode.HALF_EVEN));
+        return new FxConversion(version, base, quote, rate, amount, credited);
+    }
+
+    private static int index(CardCurrency base, CardCurrency quote) {
+        return base.ordinal() * CURRENCIES + quote.ordinal();
+    }
+}
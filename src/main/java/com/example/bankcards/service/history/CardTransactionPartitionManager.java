@@ -0,0 +1,125 @@
+package com.example.bankcards.service.history;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Месячные секции card_transaction: создаются заранее и удаляются целиком по истечении хранения.
+// Строки за месяц без секции попадают в секцию по умолчанию; при создании секции месяца они переносятся в неё
+@Component
+@Slf4j
+public class CardTransactionPartitionManager {
+
+    public static final String DEFAULT_PARTITION = "card_transaction_default";
+
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("'card_transaction_y'yyyy'm'MM");
+    private static final Pattern NAME_PATTERN = Pattern.compile("card_transaction_y(\\d{4})m(\\d{2})");
+    private static final String LIST_PARTITIONS_SQL = """
+            select child.relname from pg_inherits
+            join pg_class parent on parent.oid = pg_inherits.inhparent
+            join pg_class child on child.oid = pg_inherits.inhrelid
+            where parent.relname = 'card_transaction'
+            """;
+    private static final String DEFAULT_ROWS_SQL = "select count(*) from " + DEFAULT_PARTITION;
+    private static final String DEFAULT_ROWS_IN_RANGE_SQL =
+            "select exists (select 1 from " + DEFAULT_PARTITION + " where created_at >= ? and created_at < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AtomicLong defaultRows = new AtomicLong();
+
+    public CardTransactionPartitionManager(JdbcTemplate jdbcTemplate,
+                                           PlatformTransactionManager transactionManager,
+                                           MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        meterRegistry.gauge("card.history.default-partition.rows", defaultRows);
+    }
+
+    // секции на текущий месяц и monthsAhead следующих
+    public int createAhead(YearMonth current, int monthsAhead) {
+        int created = 0;
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            String name = month.format(NAME_FORMAT);
+            if (existing().contains(name)) {
+                continue;
+            }
+            OffsetDateTime from = month.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+            OffsetDateTime to = from.plusMonths(1);
+            String bounds = String.format("for values from ('%s 00:00:00+00') to ('%s 00:00:00+00')",
+                    month.atDay(1), month.plusMonths(1).atDay(1));
+            if (Boolean.TRUE.equals(jdbcTemplate.queryForObject(DEFAULT_ROWS_IN_RANGE_SQL, Boolean.class, from, to))) {
+                moveFromDefault(name, bounds, from, to);
+            } else {
+                jdbcTemplate.execute("create table if not exists " + name + " partition of card_transaction " + bounds);
+            }
+            log.info("Partition {} created", name);
+            created++;
+        }
+        return created;
+    }
+
+    // удаление секции - это DETACH и DROP TABLE, а не построчный DELETE. DETACH CONCURRENTLY
+    // при секции по умолчанию недоступен, обычный DETACH коротко блокирует таблицу целиком
+    public int dropOlderThan(YearMonth oldestKept) {
+        int dropped = 0;
+        for (String name : existing()) {
+            // секция по умолчанию не месячная и хранением не удаляется
+            if (DEFAULT_PARTITION.equals(name)) {
+                continue;
+            }
+            Matcher matcher = NAME_PATTERN.matcher(name);
+            if (!matcher.matches()) {
+                continue;
+            }
+            YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+            if (month.isBefore(oldestKept)) {
+                jdbcTemplate.execute("alter table card_transaction detach partition " + name);
+                jdbcTemplate.execute("drop table " + name);
+                log.info("Partition {} dropped by retention", name);
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    // строки в секции по умолчанию значат, что секции не созданы заранее; значение уходит в метрику
+    public long countDefaultRows() {
+        Long rows = jdbcTemplate.queryForObject(DEFAULT_ROWS_SQL, Long.class);
+        defaultRows.set(rows != null ? rows : 0);
+        if (defaultRows.get() > 0) {
+            log.warn("{} rows of card_transaction landed in the default partition", defaultRows.get());
+        }
+        return defaultRows.get();
+    }
+
+    // секцию нельзя создать поверх строк из секции по умолчанию: таблица заполняется отдельно
+    // и подключается в той же транзакции, после переноса проверка секции по умолчанию проходит
+    private void moveFromDefault(String name, String bounds, OffsetDateTime from, OffsetDateTime to) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.execute("create table " + name + " (like card_transaction including defaults including constraints)");
+            int moved = jdbcTemplate.update("insert into " + name + " select * from " + DEFAULT_PARTITION
+                    + " where created_at >= ? and created_at < ?", from, to);
+            jdbcTemplate.update("delete from " + DEFAULT_PARTITION + " where created_at >= ? and created_at < ?", from, to);
+            jdbcTemplate.execute("alter table card_transaction attach partition " + name + " " + bounds);
+            log.warn("{} rows moved from the default partition to {}", moved, name);
+        });
+    }
+
+    private List<String> existing() {
+        return jdbcTemplate.queryForList(LIST_PARTITIONS_SQL, String.class);
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.bankcards.service.history;
+
+import com.example.bankcards.dto.response.card.CardTransactionPageResponse;
+import com.example.bankcards.dto.response.card.CardTransactionResponse;
+import com.example.bankcards.service.ledger.LedgerPosting;
+import com.example.bankcards.service.ledger.LedgerService;
+import com.example.bankcards.util.constants.ErrorMessages;
+import com.example.bankcards.util.enums.CardTransactionType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// История операций по картам в card_transaction, секционированной по месяцам.
+// Строки выводятся из проводок той же операции, поэтому пишутся везде, где пишется журнал проводок
+@Component
+@RequiredArgsConstructor
+public class CardTransactionService {
+
+    private static final String INSERT_SQL = """
+            insert into card_transaction (id, transaction_id, card_id, counterpart_card_id, type, amount, created_at)
+            values (:id, :transactionId, :cardId, :counterpartCardId, :type, :amount, :createdAt)
+            """;
+    private static final String FIRST_PAGE_SQL = """
+            select id, counterpart_card_id, type, amount, created_at from card_transaction
+            where card_id = :cardId
+            order by created_at desc, id desc
+            limit :limit
+            """;
+    // сравнение строк (created_at, id) идёт по индексу, глубокая страница стоит как первая
+    private static final String NEXT_PAGE_SQL = """
+            select id, counterpart_card_id, type, amount, created_at from card_transaction
+            where card_id = :cardId and (created_at, id) < (:createdAt, :id)
+            order by created_at desc, id desc
+            limit :limit
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void record(List<LedgerPosting> postings) {
+        Map<UUID, List<LedgerPosting>> operations = new LinkedHashMap<>();
+        postings.forEach(posting -> operations.computeIfAbsent(posting.transactionId(), id -> new ArrayList<>(2)).add(posting));
+
+        List<SqlParameterSource> rows = new ArrayList<>(postings.size());
+        for (List<LedgerPosting> operation : operations.values()) {
+            for (LedgerPosting posting : operation) {
+                if (LedgerService.isSystemAccount(posting.accountId())) {
+                    continue;
+                }
+                rows.add(toRow(posting, operation));
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows.toArray(SqlParameterSource[]::new));
+        }
+    }
+
+    public CardTransactionPageResponse page(UUID cardId, String cursor, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("cardId", cardId)
+                .addValue("limit", limit);
+        String sql = FIRST_PAGE_SQL;
+        if (cursor != null) {
+            Cursor position = decode(cursor);
+            params.addValue("createdAt", Timestamp.from(position.createdAt()))
+                    .addValue("id", position.id());
+            sql = NEXT_PAGE_SQL;
+        }
+        List<CardTransactionResponse> items = jdbcTemplate.query(sql, params, (rs, rowNum) -> new CardTransactionResponse(
+                rs.getObject("id", UUID.class),
+                CardTransactionType.valueOf(rs.getString("type")),
+                rs.getBigDecimal("amount"),
+                rs.getObject("counterpart_card_id", UUID.class),
+                rs.getTimestamp("created_at").toInstant().atOffset(ZoneOffset.UTC)
+        ));
+        String nextCursor = null;
+        if (items.size() == limit) {
+            CardTransactionResponse last = items.get(items.size() - 1);
+            nextCursor = encode(new Cursor(last.getCreatedAt().toInstant(), last.getId()));
+        }
+        return new CardTransactionPageResponse(items, nextCursor);
+    }
+
+    private SqlParameterSource toRow(LedgerPosting posting, List<LedgerPosting> operation) {
+        CardTransactionType type;
+        UUID counterpart = null;
+        if (posting.operation().equals(LedgerService.TRANSFER)) {
+            type = posting.amount().signum() < 0 ? CardTransactionType.TRANSFER_OUT : CardTransactionType.TRANSFER_IN;
+            counterpart = operation.stream()
+                    .filter(other -> other != posting && !LedgerService.isSystemAccount(other.accountId()))
+                    .map(LedgerPosting::accountId)
+                    .findFirst()
+                    .orElse(null);
+        } else if (posting.operation().equals(LedgerService.CAPTURE)) {
+            type = CardTransactionType.CAPTURE;
+        } else {
+            type = CardTransactionType.DEPOSIT;
+        }
+        return new MapSqlParameterSource()
+                .addValue("id", UUID.randomUUID())
+                .addValue("transactionId", posting.transactionId())
+                .addValue("cardId", posting.accountId())
+                .addValue("counterpartCardId", counterpart)
+                .addValue("type", type.name())
+                .addValue("amount", posting.amount().abs().toBigDecimal())
+                // точность PostgreSQL - микросекунды, курсор должен совпадать с хранимым значением
+                .addValue("createdAt", Timestamp.from(posting.createdAt().truncatedTo(ChronoUnit.MICROS)));
+    }
+
+    private static String encode(Cursor cursor) {
+        long micros = ChronoUnit.MICROS.between(Instant.EPOCH, cursor.createdAt());
+        String raw = micros + ":" + cursor.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            long micros = Long.parseLong(raw.substring(0, separator));
+            return new Cursor(Instant.EPOCH.plus(micros, ChronoUnit.MICROS), UUID.fromString(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ErrorMessages.INVALID_CURSOR);
+        }
+    }
+
+    private record Cursor(Instant createdAt, UUID id) {
+    }
+}
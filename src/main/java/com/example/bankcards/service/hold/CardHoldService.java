@@ -0,0 +1,198 @@
+package com.example.bankcards.service.hold;
+
+import com.example.bankcards.dto.response.card.CardHoldResponse;
+import com.example.bankcards.service.ledger.LedgerService;
+import com.example.bankcards.util.enums.CardStatus;
+import com.example.bankcards.util.enums.HoldStatus;
+import com.example.bankcards.util.money.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+
+// Удержания: сумма резервируется в card.held_balance и списывается или возвращается позже.
+// Каждая операция - один условный UPDATE, строка card блокируется только на время этого запроса,
+// а не на всё окно авторизации
+@Component
+@Slf4j
+public class CardHoldService {
+
+    // резерв и запись удержания одним запросом; доступный остаток проверяет сам UPDATE
+    private static final String PLACE_SQL = """
+            with reserved as (
+                update card set held_balance = held_balance + :amount, version = version + 1
+                where id = :cardId and owner = :owner and status = :status and is_deleted = false
+                  and balance - held_balance >= :amount
+                returning id
+            )
+            insert into card_hold (id, card_id, amount, status, created_at, expires_at)
+            select :id, id, :amount, 'ACTIVE', :now, :expiresAt from reserved
+            """;
+    private static final String CAPTURE_SQL = """
+            with settled as (
+                update card_hold h set status = 'CAPTURED', completed_at = :now
+                from card c
+                where h.id = :holdId and h.card_id = :cardId and h.status = 'ACTIVE' and h.expires_at > :now
+                  and c.id = h.card_id and c.owner = :owner and c.is_deleted = false
+                returning h.card_id, h.amount, h.expires_at
+            ), charged as (
+                update card c set balance = c.balance - settled.amount,
+                    held_balance = c.held_balance - settled.amount, version = c.version + 1
+                from settled
+                where c.id = settled.card_id
+                returning c.id
+            )
+            select settled.amount, settled.expires_at from settled join charged on charged.id = settled.card_id
+            """;
+    // просроченное, но ещё не вычищенное удержание отпустить можно
+    private static final String RELEASE_SQL = """
+            with settled as (
+                update card_hold h set status = 'RELEASED', completed_at = :now
+                from card c
+                where h.id = :holdId and h.card_id = :cardId and h.status = 'ACTIVE'
+                  and c.id = h.card_id and c.owner = :owner and c.is_deleted = false
+                returning h.card_id, h.amount, h.expires_at
+            ), unheld as (
+                update card c set held_balance = c.held_balance - settled.amount, version = c.version + 1
+                from settled
+                where c.id = settled.card_id
+                returning c.id
+            )
+            select settled.amount, settled.expires_at from settled join unheld on unheld.id = settled.card_id
+            """;
+    private static final String FIND_SQL = """
+            select h.amount, h.status, h.expires_at from card_hold h
+            join card c on c.id = h.card_id
+            where h.id = :holdId and h.card_id = :cardId and c.owner = :owner and c.is_deleted = false
+            """;
+    // SKIP LOCKED: удержания, которые сейчас списываются или отпускаются, достанутся следующему проходу
+    private static final String EXPIRE_SQL = """
+            update card_hold set status = 'EXPIRED', completed_at = :now
+            where id in (
+                select id from card_hold
+                where status = 'ACTIVE' and expires_at <= :now
+                order by expires_at
+                limit :batch
+                for update skip locked
+            )
+            returning card_id, amount
+            """;
+    private static final String UNHOLD_SQL =
+            "update card set held_balance = held_balance - :amount, version = version + 1 where id = :cardId";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LedgerService ledgerService;
+
+    public CardHoldService(NamedParameterJdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager,
+                           LedgerService ledgerService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ledgerService = ledgerService;
+    }
+
+    // пусто - карта не найдена, не активна или доступного остатка не хватает
+    public Optional<CardHoldResponse> place(UUID cardId, UUID ownerId, Money amount, Duration ttl) {
+        UUID id = UUID.randomUUID();
+        Instant now = Instant.now();
+        Instant expiresAt = now.plus(ttl);
+        int inserted = jdbcTemplate.update(PLACE_SQL, new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("cardId", cardId)
+                .addValue("owner", ownerId)
+                .addValue("status", CardStatus.ACTIVE.ordinal())
+                .addValue("amount", amount.toBigDecimal())
+                .addValue("now", Timestamp.from(now))
+                .addValue("expiresAt", Timestamp.from(expiresAt)));
+        if (inserted == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new CardHoldResponse(id, cardId, amount, HoldStatus.ACTIVE, expiresAt.atOffset(ZoneOffset.UTC)));
+    }
+
+    // списание удержания и проводки по нему в одной транзакции
+    public Optional<CardHoldResponse> capture(UUID cardId, UUID holdId, UUID ownerId) {
+        return transactionTemplate.execute(status -> {
+            Instant now = Instant.now();
+            Optional<CardHoldResponse> captured = settle(CAPTURE_SQL, cardId, holdId, ownerId, now, HoldStatus.CAPTURED);
+            captured.ifPresent(hold -> ledgerService.write(LedgerService.capture(cardId, hold.getAmount(), now)));
+            return captured;
+        });
+    }
+
+    public Optional<CardHoldResponse> release(UUID cardId, UUID holdId, UUID ownerId) {
+        return settle(RELEASE_SQL, cardId, holdId, ownerId, Instant.now(), HoldStatus.RELEASED);
+    }
+
+    public Optional<CardHoldResponse> find(UUID cardId, UUID holdId, UUID ownerId) {
+        List<CardHoldResponse> found = jdbcTemplate.query(FIND_SQL,
+                Map.of("holdId", holdId, "cardId", cardId, "owner", ownerId),
+                (rs, rowNum) -> new CardHoldResponse(
+                        holdId,
+                        cardId,
+                        Money.of(rs.getBigDecimal("amount")),
+                        HoldStatus.valueOf(rs.getString("status")),
+                        rs.getTimestamp("expires_at").toInstant().atOffset(ZoneOffset.UTC)
+                ));
+        return found.stream().findFirst();
+    }
+
+    // одна пачка - одна транзакция; held_balance карт уменьшается в порядке id, как блокируют переводы
+    public int expire(int batchSize) {
+        int total = 0;
+        int expired;
+        do {
+            expired = transactionTemplate.execute(status -> expireBatch(batchSize));
+            total += expired;
+        } while (expired == batchSize);
+        return total;
+    }
+
+    private int expireBatch(int batchSize) {
+        // строковый порядок UUID совпадает с порядком uuid в PostgreSQL, в отличие от UUID.compareTo
+        Map<UUID, BigDecimal> released = new TreeMap<>(Comparator.comparing(UUID::toString));
+        List<Map.Entry<UUID, BigDecimal>> holds = jdbcTemplate.query(EXPIRE_SQL,
+                Map.of("now", Timestamp.from(Instant.now()), "batch", batchSize),
+                (rs, rowNum) -> Map.entry(rs.getObject("card_id", UUID.class), rs.getBigDecimal("amount")));
+        holds.forEach(hold -> released.merge(hold.getKey(), hold.getValue(), BigDecimal::add));
+        if (!released.isEmpty()) {
+            SqlParameterSource[] updates = released.entrySet().stream()
+                    .map(entry -> new MapSqlParameterSource()
+                            .addValue("cardId", entry.getKey())
+                            .addValue("amount", entry.getValue()))
+                    .toArray(SqlParameterSource[]::new);
+            jdbcTemplate.batchUpdate(UNHOLD_SQL, updates);
+        }
+        return holds.size();
+    }
+
+    private Optional<CardHoldResponse> settle(String sql, UUID cardId, UUID holdId, UUID ownerId,
+                                              Instant now, HoldStatus newStatus) {
+        List<CardHoldResponse> settled = jdbcTemplate.query(sql,
+                Map.of("holdId", holdId, "cardId", cardId, "owner", ownerId, "now", Timestamp.from(now)),
+                (rs, rowNum) -> new CardHoldResponse(
+                        holdId,
+                        cardId,
+                        Money.of(rs.getBigDecimal("amount")),
+                        newStatus,
+                        rs.getTimestamp("expires_at").toInstant().atOffset(ZoneOffset.UTC)
+                ));
+        return settled.stream().findFirst();
+    }
+}
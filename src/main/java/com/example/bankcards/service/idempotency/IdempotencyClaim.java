@@ -0,0 +1,31 @@
+package com.example.bankcards.service.idempotency;
+
+import java.util.UUID;
+
+// захваченный запросом ключ; ответ в нём появляется после коммита транзакции операции
+public final class IdempotencyClaim {
+    private final UUID userId;
+    private final String idempotencyKey;
+    private volatile String committedBody;
+
+    IdempotencyClaim(UUID userId, String idempotencyKey) {
+        this.userId = userId;
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    UUID userId() {
+        return userId;
+    }
+
+    String idempotencyKey() {
+        return idempotencyKey;
+    }
+
+    String committedBody() {
+        return committedBody;
+    }
+
+    void committed(String body) {
+        this.committedBody = body;
+    }
+}
@@ -0,0 +1,256 @@
+package com.example.bankcards.service.idempotency;
+
+import com.example.bankcards.util.constants.ErrorMessages;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+// Идемпотентность операций с деньгами: ключ (пользователь, Idempotency-Key) сначала захватывается
+// строкой idempotency_record, ответ отдаётся на повторы. Операция пишет ответ через storeResponse
+// в своей транзакции, поэтому ответ и изменение баланса фиксируются или откатываются вместе.
+// Ключ освобождается только при отказе 4xx, когда операция точно не зафиксирована; при 5xx
+// и неизвестном исходе он остаётся занятым, и повтор не проведёт деньги второй раз.
+// Перед таблицей стоит ограниченный LRU, повтор из кэша не ходит в БД вовсе
+@Component
+@Slf4j
+public class IdempotencyService {
+
+    private static final String FIND_SQL = """
+            select request_hash, response_body, created_at from idempotency_record
+            where user_id = :userId and idempotency_key = :key
+            """;
+    private static final String CLAIM_SQL = """
+            insert into idempotency_record (user_id, idempotency_key, request_hash, created_at)
+            values (:userId, :key, :requestHash, :createdAt)
+            on conflict do nothing
+            """;
+    private static final String COMPLETE_SQL = """
+            update idempotency_record set response_body = :responseBody
+            where user_id = :userId and idempotency_key = :key
+            """;
+    private static final String RELEASE_SQL =
+            "delete from idempotency_record where user_id = :userId and idempotency_key = :key";
+    // удаляем пачками по ctid, чтобы не держать одну огромную транзакцию
+    private static final String PURGE_SQL = """
+            delete from idempotency_record where ctid in (
+                select ctid from idempotency_record where created_at < :cutoff limit :batch
+            )
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Map<Key, StoredResponse> cache;
+    private final Duration ttl;
+    private final ThreadLocal<IdempotencyClaim> currentClaim = new ThreadLocal<>();
+
+    public IdempotencyService(NamedParameterJdbcTemplate jdbcTemplate,
+                              ObjectMapper objectMapper,
+                              MeterRegistry meterRegistry,
+                              @Value("${card.idempotency.cache-size:10000}") int cacheSize,
+                              @Value("${card.idempotency.ttl-hours:24}") long ttlHours) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.ttl = Duration.ofHours(ttlHours);
+        this.cache = new LinkedHashMap<>(cacheSize, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, StoredResponse> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public <T> T execute(UUID userId, String idempotencyKey, String request, Class<T> responseType, Supplier<T> action) {
+        Key key = new Key(userId, idempotencyKey);
+        String requestHash = hash(request);
+
+        StoredResponse stored = fromCache(key);
+        if (stored != null) {
+            meterRegistry.counter("card.idempotency.replays", "source", "cache").increment();
+            return replay(stored, requestHash, responseType);
+        }
+
+        Instant now = Instant.now();
+        Map<String, Object> params = Map.of(
+                "userId", userId,
+                "key", idempotencyKey,
+                "requestHash", requestHash,
+                "createdAt", Timestamp.from(now)
+        );
+        if (jdbcTemplate.update(CLAIM_SQL, params) == 0) {
+            stored = load(key);
+            if (stored == null) {
+                // запись успели вычистить между вставкой и чтением
+                throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.IDEMPOTENT_REQUEST_IN_PROGRESS);
+            }
+            if (stored.responseBody() != null) {
+                putToCache(key, stored);
+                meterRegistry.counter("card.idempotency.replays", "source", "database").increment();
+            }
+            return replay(stored, requestHash, responseType);
+        }
+
+        IdempotencyClaim claim = new IdempotencyClaim(userId, idempotencyKey);
+        currentClaim.set(claim);
+        T response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            if (claim.committedBody() == null && rejectedBeforeCommit(e)) {
+                jdbcTemplate.update(RELEASE_SQL, params);
+            } else {
+                log.warn("Idempotency key of user id={} kept after failed request, operation may be committed", userId);
+            }
+            throw e;
+        } finally {
+            currentClaim.remove();
+        }
+        String body = claim.committedBody();
+        if (body == null) {
+            // операция без транзакции БД (режим JOURNAL) уже зафиксирована в журнале, ответ пишем следом
+            body = serialize(response);
+            jdbcTemplate.update(COMPLETE_SQL, Map.of("userId", userId, "key", idempotencyKey, "responseBody", body));
+        }
+        putToCache(key, new StoredResponse(requestHash, body, now));
+        return response;
+    }
+
+    // ключ, захваченный запросом в этом потоке; null - запрос без Idempotency-Key
+    public IdempotencyClaim currentClaim() {
+        return currentClaim.get();
+    }
+
+    public void storeResponse(Object response) {
+        storeResponse(currentClaim.get(), response);
+    }
+
+    // вызывается внутри транзакции, меняющей баланс, в том числе из потока шарда BalanceEngine
+    public void storeResponse(IdempotencyClaim claim, Object response) {
+        if (claim == null) {
+            return;
+        }
+        String body = serialize(response);
+        jdbcTemplate.update(COMPLETE_SQL, Map.of(
+                "userId", claim.userId(),
+                "key", claim.idempotencyKey(),
+                "responseBody", body
+        ));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            claim.committed(body);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                claim.committed(body);
+            }
+        });
+    }
+
+    public int purgeExpired(int batchSize) {
+        Timestamp cutoff = Timestamp.from(Instant.now().minus(ttl));
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(PURGE_SQL, Map.of("cutoff", cutoff, "batch", batchSize));
+            total += deleted;
+        } while (deleted == batchSize);
+        synchronized (cache) {
+            cache.values().removeIf(stored -> stored.createdAt().isBefore(cutoff.toInstant()));
+        }
+        return total;
+    }
+
+    // отказ 4xx бросается до коммита; 5xx - таймаут, сбой коммита или журнала - исход не гарантирует
+    private static boolean rejectedBeforeCommit(RuntimeException e) {
+        return e instanceof ResponseStatusException status && status.getStatusCode().is4xxClientError();
+    }
+
+    private <T> T replay(StoredResponse stored, String requestHash, Class<T> responseType) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, ErrorMessages.IDEMPOTENCY_KEY_REUSED);
+        }
+        if (stored.responseBody() == null) {
+            // первый запрос ещё выполняется или упал, не успев сохранить ответ
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.IDEMPOTENT_REQUEST_IN_PROGRESS);
+        }
+        try {
+            return objectMapper.readValue(stored.responseBody(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response cannot be read", e);
+        }
+    }
+
+    private StoredResponse fromCache(Key key) {
+        StoredResponse stored;
+        synchronized (cache) {
+            stored = cache.get(key);
+        }
+        if (stored != null && stored.createdAt().isBefore(Instant.now().minus(ttl))) {
+            return null;
+        }
+        return stored;
+    }
+
+    private void putToCache(Key key, StoredResponse stored) {
+        synchronized (cache) {
+            cache.put(key, stored);
+        }
+    }
+
+    private StoredResponse load(Key key) {
+        List<StoredResponse> found = jdbcTemplate.query(FIND_SQL,
+                Map.of("userId", key.userId(), "key", key.idempotencyKey()),
+                (rs, rowNum) -> new StoredResponse(
+                        rs.getString("request_hash"),
+                        rs.getString("response_body"),
+                        rs.getTimestamp("created_at").toInstant()
+                ));
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    private String serialize(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response cannot be stored for idempotent replay", e);
+        }
+    }
+
+    private static String hash(String request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(request.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Key(UUID userId, String idempotencyKey) {
+    }
+
+    private record StoredResponse(String requestHash, String responseBody, Instant createdAt) {
+    }
+}
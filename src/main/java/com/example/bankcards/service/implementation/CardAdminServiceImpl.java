@@ -1,37 +1,72 @@
 package com.example.bankcards.service.implementation;
 
+import com.example.bankcards.dto.request.CardLookupRequest;
 import com.example.bankcards.dto.request.CreateCardRequest;
+import com.example.bankcards.dto.request.FxRateUploadRequest;
+import com.example.bankcards.dto.request.SpendingLimitRequest;
+import com.example.bankcards.dto.response.card.CardBalanceAtResponse;
+import com.example.bankcards.dto.response.card.CardNumberRotationResponse;
 import com.example.bankcards.dto.response.card.CardResponse;
 import com.example.bankcards.dto.response.card.CardWithOwnerResponse;
+import com.example.bankcards.dto.response.card.FxRateResponse;
+import com.example.bankcards.dto.response.card.FxRatesResponse;
 import com.example.bankcards.dto.response.card.ListCardResponse;
+import com.example.bankcards.dto.response.card.SpendingLimitResponse;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.UserModel;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.cardnumber.CardNumberBackfillService;
+import com.example.bankcards.service.cardnumber.CardNumberPool;
+import com.example.bankcards.service.cardnumber.CardNumberRotationService;
+import com.example.bankcards.service.cardnumber.CardNumberRotationState;
+import com.example.bankcards.service.fx.FxRate;
+import com.example.bankcards.service.fx.FxRateService;
+import com.example.bankcards.service.fx.FxRateSnapshot;
 import com.example.bankcards.service.interfaces.card.CardAdminService;
+import com.example.bankcards.service.limits.SpendingLimitService;
+import com.example.bankcards.service.limits.SpendingUsage;
+import com.example.bankcards.service.snapshot.CardBalanceSnapshotService;
+import com.example.bankcards.service.striping.StripedBalanceService;
 import com.example.bankcards.util.components.CardNumberUtil;
+import com.example.bankcards.util.components.GeneratedCardNumber;
 import com.example.bankcards.util.constants.ErrorMessages;
+import com.example.bankcards.util.enums.CardCurrency;
 import com.example.bankcards.util.enums.CardStatus;
 import com.example.bankcards.util.enums.RoleType;
 import com.example.bankcards.util.mappers.CardMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class CardAdminServiceImpl implements CardAdminService {
+    private static final int MAX_NUMBER_ATTEMPTS = 5;
+    private static final String NUMBER_HASH_INDEX = "uq_card_number_hash";
+
     private final CardRepository cardRepository;
     private final CardMapper cardMapper;
     private final UserRepository userRepository;
     private final CardNumberUtil cardNumberUtil;
+    private final StripedBalanceService stripedBalanceService;
+    private final CardBalanceSnapshotService snapshotService;
+    private final SpendingLimitService spendingLimitService;
+    private final FxRateService fxRateService;
+    private final CardNumberRotationService cardNumberRotationService;
+    private final CardNumberPool cardNumberPool;
+    private final CardNumberBackfillService cardNumberBackfillService;
 
     @Override
     public void delete(UUID id) {
@@ -63,6 +98,98 @@ public class CardAdminServiceImpl implements CardAdminService {
         return cardMapper.toResponseWithOwner(card, cardNumberUtil);
     }
 
+    @Override
+    public CardWithOwnerResponse setStriping(UUID id, boolean enabled) {
+        Card card = cardRepository.findByIdAndIsDeleted(id, false)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.CARD_NOT_FOUND));
+        if (!card.getStriped().equals(enabled)) {
+            if (enabled) {
+                stripedBalanceService.enable(id);
+            } else {
+                stripedBalanceService.disable(id);
+            }
+            // баланс и флаг менялись в обход JPA, перечитываем
+            card = cardRepository.findByIdAndIsDeleted(id, false)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.CARD_NOT_FOUND));
+        }
+        log.info("Striping for card id={} set to {}", id, enabled);
+        return cardMapper.toResponseWithOwner(card, cardNumberUtil);
+    }
+
+    @Override
+    public CardBalanceAtResponse getBalanceAt(UUID id, OffsetDateTime at) {
+        if (at.isAfter(OffsetDateTime.now())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ErrorMessages.BALANCE_DATE_IN_FUTURE);
+        }
+        // удалённые карты тоже отдаём: вопрос о прошлом остатке от удаления не зависит
+        if (!cardRepository.existsById(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.CARD_NOT_FOUND);
+        }
+        CardBalanceSnapshotService.PointInTimeBalance balance = snapshotService.balanceAt(id, at.toInstant());
+        return new CardBalanceAtResponse(at, balance.balance(), balance.snapshotDate());
+    }
+
+    @Override
+    public SpendingLimitResponse getCardLimits(UUID id) {
+        findCard(id);
+        return toLimitResponse(id);
+    }
+
+    @Override
+    public SpendingLimitResponse setCardLimits(UUID id, SpendingLimitRequest request) {
+        findCard(id);
+        spendingLimitService.setLimits(id, request.getDailyLimit(), request.getMonthlyLimit());
+        log.info("Spending limits of card id={} set: daily={}, monthly={}", id, request.getDailyLimit(), request.getMonthlyLimit());
+        return toLimitResponse(id);
+    }
+
+    @Override
+    public SpendingLimitResponse getUserLimits(UUID userId) {
+        findUser(userId);
+        return toLimitResponse(userId);
+    }
+
+    @Override
+    public SpendingLimitResponse setUserLimits(UUID userId, SpendingLimitRequest request) {
+        findUser(userId);
+        spendingLimitService.setLimits(userId, request.getDailyLimit(), request.getMonthlyLimit());
+        log.info("Spending limits of user id={} set: daily={}, monthly={}", userId, request.getDailyLimit(), request.getMonthlyLimit());
+        return toLimitResponse(userId);
+    }
+
+    @Override
+    public FxRatesResponse getFxRates() {
+        return toFxRatesResponse(fxRateService.current());
+    }
+
+    @Override
+    public FxRatesResponse uploadFxRates(FxRateUploadRequest request) {
+        FxRateSnapshot snapshot = fxRateService.upload(request.getRates().stream()
+                .map(rate -> new FxRate(rate.getBaseCurrency(), rate.getQuoteCurrency(), rate.getRate()))
+                .toList());
+        return toFxRatesResponse(snapshot);
+    }
+
+    @Override
+    public CardNumberRotationResponse getNumberRotation() {
+        return toRotationResponse(cardNumberRotationService.state());
+    }
+
+    @Override
+    public CardNumberRotationResponse startNumberRotation() {
+        return toRotationResponse(cardNumberRotationService.start());
+    }
+
+    @Override
+    public CardNumberRotationResponse pauseNumberRotation() {
+        return toRotationResponse(cardNumberRotationService.pause());
+    }
+
+    @Override
+    public CardNumberRotationResponse resumeNumberRotation() {
+        return toRotationResponse(cardNumberRotationService.resume());
+    }
+
     @Override
     public CardWithOwnerResponse create(CreateCardRequest request) {
         UserModel user = userRepository.findByIdAndIsDeleted(request.getOwner(), false)
@@ -73,21 +200,41 @@ public class CardAdminServiceImpl implements CardAdminService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ErrorMessages.ADMIN_OWNER_CARD_ERROR);
         }
 
-        String encryptCardNumber;
-        do {
-            encryptCardNumber = cardNumberUtil.getRandomEncryptedCardNumber();
+        // номер берётся готовым из пула; уникальность всё равно проверяет уникальный индекс,
+        // при совпадении вставка повторяется со следующим номером. Индекс видит старые карты
+        // только после заполнения их number_hash
+        cardNumberBackfillService.ensureComplete();
+        Card card;
+        for (int attempt = 1; ; attempt++) {
+            GeneratedCardNumber cardNumber = cardNumberPool.take();
+            try {
+                card = cardRepository.saveAndFlush(Card.builder()
+                        .owner(user)
+                        .encryptNumber(cardNumber.encrypted())
+                        .last4(cardNumber.last4())
+                        .numberHash(cardNumber.numberHash())
+                        .currency(request.getCurrency() != null ? request.getCurrency() : CardCurrency.RUB)
+                        .build());
+                break;
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= MAX_NUMBER_ATTEMPTS || !isNumberCollision(e)) {
+                    throw e;
+                }
+                log.warn("Generated card number already exists, attempt {}", attempt);
+            }
         }
-        while (cardRepository.existsByEncryptNumber(encryptCardNumber));
-
-        Card card = Card.builder()
-                .owner(user)
-                .encryptNumber(encryptCardNumber)
-                .build();
-        card = cardRepository.save(card);
         log.info("Card id={} created for user id={}", card.getId(), user.getId());
         return cardMapper.toResponseWithOwner(card, cardNumberUtil);
     }
 
+    @Override
+    public CardWithOwnerResponse findByNumber(CardLookupRequest request) {
+        cardNumberBackfillService.ensureComplete();
+        Card card = cardRepository.findByNumberHashAndIsDeleted(cardNumberUtil.numberHash(request.getNumber()), false)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.CARD_NOT_FOUND));
+        return cardMapper.toResponseWithOwner(card, cardNumberUtil);
+    }
+
     @Override
     public ListCardResponse<CardWithOwnerResponse> getAll(Boolean haveBlockRequest, int page, int size) {
         Page<Card> cardPage;
@@ -107,4 +254,51 @@ public class CardAdminServiceImpl implements CardAdminService {
 
     }
 
+    private static boolean isNumberCollision(DataIntegrityViolationException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return NUMBER_HASH_INDEX.equals(violation.getConstraintName());
+            }
+        }
+        return false;
+    }
+
+    private Card findCard(UUID id) {
+        return cardRepository.findByIdAndIsDeleted(id, false)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.CARD_NOT_FOUND));
+    }
+
+    private UserModel findUser(UUID userId) {
+        return userRepository.findByIdAndIsDeleted(userId, false)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.USER_NOT_FOUND));
+    }
+
+    private SpendingLimitResponse toLimitResponse(UUID subjectId) {
+        SpendingUsage usage = spendingLimitService.usage(subjectId);
+        return new SpendingLimitResponse(subjectId, usage.dailyLimit(), usage.monthlyLimit(),
+                usage.dailyUsed(), usage.monthlyUsed());
+    }
+
+    private FxRatesResponse toFxRatesResponse(FxRateSnapshot snapshot) {
+        return new FxRatesResponse(
+                snapshot.version(),
+                snapshot.uploadedAt() == null ? null : snapshot.uploadedAt().atOffset(ZoneOffset.UTC),
+                snapshot.rates().stream()
+                        .map(rate -> new FxRateResponse(rate.base(), rate.quote(), rate.rate()))
+                        .toList()
+        );
+    }
+
+    private CardNumberRotationResponse toRotationResponse(CardNumberRotationState state) {
+        return new CardNumberRotationResponse(
+                state.status(),
+                state.targetVersion(),
+                state.activeVersion(),
+                state.lastId(),
+                state.rotated(),
+                state.failed(),
+                state.remaining(),
+                state.updatedAt() == null ? null : state.updatedAt().atOffset(ZoneOffset.UTC)
+        );
+    }
 }
@@ -1,34 +1,76 @@
 package com.example.bankcards.service.implementation;
 
+import com.example.bankcards.dto.request.BatchTransferRequest;
 import com.example.bankcards.dto.request.DepositRequest;
+import com.example.bankcards.dto.request.PlaceHoldRequest;
 import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.dto.response.card.BatchTransferItemResponse;
+import com.example.bankcards.dto.response.card.BatchTransferResponse;
 import com.example.bankcards.dto.response.card.CardBalanceResponse;
+import com.example.bankcards.dto.response.card.CardHoldResponse;
 import com.example.bankcards.dto.response.card.CardNumberResponse;
 import com.example.bankcards.dto.response.card.CardResponse;
+import com.example.bankcards.dto.response.card.CardTransactionPageResponse;
 import com.example.bankcards.dto.response.card.ListCardResponse;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.exception.BalanceOutcomeUnknownException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.projection.TransferBalances;
 import com.example.bankcards.security.CustomUserDetail;
+import com.example.bankcards.service.concurrency.CardTransactionExecutor;
+import com.example.bankcards.service.engine.BalanceEngine;
+import com.example.bankcards.service.fx.FxConversion;
+import com.example.bankcards.service.fx.FxRateService;
+import com.example.bankcards.service.history.CardTransactionService;
+import com.example.bankcards.service.hold.CardHoldService;
+import com.example.bankcards.service.idempotency.IdempotencyClaim;
+import com.example.bankcards.service.idempotency.IdempotencyService;
 import com.example.bankcards.service.interfaces.card.CardOwnerService;
+import com.example.bankcards.service.journal.JournalBalanceService;
+import com.example.bankcards.service.ledger.LedgerPosting;
+import com.example.bankcards.service.ledger.LedgerService;
+import com.example.bankcards.service.limits.SpendingLimitService;
+import com.example.bankcards.service.limits.SpendingReservation;
+import com.example.bankcards.service.screening.FraudScreeningService;
+import com.example.bankcards.service.screening.ScreeningVerdict;
+import com.example.bankcards.service.striping.StripedBalanceService;
+import com.example.bankcards.service.sweep.SweepRuleIndex;
 import com.example.bankcards.util.components.CardNumberUtil;
 import com.example.bankcards.util.constants.ErrorMessages;
+import com.example.bankcards.util.enums.BatchItemStatus;
+import com.example.bankcards.util.enums.BatchTransferMode;
 import com.example.bankcards.util.enums.CardStatus;
+import com.example.bankcards.util.enums.ConcurrencyMode;
+import com.example.bankcards.util.enums.HoldStatus;
 import com.example.bankcards.util.mappers.CardMapper;
+import com.example.bankcards.util.money.Money;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -37,30 +79,75 @@ public class CardOwnerServiceImpl implements CardOwnerService {
     private final CardRepository cardRepository;
     private final CardMapper cardMapper;
     private final CardNumberUtil cardNumberUtil;
+    private final CardTransactionExecutor transactionExecutor;
+    private final BalanceEngine balanceEngine;
+    private final JournalBalanceService journalBalanceService;
+    private final StripedBalanceService stripedBalanceService;
+    private final IdempotencyService idempotencyService;
+    private final LedgerService ledgerService;
+    private final CardTransactionService cardTransactionService;
+    private final CardHoldService cardHoldService;
+    private final SweepRuleIndex sweepRuleIndex;
+    private final SpendingLimitService spendingLimitService;
+    private final FraudScreeningService fraudScreeningService;
+    private final FxRateService fxRateService;
+
+    @Value("${card.balance.concurrency-mode:PESSIMISTIC}")
+    private ConcurrencyMode concurrencyMode = ConcurrencyMode.PESSIMISTIC;
+
+    @Value("${card.holds.default-ttl-minutes:10080}")
+    private long defaultHoldTtlMinutes = 10080;
 
     @Override
-    @Transactional
-    public CardBalanceResponse deposit(UUID cardId, DepositRequest request) {
+    public CardBalanceResponse deposit(UUID cardId, DepositRequest request, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return deposit(cardId, request);
+        }
         UserModel user = getCurrentUser();
-        Card card = cardRepository.findCardWithLock(cardId, user, false)
-                .orElseThrow(() -> {
-                    log.warn("Card id={} not found for user id={}", cardId, user.getId());
-                    return new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.CARD_NOT_FOUND);
-                });
+        String fingerprint = "deposit:" + cardId + ":" + request.getAmount().minorUnits();
+        return idempotencyService.execute(user.getId(), idempotencyKey, fingerprint, CardBalanceResponse.class,
+                () -> deposit(cardId, request));
+    }
 
-        if (!card.getStatus().equals(CardStatus.ACTIVE)) {
-            log.warn("Attempt to deposit to non-active card id={} for user id={}", cardId, user.getId());
-            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.CARD_NOT_ACTIVE);
+    @Override
+    public void transfer(TransferRequest request, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            transfer(request);
+            return;
         }
-        card.setBalance(
-                card.getBalance().add(request.getAmount())
-        );
-        cardRepository.save(card);
-        return new CardBalanceResponse(card.getBalance());
+        UserModel user = getCurrentUser();
+        String fingerprint = "transfer:" + request.getDebitCardId() + ":" + request.getCreditCardId()
+                + ":" + request.getAmount().minorUnits();
+        idempotencyService.execute(user.getId(), idempotencyKey, fingerprint, Void.class, () -> {
+            transfer(request);
+            return null;
+        });
+    }
+
+    @Override
+    public CardBalanceResponse deposit(UUID cardId, DepositRequest request) {
+        UserModel user = getCurrentUser();
+        ScreeningVerdict verdict = fraudScreeningService.screenDeposit(cardId, request.getAmount());
+        CardBalanceResponse response;
+        if (concurrencyMode == ConcurrencyMode.SHARDED) {
+            IdempotencyClaim claim = idempotencyService.currentClaim();
+            response = new CardBalanceResponse(balanceEngine.deposit(cardId, user.getId(), request.getAmount(),
+                    balance -> idempotencyService.storeResponse(claim, new CardBalanceResponse(balance))));
+        } else if (concurrencyMode == ConcurrencyMode.JOURNAL) {
+            response = new CardBalanceResponse(journalBalanceService.deposit(cardId, user.getId(), request.getAmount()));
+        } else {
+            response = transactionExecutor.execute(concurrencyMode, "deposit", () -> {
+                CardBalanceResponse applied = applyDeposit(cardId, user, request.getAmount());
+                idempotencyService.storeResponse(applied);
+                return applied;
+            });
+        }
+        fraudScreeningService.recordDeposit(cardId, request.getAmount(), verdict);
+        sweepRuleIndex.onBalanceChanged(cardId);
+        return response;
     }
 
     @Override
-    @Transactional
     public void transfer(TransferRequest request) {
         if (Objects.equals(request.getDebitCardId(), request.getCreditCardId())) {
             log.warn("Transfer failed: debit and credit cards are the same id={}", request.getDebitCardId());
@@ -70,31 +157,95 @@ public class CardOwnerServiceImpl implements CardOwnerService {
         UserModel user = getCurrentUser();
         log.info("User id={} transferring from cardId={} to cardId={}",
                 user.getId(), request.getDebitCardId(), request.getCreditCardId());
+        ScreeningVerdict verdict = fraudScreeningService.screenTransfer(
+                user.getId(), request.getDebitCardId(), request.getCreditCardId(), request.getAmount());
 
-        Card debitCard = cardRepository.findCardWithLock(request.getDebitCardId(), user, false)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.CARD_NOT_FOUND));
-        Card creditCard = cardRepository.findCardWithLock(request.getCreditCardId(), user, false)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.CARD_NOT_FOUND));
+        if (concurrencyMode == ConcurrencyMode.SHARDED || concurrencyMode == ConcurrencyMode.JOURNAL) {
+            transferThroughEngine(request, user, () -> {
+            });
+        } else {
+            transactionExecutor.execute(concurrencyMode, "transfer", () -> {
+                applyTransfer(request, user);
+                spendingLimitService.reserve(user.getId(), request.getDebitCardId(), request.getAmount());
+                idempotencyService.storeResponse(null);
+                return null;
+            });
+        }
+        fraudScreeningService.recordTransfer(
+                user.getId(), request.getDebitCardId(), request.getCreditCardId(), request.getAmount(), verdict);
+        transferred(request);
+    }
 
-        if (!debitCard.getStatus().equals(CardStatus.ACTIVE) || !creditCard.getStatus().equals(CardStatus.ACTIVE)) {
-            log.warn("One of the cards is not active");
-            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.CARD_NOT_ACTIVE);
+    // перевод от имени пользователя без запроса (плановые переводы); withinTransaction выполняется
+    // перед переводом в его транзакции, и исключение из него отменяет перевод.
+    // В режимах SHARDED и JOURNAL перевод фиксирует движок, поэтому withinTransaction коммитится раньше
+    @Override
+    public void transferAs(UserModel user, TransferRequest request, Runnable withinTransaction) {
+        if (Objects.equals(request.getDebitCardId(), request.getCreditCardId())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.DEBIT_AND_CREDIT_CARD_ARE_SAME);
+        }
+        if (concurrencyMode == ConcurrencyMode.SHARDED || concurrencyMode == ConcurrencyMode.JOURNAL) {
+            transferThroughEngine(request, user, withinTransaction);
+        } else {
+            transactionExecutor.execute(concurrencyMode, "transfer-as", () -> {
+                withinTransaction.run();
+                applyTransfer(request, user);
+                spendingLimitService.reserve(user.getId(), request.getDebitCardId(), request.getAmount());
+                return null;
+            });
         }
+        transferred(request);
+    }
 
-        BigDecimal amount = request.getAmount();
-        if (debitCard.getBalance().compareTo(amount) < 0) {
-            log.warn("Not enough funds on the debit card.");
-            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.NOT_ENOUGH_FUNDS);
+    // движок проводит перевод вне транзакции БД: лимиты резервируются заранее отдельной транзакцией
+    // и возвращаются, только если перевод точно не прошёл
+    private void transferThroughEngine(TransferRequest request, UserModel user, Runnable withinTransaction) {
+        SpendingReservation reservation = transactionExecutor.execute(ConcurrencyMode.PESSIMISTIC, "transfer-reserve", () -> {
+            withinTransaction.run();
+            return spendingLimitService.reserve(user.getId(), request.getDebitCardId(), request.getAmount());
+        });
+        try {
+            if (concurrencyMode == ConcurrencyMode.SHARDED) {
+                IdempotencyClaim claim = idempotencyService.currentClaim();
+                balanceEngine.transfer(request.getDebitCardId(), request.getCreditCardId(), user.getId(), request.getAmount(),
+                        () -> idempotencyService.storeResponse(claim, null));
+            } else {
+                journalBalanceService.transfer(request.getDebitCardId(), request.getCreditCardId(), user.getId(), request.getAmount());
+            }
+        } catch (BalanceOutcomeUnknownException e) {
+            log.warn("Transfer from cardId={} has unknown outcome, spending reservation kept", request.getDebitCardId());
+            throw e;
+        } catch (RuntimeException e) {
+            transactionExecutor.execute(ConcurrencyMode.PESSIMISTIC, "transfer-release", () -> {
+                spendingLimitService.release(reservation);
+                return null;
+            });
+            throw e;
         }
+    }
 
-        debitCard.setBalance(
-                debitCard.getBalance().subtract(amount)
-        );
-        creditCard.setBalance(
-                creditCard.getBalance().add(amount)
-        );
-        cardRepository.save(debitCard);
-        cardRepository.save(creditCard);
+    @Override
+    public BatchTransferResponse transferBatch(BatchTransferRequest request) {
+        UserModel user = getCurrentUser();
+        log.info("User id={} submitted batch of {} transfers in {} mode",
+                user.getId(), request.getTransfers().size(), request.getMode());
+        ScreeningVerdict[] verdicts = screenBatch(request.getTransfers(), user);
+        BatchTransferResponse response;
+        if (concurrencyMode == ConcurrencyMode.JOURNAL) {
+            response = transferBatchThroughJournal(request, user, verdicts);
+        } else {
+            try {
+                response = transactionExecutor.execute(concurrencyMode, "transfer-batch",
+                        () -> applyTransferBatch(request, user, verdicts));
+            } catch (AtomicBatchRejectedException e) {
+                response = e.response;
+            }
+        }
+        recordBatch(request.getTransfers(), user, response, verdicts);
+        if (response.getAppliedCount() > 0) {
+            request.getTransfers().forEach(this::transferred);
+        }
+        return response;
     }
 
     @Override
@@ -118,7 +269,70 @@ public class CardOwnerServiceImpl implements CardOwnerService {
         UserModel user = getCurrentUser();
         Card card = cardRepository.findByIdAndOwnerAndIsDeleted(cardId, user, false)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.CARD_NOT_FOUND));
-        return new CardBalanceResponse(card.getBalance());
+        Money balance = card.getBalance();
+        if (concurrencyMode == ConcurrencyMode.JOURNAL) {
+            balance = journalBalanceService.currentBalance(cardId).orElse(card.getBalance());
+        } else if (Boolean.TRUE.equals(card.getStriped())) {
+            balance = stripedBalanceService.totalBalance(cardId);
+        }
+        return new CardBalanceResponse(balance, balance.minus(card.getHeldBalance()));
+    }
+
+    @Override
+    public CardHoldResponse placeHold(UUID cardId, PlaceHoldRequest request) {
+        checkHoldsSupported();
+        UserModel user = getCurrentUser();
+        Duration ttl = Duration.ofMinutes(
+                request.getTtlMinutes() != null ? request.getTtlMinutes() : defaultHoldTtlMinutes
+        );
+        Optional<CardHoldResponse> hold = cardHoldService.place(cardId, user.getId(), request.getAmount(), ttl);
+        // у полосатой карты часть денег может лежать в слотах
+        if (hold.isEmpty() && stripedBalanceService.isStriped(cardId)) {
+            stripedBalanceService.fold(cardId);
+            hold = cardHoldService.place(cardId, user.getId(), request.getAmount(), ttl);
+        }
+        if (hold.isPresent()) {
+            log.info("Hold id={} of {} placed on card id={}", hold.get().getId(), request.getAmount(), cardId);
+            sweepRuleIndex.onBalanceChanged(cardId);
+            return hold.get();
+        }
+
+        Card card = cardRepository.findByIdAndOwnerAndIsDeleted(cardId, user, false)
+                .orElseThrow(() -> {
+                    log.warn("Card id={} not found for user id={}", cardId, user.getId());
+                    return new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.CARD_NOT_FOUND);
+                });
+        if (!card.getStatus().equals(CardStatus.ACTIVE)) {
+            log.warn("Attempt to place hold on non-active card id={}", cardId);
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.CARD_NOT_ACTIVE);
+        }
+        if (card.getAvailableBalance().isLessThan(request.getAmount())) {
+            log.warn("Not enough available funds to place hold on card id={}", cardId);
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.NOT_ENOUGH_FUNDS);
+        }
+        throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.CONCURRENT_UPDATE);
+    }
+
+    @Override
+    public CardHoldResponse captureHold(UUID cardId, UUID holdId) {
+        checkHoldsSupported();
+        UserModel user = getCurrentUser();
+        CardHoldResponse hold = cardHoldService.capture(cardId, holdId, user.getId())
+                .orElseThrow(() -> holdRejection(cardId, holdId, user));
+        log.info("Hold id={} captured on card id={}", holdId, cardId);
+        sweepRuleIndex.onBalanceChanged(cardId);
+        return hold;
+    }
+
+    @Override
+    public CardHoldResponse releaseHold(UUID cardId, UUID holdId) {
+        checkHoldsSupported();
+        UserModel user = getCurrentUser();
+        CardHoldResponse hold = cardHoldService.release(cardId, holdId, user.getId())
+                .orElseThrow(() -> holdRejection(cardId, holdId, user));
+        log.info("Hold id={} released on card id={}", holdId, cardId);
+        sweepRuleIndex.onBalanceChanged(cardId);
+        return hold;
     }
 
     @Override
@@ -147,6 +361,340 @@ public class CardOwnerServiceImpl implements CardOwnerService {
         );
     }
 
+    @Override
+    public CardTransactionPageResponse getTransactions(UUID cardId, String cursor, int limit) {
+        UserModel user = getCurrentUser();
+        cardRepository.findByIdAndOwnerAndIsDeleted(cardId, user, false)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.CARD_NOT_FOUND));
+        return cardTransactionService.page(cardId, cursor, limit);
+    }
+
+    private CardBalanceResponse applyDeposit(UUID cardId, UserModel user, Money amount) {
+        // горячая карта: зачисление в слот без блокировки строки card
+        if (stripedBalanceService.isStriped(cardId)
+                && stripedBalanceService.credit(cardId, user.getId(), amount)) {
+            ledgerService.recordDeposit(cardId, amount);
+            return new CardBalanceResponse(stripedBalanceService.totalBalance(cardId));
+        }
+        if (concurrencyMode == ConcurrencyMode.ATOMIC) {
+            return applyAtomicDeposit(cardId, user, amount);
+        }
+        Optional<Card> found = readsWithoutLock()
+                ? cardRepository.findByIdAndOwnerAndIsDeleted(cardId, user, false)
+                : cardRepository.findCardWithLock(cardId, user, false);
+        Card card = found.orElseThrow(() -> {
+            log.warn("Card id={} not found for user id={}", cardId, user.getId());
+            return new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.CARD_NOT_FOUND);
+        });
+
+        if (!card.getStatus().equals(CardStatus.ACTIVE)) {
+            log.warn("Attempt to deposit to non-active card id={} for user id={}", cardId, user.getId());
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.CARD_NOT_ACTIVE);
+        }
+        card.setBalance(
+                card.getBalance().plus(amount)
+        );
+        cardRepository.save(card);
+        ledgerService.recordDeposit(cardId, amount);
+        return new CardBalanceResponse(card.getBalance());
+    }
+
+    // одно UPDATE ... RETURNING, карту читаем только если обновить не удалось
+    private CardBalanceResponse applyAtomicDeposit(UUID cardId, UserModel user, Money amount) {
+        Optional<BigDecimal> balance = cardRepository.depositIfActive(
+                cardId, user.getId(), CardStatus.ACTIVE.ordinal(), amount.toBigDecimal()
+        );
+        if (balance.isPresent()) {
+            ledgerService.recordDeposit(cardId, amount);
+            return new CardBalanceResponse(Money.of(balance.get()));
+        }
+        Card card = cardRepository.findByIdAndOwnerAndIsDeleted(cardId, user, false)
+                .orElseThrow(() -> {
+                    log.warn("Card id={} not found for user id={}", cardId, user.getId());
+                    return new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.CARD_NOT_FOUND);
+                });
+        if (!card.getStatus().equals(CardStatus.ACTIVE)) {
+            log.warn("Attempt to deposit to non-active card id={} for user id={}", cardId, user.getId());
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.CARD_NOT_ACTIVE);
+        }
+        // карта стала активной между UPDATE и проверкой
+        throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.CONCURRENT_UPDATE);
+    }
+
+    private void applyTransfer(TransferRequest request, UserModel user) {
+        if (concurrencyMode == ConcurrencyMode.ATOMIC) {
+            applyAtomicTransfer(request, user);
+            return;
+        }
+        applyRowTransfer(request, user, readsWithoutLock());
+    }
+
+    // в оптимистичном и serializable режимах читаем без блокировок, конфликт поймает version/СУБД
+    private void applyRowTransfer(TransferRequest request, UserModel user, boolean withoutLock) {
+        List<UUID> ids = List.of(request.getDebitCardId(), request.getCreditCardId());
+        List<Card> cards = withoutLock
+                ? cardRepository.findByIdInAndOwnerAndIsDeleted(ids, user, false)
+                : cardRepository.findCardsWithLock(ids, user, false);
+        Card debitCard = findCard(cards, request.getDebitCardId());
+        Card creditCard = findCard(cards, request.getCreditCardId());
+        if (Boolean.TRUE.equals(debitCard.getStriped())) {
+            debitCard.setBalance(
+                    debitCard.getBalance().plus(stripedBalanceService.drainSlots(debitCard.getId()))
+            );
+        }
+
+        if (!debitCard.getStatus().equals(CardStatus.ACTIVE) || !creditCard.getStatus().equals(CardStatus.ACTIVE)) {
+            log.warn("One of the cards is not active");
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.CARD_NOT_ACTIVE);
+        }
+
+        Money amount = request.getAmount();
+        if (debitCard.getAvailableBalance().isLessThan(amount)) {
+            log.warn("Not enough funds on the debit card.");
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.NOT_ENOUGH_FUNDS);
+        }
+
+        // курс берётся из снимка в памяти, на зачисление идёт сумма в валюте карты получателя
+        FxConversion conversion = null;
+        Money creditAmount = amount;
+        if (debitCard.getCurrency() != creditCard.getCurrency()) {
+            conversion = fxRateService.convert(amount, debitCard.getCurrency(), creditCard.getCurrency());
+            creditAmount = conversion.creditAmount();
+        }
+
+        debitCard.setBalance(
+                debitCard.getBalance().minus(amount)
+        );
+        creditCard.setBalance(
+                creditCard.getBalance().plus(creditAmount)
+        );
+        cardRepository.save(debitCard);
+        cardRepository.save(creditCard);
+        if (conversion != null) {
+            ledgerService.recordConversion(debitCard.getId(), creditCard.getId(), conversion);
+        } else {
+            ledgerService.recordTransfer(debitCard.getId(), creditCard.getId(), amount);
+        }
+    }
+
+    // списание и зачисление одним CTE-запросом, причину отказа выясняем только при неудаче
+    private void applyAtomicTransfer(TransferRequest request, UserModel user) {
+        if (stripedBalanceService.isStriped(request.getDebitCardId())) {
+            stripedBalanceService.fold(request.getDebitCardId());
+        }
+        Optional<TransferBalances> balances = cardRepository.transferIfAllowed(
+                request.getDebitCardId(),
+                request.getCreditCardId(),
+                user.getId(),
+                CardStatus.ACTIVE.ordinal(),
+                request.getAmount().toBigDecimal()
+        );
+        if (balances.isPresent()) {
+            ledgerService.recordTransfer(request.getDebitCardId(), request.getCreditCardId(), request.getAmount());
+            log.debug("Transfer done, debit balance={}, credit balance={}",
+                    balances.get().getDebitBalance(), balances.get().getCreditBalance());
+            return;
+        }
+
+        List<Card> cards = cardRepository.findByIdInAndOwnerAndIsDeleted(
+                List.of(request.getDebitCardId(), request.getCreditCardId()), user, false
+        );
+        Card debitCard = findCard(cards, request.getDebitCardId());
+        Card creditCard = findCard(cards, request.getCreditCardId());
+        if (!debitCard.getStatus().equals(CardStatus.ACTIVE) || !creditCard.getStatus().equals(CardStatus.ACTIVE)) {
+            log.warn("One of the cards is not active");
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.CARD_NOT_ACTIVE);
+        }
+        // CTE переводит только в одной валюте, межвалютный перевод проводится по заблокированным строкам
+        if (debitCard.getCurrency() != creditCard.getCurrency()) {
+            applyRowTransfer(request, user, false);
+            return;
+        }
+        if (debitCard.getAvailableBalance().isLessThan(request.getAmount())) {
+            log.warn("Not enough funds on the debit card.");
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.NOT_ENOUGH_FUNDS);
+        }
+        throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.CONCURRENT_UPDATE);
+    }
+
+    // все карты пакета блокируются одним запросом в порядке id, переводы считаются в памяти,
+    // поэтому отклонённому переводу нечего откатывать и точки сохранения не нужны
+    private BatchTransferResponse applyTransferBatch(BatchTransferRequest request, UserModel user,
+                                                     ScreeningVerdict[] verdicts) {
+        List<TransferRequest> transfers = request.getTransfers();
+        Set<UUID> ids = new HashSet<>();
+        transfers.forEach(transfer -> {
+            ids.add(transfer.getDebitCardId());
+            ids.add(transfer.getCreditCardId());
+        });
+        Map<UUID, Card> cards = cardRepository.findCardsWithLock(ids, user, false).stream()
+                .collect(Collectors.toMap(Card::getId, Function.identity()));
+        for (Card card : cards.values()) {
+            if (Boolean.TRUE.equals(card.getStriped())) {
+                card.setBalance(card.getBalance().plus(stripedBalanceService.drainSlots(card.getId())));
+            }
+        }
+        Map<UUID, Money> balances = new HashMap<>();
+        cards.values().forEach(card -> balances.put(card.getId(), card.getBalance()));
+
+        List<BatchTransferItemResponse> items = new ArrayList<>(transfers.size());
+        List<LedgerPosting> postings = new ArrayList<>(transfers.size() * 2);
+        Instant now = Instant.now();
+        int rejected = 0;
+        for (int index = 0; index < transfers.size(); index++) {
+            TransferRequest transfer = transfers.get(index);
+            String error = verdicts[index] == null
+                    ? ErrorMessages.OPERATION_BLOCKED_BY_SCREENING
+                    : checkBatchTransfer(transfer, cards, balances);
+            if (error == null) {
+                SpendingReservation reservation = spendingLimitService.tryReserve(
+                        user.getId(), transfer.getDebitCardId(), transfer.getAmount());
+                error = reservation.rejection();
+            }
+            if (error != null) {
+                items.add(new BatchTransferItemResponse(index, BatchItemStatus.REJECTED, error));
+                rejected++;
+                continue;
+            }
+            balances.merge(transfer.getDebitCardId(), transfer.getAmount().negate(), Money::plus);
+            balances.merge(transfer.getCreditCardId(), transfer.getAmount(), Money::plus);
+            postings.addAll(LedgerService.transfer(
+                    transfer.getDebitCardId(), transfer.getCreditCardId(), transfer.getAmount(), now
+            ));
+            items.add(new BatchTransferItemResponse(index, BatchItemStatus.APPLIED, null));
+        }
+
+        if (rejected > 0 && request.getMode() == BatchTransferMode.ATOMIC) {
+            log.warn("Atomic batch rejected: {} of {} transfers failed", rejected, transfers.size());
+            items.stream()
+                    .filter(item -> item.getStatus() == BatchItemStatus.APPLIED)
+                    .forEach(item -> item.setStatus(BatchItemStatus.ROLLED_BACK));
+            // исключение откатывает транзакцию вместе с учётом сумм в лимитах
+            throw new AtomicBatchRejectedException(new BatchTransferResponse(0, rejected, items));
+        }
+        balances.forEach((id, balance) -> cards.get(id).setBalance(balance));
+        cardRepository.saveAll(cards.values());
+        ledgerService.write(postings);
+        return new BatchTransferResponse(transfers.size() - rejected, rejected, items);
+    }
+
+    private String checkBatchTransfer(TransferRequest transfer, Map<UUID, Card> cards, Map<UUID, Money> balances) {
+        if (Objects.equals(transfer.getDebitCardId(), transfer.getCreditCardId())) {
+            return ErrorMessages.DEBIT_AND_CREDIT_CARD_ARE_SAME;
+        }
+        Card debitCard = cards.get(transfer.getDebitCardId());
+        Card creditCard = cards.get(transfer.getCreditCardId());
+        if (debitCard == null || creditCard == null) {
+            return ErrorMessages.CARD_NOT_FOUND;
+        }
+        if (!debitCard.getStatus().equals(CardStatus.ACTIVE) || !creditCard.getStatus().equals(CardStatus.ACTIVE)) {
+            return ErrorMessages.CARD_NOT_ACTIVE;
+        }
+        if (debitCard.getCurrency() != creditCard.getCurrency()) {
+            return ErrorMessages.CROSS_CURRENCY_NOT_SUPPORTED;
+        }
+        if (balances.get(debitCard.getId()).minus(debitCard.getHeldBalance()).isLessThan(transfer.getAmount())) {
+            return ErrorMessages.NOT_ENOUGH_FUNDS;
+        }
+        return null;
+    }
+
+    // в режиме JOURNAL балансы живут в журнале, пакет проводится по одному переводу
+    private BatchTransferResponse transferBatchThroughJournal(BatchTransferRequest request, UserModel user,
+                                                              ScreeningVerdict[] verdicts) {
+        if (request.getMode() == BatchTransferMode.ATOMIC) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.BATCH_ATOMIC_NOT_SUPPORTED);
+        }
+        List<BatchTransferItemResponse> items = new ArrayList<>(request.getTransfers().size());
+        int rejected = 0;
+        for (int index = 0; index < request.getTransfers().size(); index++) {
+            TransferRequest transfer = request.getTransfers().get(index);
+            try {
+                if (verdicts[index] == null) {
+                    throw new ResponseStatusException(HttpStatus.FORBIDDEN, ErrorMessages.OPERATION_BLOCKED_BY_SCREENING);
+                }
+                if (Objects.equals(transfer.getDebitCardId(), transfer.getCreditCardId())) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.DEBIT_AND_CREDIT_CARD_ARE_SAME);
+                }
+                transferThroughEngine(transfer, user, () -> {
+                });
+                items.add(new BatchTransferItemResponse(index, BatchItemStatus.APPLIED, null));
+            } catch (ResponseStatusException e) {
+                items.add(new BatchTransferItemResponse(index, BatchItemStatus.REJECTED, e.getReason()));
+                rejected++;
+            }
+        }
+        return new BatchTransferResponse(request.getTransfers().size() - rejected, rejected, items);
+    }
+
+    // каждый перевод пакета проверяется по истории до пакета; null - перевод заблокирован,
+    // он отклоняется как элемент пакета, а атомарный пакет из-за него не проводится целиком
+    private ScreeningVerdict[] screenBatch(List<TransferRequest> transfers, UserModel user) {
+        ScreeningVerdict[] verdicts = new ScreeningVerdict[transfers.size()];
+        for (int index = 0; index < transfers.size(); index++) {
+            TransferRequest transfer = transfers.get(index);
+            try {
+                verdicts[index] = fraudScreeningService.screenTransfer(
+                        user.getId(), transfer.getDebitCardId(), transfer.getCreditCardId(), transfer.getAmount());
+            } catch (ResponseStatusException e) {
+                verdicts[index] = null;
+            }
+        }
+        return verdicts;
+    }
+
+    // проведённые переводы пакета попадают в историю, как одиночные, и видны следующим проверкам
+    private void recordBatch(List<TransferRequest> transfers, UserModel user, BatchTransferResponse response,
+                             ScreeningVerdict[] verdicts) {
+        for (BatchTransferItemResponse item : response.getItems()) {
+            if (item.getStatus() == BatchItemStatus.APPLIED) {
+                TransferRequest transfer = transfers.get(item.getIndex());
+                fraudScreeningService.recordTransfer(user.getId(), transfer.getDebitCardId(),
+                        transfer.getCreditCardId(), transfer.getAmount(), verdicts[item.getIndex()]);
+            }
+        }
+    }
+
+    // правила автопополнения проверяются по обеим картам: списание может опустить карту ниже порога,
+    // зачисление на карту-источник может сделать возможным отложенное пополнение
+    private void transferred(TransferRequest request) {
+        sweepRuleIndex.onBalanceChanged(request.getDebitCardId());
+        sweepRuleIndex.onBalanceChanged(request.getCreditCardId());
+    }
+
+    // удержание, которое не удалось списать или отпустить: выясняем причину
+    private ResponseStatusException holdRejection(UUID cardId, UUID holdId, UserModel user) {
+        Optional<CardHoldResponse> hold = cardHoldService.find(cardId, holdId, user.getId());
+        if (hold.isEmpty()) {
+            return new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.HOLD_NOT_FOUND);
+        }
+        if (hold.get().getStatus() != HoldStatus.ACTIVE) {
+            return new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.HOLD_NOT_ACTIVE);
+        }
+        if (!hold.get().getExpiresAt().isAfter(OffsetDateTime.now())) {
+            return new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.HOLD_EXPIRED);
+        }
+        return new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.CONCURRENT_UPDATE);
+    }
+
+    // в режиме JOURNAL доступный баланс считается по кэшу журнала, который об удержаниях не знает
+    private void checkHoldsSupported() {
+        if (concurrencyMode == ConcurrencyMode.JOURNAL) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.HOLDS_NOT_SUPPORTED);
+        }
+    }
+
+    private boolean readsWithoutLock() {
+        return concurrencyMode == ConcurrencyMode.OPTIMISTIC || concurrencyMode == ConcurrencyMode.SERIALIZABLE;
+    }
+
+    private Card findCard(List<Card> cards, UUID cardId) {
+        return cards.stream()
+                .filter(card -> card.getId().equals(cardId))
+                .findFirst()
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.CARD_NOT_FOUND));
+    }
+
     private UserModel getCurrentUser() {
         return (
                 (CustomUserDetail) SecurityContextHolder.getContext()
@@ -155,4 +703,13 @@ public class CardOwnerServiceImpl implements CardOwnerService {
         ).getUser();
     }
 
+    // отклонённый атомарный пакет: транзакция откатывается, ответ передаётся вызывающему
+    private static final class AtomicBatchRejectedException extends RuntimeException {
+        private final BatchTransferResponse response;
+
+        private AtomicBatchRejectedException(BatchTransferResponse response) {
+            super(null, null, false, false);
+            this.response = response;
+        }
+    }
 }
@@ -0,0 +1,98 @@
+package com.example.bankcards.service.implementation;
+
+import com.example.bankcards.dto.request.CreateStandingOrderRequest;
+import com.example.bankcards.dto.response.card.StandingOrderExecutionResponse;
+import com.example.bankcards.dto.response.card.StandingOrderResponse;
+import com.example.bankcards.entity.StandingOrder;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.StandingOrderExecutionRepository;
+import com.example.bankcards.repository.StandingOrderRepository;
+import com.example.bankcards.security.CustomUserDetail;
+import com.example.bankcards.service.interfaces.card.StandingOrderService;
+import com.example.bankcards.util.constants.ErrorMessages;
+import com.example.bankcards.util.mappers.StandingOrderMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StandingOrderServiceImpl implements StandingOrderService {
+    private final StandingOrderRepository standingOrderRepository;
+    private final StandingOrderExecutionRepository executionRepository;
+    private final CardRepository cardRepository;
+    private final StandingOrderMapper standingOrderMapper;
+
+    @Override
+    public StandingOrderResponse create(CreateStandingOrderRequest request) {
+        if (Objects.equals(request.getDebitCardId(), request.getCreditCardId())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.DEBIT_AND_CREDIT_CARD_ARE_SAME);
+        }
+        UserModel user = getCurrentUser();
+        List<UUID> ids = List.of(request.getDebitCardId(), request.getCreditCardId());
+        if (cardRepository.findByIdInAndOwnerAndIsDeleted(ids, user, false).size() != ids.size()) {
+            log.warn("Standing order rejected: cards {} not found for user id={}", ids, user.getId());
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.CARD_NOT_FOUND);
+        }
+        StandingOrder order = StandingOrder.builder()
+                .owner(user)
+                .debitCardId(request.getDebitCardId())
+                .creditCardId(request.getCreditCardId())
+                .amount(request.getAmount())
+                .period(request.getPeriod())
+                .startAt(request.getStartAt())
+                .nextRunAt(request.getStartAt())
+                .build();
+        order = standingOrderRepository.save(order);
+        log.info("Standing order id={} created for user id={}", order.getId(), user.getId());
+        return standingOrderMapper.toResponse(order);
+    }
+
+    @Override
+    public List<StandingOrderResponse> getMyOrders() {
+        return standingOrderRepository.findByOwnerAndActiveOrderByNextRunAt(getCurrentUser(), true).stream()
+                .map(standingOrderMapper::toResponse)
+                .toList();
+    }
+
+    // узел, уже взявший заказ в колесо, его не исполнит: сдвиг запуска требует active = true
+    @Override
+    public void cancel(UUID id) {
+        StandingOrder order = findOwned(id);
+        order.setActive(false);
+        standingOrderRepository.save(order);
+        log.info("Standing order id={} cancelled", id);
+    }
+
+    @Override
+    public List<StandingOrderExecutionResponse> getExecutions(UUID id, int limit) {
+        findOwned(id);
+        return executionRepository.findByOrderIdOrderByScheduledAtDesc(id, PageRequest.of(0, limit)).stream()
+                .map(standingOrderMapper::toResponse)
+                .toList();
+    }
+
+    private StandingOrder findOwned(UUID id) {
+        return standingOrderRepository.findByIdAndOwner(id, getCurrentUser())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.STANDING_ORDER_NOT_FOUND));
+    }
+
+    private UserModel getCurrentUser() {
+        return (
+                (CustomUserDetail) SecurityContextHolder.getContext()
+                        .getAuthentication()
+                        .getPrincipal()
+        ).getUser();
+    }
+
+}
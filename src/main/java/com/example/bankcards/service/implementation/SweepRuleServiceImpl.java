@@ -0,0 +1,127 @@
+package com.example.bankcards.service.implementation;
+
+import com.example.bankcards.dto.request.CreateSweepRuleRequest;
+import com.example.bankcards.dto.response.card.SweepRuleResponse;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.SweepRule;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.SweepRuleRepository;
+import com.example.bankcards.security.CustomUserDetail;
+import com.example.bankcards.service.interfaces.card.SweepRuleService;
+import com.example.bankcards.service.sweep.ActiveSweepRule;
+import com.example.bankcards.service.sweep.SweepRuleIndex;
+import com.example.bankcards.util.constants.ErrorMessages;
+import com.example.bankcards.util.mappers.SweepRuleMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SweepRuleServiceImpl implements SweepRuleService {
+    private final SweepRuleRepository sweepRuleRepository;
+    private final CardRepository cardRepository;
+    private final SweepRuleIndex sweepRuleIndex;
+    private final SweepRuleMapper sweepRuleMapper;
+
+    @Override
+    public SweepRuleResponse create(CreateSweepRuleRequest request) {
+        if (Objects.equals(request.getWatchedCardId(), request.getSourceCardId())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.DEBIT_AND_CREDIT_CARD_ARE_SAME);
+        }
+        BigDecimal target = request.getTargetBalance() != null ? request.getTargetBalance() : request.getThreshold();
+        if (target.compareTo(request.getThreshold()) < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ErrorMessages.SWEEP_TARGET_BELOW_THRESHOLD);
+        }
+        UserModel user = getCurrentUser();
+        List<UUID> ids = List.of(request.getWatchedCardId(), request.getSourceCardId());
+        List<Card> cards = cardRepository.findByIdInAndOwnerAndIsDeleted(ids, user, false);
+        if (cards.size() != ids.size()) {
+            log.warn("Sweep rule rejected: cards {} not found for user id={}", ids, user.getId());
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.CARD_NOT_FOUND);
+        }
+        // порог и целевой баланс задаются в валюте отслеживаемой карты, пополнение считается без конвертации
+        if (cards.get(0).getCurrency() != cards.get(1).getCurrency()) {
+            log.warn("Sweep rule rejected: cards {} are in different currencies", ids);
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.CROSS_CURRENCY_NOT_SUPPORTED);
+        }
+        List<SweepRule> existing = sweepRuleRepository.findByOwnerAndActiveOrderByCreatedAt(user, true);
+        if (createsCycle(existing, request.getSourceCardId(), request.getWatchedCardId())) {
+            log.warn("Sweep rule rejected: cycle between cards {} for user id={}", ids, user.getId());
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.SWEEP_RULE_CYCLE);
+        }
+        SweepRule rule = sweepRuleRepository.save(SweepRule.builder()
+                .owner(user)
+                .watchedCardId(request.getWatchedCardId())
+                .sourceCardId(request.getSourceCardId())
+                .threshold(request.getThreshold())
+                .targetBalance(target)
+                .build());
+        sweepRuleIndex.put(ActiveSweepRule.of(rule));
+        log.info("Sweep rule id={} created for user id={}", rule.getId(), user.getId());
+        return sweepRuleMapper.toResponse(rule);
+    }
+
+    @Override
+    public List<SweepRuleResponse> getMyRules() {
+        return sweepRuleRepository.findByOwnerAndActiveOrderByCreatedAt(getCurrentUser(), true).stream()
+                .map(sweepRuleMapper::toResponse)
+                .toList();
+    }
+
+    @Override
+    public void delete(UUID id) {
+        SweepRule rule = sweepRuleRepository.findByIdAndOwnerAndActive(id, getCurrentUser(), true)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.SWEEP_RULE_NOT_FOUND));
+        rule.setActive(false);
+        sweepRuleRepository.save(rule);
+        sweepRuleIndex.remove(id);
+        log.info("Sweep rule id={} deleted", id);
+    }
+
+    // правила A <- B и B <- A перекачивали бы деньги по кругу: новое ребро from -> to
+    // недопустимо, если из to уже можно дойти до from
+    private static boolean createsCycle(List<SweepRule> rules, UUID from, UUID to) {
+        Set<UUID> visited = new HashSet<>();
+        Deque<UUID> stack = new ArrayDeque<>();
+        stack.push(to);
+        while (!stack.isEmpty()) {
+            UUID card = stack.pop();
+            if (card.equals(from)) {
+                return true;
+            }
+            if (!visited.add(card)) {
+                continue;
+            }
+            for (SweepRule rule : rules) {
+                if (rule.getSourceCardId().equals(card)) {
+                    stack.push(rule.getWatchedCardId());
+                }
+            }
+        }
+        return false;
+    }
+
+    private UserModel getCurrentUser() {
+        return (
+                (CustomUserDetail) SecurityContextHolder.getContext()
+                        .getAuthentication()
+                        .getPrincipal()
+        ).getUser();
+    }
+
+}
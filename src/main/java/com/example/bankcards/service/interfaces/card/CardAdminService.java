@@ -1,10 +1,18 @@
 package com.example.bankcards.service.interfaces.card;
 
+import com.example.bankcards.dto.request.CardLookupRequest;
 import com.example.bankcards.dto.request.CreateCardRequest;
+import com.example.bankcards.dto.request.FxRateUploadRequest;
+import com.example.bankcards.dto.request.SpendingLimitRequest;
+import com.example.bankcards.dto.response.card.CardBalanceAtResponse;
+import com.example.bankcards.dto.response.card.CardNumberRotationResponse;
 import com.example.bankcards.dto.response.card.CardResponse;
 import com.example.bankcards.dto.response.card.CardWithOwnerResponse;
+import com.example.bankcards.dto.response.card.FxRatesResponse;
 import com.example.bankcards.dto.response.card.ListCardResponse;
+import com.example.bankcards.dto.response.card.SpendingLimitResponse;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -13,7 +21,20 @@ public interface CardAdminService {
     void delete(UUID id);
     CardWithOwnerResponse activate(UUID id);
     CardWithOwnerResponse block(UUID id);
+    CardWithOwnerResponse setStriping(UUID id, boolean enabled);
+    CardBalanceAtResponse getBalanceAt(UUID id, OffsetDateTime at);
+    SpendingLimitResponse getCardLimits(UUID id);
+    SpendingLimitResponse setCardLimits(UUID id, SpendingLimitRequest request);
+    SpendingLimitResponse getUserLimits(UUID userId);
+    SpendingLimitResponse setUserLimits(UUID userId, SpendingLimitRequest request);
+    FxRatesResponse getFxRates();
+    FxRatesResponse uploadFxRates(FxRateUploadRequest request);
+    CardNumberRotationResponse getNumberRotation();
+    CardNumberRotationResponse startNumberRotation();
+    CardNumberRotationResponse pauseNumberRotation();
+    CardNumberRotationResponse resumeNumberRotation();
     CardWithOwnerResponse create(CreateCardRequest request);
+    CardWithOwnerResponse findByNumber(CardLookupRequest request);
     ListCardResponse<CardWithOwnerResponse> getAll(Boolean haveBlockRequest, int page, int size);
 
 }
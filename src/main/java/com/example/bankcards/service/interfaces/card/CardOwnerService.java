@@ -1,11 +1,17 @@
 package com.example.bankcards.service.interfaces.card;
 
+import com.example.bankcards.dto.request.BatchTransferRequest;
 import com.example.bankcards.dto.request.DepositRequest;
+import com.example.bankcards.dto.request.PlaceHoldRequest;
 import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.dto.response.card.BatchTransferResponse;
 import com.example.bankcards.dto.response.card.CardBalanceResponse;
+import com.example.bankcards.dto.response.card.CardHoldResponse;
 import com.example.bankcards.dto.response.card.CardNumberResponse;
 import com.example.bankcards.dto.response.card.CardResponse;
+import com.example.bankcards.dto.response.card.CardTransactionPageResponse;
 import com.example.bankcards.dto.response.card.ListCardResponse;
+import com.example.bankcards.entity.UserModel;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -14,14 +20,30 @@ import java.util.UUID;
 public interface CardOwnerService {
     void transfer(TransferRequest request);
 
+    void transfer(TransferRequest request, String idempotencyKey);
+
+    void transferAs(UserModel user, TransferRequest request, Runnable withinTransaction);
+
+    BatchTransferResponse transferBatch(BatchTransferRequest request);
+
     CardResponse blockRequest(UUID cardId);
 
     CardBalanceResponse showBalance(UUID cardId);
 
     CardNumberResponse showNumber(UUID cardId);
 
+    CardHoldResponse placeHold(UUID cardId, PlaceHoldRequest request);
+
+    CardHoldResponse captureHold(UUID cardId, UUID holdId);
+
+    CardHoldResponse releaseHold(UUID cardId, UUID holdId);
+
     ListCardResponse<CardResponse> getAllMyCards(int page, int size);
 
+    CardTransactionPageResponse getTransactions(UUID cardId, String cursor, int limit);
+
     CardBalanceResponse deposit(UUID cardId, DepositRequest request);
 
+    CardBalanceResponse deposit(UUID cardId, DepositRequest request, String idempotencyKey);
+
 }
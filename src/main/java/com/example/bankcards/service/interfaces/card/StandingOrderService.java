@@ -0,0 +1,20 @@
+package com.example.bankcards.service.interfaces.card;
+
+import com.example.bankcards.dto.request.CreateStandingOrderRequest;
+import com.example.bankcards.dto.response.card.StandingOrderExecutionResponse;
+import com.example.bankcards.dto.response.card.StandingOrderResponse;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface StandingOrderService {
+
+    StandingOrderResponse create(CreateStandingOrderRequest request);
+
+    List<StandingOrderResponse> getMyOrders();
+
+    void cancel(UUID id);
+
+    List<StandingOrderExecutionResponse> getExecutions(UUID id, int limit);
+
+}
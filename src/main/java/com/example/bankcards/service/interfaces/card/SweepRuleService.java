@@ -0,0 +1,17 @@
+package com.example.bankcards.service.interfaces.card;
+
+import com.example.bankcards.dto.request.CreateSweepRuleRequest;
+import com.example.bankcards.dto.response.card.SweepRuleResponse;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface SweepRuleService {
+
+    SweepRuleResponse create(CreateSweepRuleRequest request);
+
+    List<SweepRuleResponse> getMyRules();
+
+    void delete(UUID id);
+
+}
@@ -0,0 +1,233 @@
+package com.example.bankcards.service.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+// Append-only журнал изменений балансов: сегменты фиксированного размера,
+// записи по 64 байта, отображённые в память через MappedByteBuffer
+@Slf4j
+public class BalanceJournal implements Closeable {
+    public static final int RECORD_SIZE = 64;
+    private static final String SUFFIX = ".journal";
+
+    // раскладка записи
+    private static final int SEQUENCE = 0;
+    private static final int TIMESTAMP = 8;
+    private static final int AMOUNT = 16;
+    private static final int CARD_MSB = 24;
+    private static final int CARD_LSB = 32;
+    private static final int CREDIT_MSB = 40;
+    private static final int CREDIT_LSB = 48;
+    private static final int TYPE = 56;
+    private static final int CRC = 60;
+
+    private final Path directory;
+    private final int segmentRecords;
+    private final NavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Object syncLock = new Object();
+
+    private Segment current;
+    private long lastSequence;
+    private volatile long durableSequence;
+
+    private BalanceJournal(Path directory, int segmentRecords) {
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+    }
+
+    public static BalanceJournal open(Path directory, int segmentRecords, long appliedSequence) throws IOException {
+        Files.createDirectories(directory);
+        BalanceJournal journal = new BalanceJournal(directory, segmentRecords);
+        journal.recover(appliedSequence);
+        return journal;
+    }
+
+    public synchronized long append(byte type, UUID cardId, UUID creditCardId, long amountMinor) throws IOException {
+        if (current == null || lastSequence + 1 - current.firstSequence >= segmentRecords) {
+            current = createSegment(lastSequence + 1);
+        }
+        long sequence = lastSequence + 1;
+        int offset = (int) (sequence - current.firstSequence) * RECORD_SIZE;
+        MappedByteBuffer buffer = current.buffer;
+        buffer.putLong(offset + TIMESTAMP, System.currentTimeMillis());
+        buffer.putLong(offset + AMOUNT, amountMinor);
+        buffer.putLong(offset + CARD_MSB, cardId.getMostSignificantBits());
+        buffer.putLong(offset + CARD_LSB, cardId.getLeastSignificantBits());
+        buffer.putLong(offset + CREDIT_MSB, creditCardId == null ? 0 : creditCardId.getMostSignificantBits());
+        buffer.putLong(offset + CREDIT_LSB, creditCardId == null ? 0 : creditCardId.getLeastSignificantBits());
+        buffer.put(offset + TYPE, type);
+        buffer.putLong(offset + SEQUENCE, sequence);
+        buffer.putInt(offset + CRC, checksum(buffer, offset));
+        lastSequence = sequence;
+        return sequence;
+    }
+
+    // групповой fsync: один поток сбрасывает всё записанное, остальные ждут его результата
+    public void sync(long sequence) {
+        if (durableSequence >= sequence) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durableSequence >= sequence) {
+                return;
+            }
+            long target;
+            List<Segment> dirty;
+            synchronized (this) {
+                target = lastSequence;
+                dirty = segmentsBetween(durableSequence + 1, target);
+            }
+            dirty.forEach(segment -> segment.buffer.force());
+            durableSequence = target;
+        }
+    }
+
+    public List<JournalRecord> read(long afterSequence, int limit) {
+        long to = Math.min(durableSequence, afterSequence + limit);
+        List<JournalRecord> records = new ArrayList<>();
+        for (long sequence = afterSequence + 1; sequence <= to; sequence++) {
+            Map.Entry<Long, Segment> entry = segments.floorEntry(sequence);
+            if (entry == null) {
+                break;
+            }
+            records.add(decode(entry.getValue(), (int) (sequence - entry.getKey()) * RECORD_SIZE));
+        }
+        return records;
+    }
+
+    // удаляет сегменты, все записи которых уже применены к БД
+    public synchronized void deleteAppliedSegments(long appliedSequence) throws IOException {
+        for (Segment segment : List.copyOf(segments.values())) {
+            if (segment == current || segment.firstSequence + segmentRecords - 1 > appliedSequence) {
+                continue;
+            }
+            segments.remove(segment.firstSequence);
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+        }
+    }
+
+    public synchronized long lastSequence() {
+        return lastSequence;
+    }
+
+    public long durableSequence() {
+        return durableSequence;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments.values()) {
+            segment.buffer.force();
+            segment.channel.close();
+        }
+        segments.clear();
+        current = null;
+    }
+
+    private void recover(long appliedSequence) throws IOException {
+        List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(path -> path.getFileName().toString().endsWith(SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+        lastSequence = appliedSequence;
+        boolean tailFound = false;
+        for (Path file : files) {
+            if (tailFound) {
+                // после оборванного сегмента валидных записей быть не может
+                log.warn("Dropping journal segment {} after torn tail", file);
+                Files.delete(file);
+                continue;
+            }
+            Segment segment = mapSegment(file, firstSequenceOf(file));
+            segments.put(segment.firstSequence, segment);
+            current = segment;
+            for (int index = 0; index < segmentRecords; index++) {
+                int offset = index * RECORD_SIZE;
+                long sequence = segment.buffer.getLong(offset + SEQUENCE);
+                if (sequence != segment.firstSequence + index
+                        || segment.buffer.getInt(offset + CRC) != checksum(segment.buffer, offset)) {
+                    tailFound = true;
+                    break;
+                }
+                lastSequence = Math.max(lastSequence, sequence);
+            }
+        }
+        durableSequence = lastSequence;
+        if (current != null && lastSequence + 1 < current.firstSequence) {
+            throw new IOException("Journal segment " + current.path + " does not continue sequence " + lastSequence);
+        }
+        log.info("Journal opened at {}, last sequence {}", directory, lastSequence);
+    }
+
+    private List<Segment> segmentsBetween(long from, long to) {
+        List<Segment> result = new ArrayList<>();
+        Long start = segments.floorKey(from);
+        for (Segment segment : segments.tailMap(start == null ? from : start, true).values()) {
+            if (segment.firstSequence > to) {
+                break;
+            }
+            result.add(segment);
+        }
+        return result;
+    }
+
+    private Segment createSegment(long firstSequence) throws IOException {
+        Path path = directory.resolve(String.format("%020d%s", firstSequence, SUFFIX));
+        Segment segment = mapSegment(path, firstSequence);
+        segments.put(firstSequence, segment);
+        return segment;
+    }
+
+    private Segment mapSegment(Path path, long firstSequence) throws IOException {
+        FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) segmentRecords * RECORD_SIZE);
+        return new Segment(firstSequence, path, channel, buffer);
+    }
+
+    private long firstSequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    private JournalRecord decode(Segment segment, int offset) {
+        MappedByteBuffer buffer = segment.buffer;
+        long creditMsb = buffer.getLong(offset + CREDIT_MSB);
+        long creditLsb = buffer.getLong(offset + CREDIT_LSB);
+        return new JournalRecord(
+                buffer.getLong(offset + SEQUENCE),
+                buffer.get(offset + TYPE),
+                new UUID(buffer.getLong(offset + CARD_MSB), buffer.getLong(offset + CARD_LSB)),
+                creditMsb == 0 && creditLsb == 0 ? null : new UUID(creditMsb, creditLsb),
+                buffer.getLong(offset + AMOUNT),
+                buffer.getLong(offset + TIMESTAMP)
+        );
+    }
+
+    private static int checksum(MappedByteBuffer buffer, int offset) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, CRC));
+        return (int) crc.getValue();
+    }
+
+    private record Segment(long firstSequence, Path path, FileChannel channel, MappedByteBuffer buffer) {
+    }
+}
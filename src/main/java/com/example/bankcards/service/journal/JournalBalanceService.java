@@ -0,0 +1,455 @@
+package com.example.bankcards.service.journal;
+
+import com.example.bankcards.service.ledger.LedgerPosting;
+import com.example.bankcards.service.ledger.LedgerService;
+import com.example.bankcards.util.constants.ErrorMessages;
+import com.example.bankcards.util.enums.CardStatus;
+import com.example.bankcards.util.enums.ConcurrencyMode;
+import com.example.bankcards.util.money.Money;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Режим JOURNAL: операция подтверждается после fsync журнала,
+// в таблицу card изменения переносит фоновый applier.
+// Кэш карт блокируется по карте. Баланс карты в кэше - строка card плюс записи этого узла, которых в строке
+// ещё нет; строка перечитывается раз в card-ttl-ms (0 - на каждой операции), так видны удержания,
+// статус и баланс, изменённые в SQL мимо журнала. Неиспользуемые карты без неприменённых записей вытесняются.
+// Режим только для одного узла: журнал и его номера локальны, checkpoint в базе один, а списания другого узла
+// кэш увидел бы с опозданием до card-ttl-ms. Узел держит advisory-блокировку, второй узел в JOURNAL не стартует
+@Component
+@Slf4j
+public class JournalBalanceService {
+
+    // строка и checkpoint читаются одним запросом: в строке ровно записи журнала до applied_sequence
+    private static final String LOAD_CARD_SQL = """
+            select c.owner, c.balance, c.held_balance, c.status, c.currency, c.is_deleted, k.applied_sequence
+            from card c cross join balance_journal_checkpoint k
+            where c.id = :id and k.id = 1
+            """;
+    private static final String APPLY_DELTA_SQL =
+            "update card set balance = balance + :delta, version = version + 1 where id = :id";
+    private static final String READ_CHECKPOINT_SQL =
+            "select applied_sequence from balance_journal_checkpoint where id = 1";
+    private static final String WRITE_CHECKPOINT_SQL =
+            "update balance_journal_checkpoint set applied_sequence = :sequence where id = 1";
+    private static final String TRY_NODE_LOCK_SQL = "select pg_try_advisory_lock(?)";
+    private static final String NODE_UNLOCK_SQL = "select pg_advisory_unlock(?)";
+    // ключ advisory-блокировки единственного узла JOURNAL
+    private static final long NODE_LOCK_KEY = 0x4A4F55524E414CL;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final DataSource dataSource;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final LedgerService ledgerService;
+    private final Map<UUID, CachedCard> cards = new ConcurrentHashMap<>();
+
+    @Value("${card.balance.concurrency-mode:PESSIMISTIC}")
+    private ConcurrencyMode concurrencyMode = ConcurrencyMode.PESSIMISTIC;
+    @Value("${card.balance.journal.directory:journal}")
+    private String directory = "journal";
+    @Value("${card.balance.journal.segment-records:262144}")
+    private int segmentRecords = 262144;
+    @Value("${card.balance.journal.apply-batch:1000}")
+    private int applyBatch = 1000;
+    @Value("${card.balance.journal.apply-interval-ms:10}")
+    private long applyIntervalMs = 10;
+    @Value("${card.balance.journal.card-ttl-ms:1000}")
+    private long cardTtlMs = 1000;
+    @Value("${card.balance.journal.idle-evict-ms:600000}")
+    private long idleEvictMs = 600000;
+
+    private Connection nodeLock;
+    private BalanceJournal journal;
+    private Thread applier;
+    private volatile long appliedSequence;
+    private volatile boolean failed;
+    private long evictedAt;
+
+    public JournalBalanceService(NamedParameterJdbcTemplate jdbcTemplate,
+                                 DataSource dataSource,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 LedgerService ledgerService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.ledgerService = ledgerService;
+    }
+
+    @PostConstruct
+    public void start() throws IOException, SQLException {
+        if (concurrencyMode != ConcurrencyMode.JOURNAL) {
+            return;
+        }
+        // при неудачном старте блокировку снимет закрытие пула вместе с контекстом
+        nodeLock = acquireNodeLock();
+        appliedSequence = jdbcTemplate.queryForObject(READ_CHECKPOINT_SQL, Map.of(), Long.class);
+        journal = BalanceJournal.open(Path.of(directory), segmentRecords, appliedSequence);
+
+        // до приёма операций доигрываем неприменённый хвост журнала
+        int replayed = 0;
+        for (int applied = applyNextBatch(); applied > 0; applied = applyNextBatch()) {
+            replayed += applied;
+        }
+        log.info("Journal replay finished: {} records applied, checkpoint {}", replayed, appliedSequence);
+
+        meterRegistry.gauge("card.balance.journal.lag", this,
+                service -> service.journal.durableSequence() - service.appliedSequence);
+        applier = new Thread(this::runApplier, "balance-journal-applier");
+        applier.setDaemon(true);
+        applier.start();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException, SQLException {
+        if (applier == null) {
+            return;
+        }
+        applier.interrupt();
+        applier.join(TimeUnit.SECONDS.toMillis(10));
+        journal.close();
+        releaseNodeLock();
+    }
+
+    // сессионная блокировка живёт на отдельном соединении, пока узел работает в JOURNAL
+    private Connection acquireNodeLock() throws SQLException {
+        Connection connection = dataSource.getConnection();
+        boolean locked;
+        try (PreparedStatement statement = connection.prepareStatement(TRY_NODE_LOCK_SQL)) {
+            statement.setLong(1, NODE_LOCK_KEY);
+            try (ResultSet rs = statement.executeQuery()) {
+                locked = rs.next() && rs.getBoolean(1);
+            }
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        if (!locked) {
+            connection.close();
+            throw new IllegalStateException("JOURNAL mode is already running on another node");
+        }
+        return connection;
+    }
+
+    // соединение возвращается в пул, поэтому блокировку снимаем явно
+    private void releaseNodeLock() throws SQLException {
+        try (Connection connection = nodeLock;
+             PreparedStatement statement = connection.prepareStatement(NODE_UNLOCK_SQL)) {
+            statement.setLong(1, NODE_LOCK_KEY);
+            statement.execute();
+        } finally {
+            nodeLock = null;
+        }
+    }
+
+    public Money deposit(UUID cardId, UUID userId, Money amount) {
+        long amountMinor = amount.minorUnits();
+        while (true) {
+            CachedCard card = loadCard(cardId);
+            long sequence;
+            long balance;
+            synchronized (card) {
+                if (card.evicted) {
+                    continue;
+                }
+                refreshIfStale(card);
+                checkUsable(card, userId);
+                sequence = append(JournalRecord.DEPOSIT, cardId, null, amountMinor);
+                card.change(sequence, amountMinor);
+                balance = card.balanceMinor;
+            }
+            sync(sequence);
+            return Money.ofMinor(balance);
+        }
+    }
+
+    public void transfer(UUID debitCardId, UUID creditCardId, UUID userId, Money amount) {
+        long amountMinor = amount.minorUnits();
+        while (true) {
+            CachedCard debit = loadCard(debitCardId);
+            CachedCard credit = loadCard(creditCardId);
+            // карты блокируются в порядке id, встречные переводы не взаимоблокируются
+            boolean debitFirst = debitCardId.compareTo(creditCardId) <= 0;
+            CachedCard first = debitFirst ? debit : credit;
+            CachedCard second = debitFirst ? credit : debit;
+            long sequence;
+            synchronized (first) {
+                synchronized (second) {
+                    if (debit.evicted || credit.evicted) {
+                        continue;
+                    }
+                    refreshIfStale(debit);
+                    refreshIfStale(credit);
+                    checkUsable(debit, userId);
+                    checkUsable(credit, userId);
+                    if (!debit.currency.equals(credit.currency)) {
+                        throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.CROSS_CURRENCY_NOT_SUPPORTED);
+                    }
+                    if (debit.balanceMinor - debit.heldMinor < amountMinor) {
+                        throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.NOT_ENOUGH_FUNDS);
+                    }
+                    sequence = append(JournalRecord.TRANSFER, debitCardId, creditCardId, amountMinor);
+                    debit.change(sequence, -amountMinor);
+                    credit.change(sequence, amountMinor);
+                }
+            }
+            sync(sequence);
+            return;
+        }
+    }
+
+    // таблица card отстаёт от журнала, поэтому актуальный баланс берём из кэша
+    public Optional<Money> currentBalance(UUID cardId) {
+        if (journal == null) {
+            return Optional.empty();
+        }
+        CachedCard card = cards.get(cardId);
+        if (card == null) {
+            return Optional.empty();
+        }
+        synchronized (card) {
+            if (card.evicted) {
+                return Optional.empty();
+            }
+            refreshIfStale(card);
+            return Optional.of(Money.ofMinor(card.balanceMinor));
+        }
+    }
+
+    private long append(byte type, UUID cardId, UUID creditCardId, long amountMinor) {
+        if (journal == null || failed) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ErrorMessages.BALANCE_JOURNAL_UNAVAILABLE);
+        }
+        try {
+            return journal.append(type, cardId, creditCardId, amountMinor);
+        } catch (IOException e) {
+            failed = true;
+            log.error("Journal append failed, journal mode is disabled until restart", e);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ErrorMessages.BALANCE_JOURNAL_UNAVAILABLE);
+        }
+    }
+
+    private void sync(long sequence) {
+        try {
+            Timer.builder("card.balance.journal.sync")
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry)
+                    .record(() -> journal.sync(sequence));
+        } catch (UncheckedIOException e) {
+            failed = true;
+            log.error("Journal sync failed, journal mode is disabled until restart", e);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, ErrorMessages.BALANCE_JOURNAL_UNAVAILABLE);
+        }
+    }
+
+    private CachedCard loadCard(UUID cardId) {
+        CachedCard cached = cards.get(cardId);
+        if (cached == null) {
+            cached = cards.computeIfAbsent(cardId, CachedCard::new);
+        }
+        cached.lastUsed = System.currentTimeMillis();
+        return cached;
+    }
+
+    // вызывается под блокировкой карты; новая карта в кэше загружается здесь же
+    private void refreshIfStale(CachedCard card) {
+        long now = System.currentTimeMillis();
+        if (card.loadedAt != 0 && now - card.loadedAt < cardTtlMs) {
+            return;
+        }
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(LOAD_CARD_SQL, Map.of("id", card.id));
+        if (rows.isEmpty()) {
+            // несуществующие id не копятся в кэше
+            if (card.unapplied.isEmpty()) {
+                card.evicted = true;
+                cards.remove(card.id, card);
+            }
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.CARD_NOT_FOUND);
+        }
+        Map<String, Object> row = rows.get(0);
+        long rowSequence = ((Number) row.get("applied_sequence")).longValue();
+        // записи до rowSequence уже в строке, остальные записи узла добавляются сверху
+        card.unapplied.headMap(rowSequence, true).clear();
+        long pending = 0;
+        for (long delta : card.unapplied.values()) {
+            pending += delta;
+        }
+        card.owner = (UUID) row.get("owner");
+        card.balanceMinor = toMinor((BigDecimal) row.get("balance")) + pending;
+        card.heldMinor = toMinor((BigDecimal) row.get("held_balance"));
+        card.status = ((Number) row.get("status")).intValue();
+        card.currency = (String) row.get("currency");
+        card.deleted = (Boolean) row.get("is_deleted");
+        card.loadedAt = now;
+    }
+
+    // карта без неприменённых записей восстанавливается из строки целиком, её можно вытеснить
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        if (now - evictedAt < Math.min(idleEvictMs, TimeUnit.MINUTES.toMillis(1))) {
+            return;
+        }
+        evictedAt = now;
+        int evicted = 0;
+        for (CachedCard card : cards.values()) {
+            if (now - card.lastUsed < idleEvictMs) {
+                continue;
+            }
+            synchronized (card) {
+                if (card.unapplied.isEmpty() && now - card.lastUsed >= idleEvictMs) {
+                    card.evicted = true;
+                    cards.remove(card.id, card);
+                    evicted++;
+                }
+            }
+        }
+        if (evicted > 0) {
+            log.debug("{} idle cards evicted from journal cache", evicted);
+        }
+    }
+
+    private void checkUsable(CachedCard card, UUID userId) {
+        if (card.deleted || !card.owner.equals(userId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.CARD_NOT_FOUND);
+        }
+        if (card.status != CardStatus.ACTIVE.ordinal()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.CARD_NOT_ACTIVE);
+        }
+    }
+
+    private void runApplier() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                if (applyNextBatch() == 0) {
+                    evictIdle();
+                    Thread.sleep(applyIntervalMs);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                // записи остаются в журнале и будут применены следующей попыткой
+                log.error("Journal apply failed after sequence {}", appliedSequence, e);
+                try {
+                    Thread.sleep(TimeUnit.SECONDS.toMillis(1));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    // применяет пачку записей одной транзакцией вместе с продвижением checkpoint
+    private int applyNextBatch() {
+        List<JournalRecord> records = journal.read(appliedSequence, applyBatch);
+        if (records.isEmpty()) {
+            return 0;
+        }
+        Map<UUID, Long> deltas = new HashMap<>();
+        List<LedgerPosting> postings = new ArrayList<>(records.size() * 2);
+        for (JournalRecord entry : records) {
+            Money amount = Money.ofMinor(entry.amountMinor());
+            Instant at = Instant.ofEpochMilli(entry.timestamp());
+            if (entry.type() == JournalRecord.TRANSFER) {
+                deltas.merge(entry.cardId(), -entry.amountMinor(), Long::sum);
+                deltas.merge(entry.creditCardId(), entry.amountMinor(), Long::sum);
+                postings.addAll(LedgerService.transfer(entry.cardId(), entry.creditCardId(), amount, at));
+            } else {
+                deltas.merge(entry.cardId(), entry.amountMinor(), Long::sum);
+                postings.addAll(LedgerService.deposit(entry.cardId(), amount, at));
+            }
+        }
+        SqlParameterSource[] updates = deltas.entrySet().stream()
+                .map(entry -> new MapSqlParameterSource()
+                        .addValue("id", entry.getKey())
+                        .addValue("delta", BigDecimal.valueOf(entry.getValue(), 2)))
+                .toArray(SqlParameterSource[]::new);
+        long lastSequence = records.get(records.size() - 1).sequence();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, updates);
+            ledgerService.write(postings);
+            jdbcTemplate.update(WRITE_CHECKPOINT_SQL, Map.of("sequence", lastSequence));
+        });
+        appliedSequence = lastSequence;
+        // применённые записи теперь в строках card
+        for (UUID cardId : deltas.keySet()) {
+            CachedCard card = cards.get(cardId);
+            if (card != null) {
+                synchronized (card) {
+                    card.unapplied.headMap(lastSequence, true).clear();
+                }
+            }
+        }
+        try {
+            journal.deleteAppliedSegments(lastSequence);
+        } catch (IOException e) {
+            log.warn("Could not delete applied journal segments", e);
+        }
+        return records.size();
+    }
+
+    private static long toMinor(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+
+    private static final class CachedCard {
+        private final UUID id;
+        private UUID owner;
+        private long balanceMinor;
+        // удержания меняются в SQL мимо журнала, значение обновляется при перечитывании строки
+        private long heldMinor;
+        private int status;
+        private String currency;
+        private boolean deleted;
+        // записи этого узла по карте, которых ещё не было в строке при загрузке: sequence -> изменение
+        private final NavigableMap<Long, Long> unapplied = new TreeMap<>();
+        private long loadedAt;
+        private volatile long lastUsed;
+        // вытесненный объект больше не используется, операция берёт карту из кэша заново
+        private boolean evicted;
+
+        private CachedCard(UUID id) {
+            this.id = id;
+        }
+
+        private void change(long sequence, long deltaMinor) {
+            balanceMinor += deltaMinor;
+            unapplied.merge(sequence, deltaMinor, Long::sum);
+        }
+    }
+}
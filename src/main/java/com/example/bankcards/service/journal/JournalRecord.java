@@ -0,0 +1,14 @@
+package com.example.bankcards.service.journal;
+
+import java.util.UUID;
+
+public record JournalRecord(long sequence,
+                            byte type,
+                            UUID cardId,
+                            UUID creditCardId,
+                            long amountMinor,
+                            long timestamp) {
+
+    public static final byte DEPOSIT = 1;
+    public static final byte TRANSFER = 2;
+}
@@ -0,0 +1,14 @@
+package com.example.bankcards.service.ledger;
+
+import com.example.bankcards.util.money.Money;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// одна проводка: положительная сумма увеличивает счёт, проводки одной операции в сумме дают ноль
+public record LedgerPosting(UUID transactionId,
+                            UUID accountId,
+                            Money amount,
+                            String operation,
+                            Instant createdAt) {
+}
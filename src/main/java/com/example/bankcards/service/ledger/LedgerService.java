@@ -0,0 +1,219 @@
+package com.example.bankcards.service.ledger;
+
+import com.example.bankcards.service.fx.FxConversion;
+import com.example.bankcards.service.history.CardTransactionService;
+import com.example.bankcards.util.money.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Двойная запись: каждая операция оставляет в ledger_entry проводки с нулевой суммой,
+// card.balance остаётся проекцией, обновляемой в той же транзакции
+@Component
+@Slf4j
+public class LedgerService {
+    // контрсчёт пополнений: деньги приходят извне системы
+    public static final UUID EXTERNAL_ACCOUNT = new UUID(0, 0);
+    // счёт конвертации: через него проходят обе ноги межвалютного перевода
+    public static final UUID FX_ACCOUNT = new UUID(0, 1);
+    public static final String DEPOSIT = "DEPOSIT";
+    public static final String TRANSFER = "TRANSFER";
+    public static final String CAPTURE = "CAPTURE";
+
+    private static final String INSERT_SQL = """
+            insert into ledger_entry (transaction_id, account_id, amount, operation, created_at)
+            values (:transactionId, :accountId, :amount, :operation, :createdAt)
+            """;
+    private static final String INSERT_CONVERSION_SQL = """
+            insert into fx_conversion (transaction_id, rate_version, base_currency, quote_currency, rate,
+                debit_amount, credit_amount, created_at)
+            values (:transactionId, :rateVersion, :base, :quote, :rate, :debitAmount, :creditAmount, :createdAt)
+            """;
+    // граница снимков - xid транзакции: проводки всех транзакций с xid ниже границы уже в снимках
+    private static final String READ_WATERMARK_SQL =
+            "select tx_bound from ledger_snapshot_watermark where id = 1 for update";
+    // транзакции с xid ниже xmin текущего снимка завершены: их проводки видны целиком и новых не появится.
+    // По id так нельзя - id выдаётся при вставке, и проводка с меньшим id может закоммититься позже
+    private static final String SETTLED_BOUND_SQL =
+            "select pg_snapshot_xmin(pg_current_snapshot())::text::bigint";
+    // снимок считается от предыдущего снимка счёта плюс проводки транзакций из окна, полного пересчёта нет
+    private static final String SNAPSHOT_SQL = """
+            insert into ledger_balance_snapshot (account_id, entry_id, balance, as_of, tx_bound)
+            select d.account_id, d.last_entry_id, coalesce(s.balance, 0) + d.delta, greatest(s.as_of, d.as_of), :toTx
+            from (
+                select account_id, max(id) as last_entry_id, sum(amount) as delta, max(created_at) as as_of
+                from ledger_entry
+                where tx_id >= cast(cast(:fromTx as text) as xid8) and tx_id < cast(cast(:toTx as text) as xid8)
+                  and account_id not in (:external, :fx)
+                group by account_id
+            ) d
+            left join lateral (
+                select balance, as_of from ledger_balance_snapshot
+                where account_id = d.account_id
+                order by tx_bound desc
+                limit 1
+            ) s on true
+            """;
+    private static final String WRITE_WATERMARK_SQL =
+            "update ledger_snapshot_watermark set tx_bound = :toTx where id = 1";
+    // as_of снимка не меньше created_at любой вошедшей в него проводки, поэтому к снимку
+    // достаточно добавить проводки после его границы, созданные до :at. Сверху окно ограничено границей
+    // следующего снимка счёта: его as_of уже позже :at, и просмотр идёт по (account_id, tx_id) только
+    // между двумя снимками. Проводка транзакции, ещё не завершённой к следующему снимку, в баланс
+    // на :at не попадает, даже если создана раньше :at - она станет видна с этого снимка
+    private static final String BALANCE_AT_SQL = """
+            select coalesce(s.balance, 0) + coalesce((
+                select sum(e.amount) from ledger_entry e
+                where e.account_id = :accountId
+                  and e.tx_id >= cast(cast(coalesce(s.tx_bound, 0) as text) as xid8)
+                  and e.tx_id < cast(cast(coalesce(n.tx_bound, 9223372036854775807) as text) as xid8)
+                  and e.created_at <= :at
+            ), 0)
+            from (select 1) one
+            left join lateral (
+                select tx_bound, balance from ledger_balance_snapshot
+                where account_id = :accountId and as_of <= :at
+                order by tx_bound desc
+                limit 1
+            ) s on true
+            left join lateral (
+                select tx_bound from ledger_balance_snapshot
+                where account_id = :accountId and tx_bound > coalesce(s.tx_bound, 0)
+                order by tx_bound
+                limit 1
+            ) n on true
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CardTransactionService cardTransactionService;
+
+    public LedgerService(NamedParameterJdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         CardTransactionService cardTransactionService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cardTransactionService = cardTransactionService;
+    }
+
+    public static List<LedgerPosting> deposit(UUID cardId, Money amount, Instant at) {
+        UUID transactionId = UUID.randomUUID();
+        return List.of(
+                new LedgerPosting(transactionId, cardId, amount, DEPOSIT, at),
+                new LedgerPosting(transactionId, EXTERNAL_ACCOUNT, amount.negate(), DEPOSIT, at)
+        );
+    }
+
+    public static List<LedgerPosting> transfer(UUID debitCardId, UUID creditCardId, Money amount, Instant at) {
+        UUID transactionId = UUID.randomUUID();
+        return List.of(
+                new LedgerPosting(transactionId, debitCardId, amount.negate(), TRANSFER, at),
+                new LedgerPosting(transactionId, creditCardId, amount, TRANSFER, at)
+        );
+    }
+
+    // проводки каждой валюты сходятся через FX_ACCOUNT, поэтому операция в целом тоже даёт ноль
+    public static List<LedgerPosting> conversion(UUID debitCardId, UUID creditCardId,
+                                                 Money debitAmount, Money creditAmount, Instant at) {
+        UUID transactionId = UUID.randomUUID();
+        return List.of(
+                new LedgerPosting(transactionId, debitCardId, debitAmount.negate(), TRANSFER, at),
+                new LedgerPosting(transactionId, FX_ACCOUNT, debitAmount, TRANSFER, at),
+                new LedgerPosting(transactionId, FX_ACCOUNT, creditAmount.negate(), TRANSFER, at),
+                new LedgerPosting(transactionId, creditCardId, creditAmount, TRANSFER, at)
+        );
+    }
+
+    public static boolean isSystemAccount(UUID accountId) {
+        return accountId.equals(EXTERNAL_ACCOUNT) || accountId.equals(FX_ACCOUNT);
+    }
+
+    // списание удержания: деньги уходят из системы на внешний счёт
+    public static List<LedgerPosting> capture(UUID cardId, Money amount, Instant at) {
+        UUID transactionId = UUID.randomUUID();
+        return List.of(
+                new LedgerPosting(transactionId, cardId, amount.negate(), CAPTURE, at),
+                new LedgerPosting(transactionId, EXTERNAL_ACCOUNT, amount, CAPTURE, at)
+        );
+    }
+
+    public void recordDeposit(UUID cardId, Money amount) {
+        write(deposit(cardId, amount, Instant.now()));
+    }
+
+    public void recordTransfer(UUID debitCardId, UUID creditCardId, Money amount) {
+        write(transfer(debitCardId, creditCardId, amount, Instant.now()));
+    }
+
+    // вместе с проводками сохраняется курс и его версия
+    public void recordConversion(UUID debitCardId, UUID creditCardId, FxConversion conversion) {
+        Instant now = Instant.now();
+        List<LedgerPosting> postings = conversion(debitCardId, creditCardId,
+                conversion.debitAmount(), conversion.creditAmount(), now);
+        write(postings);
+        jdbcTemplate.update(INSERT_CONVERSION_SQL, new MapSqlParameterSource()
+                .addValue("transactionId", postings.get(0).transactionId())
+                .addValue("rateVersion", conversion.rateVersion())
+                .addValue("base", conversion.base().name())
+                .addValue("quote", conversion.quote().name())
+                .addValue("rate", conversion.rate())
+                .addValue("debitAmount", conversion.debitAmount().toBigDecimal())
+                .addValue("creditAmount", conversion.creditAmount().toBigDecimal())
+                .addValue("createdAt", Timestamp.from(now)));
+    }
+
+    // одна пачка INSERT на всю операцию; должна выполняться в транзакции, меняющей card.balance.
+    // Вместе с проводками пишется история операций по картам
+    public void write(List<LedgerPosting> postings) {
+        if (postings.isEmpty()) {
+            return;
+        }
+        SqlParameterSource[] batch = postings.stream()
+                .map(posting -> new MapSqlParameterSource()
+                        .addValue("transactionId", posting.transactionId())
+                        .addValue("accountId", posting.accountId())
+                        .addValue("amount", posting.amount().toBigDecimal())
+                        .addValue("operation", posting.operation())
+                        .addValue("createdAt", Timestamp.from(posting.createdAt())))
+                .toArray(SqlParameterSource[]::new);
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+        cardTransactionService.record(postings);
+    }
+
+    // снимки только по счетам, у которых были проводки с прошлого запуска
+    public int takeSnapshots() {
+        Integer created = transactionTemplate.execute(status -> {
+            Long fromTx = jdbcTemplate.queryForObject(READ_WATERMARK_SQL, Map.of(), Long.class);
+            Long toTx = jdbcTemplate.queryForObject(SETTLED_BOUND_SQL, Map.of(), Long.class);
+            if (toTx <= fromTx) {
+                return 0;
+            }
+            int rows = jdbcTemplate.update(SNAPSHOT_SQL, Map.of(
+                    "fromTx", fromTx,
+                    "toTx", toTx,
+                    "external", EXTERNAL_ACCOUNT,
+                    "fx", FX_ACCOUNT
+            ));
+            jdbcTemplate.update(WRITE_WATERMARK_SQL, Map.of("toTx", toTx));
+            return rows;
+        });
+        return created == null ? 0 : created;
+    }
+
+    public BigDecimal balanceAt(UUID accountId, Instant at) {
+        return jdbcTemplate.queryForObject(BALANCE_AT_SQL,
+                Map.of("accountId", accountId, "at", Timestamp.from(at)),
+                BigDecimal.class);
+    }
+}
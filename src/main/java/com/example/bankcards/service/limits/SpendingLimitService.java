@@ -0,0 +1,383 @@
+package com.example.bankcards.service.limits;
+
+import com.example.bankcards.service.fx.FxConversion;
+import com.example.bankcards.service.fx.FxRateService;
+import com.example.bankcards.util.constants.ErrorMessages;
+import com.example.bankcards.util.enums.CardCurrency;
+import com.example.bankcards.util.money.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Лимиты списаний за скользящие сутки и 30 дней по карте и по пользователю.
+// Счётчики - часовые корзины в card_limit_usage. Текущую корзину каждое списание увеличивает
+// одним UPSERT: блокировка её строки упорядочивает конкурентные списания субъекта на всех узлах.
+// Закрытые корзины больше не меняются, поэтому кэшируются в памяти: у субъекта хранятся только
+// часы со списаниями, а общий объём кэша ограничен числом корзин, а не субъектов.
+// Сумма окна - это кэш плюс живые корзины из того же UPSERT, история операций не пересчитывается.
+// Лимит карты считается в валюте карты, лимит пользователя - в card.limits.user-currency
+// по текущему курсу, иначе списания с карт в разных валютах складывались бы как есть.
+// Методы должны вызываться в транзакции, в которой проводится списание
+@Component
+@Slf4j
+public class SpendingLimitService {
+
+    private static final long HOUR_SECONDS = 3600;
+    private static final int DAY_BUCKETS = 24;
+    private static final int MONTH_BUCKETS = 30 * DAY_BUCKETS;
+
+    private static final String DEBIT_SQL = """
+            select c.currency, exists(select 1 from spending_limit l where l.subject_id = :userId) as user_limited
+            from card c where c.id = :cardId
+            """;
+    // строки карты и пользователя вставляются в одном порядке, взаимных блокировок нет;
+    // без суммы в валюте лимита пользователя его строка не трогается
+    private static final String BUMP_SQL = """
+            with bumped as (
+                insert into card_limit_usage (subject_id, bucket, amount)
+                select v.subject_id, :bucket, v.amount
+                from (values (1, :cardId, cast(:amount as numeric)), (2, :userId, cast(:userAmount as numeric)))
+                    as v(position, subject_id, amount)
+                where v.amount is not null
+                order by v.position
+                on conflict (subject_id, bucket) do update set amount = card_limit_usage.amount + excluded.amount
+                returning subject_id, amount
+            )
+            select b.subject_id, l.daily_limit, l.monthly_limit,
+                b.amount + coalesce((
+                    select sum(u.amount) from card_limit_usage u
+                    where u.subject_id = b.subject_id and u.bucket >= :liveFrom and u.bucket < :bucket
+                ), 0) as live
+            from bumped b
+            left join spending_limit l on l.subject_id = b.subject_id
+            """;
+    private static final String RELEASE_SQL = """
+            update card_limit_usage set amount = amount - :amount
+            where subject_id = :subjectId and bucket = :bucket
+            """;
+    private static final String LIVE_SQL = """
+            select coalesce(sum(amount), 0) from card_limit_usage
+            where subject_id = :subjectId and bucket >= :liveFrom
+            """;
+    private static final String CLOSED_SQL = """
+            select bucket, amount from card_limit_usage
+            where subject_id = :subjectId and bucket >= :from and bucket < :to and amount <> 0
+            order by bucket
+            """;
+    private static final String FIND_LIMIT_SQL =
+            "select daily_limit, monthly_limit from spending_limit where subject_id = :subjectId";
+    private static final String UPSERT_LIMIT_SQL = """
+            insert into spending_limit (subject_id, daily_limit, monthly_limit, updated_at)
+            values (:subjectId, :dailyLimit, :monthlyLimit, now())
+            on conflict (subject_id) do update
+                set daily_limit = excluded.daily_limit, monthly_limit = excluded.monthly_limit, updated_at = now()
+            """;
+    private static final String DELETE_LIMIT_SQL = "delete from spending_limit where subject_id = :subjectId";
+    // удаляем пачками по ctid, чтобы не держать одну огромную транзакцию
+    private static final String PURGE_SQL = """
+            delete from card_limit_usage where ctid in (
+                select ctid from card_limit_usage where bucket < :cutoff limit :batch
+            )
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final FxRateService fxRateService;
+    // порядок доступа: при переполнении вытесняются давно не проверявшиеся субъекты
+    private final Map<UUID, UsageWindow> windows = new LinkedHashMap<>(16, 0.75f, true);
+    private final long cacheBuckets;
+    private final CardCurrency userCurrency;
+    // корзина считается закрытой через это время после конца часа: часы узлов могут расходиться
+    private final Duration settle;
+    // корзин во всех окнах кэша, под блокировкой windows
+    private long cachedBuckets;
+
+    public SpendingLimitService(NamedParameterJdbcTemplate jdbcTemplate,
+                                FxRateService fxRateService,
+                                @Value("${card.limits.cache-buckets:2000000}") long cacheBuckets,
+                                @Value("${card.limits.user-currency:RUB}") CardCurrency userCurrency,
+                                @Value("${card.limits.settle-ms:60000}") long settleMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fxRateService = fxRateService;
+        this.cacheBuckets = cacheBuckets;
+        this.userCurrency = userCurrency;
+        this.settle = Duration.ofMillis(settleMs);
+    }
+
+    public SpendingReservation reserve(UUID userId, UUID cardId, Money amount) {
+        SpendingReservation reservation = tryReserve(userId, cardId, amount);
+        if (!reservation.accepted()) {
+            log.warn("Spending limit exceeded for card id={} of user id={}: {}", cardId, userId, reservation.rejection());
+            throw new ResponseStatusException(HttpStatus.CONFLICT, reservation.rejection());
+        }
+        return reservation;
+    }
+
+    // без исключения: пакетный перевод отклоняет только свой элемент, не помечая транзакцию на откат
+    public SpendingReservation tryReserve(UUID userId, UUID cardId, Money amount) {
+        Instant now = Instant.now();
+        long hour = hourOf(now);
+        long liveFrom = hourOf(now.minus(settle));
+        Instant bucket = Instant.ofEpochSecond(hour * HOUR_SECONDS);
+        // без курса списание не учитывается у пользователя без лимита, а пользователю с лимитом
+        // отклоняется: проверить его лимит нечем
+        List<Debit> debit = jdbcTemplate.query(DEBIT_SQL, Map.of("cardId", cardId, "userId", userId),
+                (rs, rowNum) -> new Debit(CardCurrency.valueOf(rs.getString("currency")), rs.getBoolean("user_limited")));
+        Money userAmount = debit.isEmpty() ? amount : userAmount(debit.get(0).currency(), amount);
+        if (userAmount == null && debit.get(0).userLimited()) {
+            return new SpendingReservation(userId, cardId, amount, null, bucket, ErrorMessages.FX_RATE_NOT_FOUND);
+        }
+        if (userAmount == null) {
+            log.debug("No {}/{} rate, debit of card id={} not counted for user id={}",
+                    debit.get(0).currency(), userCurrency, cardId, userId);
+        }
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("cardId", cardId)
+                .addValue("userId", userId)
+                .addValue("amount", amount.toBigDecimal())
+                .addValue("userAmount", userAmount == null ? null : userAmount.toBigDecimal())
+                .addValue("bucket", Timestamp.from(bucket))
+                .addValue("liveFrom", Timestamp.from(Instant.ofEpochSecond(liveFrom * HOUR_SECONDS)));
+        List<SubjectUsage> bumped = jdbcTemplate.query(BUMP_SQL, params, (rs, rowNum) -> new SubjectUsage(
+                rs.getObject("subject_id", UUID.class),
+                rs.getBigDecimal("daily_limit"),
+                rs.getBigDecimal("monthly_limit"),
+                toCents(rs.getBigDecimal("live"))
+        ));
+        String rejection = null;
+        for (SubjectUsage usage : bumped) {
+            rejection = check(usage, hour, liveFrom);
+            if (rejection != null) {
+                break;
+            }
+        }
+        SpendingReservation reservation = new SpendingReservation(userId, cardId, amount, userAmount, bucket, rejection);
+        if (rejection != null) {
+            undo(reservation);
+        }
+        return reservation;
+    }
+
+    // возврат учтённой суммы, если списание не состоялось после фиксации резерва
+    public void release(SpendingReservation reservation) {
+        if (reservation.accepted()) {
+            undo(reservation);
+        }
+    }
+
+    public SpendingUsage usage(UUID subjectId) {
+        Instant now = Instant.now();
+        long hour = hourOf(now);
+        long liveFrom = hourOf(now.minus(settle));
+        long live = toCents(jdbcTemplate.queryForObject(LIVE_SQL, Map.of(
+                "subjectId", subjectId,
+                "liveFrom", Timestamp.from(Instant.ofEpochSecond(liveFrom * HOUR_SECONDS))
+        ), BigDecimal.class));
+        List<BigDecimal[]> limits = jdbcTemplate.query(FIND_LIMIT_SQL, Map.of("subjectId", subjectId),
+                (rs, rowNum) -> new BigDecimal[]{rs.getBigDecimal("daily_limit"), rs.getBigDecimal("monthly_limit")});
+        BigDecimal[] limit = limits.isEmpty() ? new BigDecimal[2] : limits.get(0);
+        return new SpendingUsage(
+                limit[0],
+                limit[1],
+                fromCents(live + closedSum(subjectId, hour - DAY_BUCKETS + 1, liveFrom)),
+                fromCents(live + closedSum(subjectId, hour - MONTH_BUCKETS + 1, liveFrom))
+        );
+    }
+
+    // null в обоих лимитах снимает ограничения субъекта; накопленные счётчики остаются
+    public void setLimits(UUID subjectId, BigDecimal dailyLimit, BigDecimal monthlyLimit) {
+        if (dailyLimit == null && monthlyLimit == null) {
+            jdbcTemplate.update(DELETE_LIMIT_SQL, Map.of("subjectId", subjectId));
+            return;
+        }
+        jdbcTemplate.update(UPSERT_LIMIT_SQL, new MapSqlParameterSource()
+                .addValue("subjectId", subjectId)
+                .addValue("dailyLimit", dailyLimit)
+                .addValue("monthlyLimit", monthlyLimit));
+    }
+
+    // корзины старше месячного окна больше не нужны
+    public int purgeExpired(int batchSize) {
+        Timestamp cutoff = Timestamp.from(Instant.ofEpochSecond(
+                (hourOf(Instant.now()) - MONTH_BUCKETS - 1) * HOUR_SECONDS));
+        int total = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(PURGE_SQL, Map.of("cutoff", cutoff, "batch", batchSize));
+            total += deleted;
+        } while (deleted == batchSize);
+        return total;
+    }
+
+    // сумма списания в валюте лимита пользователя по текущему курсу, null - курса нет
+    private Money userAmount(CardCurrency currency, Money amount) {
+        if (currency == userCurrency) {
+            return amount;
+        }
+        FxConversion conversion = fxRateService.current().convert(amount, currency, userCurrency);
+        return conversion == null ? null : conversion.creditAmount();
+    }
+
+    // кэш закрытых корзин трогаем только у субъектов с лимитом
+    private String check(SubjectUsage usage, long hour, long liveFrom) {
+        if (usage.dailyLimit() != null && usage.liveCents()
+                + closedSum(usage.subjectId(), hour - DAY_BUCKETS + 1, liveFrom) > toCents(usage.dailyLimit())) {
+            return ErrorMessages.DAILY_LIMIT_EXCEEDED;
+        }
+        if (usage.monthlyLimit() != null && usage.liveCents()
+                + closedSum(usage.subjectId(), hour - MONTH_BUCKETS + 1, liveFrom) > toCents(usage.monthlyLimit())) {
+            return ErrorMessages.MONTHLY_LIMIT_EXCEEDED;
+        }
+        return null;
+    }
+
+    // в порядке BUMP_SQL: сначала карта, потом пользователь
+    private void undo(SpendingReservation reservation) {
+        List<MapSqlParameterSource> batch = new ArrayList<>(2);
+        batch.add(release(reservation.cardId(), reservation.amount(), reservation.bucket()));
+        if (reservation.userAmount() != null) {
+            batch.add(release(reservation.userId(), reservation.userAmount(), reservation.bucket()));
+        }
+        jdbcTemplate.batchUpdate(RELEASE_SQL, batch.toArray(MapSqlParameterSource[]::new));
+    }
+
+    private static MapSqlParameterSource release(UUID subjectId, Money amount, Instant bucket) {
+        return new MapSqlParameterSource()
+                .addValue("subjectId", subjectId)
+                .addValue("amount", amount.toBigDecimal())
+                .addValue("bucket", Timestamp.from(bucket));
+    }
+
+    // сумма закрытых корзин [fromHour, toHour) из кэша, недостающие часы дочитываются из БД
+    private long closedSum(UUID subjectId, long fromHour, long toHour) {
+        UsageWindow window;
+        synchronized (windows) {
+            window = windows.computeIfAbsent(subjectId, id -> new UsageWindow());
+        }
+        synchronized (window) {
+            if (window.loadedUntil < toHour) {
+                window.dropBefore(toHour - MONTH_BUCKETS);
+                load(subjectId, window, Math.max(window.loadedUntil, toHour - MONTH_BUCKETS), toHour);
+                account(window);
+            }
+            return window.sum(fromHour, toHour);
+        }
+    }
+
+    private void load(UUID subjectId, UsageWindow window, long fromHour, long toHour) {
+        jdbcTemplate.query(CLOSED_SQL, Map.of(
+                "subjectId", subjectId,
+                "from", Timestamp.from(Instant.ofEpochSecond(fromHour * HOUR_SECONDS)),
+                "to", Timestamp.from(Instant.ofEpochSecond(toHour * HOUR_SECONDS))
+        ), rs -> {
+            long h = rs.getTimestamp("bucket").toInstant().getEpochSecond() / HOUR_SECONDS;
+            window.append(h, toCents(rs.getBigDecimal("amount")));
+        });
+        window.loadedUntil = toHour;
+    }
+
+    // пустое окно тоже считается корзиной, иначе число субъектов в кэше ничем не ограничено
+    private void account(UsageWindow window) {
+        synchronized (windows) {
+            if (window.evicted) {
+                return;
+            }
+            int weight = Math.max(1, window.size);
+            cachedBuckets += weight - window.accounted;
+            window.accounted = weight;
+            Iterator<UsageWindow> eldest = windows.values().iterator();
+            while (cachedBuckets > cacheBuckets && eldest.hasNext()) {
+                UsageWindow evicted = eldest.next();
+                if (evicted == window) {
+                    continue;
+                }
+                eldest.remove();
+                evicted.evicted = true;
+                cachedBuckets -= evicted.accounted;
+            }
+        }
+    }
+
+    private static long hourOf(Instant instant) {
+        return Math.floorDiv(instant.getEpochSecond(), HOUR_SECONDS);
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private record Debit(CardCurrency currency, boolean userLimited) {
+    }
+
+    private record SubjectUsage(UUID subjectId, BigDecimal dailyLimit, BigDecimal monthlyLimit, long liveCents) {
+    }
+
+    // ненулевые закрытые корзины по возрастанию часа: 12 байт на час со списаниями
+    private static final class UsageWindow {
+        private int[] hours = new int[4];
+        private long[] cents = new long[4];
+        private int size;
+        // закрытые корзины до этого часа (не включая) уже в массивах
+        private long loadedUntil = Long.MIN_VALUE;
+        // под блокировкой windows
+        private int accounted;
+        private boolean evicted;
+
+        private void append(long hour, long amount) {
+            if (size == hours.length) {
+                hours = Arrays.copyOf(hours, size * 2);
+                cents = Arrays.copyOf(cents, size * 2);
+            }
+            hours[size] = (int) hour;
+            cents[size] = amount;
+            size++;
+        }
+
+        // часы до fromHour выпали из месячного окна
+        private void dropBefore(long fromHour) {
+            int first = 0;
+            while (first < size && hours[first] < fromHour) {
+                first++;
+            }
+            if (first == 0) {
+                return;
+            }
+            size -= first;
+            System.arraycopy(hours, first, hours, 0, size);
+            System.arraycopy(cents, first, cents, 0, size);
+            if (hours.length > 4 && size < hours.length / 4) {
+                hours = Arrays.copyOf(hours, Math.max(4, size * 2));
+                cents = Arrays.copyOf(cents, hours.length);
+            }
+        }
+
+        private long sum(long fromHour, long toHour) {
+            long sum = 0;
+            for (int i = size - 1; i >= 0 && hours[i] >= fromHour; i--) {
+                if (hours[i] < toHour) {
+                    sum += cents[i];
+                }
+            }
+            return sum;
+        }
+    }
+}
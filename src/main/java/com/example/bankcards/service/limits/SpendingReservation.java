@@ -0,0 +1,16 @@
+package com.example.bankcards.service.limits;
+
+import com.example.bankcards.util.money.Money;
+
+import java.time.Instant;
+import java.util.UUID;
+
+// учтённое в счётчиках списание; rejection не null - лимит превышен и учёт уже откатан.
+// userAmount - сумма в валюте лимита пользователя, null - у пользователя не учтено
+public record SpendingReservation(UUID userId, UUID cardId, Money amount, Money userAmount,
+                                  Instant bucket, String rejection) {
+
+    public boolean accepted() {
+        return rejection == null;
+    }
+}
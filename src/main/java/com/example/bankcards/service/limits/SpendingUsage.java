@@ -0,0 +1,6 @@
+package com.example.bankcards.service.limits;
+
+import java.math.BigDecimal;
+
+public record SpendingUsage(BigDecimal dailyLimit, BigDecimal monthlyLimit, BigDecimal dailyUsed, BigDecimal monthlyUsed) {
+}
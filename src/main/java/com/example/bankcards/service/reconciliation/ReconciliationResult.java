@@ -0,0 +1,7 @@
+package com.example.bankcards.service.reconciliation;
+
+import java.time.Duration;
+import java.util.UUID;
+
+public record ReconciliationResult(UUID runId, long cardsChecked, int discrepancies, boolean completed, Duration duration) {
+}
@@ -0,0 +1,322 @@
+package com.example.bankcards.service.reconciliation;
+
+import com.example.bankcards.service.ledger.LedgerService;
+import com.example.bankcards.util.enums.DiscrepancyType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Сверка балансов с движениями: таблица card делится на диапазоны id, диапазоны проверяются
+// параллельно на ограниченном пуле. Каждый диапазон - один запрос, карта и её проводки
+// читаются в одном снимке, поэтому идущие переводы ложных расхождений не дают.
+// Проводки суммируются целиком, без ledger_balance_snapshot: сверка не должна опираться на производные данные.
+// Запуск держится арендой claimed_by/claimed_until: упавший запуск или запуск умершего узла забирается повторно
+@Component
+@Slf4j
+public class ReconciliationService {
+
+    // новая дата или перезапуск упавшей / брошенной; id строки сохраняется, меняется только владелец
+    private static final String CLAIM_RUN_SQL = """
+            insert into reconciliation_run (id, business_date, status, ranges, started_at, claimed_by, claimed_until)
+            values (:id, :businessDate, 'RUNNING', :ranges, :startedAt, :claimedBy, :until)
+            on conflict (business_date) do update
+            set status = 'RUNNING', ranges = excluded.ranges, started_at = excluded.started_at,
+                cards_checked = null, discrepancies = null, finished_at = null,
+                claimed_by = excluded.claimed_by, claimed_until = excluded.claimed_until
+            where reconciliation_run.status = 'FAILED'
+               or (reconciliation_run.status = 'RUNNING'
+                   and (reconciliation_run.claimed_until is null or reconciliation_run.claimed_until < :startedAt))
+            returning id
+            """;
+    private static final String CLEAR_DISCREPANCIES_SQL = "delete from reconciliation_discrepancy where run_id = :id";
+    private static final String RENEW_RUN_SQL =
+            "update reconciliation_run set claimed_until = :until where id = :id and claimed_by = :claimedBy";
+    private static final String FINISH_RUN_SQL = """
+            update reconciliation_run
+            set status = :status, cards_checked = :cardsChecked, discrepancies = :discrepancies, finished_at = :finishedAt,
+                claimed_by = null, claimed_until = null
+            where id = :id and claimed_by = :claimedBy
+            """;
+    private static final String UNFINISHED_SQL = """
+            select business_date from reconciliation_run
+            where status = 'FAILED' or (status = 'RUNNING' and (claimed_until is null or claimed_until < :now))
+            order by business_date
+            """;
+    private static final String RANGE_SQL = """
+            select c.id, c.balance + coalesce(s.slots, 0) as balance, c.held_balance,
+                coalesce(l.total, 0) as ledger_balance, l.entries, coalesce(h.held, 0) as active_holds
+            from card c
+            left join lateral (select sum(balance) as slots from card_balance_slot where card_id = c.id) s on true
+            left join lateral (
+                select sum(amount) as total, count(*) as entries from ledger_entry where account_id = c.id
+            ) l on true
+            left join lateral (
+                select sum(amount) as held from card_hold where card_id = c.id and status = 'ACTIVE'
+            ) h on true
+            where c.id >= :from
+            """;
+    // подзапросы одного запроса видят один снимок
+    private static final String CONSERVATION_SQL = """
+            select (select coalesce(sum(balance), 0) from card)
+                 + (select coalesce(sum(balance), 0) from card_balance_slot) as cards_total,
+                   (select coalesce(sum(amount), 0) from ledger_entry where account_id in (:external, :fx)) as system_total,
+                   (select coalesce(sum(amount), 0) from ledger_entry) as ledger_total
+            """;
+    // узел, потерявший аренду, не дописывает расхождения в чужой запуск
+    private static final String INSERT_DISCREPANCY_SQL = """
+            insert into reconciliation_discrepancy (run_id, card_id, type, expected, actual, detected_at)
+            select :runId, cast(:cardId as uuid), :type, :expected, :actual, :detectedAt
+            where exists (select 1 from reconciliation_run where id = :runId and claimed_by = :claimedBy)
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService pool;
+    private final int rangeCount;
+    private final long leaseMs;
+    private final Timer duration;
+    // прогресс текущего запуска для метрик
+    private final AtomicInteger rangesTotal = new AtomicInteger();
+    private final AtomicInteger rangesCompleted = new AtomicInteger();
+    private final AtomicLong cardsChecked = new AtomicLong();
+
+    public ReconciliationService(NamedParameterJdbcTemplate jdbcTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${card.reconciliation.ranges:64}") int rangeCount,
+                                 @Value("${card.reconciliation.parallelism:4}") int parallelism,
+                                 @Value("${card.reconciliation.lease-ms:300000}") long leaseMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.rangeCount = rangeCount;
+        this.leaseMs = leaseMs;
+        this.pool = Executors.newFixedThreadPool(parallelism);
+        this.duration = Timer.builder("card.reconciliation.duration").register(meterRegistry);
+        meterRegistry.gauge("card.reconciliation.ranges.total", rangesTotal);
+        meterRegistry.gauge("card.reconciliation.ranges.completed", rangesCompleted);
+        meterRegistry.gauge("card.reconciliation.cards.checked", cardsChecked);
+    }
+
+    @PreDestroy
+    public void stop() {
+        pool.shutdownNow();
+    }
+
+    // делит пространство UUID на равные диапазоны по старшим битам; PostgreSQL сравнивает uuid
+    // побайтно, то есть как беззнаковые числа. У последнего диапазона нет верхней границы
+    public static List<IdRange> partition(int ranges) {
+        long step = Long.divideUnsigned(-1L, ranges) + 1;
+        List<IdRange> result = new ArrayList<>(ranges);
+        for (int i = 0; i < ranges; i++) {
+            UUID from = new UUID(step * i, 0);
+            UUID to = i == ranges - 1 ? null : new UUID(step * (i + 1), 0);
+            result.add(new IdRange(from, to));
+        }
+        return result;
+    }
+
+    // один запуск на бизнес-дату на весь кластер; null - дату уже сверил или сверяет другой узел,
+    // либо этот узел потерял аренду посреди запуска
+    public ReconciliationResult run(LocalDate businessDate) {
+        UUID claimedBy = UUID.randomUUID();
+        Instant startedAt = Instant.now();
+        List<UUID> claimed = jdbcTemplate.queryForList(CLAIM_RUN_SQL, new MapSqlParameterSource()
+                .addValue("id", UUID.randomUUID())
+                .addValue("businessDate", businessDate)
+                .addValue("ranges", rangeCount)
+                .addValue("startedAt", Timestamp.from(startedAt))
+                .addValue("claimedBy", claimedBy)
+                .addValue("until", Timestamp.from(startedAt.plusMillis(leaseMs))), UUID.class);
+        if (claimed.isEmpty()) {
+            log.info("Reconciliation for {} already claimed", businessDate);
+            return null;
+        }
+        UUID runId = claimed.get(0);
+        // отчёт прошлой попытки неполон, запуск пишет его заново
+        jdbcTemplate.update(CLEAR_DISCREPANCIES_SQL, Map.of("id", runId));
+        rangesTotal.set(rangeCount);
+        rangesCompleted.set(0);
+        cardsChecked.set(0);
+
+        Lease lease = new Lease(runId, claimedBy);
+        List<Future<Integer>> futures = new ArrayList<>(rangeCount);
+        for (IdRange range : partition(rangeCount)) {
+            futures.add(pool.submit(() -> checkRange(lease, range)));
+        }
+        int discrepancies = 0;
+        boolean completed = true;
+        boolean lost = false;
+        for (Future<Integer> future : futures) {
+            try {
+                discrepancies += awaitRange(lease, future);
+            } catch (ExecutionException e) {
+                completed = false;
+                log.error("Reconciliation range of run id={} failed", runId, e.getCause());
+            } catch (LeaseLostException e) {
+                lost = true;
+                break;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                completed = false;
+                break;
+            }
+        }
+        if (lost || !completed) {
+            futures.forEach(pending -> pending.cancel(true));
+        }
+        if (lost) {
+            log.warn("Reconciliation for {} lost its lease, run id={} is left to another node", businessDate, runId);
+            return null;
+        }
+        if (completed) {
+            discrepancies += checkConservation(lease);
+        }
+
+        Duration elapsed = Duration.between(startedAt, Instant.now());
+        duration.record(elapsed);
+        int finished = jdbcTemplate.update(FINISH_RUN_SQL, new MapSqlParameterSource()
+                .addValue("id", runId)
+                .addValue("claimedBy", claimedBy)
+                .addValue("status", completed ? "COMPLETED" : "FAILED")
+                .addValue("cardsChecked", cardsChecked.get())
+                .addValue("discrepancies", discrepancies)
+                .addValue("finishedAt", Timestamp.from(Instant.now())));
+        if (finished == 0) {
+            log.warn("Reconciliation for {} lost its lease before finishing, run id={}", businessDate, runId);
+            return null;
+        }
+        log.info("Reconciliation for {} {}: {} cards, {} discrepancies in {} ms", businessDate,
+                completed ? "completed" : "failed", cardsChecked.get(), discrepancies, elapsed.toMillis());
+        return new ReconciliationResult(runId, cardsChecked.get(), discrepancies, completed, elapsed);
+    }
+
+    // даты, запуск которых упал или брошен умершим узлом
+    public List<LocalDate> unfinishedDates() {
+        return jdbcTemplate.queryForList(UNFINISHED_SQL, Map.of("now", Timestamp.from(Instant.now())), LocalDate.class);
+    }
+
+    // ждёт диапазон, продлевая аренду каждую треть её срока
+    private int awaitRange(Lease lease, Future<Integer> future) throws ExecutionException, InterruptedException {
+        while (true) {
+            try {
+                return future.get(leaseMs / 3, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                int renewed = jdbcTemplate.update(RENEW_RUN_SQL, Map.of(
+                        "id", lease.runId(),
+                        "claimedBy", lease.claimedBy(),
+                        "until", Timestamp.from(Instant.now().plusMillis(leaseMs))
+                ));
+                if (renewed == 0) {
+                    throw new LeaseLostException();
+                }
+            }
+        }
+    }
+
+    private int checkRange(Lease lease, IdRange range) {
+        MapSqlParameterSource params = new MapSqlParameterSource("from", range.from());
+        String sql = RANGE_SQL;
+        if (range.to() != null) {
+            params.addValue("to", range.to());
+            sql = RANGE_SQL + " and c.id < :to";
+        }
+        Timestamp detectedAt = Timestamp.from(Instant.now());
+        List<SqlParameterSource> found = new ArrayList<>();
+        AtomicLong checked = new AtomicLong();
+        jdbcTemplate.query(sql, params, rs -> {
+            UUID cardId = rs.getObject("id", UUID.class);
+            BigDecimal balance = rs.getBigDecimal("balance");
+            BigDecimal held = rs.getBigDecimal("held_balance");
+            BigDecimal activeHolds = rs.getBigDecimal("active_holds");
+            // у карты без проводок сверять не с чем, остаётся неотрицательность и общий баланс денег
+            if (rs.getLong("entries") > 0 && balance.compareTo(rs.getBigDecimal("ledger_balance")) != 0) {
+                found.add(discrepancy(lease, cardId, DiscrepancyType.BALANCE_MISMATCH,
+                        rs.getBigDecimal("ledger_balance"), balance, detectedAt));
+            }
+            if (balance.signum() < 0) {
+                found.add(discrepancy(lease, cardId, DiscrepancyType.NEGATIVE_BALANCE, BigDecimal.ZERO, balance, detectedAt));
+            }
+            if (held.compareTo(activeHolds) != 0) {
+                found.add(discrepancy(lease, cardId, DiscrepancyType.HELD_MISMATCH, activeHolds, held, detectedAt));
+            }
+            checked.incrementAndGet();
+        });
+        record(found);
+        cardsChecked.addAndGet(checked.get());
+        rangesCompleted.incrementAndGet();
+        return found.size();
+    }
+
+    private int checkConservation(Lease lease) {
+        Timestamp detectedAt = Timestamp.from(Instant.now());
+        List<SqlParameterSource> found = new ArrayList<>(2);
+        jdbcTemplate.query(CONSERVATION_SQL, Map.of("external", LedgerService.EXTERNAL_ACCOUNT, "fx", LedgerService.FX_ACCOUNT), rs -> {
+            BigDecimal cardsTotal = rs.getBigDecimal("cards_total");
+            // внешний счёт отрицателен на сумму всех денег, пришедших в систему;
+            // счёт конвертации держит разницу сумм межвалютных переводов
+            BigDecimal broughtIn = rs.getBigDecimal("system_total").negate();
+            if (cardsTotal.compareTo(broughtIn) != 0) {
+                found.add(discrepancy(lease, null, DiscrepancyType.MONEY_NOT_CONSERVED, broughtIn, cardsTotal, detectedAt));
+            }
+            BigDecimal ledgerTotal = rs.getBigDecimal("ledger_total");
+            if (ledgerTotal.signum() != 0) {
+                found.add(discrepancy(lease, null, DiscrepancyType.LEDGER_UNBALANCED, BigDecimal.ZERO, ledgerTotal, detectedAt));
+            }
+        });
+        record(found);
+        return found.size();
+    }
+
+    private void record(List<SqlParameterSource> found) {
+        if (found.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_DISCREPANCY_SQL, found.toArray(SqlParameterSource[]::new));
+        found.forEach(row -> meterRegistry.counter("card.reconciliation.discrepancies",
+                "type", (String) row.getValue("type")).increment());
+    }
+
+    private static SqlParameterSource discrepancy(Lease lease, UUID cardId, DiscrepancyType type,
+                                                  BigDecimal expected, BigDecimal actual, Timestamp detectedAt) {
+        return new MapSqlParameterSource()
+                .addValue("runId", lease.runId())
+                .addValue("claimedBy", lease.claimedBy())
+                .addValue("cardId", cardId)
+                .addValue("type", type.name())
+                .addValue("expected", expected)
+                .addValue("actual", actual)
+                .addValue("detectedAt", detectedAt);
+    }
+
+    public record IdRange(UUID from, UUID to) {
+    }
+
+    private record Lease(UUID runId, UUID claimedBy) {
+    }
+
+    private static class LeaseLostException extends RuntimeException {
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.bankcards.service.scheduler;
+
+import com.example.bankcards.service.striping.StripedBalanceService;
+import com.example.bankcards.util.money.Money;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CardBalanceFoldScheduler {
+
+    private final StripedBalanceService stripedBalanceService;
+
+    @Scheduled(fixedDelayString = "${card.balance.striping.fold-interval-ms:1000}")
+    public void foldStripedBalances() {
+        // заодно подтягиваем переключения, сделанные другими экземплярами
+        stripedBalanceService.loadStripedCards();
+        for (UUID cardId : stripedBalanceService.stripedCards()) {
+            try {
+                Money folded = stripedBalanceService.fold(cardId);
+                if (folded.signum() != 0) {
+                    log.debug("Folded {} into card id={}", folded, cardId);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Fold failed for card id={}, will retry on next run", cardId, e);
+            }
+        }
+    }
+
+}
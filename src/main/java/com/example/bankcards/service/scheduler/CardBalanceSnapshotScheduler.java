@@ -0,0 +1,24 @@
+package com.example.bankcards.service.scheduler;
+
+import com.example.bankcards.service.snapshot.CardBalanceSnapshotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CardBalanceSnapshotScheduler {
+
+    private final CardBalanceSnapshotService snapshotService;
+
+    @Scheduled(cron = "${card.balance-snapshot.cron:0 10 0 * * *}", zone = "UTC") // остатки за прошедшие сутки
+    public void snapshotPreviousDay() {
+        snapshotService.takeDailySnapshot(LocalDate.now(ZoneOffset.UTC).minusDays(1));
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.example.bankcards.service.scheduler;
+
+import com.example.bankcards.service.hold.CardHoldService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CardHoldExpiryScheduler {
+
+    private final CardHoldService cardHoldService;
+
+    @Value("${card.holds.sweep-batch:1000}")
+    private int batchSize = 1000;
+
+    @Scheduled(fixedDelayString = "${card.holds.sweep-interval-ms:60000}")
+    public void releaseExpiredHolds() {
+        int expired = cardHoldService.expire(batchSize);
+        if (expired > 0) {
+            log.info("{} expired holds released", expired);
+        }
+    }
+
+}
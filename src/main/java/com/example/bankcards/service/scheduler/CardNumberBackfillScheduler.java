@@ -0,0 +1,36 @@
+package com.example.bankcards.service.scheduler;
+
+import com.example.bankcards.service.cardnumber.CardNumberBackfillResult;
+import com.example.bankcards.service.cardnumber.CardNumberBackfillService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CardNumberBackfillScheduler {
+
+    private final CardNumberBackfillService backfillService;
+
+    // идёт в фоне и не задерживает старт; проход повторяется, пока не пройдёт без упавших пачек
+    @Scheduled(fixedDelayString = "${card-number.backfill.interval-ms:60000}")
+    public void backfillNumberColumns() {
+        if (backfillService.isComplete()) {
+            return;
+        }
+        try {
+            CardNumberBackfillResult result = backfillService.backfill();
+            if (result.failedChunks() > 0) {
+                log.warn("last4 and number hash filled for {} cards, {} chunks failed and will be retried",
+                        result.filled(), result.failedChunks());
+            } else {
+                log.info("last4 and number hash filled for {} cards", result.filled());
+            }
+        } catch (RuntimeException e) {
+            log.error("Card number backfill failed, will be retried", e);
+        }
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.example.bankcards.service.scheduler;
+
+import com.example.bankcards.service.cardnumber.CardNumberPool;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class CardNumberPoolScheduler {
+
+    private final CardNumberPool cardNumberPool;
+
+    // первый запуск сразу после старта наполняет очередь целиком
+    @Scheduled(fixedDelayString = "${card-number.pool.refill-interval-ms:1000}")
+    public void refillCardNumberPool() {
+        cardNumberPool.refill();
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.example.bankcards.service.scheduler;
+
+import com.example.bankcards.service.cardnumber.CardNumberRotationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class CardNumberRotationScheduler {
+
+    private final CardNumberRotationService rotationService;
+
+    // без запущенной перешифровки или при аренде у другого узла - один пустой UPDATE
+    @Scheduled(fixedDelayString = "${card-number.rotation.poll-ms:10000}")
+    public void rotateCardNumbers() {
+        rotationService.run();
+    }
+
+}
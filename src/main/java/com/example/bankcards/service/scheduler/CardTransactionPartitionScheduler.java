@@ -0,0 +1,38 @@
+package com.example.bankcards.service.scheduler;
+
+import com.example.bankcards.service.history.CardTransactionPartitionManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CardTransactionPartitionScheduler {
+
+    private final CardTransactionPartitionManager partitionManager;
+
+    @Value("${card.history.partitions-ahead:2}")
+    private int partitionsAhead = 2;
+    @Value("${card.history.retention-months:24}")
+    private int retentionMonths = 24;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${card.history.maintenance-cron:0 30 0 * * *}") // каждый день в 00:30
+    public void maintainPartitions() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        int created = partitionManager.createAhead(current, partitionsAhead);
+        int dropped = partitionManager.dropOlderThan(current.minusMonths(retentionMonths - 1L));
+        long defaultRows = partitionManager.countDefaultRows();
+        log.info("card_transaction partitions maintained: {} created, {} dropped, {} rows in default partition",
+                created, dropped, defaultRows);
+    }
+
+}
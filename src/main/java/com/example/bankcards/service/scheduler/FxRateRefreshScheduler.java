@@ -0,0 +1,20 @@
+package com.example.bankcards.service.scheduler;
+
+import com.example.bankcards.service.fx.FxRateService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+public class FxRateRefreshScheduler {
+
+    private final FxRateService fxRateService;
+
+    // курсы, загруженные через другой узел
+    @Scheduled(fixedDelayString = "${card.fx.refresh-ms:60000}")
+    public void refreshRates() {
+        fxRateService.refresh();
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.example.bankcards.service.scheduler;
+
+import com.example.bankcards.service.idempotency.IdempotencyService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyPurgeScheduler {
+
+    private final IdempotencyService idempotencyService;
+
+    @Value("${card.idempotency.purge-batch:10000}")
+    private int purgeBatch = 10000;
+
+    @Scheduled(cron = "${card.idempotency.purge-cron:0 0 * * * *}") // по умолчанию каждый час
+    public void purgeExpiredRecords() {
+        int deleted = idempotencyService.purgeExpired(purgeBatch);
+        log.info("{} expired idempotency records purged", deleted);
+    }
+
+}
@@ -0,0 +1,22 @@
+package com.example.bankcards.service.scheduler;
+
+import com.example.bankcards.service.ledger.LedgerService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerSnapshotScheduler {
+
+    private final LedgerService ledgerService;
+
+    @Scheduled(fixedDelayString = "${card.ledger.snapshot-interval-ms:300000}")
+    public void snapshotBalances() {
+        int snapshots = ledgerService.takeSnapshots();
+        log.info("{} ledger balance snapshots taken", snapshots);
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.example.bankcards.service.scheduler;
+
+import com.example.bankcards.service.reconciliation.ReconciliationService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+@Service
+@RequiredArgsConstructor
+public class ReconciliationScheduler {
+
+    private final ReconciliationService reconciliationService;
+
+    @Scheduled(cron = "${card.reconciliation.cron:0 0 2 * * *}") // по умолчанию каждую ночь в 02:00
+    public void reconcile() {
+        reconciliationService.run(LocalDate.now(ZoneOffset.UTC).minusDays(1));
+    }
+
+    // упавшие и брошенные запуски забираются повторно
+    @Scheduled(cron = "${card.reconciliation.retry-cron:0 20 * * * *}") // по умолчанию каждый час
+    public void retryUnfinished() {
+        reconciliationService.unfinishedDates().forEach(reconciliationService::run);
+    }
+
+}
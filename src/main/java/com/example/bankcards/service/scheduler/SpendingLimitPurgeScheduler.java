@@ -0,0 +1,26 @@
+package com.example.bankcards.service.scheduler;
+
+import com.example.bankcards.service.limits.SpendingLimitService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SpendingLimitPurgeScheduler {
+
+    private final SpendingLimitService spendingLimitService;
+
+    @Value("${card.limits.purge-batch:10000}")
+    private int purgeBatch = 10000;
+
+    @Scheduled(cron = "${card.limits.purge-cron:0 15 * * * *}") // по умолчанию каждый час
+    public void purgeExpiredBuckets() {
+        int deleted = spendingLimitService.purgeExpired(purgeBatch);
+        log.info("{} expired spending limit buckets purged", deleted);
+    }
+
+}
@@ -0,0 +1,25 @@
+package com.example.bankcards.service.scheduler;
+
+import com.example.bankcards.service.standing.StandingOrderDispatcher;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StandingOrderScheduler {
+
+    private final StandingOrderDispatcher dispatcher;
+
+    // интервал опроса меньше горизонта, поэтому заказ попадает в колесо заранее
+    @Scheduled(fixedDelayString = "${card.standing-orders.poll-interval-ms:30000}")
+    public void claimDueOrders() {
+        int claimed = dispatcher.claimDue();
+        if (claimed > 0) {
+            log.info("{} standing orders scheduled, {} waiting in the timing wheel", claimed, dispatcher.pending());
+        }
+    }
+
+}
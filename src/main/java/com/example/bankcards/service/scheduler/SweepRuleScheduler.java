@@ -0,0 +1,34 @@
+package com.example.bankcards.service.scheduler;
+
+import com.example.bankcards.service.sweep.SweepRuleExecutor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class SweepRuleScheduler {
+
+    private final SweepRuleExecutor sweepRuleExecutor;
+
+    @Value("${card.sweep.batch:500}")
+    private int batchSize = 500;
+
+    @Scheduled(fixedDelayString = "${card.sweep.drain-interval-ms:200}")
+    public void applyPendingRules() {
+        int swept = sweepRuleExecutor.drain(batchSize);
+        if (swept > 0) {
+            log.debug("{} sweep transfers applied", swept);
+        }
+    }
+
+    // правила, созданные или удалённые на других узлах
+    @Scheduled(fixedDelayString = "${card.sweep.reload-interval-ms:60000}")
+    public void reloadRules() {
+        sweepRuleExecutor.reload();
+    }
+
+}
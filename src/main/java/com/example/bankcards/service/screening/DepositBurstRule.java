@@ -0,0 +1,52 @@
+package com.example.bankcards.service.screening;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// Много мелких пополнений одной карты за несколько секунд: типичная проверка украденных реквизитов
+@Component
+public class DepositBurstRule implements ScreeningRule {
+
+    @Value("${card.screening.deposit-burst.window-ms:10000}")
+    private long windowMs = 10000;
+
+    @Value("${card.screening.deposit-burst.small-amount:100}")
+    private BigDecimal smallAmount = BigDecimal.valueOf(100);
+
+    @Value("${card.screening.deposit-burst.flag-count:10}")
+    private int flagCount = 10;
+
+    @Value("${card.screening.deposit-burst.block-count:20}")
+    private int blockCount = 20;
+
+    @Override
+    public ScreeningVerdict evaluateDeposit(VelocityRing cardRing, long amountCents, long now) {
+        long smallCents = FraudScreeningService.toCents(smallAmount);
+        if (amountCents > smallCents) {
+            return ScreeningVerdict.ALLOW;
+        }
+        long window = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        VelocityRing.Entry entry = VelocityRing.reader();
+        int count = 1;
+        long head = cardRing.head();
+        long oldest = Math.max(0, head - cardRing.capacity());
+        for (long sequence = head - 1; sequence >= oldest; sequence--) {
+            if (!cardRing.read(sequence, entry)) {
+                continue;
+            }
+            if (now - entry.time > window) {
+                break;
+            }
+            if (entry.amountCents <= smallCents) {
+                count++;
+            }
+        }
+        if (count >= blockCount) {
+            return ScreeningVerdict.BLOCK;
+        }
+        return count >= flagCount ? ScreeningVerdict.FLAG : ScreeningVerdict.ALLOW;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.bankcards.service.screening;
+
+import com.example.bankcards.util.constants.ErrorMessages;
+import com.example.bankcards.util.money.Money;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Проверка скорости операций перед пополнением и переводом. screen* оценивает операцию правилами
+// по истории и отклоняет её при BLOCK, record* после успешной операции дописывает её в кольцо
+// и при FLAG ставит картам blockRequested. В историю попадают только успешные операции владельца,
+// поэтому чужими неудачными попытками карту пометить нельзя.
+// Кольца лежат в таблице прямого отображения: на частом пути нет ни блокировок, ни выделения памяти
+@Component
+@Slf4j
+public class FraudScreeningService {
+
+    private static final String FLAG_SQL = """
+            update card set block_requested = true, version = version + 1
+            where id in (:ids) and block_requested = false and is_deleted = false
+            """;
+
+    private final ScreeningRule[] rules;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final AtomicReferenceArray<VelocityRing> rings;
+    private final int ringSize;
+    private final boolean enabled;
+    private final long reflagNanos;
+
+    public FraudScreeningService(List<ScreeningRule> rules,
+                                 NamedParameterJdbcTemplate jdbcTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${card.screening.enabled:true}") boolean enabled,
+                                 @Value("${card.screening.table-size:65536}") int tableSize,
+                                 @Value("${card.screening.ring-size:32}") int ringSize,
+                                 @Value("${card.screening.reflag-ms:60000}") long reflagMs) {
+        if (Integer.bitCount(tableSize) != 1) {
+            throw new IllegalArgumentException("Screening table size must be a power of two: " + tableSize);
+        }
+        this.rules = rules.toArray(ScreeningRule[]::new);
+        this.jdbcTemplate = jdbcTemplate;
+        this.meterRegistry = meterRegistry;
+        this.rings = new AtomicReferenceArray<>(tableSize);
+        this.ringSize = ringSize;
+        this.enabled = enabled;
+        this.reflagNanos = TimeUnit.MILLISECONDS.toNanos(reflagMs);
+        log.info("Fraud screening {} with {} rules", enabled ? "enabled" : "disabled", this.rules.length);
+    }
+
+    // только для порогов из конфигурации, суммы операций приходят уже в копейках;
+    // doubleValue не создаёт объектов на частом пути
+    static long toCents(BigDecimal amount) {
+        return Math.round(amount.doubleValue() * 100);
+    }
+
+    public ScreeningVerdict screenDeposit(UUID cardId, Money amount) {
+        VelocityRing ring = enabled ? find(cardId) : null;
+        if (ring == null) {
+            return ScreeningVerdict.ALLOW;
+        }
+        long cents = amount.minorUnits();
+        long now = System.nanoTime();
+        ScreeningVerdict verdict = ScreeningVerdict.ALLOW;
+        for (ScreeningRule rule : rules) {
+            verdict = stricter(verdict, rule.evaluateDeposit(ring, cents, now));
+        }
+        if (verdict == ScreeningVerdict.BLOCK) {
+            reject("deposit", cardId);
+        }
+        return verdict;
+    }
+
+    public void recordDeposit(UUID cardId, Money amount, ScreeningVerdict verdict) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        VelocityRing ring = ringFor(cardId);
+        ring.append(now, amount.minorUnits(), 0, VelocityRing.key(cardId));
+        if (verdict == ScreeningVerdict.FLAG && ring.tryMarkFlagged(now, reflagNanos)) {
+            flag("deposit", List.of(cardId));
+        }
+    }
+
+    public ScreeningVerdict screenTransfer(UUID userId, UUID debitCardId, UUID creditCardId, Money amount) {
+        VelocityRing ring = enabled ? find(userId) : null;
+        if (ring == null) {
+            return ScreeningVerdict.ALLOW;
+        }
+        long cents = amount.minorUnits();
+        long now = System.nanoTime();
+        long debitKey = VelocityRing.key(debitCardId);
+        long creditKey = VelocityRing.key(creditCardId);
+        ScreeningVerdict verdict = ScreeningVerdict.ALLOW;
+        for (ScreeningRule rule : rules) {
+            verdict = stricter(verdict, rule.evaluateTransfer(ring, debitKey, creditKey, cents, now));
+        }
+        if (verdict == ScreeningVerdict.BLOCK) {
+            reject("transfer", debitCardId);
+        }
+        return verdict;
+    }
+
+    public void recordTransfer(UUID userId, UUID debitCardId, UUID creditCardId, Money amount, ScreeningVerdict verdict) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        VelocityRing ring = ringFor(userId);
+        ring.append(now, amount.minorUnits(), VelocityRing.key(debitCardId), VelocityRing.key(creditCardId));
+        if (verdict == ScreeningVerdict.FLAG && ring.tryMarkFlagged(now, reflagNanos)) {
+            flag("transfer", List.of(debitCardId, creditCardId));
+        }
+    }
+
+    private VelocityRing find(UUID id) {
+        VelocityRing ring = rings.get(index(id));
+        return ring != null && ring.ownedBy(id) ? ring : null;
+    }
+
+    // при коллизии кольцо вытесняет чужое: история теряется, но таблица не растёт
+    private VelocityRing ringFor(UUID id) {
+        int index = index(id);
+        VelocityRing created = null;
+        while (true) {
+            VelocityRing ring = rings.get(index);
+            if (ring != null && ring.ownedBy(id)) {
+                return ring;
+            }
+            if (created == null) {
+                created = new VelocityRing(id, ringSize);
+            }
+            if (rings.compareAndSet(index, ring, created)) {
+                return created;
+            }
+        }
+    }
+
+    private int index(UUID id) {
+        long key = VelocityRing.key(id);
+        return (int) (key ^ (key >>> 32)) & (rings.length() - 1);
+    }
+
+    private void reject(String operation, UUID cardId) {
+        meterRegistry.counter("card.screening.verdicts", "operation", operation, "verdict", "BLOCK").increment();
+        log.warn("Screening blocked {} on card id={}", operation, cardId);
+        throw new ResponseStatusException(HttpStatus.FORBIDDEN, ErrorMessages.OPERATION_BLOCKED_BY_SCREENING);
+    }
+
+    // операция уже проведена, сбой пометки её не отменяет
+    private void flag(String operation, List<UUID> cardIds) {
+        meterRegistry.counter("card.screening.verdicts", "operation", operation, "verdict", "FLAG").increment();
+        try {
+            int flagged = jdbcTemplate.update(FLAG_SQL, Map.of("ids", cardIds));
+            log.warn("Screening flagged {} on cards {}, {} block requests raised", operation, cardIds, flagged);
+        } catch (DataAccessException e) {
+            log.error("Block request for flagged cards {} was not saved", cardIds, e);
+        }
+    }
+
+    private static ScreeningVerdict stricter(ScreeningVerdict current, ScreeningVerdict candidate) {
+        return candidate.ordinal() > current.ordinal() ? candidate : current;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.bankcards.service.screening;
+
+// Правило проверки скорости операций. Проверяемая операция ещё не записана в кольцо,
+// правило само учитывает её вместе с историей. Вызывается на каждой операции:
+// реализация не должна выделять память и брать блокировки
+public interface ScreeningRule {
+
+    // cardRing - успешные пополнения карты
+    default ScreeningVerdict evaluateDeposit(VelocityRing cardRing, long amountCents, long now) {
+        return ScreeningVerdict.ALLOW;
+    }
+
+    // userRing - успешные переводы пользователя; карты заданы ключами VelocityRing.key
+    default ScreeningVerdict evaluateTransfer(VelocityRing userRing, long debitKey, long creditKey, long amountCents, long now) {
+        return ScreeningVerdict.ALLOW;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.bankcards.service.screening;
+
+// Порядок значим: итоговый вердикт - самый строгий из вердиктов правил
+public enum ScreeningVerdict {
+    ALLOW,
+    // операция проходит, карта попадает в очередь на блокировку (blockRequested)
+    FLAG,
+    // операция отклоняется
+    BLOCK
+}
@@ -0,0 +1,52 @@
+package com.example.bankcards.service.screening;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+// Деньги быстро гоняются туда и обратно между двумя картами: считаем смены направления
+// переводов по этой паре карт за окно, проверяемый перевод - самый свежий
+@Component
+public class TransferPingPongRule implements ScreeningRule {
+
+    @Value("${card.screening.ping-pong.window-ms:60000}")
+    private long windowMs = 60000;
+
+    @Value("${card.screening.ping-pong.flag-reversals:3}")
+    private int flagReversals = 3;
+
+    @Value("${card.screening.ping-pong.block-reversals:7}")
+    private int blockReversals = 7;
+
+    @Override
+    public ScreeningVerdict evaluateTransfer(VelocityRing userRing, long debitKey, long creditKey, long amountCents, long now) {
+        long window = TimeUnit.MILLISECONDS.toNanos(windowMs);
+        VelocityRing.Entry entry = VelocityRing.reader();
+        int reversals = 0;
+        long lastFrom = debitKey;
+        long head = userRing.head();
+        long oldest = Math.max(0, head - userRing.capacity());
+        for (long sequence = head - 1; sequence >= oldest; sequence--) {
+            if (!userRing.read(sequence, entry)) {
+                continue;
+            }
+            if (now - entry.time > window) {
+                break;
+            }
+            boolean samePair = (entry.from == debitKey && entry.to == creditKey)
+                    || (entry.from == creditKey && entry.to == debitKey);
+            if (!samePair) {
+                continue;
+            }
+            if (entry.from != lastFrom) {
+                reversals++;
+            }
+            lastFrom = entry.from;
+        }
+        if (reversals >= blockReversals) {
+            return ScreeningVerdict.BLOCK;
+        }
+        return reversals >= flagReversals ? ScreeningVerdict.FLAG : ScreeningVerdict.ALLOW;
+    }
+}
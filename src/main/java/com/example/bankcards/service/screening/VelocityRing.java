@@ -0,0 +1,98 @@
+package com.example.bankcards.service.screening;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Кольцо последних операций одной карты или пользователя без блокировок.
+// Писатель занимает номер через счётчик и публикует запись штампом: сначала -1, потом поля, потом номер.
+// Читатель берёт запись, только если штамп до и после чтения полей равен её номеру,
+// так что недописанные и перезаписанные записи пропускаются
+public final class VelocityRing {
+
+    private static final int STAMP = 0;
+    private static final int TIME = 1;
+    private static final int AMOUNT = 2;
+    private static final int FROM = 3;
+    private static final int TO = 4;
+    private static final int STRIDE = 5;
+    private static final ThreadLocal<Entry> READER = ThreadLocal.withInitial(Entry::new);
+
+    private final long mostSigBits;
+    private final long leastSigBits;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLongArray slots;
+    private final AtomicLong flaggedAt = new AtomicLong(Long.MIN_VALUE);
+
+    public VelocityRing(UUID owner, int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two: " + capacity);
+        }
+        this.mostSigBits = owner.getMostSignificantBits();
+        this.leastSigBits = owner.getLeastSignificantBits();
+        this.mask = capacity - 1;
+        this.slots = new AtomicLongArray(capacity * STRIDE);
+    }
+
+    // ключ карты в записях колец; совпадение ключей разных карт лишь ослабляет эвристику
+    public static long key(UUID id) {
+        long h = id.getMostSignificantBits() * 0x9E3779B97F4A7C15L ^ id.getLeastSignificantBits();
+        return h == 0 ? 1 : h;
+    }
+
+    public boolean ownedBy(UUID id) {
+        return mostSigBits == id.getMostSignificantBits() && leastSigBits == id.getLeastSignificantBits();
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public void append(long time, long amountCents, long from, long to) {
+        long sequence = head.getAndIncrement();
+        int base = (int) (sequence & mask) * STRIDE;
+        slots.set(base + STAMP, -1);
+        slots.set(base + TIME, time);
+        slots.set(base + AMOUNT, amountCents);
+        slots.set(base + FROM, from);
+        slots.set(base + TO, to);
+        slots.set(base + STAMP, sequence);
+    }
+
+    // номер следующей записи; записи читаются от head() - 1 назад, не дальше capacity()
+    public long head() {
+        return head.get();
+    }
+
+    // читает запись в reader; false - запись недописана или уже перезаписана
+    public boolean read(long sequence, Entry reader) {
+        int base = (int) (sequence & mask) * STRIDE;
+        if (slots.get(base + STAMP) != sequence) {
+            return false;
+        }
+        reader.time = slots.get(base + TIME);
+        reader.amountCents = slots.get(base + AMOUNT);
+        reader.from = slots.get(base + FROM);
+        reader.to = slots.get(base + TO);
+        return slots.get(base + STAMP) == sequence;
+    }
+
+    // один поток из многих получает право пометить карту, не чаще раза за interval
+    public boolean tryMarkFlagged(long now, long interval) {
+        long last = flaggedAt.get();
+        return (last == Long.MIN_VALUE || now - last >= interval) && flaggedAt.compareAndSet(last, now);
+    }
+
+    // буфер чтения текущего потока, чтобы правила не создавали объектов
+    public static Entry reader() {
+        return READER.get();
+    }
+
+    public static final class Entry {
+        public long time;
+        public long amountCents;
+        public long from;
+        public long to;
+    }
+}
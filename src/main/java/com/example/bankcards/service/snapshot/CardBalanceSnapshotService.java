@@ -0,0 +1,113 @@
+package com.example.bankcards.service.snapshot;
+
+import com.example.bankcards.service.ledger.LedgerService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Остатки на конец дня (UTC) в card_balance_snapshot. Всё считается в БД одним INSERT ... SELECT
+// на пачку карт, сущности в JVM не загружаются.
+// Остаток на конец дня = текущий баланс (со слотами) минус движения по card_transaction после конца дня,
+// поэтому задание можно запускать и перезапускать в любой момент следующего дня
+@Component
+@Slf4j
+public class CardBalanceSnapshotService {
+
+    private static final String SNAPSHOT_CHUNK_SQL = """
+            with chunk as (
+                select id, balance from card where id > :afterId order by id limit :batch
+            ), saved as (
+                insert into card_balance_snapshot (card_id, snapshot_date, balance, created_at)
+                select chunk.id, :day,
+                    chunk.balance
+                    + coalesce((select sum(s.balance) from card_balance_slot s where s.card_id = chunk.id), 0)
+                    - coalesce((
+                        select sum(case when t.type in ('TRANSFER_OUT', 'CAPTURE') then -t.amount else t.amount end)
+                        from card_transaction t
+                        where t.card_id = chunk.id and t.created_at >= :dayEnd
+                    ), 0),
+                    now()
+                from chunk
+                on conflict (card_id, snapshot_date) do update
+                    set balance = excluded.balance, created_at = excluded.created_at
+            )
+            select (select id from chunk order by id desc limit 1) as last_id, (select count(*) from chunk) as cards
+            """;
+    // последний снимок до дня запроса плюс движения с начала следующего за ним дня
+    private static final String BALANCE_AT_SQL = """
+            select s.snapshot_date, s.balance + coalesce((
+                select sum(case when t.type in ('TRANSFER_OUT', 'CAPTURE') then -t.amount else t.amount end)
+                from card_transaction t
+                where t.card_id = :cardId
+                  and t.created_at >= (s.snapshot_date + 1)::timestamp at time zone 'UTC'
+                  and t.created_at <= :at
+            ), 0) as balance
+            from (
+                select snapshot_date, balance from card_balance_snapshot
+                where card_id = :cardId and snapshot_date < :day
+                order by snapshot_date desc
+                limit 1
+            ) s
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final LedgerService ledgerService;
+
+    // каждая пачка - отдельная короткая транзакция
+    @Value("${card.balance-snapshot.batch-size:10000}")
+    private int batchSize = 10000;
+
+    public CardBalanceSnapshotService(NamedParameterJdbcTemplate jdbcTemplate, LedgerService ledgerService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ledgerService = ledgerService;
+    }
+
+    public int takeDailySnapshot(LocalDate day) {
+        Timestamp dayEnd = Timestamp.from(day.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant());
+        UUID afterId = new UUID(0, 0);
+        int cards = 0;
+        while (true) {
+            Map<String, Object> chunk = jdbcTemplate.queryForMap(SNAPSHOT_CHUNK_SQL, Map.of(
+                    "afterId", afterId,
+                    "batch", batchSize,
+                    "day", Date.valueOf(day),
+                    "dayEnd", dayEnd
+            ));
+            if (chunk.get("last_id") == null) {
+                break;
+            }
+            afterId = (UUID) chunk.get("last_id");
+            cards += ((Number) chunk.get("cards")).intValue();
+        }
+        log.info("Balance snapshot for {} written for {} cards", day, cards);
+        return cards;
+    }
+
+    public PointInTimeBalance balanceAt(UUID cardId, Instant at) {
+        LocalDate day = at.atOffset(ZoneOffset.UTC).toLocalDate();
+        List<PointInTimeBalance> found = jdbcTemplate.query(BALANCE_AT_SQL, Map.of(
+                "cardId", cardId,
+                "day", Date.valueOf(day),
+                "at", Timestamp.from(at)
+        ), (rs, rowNum) -> new PointInTimeBalance(rs.getBigDecimal("balance"), rs.getDate("snapshot_date").toLocalDate()));
+        if (!found.isEmpty()) {
+            return found.get(0);
+        }
+        // снимков до этой даты нет (карта новая или задание ещё не запускалось) - считаем по журналу проводок
+        return new PointInTimeBalance(ledgerService.balanceAt(cardId, at), null);
+    }
+
+    public record PointInTimeBalance(BigDecimal balance, LocalDate snapshotDate) {
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.bankcards.service.standing;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+// Хешированное колесо таймеров: задача кладётся в корзину своего тика за O(1),
+// проход тика смотрит только одну корзину. Задачи дальше одного оборота ждут нужного числа оборотов
+public class HashedTimingWheel<T> {
+
+    private final long tickMs;
+    private final long startMs;
+    private final int mask;
+    private final List<List<Timeout<T>>> buckets;
+    private long tick;
+    private int size;
+
+    public HashedTimingWheel(long tickMs, int wheelSize, long startMs) {
+        // размер - степень двойки, чтобы номер корзины брать маской
+        int normalized = Integer.highestOneBit(Math.max(wheelSize, 2) - 1) << 1;
+        this.tickMs = tickMs;
+        this.startMs = startMs;
+        this.mask = normalized - 1;
+        this.buckets = new ArrayList<>(normalized);
+        for (int i = 0; i < normalized; i++) {
+            buckets.add(new ArrayList<>());
+        }
+    }
+
+    // просроченная задача срабатывает на ближайшем тике; раньше срока - никогда
+    public synchronized void schedule(T task, long deadlineMs) {
+        long deadlineTick = Math.max(Math.floorDiv(deadlineMs - startMs + tickMs - 1, tickMs), tick);
+        long rounds = (deadlineTick - tick) / buckets.size();
+        buckets.get((int) (deadlineTick & mask)).add(new Timeout<>(task, rounds));
+        size++;
+    }
+
+    // проходит все тики, наступившие к nowMs, и возвращает сработавшие задачи
+    public synchronized List<T> advance(long nowMs) {
+        long lastTick = Math.floorDiv(nowMs - startMs, tickMs);
+        List<T> expired = new ArrayList<>();
+        for (; tick <= lastTick; tick++) {
+            Iterator<Timeout<T>> iterator = buckets.get((int) (tick & mask)).iterator();
+            while (iterator.hasNext()) {
+                Timeout<T> timeout = iterator.next();
+                if (timeout.rounds == 0) {
+                    expired.add(timeout.task);
+                    iterator.remove();
+                    size--;
+                } else {
+                    timeout.rounds--;
+                }
+            }
+        }
+        return expired;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public long tickMs() {
+        return tickMs;
+    }
+
+    private static final class Timeout<T> {
+        private final T task;
+        private long rounds;
+
+        private Timeout(T task, long rounds) {
+            this.task = task;
+            this.rounds = rounds;
+        }
+    }
+}
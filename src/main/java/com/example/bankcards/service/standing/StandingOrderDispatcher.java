@@ -0,0 +1,234 @@
+package com.example.bankcards.service.standing;
+
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.entity.StandingOrder;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.exception.BalanceOutcomeUnknownException;
+import com.example.bankcards.repository.StandingOrderExecutionRepository;
+import com.example.bankcards.repository.StandingOrderRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.interfaces.card.CardOwnerService;
+import com.example.bankcards.util.constants.ErrorMessages;
+import com.example.bankcards.util.enums.StandingOrderPeriod;
+import com.example.bankcards.util.money.Money;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Плановые переводы. Опрос БД забирает заказы, срок которых наступит в пределах горизонта,
+// и раскладывает их по колесу таймеров; колесо запускает каждый заказ в его время без постоянного опроса.
+// Заказ забирается с арендой (claimed_until) через SKIP LOCKED, повторное исполнение запуска
+// отсекают условный сдвиг next_run_at и уникальный ключ standing_order_execution
+@Component
+@Slf4j
+public class StandingOrderDispatcher {
+
+    private final StandingOrderRepository standingOrderRepository;
+    private final StandingOrderExecutionRepository executionRepository;
+    private final UserRepository userRepository;
+    private final CardOwnerService cardOwnerService;
+    private final TransactionTemplate transactionTemplate;
+    // заказы, уже лежащие в колесе этого узла
+    private final Set<UUID> scheduled = ConcurrentHashMap.newKeySet();
+
+    @Value("${card.standing-orders.horizon-ms:60000}")
+    private long horizonMs = 60000;
+    @Value("${card.standing-orders.lease-ms:300000}")
+    private long leaseMs = 300000;
+    @Value("${card.standing-orders.claim-batch:500}")
+    private int claimBatch = 500;
+    @Value("${card.standing-orders.tick-ms:100}")
+    private long tickMs = 100;
+    @Value("${card.standing-orders.wheel-size:1024}")
+    private int wheelSize = 1024;
+    @Value("${card.standing-orders.workers:4}")
+    private int workerCount = 4;
+
+    private HashedTimingWheel<ScheduledRun> wheel;
+    private ExecutorService workers;
+    private Thread ticker;
+
+    public StandingOrderDispatcher(StandingOrderRepository standingOrderRepository,
+                                   StandingOrderExecutionRepository executionRepository,
+                                   UserRepository userRepository,
+                                   CardOwnerService cardOwnerService,
+                                   PlatformTransactionManager transactionManager) {
+        this.standingOrderRepository = standingOrderRepository;
+        this.executionRepository = executionRepository;
+        this.userRepository = userRepository;
+        this.cardOwnerService = cardOwnerService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void start() {
+        wheel = new HashedTimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+        workers = Executors.newFixedThreadPool(workerCount);
+        ticker = new Thread(this::runTicker, "standing-order-wheel");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        ticker.interrupt();
+        workers.shutdown();
+    }
+
+    // забирает пачками все заказы со сроком до now + horizon
+    public int claimDue() {
+        int total = 0;
+        List<ScheduledRun> claimed;
+        do {
+            OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+            claimed = transactionTemplate.execute(status -> standingOrderRepository.claimDue(
+                    now, now.plus(Duration.ofMillis(horizonMs)), leaseMs / 1000, claimBatch
+            ).stream().map(StandingOrderDispatcher::toRun).toList());
+            claimed.forEach(this::schedule);
+            total += claimed.size();
+        } while (claimed.size() == claimBatch);
+        return total;
+    }
+
+    public int pending() {
+        return wheel.size();
+    }
+
+    private void schedule(ScheduledRun run) {
+        if (scheduled.add(run.orderId())) {
+            wheel.schedule(run, run.scheduledAt().toInstant().toEpochMilli());
+        }
+    }
+
+    private static ScheduledRun toRun(StandingOrder order) {
+        return new ScheduledRun(
+                order.getId(),
+                order.getOwner().getId(),
+                order.getDebitCardId(),
+                order.getCreditCardId(),
+                order.getAmount(),
+                order.getPeriod(),
+                order.getStartAt(),
+                order.getRunCount(),
+                order.getNextRunAt()
+        );
+    }
+
+    private void runTicker() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Thread.sleep(tickMs);
+            } catch (InterruptedException e) {
+                return;
+            }
+            for (ScheduledRun run : wheel.advance(System.currentTimeMillis())) {
+                workers.execute(() -> execute(run));
+            }
+        }
+    }
+
+    private void execute(ScheduledRun run) {
+        // заказ уже вынут из колеса; до снятия аренды опрос его повторно не заберёт
+        scheduled.remove(run.orderId());
+        try {
+            UserModel owner = userRepository.findByIdAndIsDeleted(run.ownerId(), false).orElse(null);
+            if (owner == null) {
+                reject(run, ErrorMessages.USER_NOT_FOUND);
+                return;
+            }
+            TransferRequest request = new TransferRequest(run.debitCardId(), run.creditCardId(), Money.of(run.amount()));
+            cardOwnerService.transferAs(owner, request, () -> claimRun(run));
+            log.info("Standing order id={} executed for {}", run.orderId(), run.scheduledAt());
+        } catch (AlreadyExecutedException e) {
+            log.debug("Standing order id={} run at {} is already done or cancelled", run.orderId(), run.scheduledAt());
+        } catch (BalanceOutcomeUnknownException e) {
+            // перевод мог пройти: запуск остаётся учтённым и не повторяется
+            log.error("Standing order id={} run at {} has unknown outcome", run.orderId(), run.scheduledAt());
+            transactionTemplate.executeWithoutResult(status -> standingOrderRepository.releaseClaim(run.orderId()));
+        } catch (ResponseStatusException e) {
+            if (e.getStatusCode().is5xxServerError()) {
+                log.warn("Standing order id={} deferred: {}", run.orderId(), e.getReason());
+                retry(run);
+            } else {
+                log.warn("Standing order id={} rejected: {}", run.orderId(), e.getReason());
+                reject(run, e.getReason());
+            }
+        } catch (RuntimeException e) {
+            log.error("Standing order id={} failed, it will be retried", run.orderId(), e);
+            retry(run);
+        }
+    }
+
+    // в PESSIMISTIC-режимах выполняется в транзакции перевода до самого перевода.
+    // В SHARDED и JOURNAL - в транзакции резерва лимитов, которая коммитится до движка,
+    // поэтому при определённом отказе движка запуск возвращается через retry
+    private void claimRun(ScheduledRun run) {
+        if (standingOrderRepository.advance(run.orderId(), run.scheduledAt(), nextRun(run)) == 0) {
+            throw new AlreadyExecutedException();
+        }
+        OffsetDateTime now = OffsetDateTime.now(ZoneOffset.UTC);
+        if (executionRepository.insertApplied(UUID.randomUUID(), run.orderId(), run.scheduledAt(), now) == 0) {
+            throw new AlreadyExecutedException();
+        }
+    }
+
+    // деньги не двигались: закоммиченный сдвиг и запись APPLIED откатываются, аренда снимается,
+    // запуск заберёт следующий опрос. Если claimRun откатился вместе с переводом, менять нечего
+    private void retry(ScheduledRun run) {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (standingOrderRepository.retreat(run.orderId(), run.scheduledAt(), nextRun(run), run.runCount() + 1) > 0) {
+                executionRepository.deleteApplied(run.orderId(), run.scheduledAt());
+            }
+            standingOrderRepository.releaseClaim(run.orderId());
+        });
+    }
+
+    // отказ фиксируется, заказ переходит к следующему сроку
+    private void reject(ScheduledRun run, String error) {
+        transactionTemplate.executeWithoutResult(status -> {
+            executionRepository.upsertRejected(UUID.randomUUID(), run.orderId(), run.scheduledAt(),
+                    OffsetDateTime.now(ZoneOffset.UTC), error);
+            standingOrderRepository.advance(run.orderId(), run.scheduledAt(), nextRun(run));
+        });
+    }
+
+    // от start_at, а не от прошлого запуска: 31-е число не съезжает на 28-е навсегда
+    static OffsetDateTime nextRun(StandingOrderPeriod period, OffsetDateTime startAt, long runs) {
+        return switch (period) {
+            case DAILY -> startAt.plusDays(runs);
+            case WEEKLY -> startAt.plusWeeks(runs);
+            case MONTHLY -> startAt.plusMonths(runs);
+        };
+    }
+
+    private static OffsetDateTime nextRun(ScheduledRun run) {
+        return nextRun(run.period(), run.startAt(), run.runCount() + 1);
+    }
+
+    private record ScheduledRun(UUID orderId, UUID ownerId, UUID debitCardId, UUID creditCardId, BigDecimal amount,
+                                StandingOrderPeriod period, OffsetDateTime startAt, long runCount,
+                                OffsetDateTime scheduledAt) {
+    }
+
+    private static final class AlreadyExecutedException extends RuntimeException {
+        private AlreadyExecutedException() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.bankcards.service.striping;
+
+import com.example.bankcards.util.enums.CardStatus;
+import com.example.bankcards.util.money.Money;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Полосатый баланс: зачисления на горячую карту размазаны по K строкам card_balance_slot,
+// списания и периодическая свёртка переносят слоты в card.balance.
+// Порядок блокировок везде один: сначала card, потом её слоты
+@Component
+@Slf4j
+public class StripedBalanceService {
+
+    private static final String LOAD_STRIPED_SQL =
+            "select id from card where striped = true and is_deleted = false";
+    private static final String CREDIT_SLOT_SQL = """
+            update card_balance_slot s set balance = s.balance + :amount
+            from card c
+            where s.card_id = :cardId and s.slot = :slot
+              and c.id = s.card_id and c.owner = :owner and c.status = :status
+              and c.is_deleted = false and c.striped = true
+            """;
+    private static final String TOTAL_BALANCE_SQL = """
+            select c.balance + coalesce((select sum(s.balance) from card_balance_slot s where s.card_id = c.id), 0)
+            from card c where c.id = :cardId
+            """;
+    private static final String LOCK_CARD_SQL = "select id from card where id = :cardId for update";
+    private static final String LOCK_SLOTS_SQL =
+            "select balance from card_balance_slot where card_id = :cardId and balance <> 0 for update";
+    private static final String RESET_SLOTS_SQL =
+            "update card_balance_slot set balance = 0 where card_id = :cardId and balance <> 0";
+    private static final String ADD_TO_CARD_SQL =
+            "update card set balance = balance + :amount, version = version + 1 where id = :cardId";
+    private static final String ENABLE_SQL =
+            "update card set striped = true, version = version + 1 where id = :cardId";
+    private static final String CREATE_SLOTS_SQL = """
+            insert into card_balance_slot (card_id, slot, balance)
+            select :cardId, slot, 0 from generate_series(0, :slots - 1) slot
+            on conflict do nothing
+            """;
+    private static final String DISABLE_SQL = """
+            with removed as (delete from card_balance_slot where card_id = :cardId returning balance)
+            update card set balance = balance + (select coalesce(sum(balance), 0) from removed),
+                striped = false, version = version + 1
+            where id = :cardId
+            """;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    // кэш нужен только для выбора пути; источник истины - card.striped
+    private final Set<UUID> stripedCards = ConcurrentHashMap.newKeySet();
+
+    @Value("${card.balance.striping.slots:16}")
+    private int slots = 16;
+
+    public StripedBalanceService(NamedParameterJdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void loadStripedCards() {
+        List<UUID> ids = jdbcTemplate.queryForList(LOAD_STRIPED_SQL, Map.of(), UUID.class);
+        stripedCards.retainAll(new HashSet<>(ids));
+        stripedCards.addAll(ids);
+        log.debug("{} striped cards loaded", ids.size());
+    }
+
+    public Set<UUID> stripedCards() {
+        return Set.copyOf(stripedCards);
+    }
+
+    public boolean isStriped(UUID cardId) {
+        return stripedCards.contains(cardId);
+    }
+
+    // зачисляет в случайный слот без блокировки строки card;
+    // false - карта не полосатая, не активна или чужая, вызывающий идёт обычным путём
+    public boolean credit(UUID cardId, UUID ownerId, Money amount) {
+        int updated = jdbcTemplate.update(CREDIT_SLOT_SQL, Map.of(
+                "amount", amount.toBigDecimal(),
+                "cardId", cardId,
+                "slot", ThreadLocalRandom.current().nextInt(slots),
+                "owner", ownerId,
+                "status", CardStatus.ACTIVE.ordinal()
+        ));
+        return updated > 0;
+    }
+
+    public Money totalBalance(UUID cardId) {
+        return Money.of(jdbcTemplate.queryForObject(TOTAL_BALANCE_SQL, Map.of("cardId", cardId), BigDecimal.class));
+    }
+
+    // обнуляет слоты и возвращает их сумму; строка card должна быть уже заблокирована вызывающим
+    public Money drainSlots(UUID cardId) {
+        Money drained = jdbcTemplate.queryForList(LOCK_SLOTS_SQL, Map.of("cardId", cardId), BigDecimal.class)
+                .stream()
+                .map(Money::of)
+                .reduce(Money.ZERO, Money::plus);
+        if (drained.signum() != 0) {
+            jdbcTemplate.update(RESET_SLOTS_SQL, Map.of("cardId", cardId));
+        }
+        return drained;
+    }
+
+    // переносит слоты в card.balance; внутри чужой транзакции присоединяется к ней
+    public Money fold(UUID cardId) {
+        return transactionTemplate.execute(status -> {
+            if (jdbcTemplate.queryForList(LOCK_CARD_SQL, Map.of("cardId", cardId), UUID.class).isEmpty()) {
+                return Money.ZERO;
+            }
+            Money drained = drainSlots(cardId);
+            if (drained.signum() != 0) {
+                jdbcTemplate.update(ADD_TO_CARD_SQL, Map.of("cardId", cardId, "amount", drained.toBigDecimal()));
+            }
+            return drained;
+        });
+    }
+
+    public void enable(UUID cardId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update(ENABLE_SQL, Map.of("cardId", cardId));
+            jdbcTemplate.update(CREATE_SLOTS_SQL, Map.of("cardId", cardId, "slots", slots));
+        });
+        stripedCards.add(cardId);
+        log.info("Striped balance enabled for card id={} with {} slots", cardId, slots);
+    }
+
+    // DELETE ждёт незавершённые зачисления в слоты, поэтому их суммы не теряются
+    public void disable(UUID cardId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForList(LOCK_CARD_SQL, Map.of("cardId", cardId), UUID.class);
+            jdbcTemplate.update(DISABLE_SQL, Map.of("cardId", cardId));
+        });
+        stripedCards.remove(cardId);
+        log.info("Striped balance disabled for card id={}", cardId);
+    }
+}
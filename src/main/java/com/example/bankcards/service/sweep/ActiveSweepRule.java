@@ -0,0 +1,16 @@
+package com.example.bankcards.service.sweep;
+
+import com.example.bankcards.entity.SweepRule;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// копия активного правила в памяти: проверка не ходит в БД за самим правилом
+public record ActiveSweepRule(UUID id, UUID ownerId, UUID watchedCardId, UUID sourceCardId,
+                              BigDecimal threshold, BigDecimal targetBalance) {
+
+    public static ActiveSweepRule of(SweepRule rule) {
+        return new ActiveSweepRule(rule.getId(), rule.getOwner().getId(), rule.getWatchedCardId(),
+                rule.getSourceCardId(), rule.getThreshold(), rule.getTargetBalance());
+    }
+}
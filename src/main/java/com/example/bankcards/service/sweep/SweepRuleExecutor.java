@@ -0,0 +1,126 @@
+package com.example.bankcards.service.sweep;
+
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.repository.SweepRuleRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.interfaces.card.CardOwnerService;
+import com.example.bankcards.service.journal.JournalBalanceService;
+import com.example.bankcards.util.enums.CardStatus;
+import com.example.bankcards.util.enums.ConcurrencyMode;
+import com.example.bankcards.util.money.Money;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+// Проверяет правила из очереди индекса и выполняет пополнения. Доступные остатки всех карт пачки
+// читаются одним запросом; после пополнения остатки в пачке поправляются, чтобы второе правило
+// на ту же карту не пополнило её повторно
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SweepRuleExecutor {
+
+    private static final String AVAILABLE_SQL = """
+            select c.id, c.held_balance, c.balance - c.held_balance
+                + coalesce((select sum(s.balance) from card_balance_slot s where s.card_id = c.id), 0) as available
+            from card c
+            where c.id in (:ids) and c.is_deleted = false and c.status = :status
+            """;
+
+    private final SweepRuleIndex sweepRuleIndex;
+    private final SweepRuleRepository sweepRuleRepository;
+    private final UserRepository userRepository;
+    private final CardOwnerService cardOwnerService;
+    private final JournalBalanceService journalBalanceService;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${card.balance.concurrency-mode:PESSIMISTIC}")
+    private ConcurrencyMode concurrencyMode = ConcurrencyMode.PESSIMISTIC;
+
+    @PostConstruct
+    public void reload() {
+        List<ActiveSweepRule> active = sweepRuleRepository.findAllActive().stream()
+                .map(ActiveSweepRule::of)
+                .toList();
+        sweepRuleIndex.reload(active);
+        log.debug("{} sweep rules loaded", active.size());
+    }
+
+    // возвращает число выполненных пополнений
+    public int drain(int batchSize) {
+        List<ActiveSweepRule> rules = sweepRuleIndex.drain(batchSize);
+        if (rules.isEmpty()) {
+            return 0;
+        }
+        Map<UUID, BigDecimal> available = loadAvailable(rules);
+        Map<UUID, UserModel> owners = new HashMap<>();
+        int swept = 0;
+        for (ActiveSweepRule rule : rules) {
+            BigDecimal watched = available.get(rule.watchedCardId());
+            if (watched == null || !available.containsKey(rule.sourceCardId())
+                    || watched.compareTo(rule.threshold()) >= 0) {
+                continue;
+            }
+            BigDecimal amount = rule.targetBalance().subtract(watched).setScale(2, RoundingMode.UP);
+            UserModel owner = owners.computeIfAbsent(rule.ownerId(),
+                    id -> userRepository.findByIdAndIsDeleted(id, false).orElse(null));
+            if (owner == null) {
+                continue;
+            }
+            try {
+                cardOwnerService.transferAs(owner,
+                        new TransferRequest(rule.sourceCardId(), rule.watchedCardId(), Money.of(amount)), () -> {
+                        });
+                available.put(rule.watchedCardId(), watched.add(amount));
+                available.merge(rule.sourceCardId(), amount.negate(), BigDecimal::add);
+                meterRegistry.counter("card.sweep.transfers", "result", "applied").increment();
+                log.info("Sweep rule id={} moved {} from card id={} to card id={}",
+                        rule.id(), amount, rule.sourceCardId(), rule.watchedCardId());
+                swept++;
+            } catch (ResponseStatusException e) {
+                // правило остаётся активным и сработает при следующем изменении баланса любой из карт
+                meterRegistry.counter("card.sweep.transfers", "result", "rejected").increment();
+                log.warn("Sweep rule id={} not applied: {}", rule.id(), e.getReason());
+            }
+        }
+        return swept;
+    }
+
+    private Map<UUID, BigDecimal> loadAvailable(List<ActiveSweepRule> rules) {
+        Set<UUID> ids = new HashSet<>();
+        rules.forEach(rule -> {
+            ids.add(rule.watchedCardId());
+            ids.add(rule.sourceCardId());
+        });
+        Map<UUID, BigDecimal> available = new HashMap<>();
+        boolean journal = concurrencyMode == ConcurrencyMode.JOURNAL;
+        jdbcTemplate.query(AVAILABLE_SQL, Map.of("ids", ids, "status", CardStatus.ACTIVE.ordinal()),
+                rs -> {
+                    UUID id = rs.getObject("id", UUID.class);
+                    BigDecimal fromRow = rs.getBigDecimal("available");
+                    // в JOURNAL строка card отстаёт от журнала, актуальный баланс в памяти;
+                    // удержания ставятся мимо журнала, их сумма берётся из строки
+                    BigDecimal held = rs.getBigDecimal("held_balance");
+                    available.put(id, journal
+                            ? journalBalanceService.currentBalance(id).map(balance -> balance.toBigDecimal().subtract(held)).orElse(fromRow)
+                            : fromRow);
+                });
+        return available;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.bankcards.service.sweep;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Правила автопополнения в памяти, по карте. Изменение баланса смотрит только правила этой карты
+// и ставит их в очередь на проверку; сама проверка и переводы идут асинхронно пачками.
+// Правило индексируется и по пополняемой карте, и по карте-источнику: деньги на источнике
+// могут сделать возможным пополнение, которое раньше не прошло
+@Component
+public class SweepRuleIndex {
+
+    private final Map<UUID, ActiveSweepRule> rules = new ConcurrentHashMap<>();
+    // списки неизменяемые и заменяются целиком, читатель на пути операции не берёт блокировок
+    private final Map<UUID, List<UUID>> byCard = new ConcurrentHashMap<>();
+    private final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+
+    // вызывается после каждого изменения баланса; у карты без правил это один поиск в хеш-таблице
+    public void onBalanceChanged(UUID cardId) {
+        List<UUID> ruleIds = byCard.get(cardId);
+        if (ruleIds != null) {
+            pending.addAll(ruleIds);
+        }
+    }
+
+    public void put(ActiveSweepRule rule) {
+        remove(rule.id());
+        rules.put(rule.id(), rule);
+        byCard.compute(rule.watchedCardId(), (card, ids) -> with(ids, rule.id()));
+        byCard.compute(rule.sourceCardId(), (card, ids) -> with(ids, rule.id()));
+        // новое правило проверяется сразу, не дожидаясь следующего изменения баланса
+        pending.add(rule.id());
+    }
+
+    public void remove(UUID ruleId) {
+        ActiveSweepRule rule = rules.remove(ruleId);
+        if (rule == null) {
+            return;
+        }
+        byCard.computeIfPresent(rule.watchedCardId(), (card, ids) -> without(ids, ruleId));
+        byCard.computeIfPresent(rule.sourceCardId(), (card, ids) -> without(ids, ruleId));
+        pending.remove(ruleId);
+    }
+
+    // полная замена при перечитывании из БД; правила, созданные на других узлах, появляются здесь
+    public void reload(List<ActiveSweepRule> active) {
+        Set<UUID> activeIds = ConcurrentHashMap.newKeySet();
+        for (ActiveSweepRule rule : active) {
+            activeIds.add(rule.id());
+            if (!rule.equals(rules.get(rule.id()))) {
+                put(rule);
+            }
+        }
+        for (UUID ruleId : List.copyOf(rules.keySet())) {
+            if (!activeIds.contains(ruleId)) {
+                remove(ruleId);
+            }
+        }
+    }
+
+    // забирает до max правил, ожидающих проверки
+    public List<ActiveSweepRule> drain(int max) {
+        List<ActiveSweepRule> drained = new ArrayList<>(Math.min(max, pending.size()));
+        Iterator<UUID> iterator = pending.iterator();
+        while (iterator.hasNext() && drained.size() < max) {
+            UUID ruleId = iterator.next();
+            iterator.remove();
+            ActiveSweepRule rule = rules.get(ruleId);
+            if (rule != null) {
+                drained.add(rule);
+            }
+        }
+        return drained;
+    }
+
+    public int size() {
+        return rules.size();
+    }
+
+    public int pending() {
+        return pending.size();
+    }
+
+    private static List<UUID> with(List<UUID> ids, UUID ruleId) {
+        if (ids == null) {
+            return List.of(ruleId);
+        }
+        List<UUID> copy = new ArrayList<>(ids.size() + 1);
+        copy.addAll(ids);
+        copy.add(ruleId);
+        return List.copyOf(copy);
+    }
+
+    private static List<UUID> without(List<UUID> ids, UUID ruleId) {
+        List<UUID> copy = new ArrayList<>(ids);
+        copy.remove(ruleId);
+        return copy.isEmpty() ? null : List.copyOf(copy);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.bankcards.util.components;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.HexFormat;
+
+// HMAC-SHA256 номера карты: одинаковый номер всегда даёт одинаковое значение независимо от шифрования,
+// а без ключа по значению номер не подобрать. Ключ отдельный от ключа шифрования
+@Component
+public class CardNumberBlindIndex {
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final ThreadLocal<Mac> mac;
+
+    public CardNumberBlindIndex(@Value("${card-number.blind-index.key}") String key) {
+        SecretKeySpec secretKey = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(ALGORITHM);
+                instance.init(secretKey);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot initialize card number blind index", e);
+            }
+        });
+        // неверный ключ должен остановить запуск, а не первый запрос
+        mac.get();
+    }
+
+    // пробелы и прочие разделители в номере не учитываются
+    public String of(String cardNumber) {
+        String digits = cardNumber.replaceAll("\\D", "");
+        return HexFormat.of().formatHex(mac.get().doFinal(digits.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
@@ -8,7 +8,9 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.Cipher;
 import javax.crypto.spec.SecretKeySpec;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
@@ -16,9 +18,11 @@ public class CardNumberUtil {
 
     private final RandomNumberGenerator randomNumberGenerator;
     private final Encryptor encryptor;
+    private final CardNumberBlindIndex blindIndex;
 
-    public String getRandomEncryptedCardNumber() {
-        return encryptor.encrypt(generateCodeNumber());
+    public GeneratedCardNumber generateCardNumber() {
+        String cardNumber = generateCodeNumber();
+        return new GeneratedCardNumber(encryptor.encrypt(cardNumber), lastFour(cardNumber), blindIndex.of(cardNumber));
     }
 
     public String decryptAndFormat(String encryptedCardNumber) {
@@ -27,9 +31,43 @@ public class CardNumberUtil {
         );
     }
 
+    // маска строится без расшифровки
+    public String maskLast4(String last4) {
+        return "**** **** **** " + last4;
+    }
+
+    // только для карт, у которых last4 ещё не заполнен
     public String getCardNumberWithMask(String encryptedCardNumber) {
+        return maskLast4(decryptLast4(encryptedCardNumber));
+    }
+
+    public String decryptLast4(String encryptedCardNumber) {
+        return lastFour(encryptor.decrypt(encryptedCardNumber));
+    }
+
+    // части номера существующей карты для фонового заполнения
+    public GeneratedCardNumber describe(String encryptedCardNumber) {
         String cardNumber = encryptor.decrypt(encryptedCardNumber);
-        return cardNumber.replaceFirst("^.{12}", "**** **** **** ");
+        return new GeneratedCardNumber(encryptedCardNumber, lastFour(cardNumber), blindIndex.of(cardNumber));
+    }
+
+    // пачка номеров расшифровывается одним контекстом шифра
+    public List<GeneratedCardNumber> describeAll(List<String> encryptedCardNumbers) {
+        List<String> cardNumbers = encryptor.decryptAll(encryptedCardNumbers);
+        List<GeneratedCardNumber> described = new ArrayList<>(cardNumbers.size());
+        for (int i = 0; i < cardNumbers.size(); i++) {
+            String cardNumber = cardNumbers.get(i);
+            described.add(new GeneratedCardNumber(encryptedCardNumbers.get(i), lastFour(cardNumber), blindIndex.of(cardNumber)));
+        }
+        return described;
+    }
+
+    public String numberHash(String cardNumber) {
+        return blindIndex.of(cardNumber);
+    }
+
+    private static String lastFour(String cardNumber) {
+        return cardNumber.substring(cardNumber.length() - 4);
     }
 
     private String format(String cardNumber) {
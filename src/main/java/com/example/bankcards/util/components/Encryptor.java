@@ -1,44 +1,162 @@
 package com.example.bankcards.util.components;
 
-import com.example.bankcards.exception.InvalidCardNumberException;
-import com.example.bankcards.util.constants.ErrorMessages;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+// Шифрование номеров карт: AES-GCM со случайным IV, шифротекст начинается с версии ключа ("v2:..."),
+// поэтому одновременно могут действовать несколько ключей, а новые номера шифруются активным.
+// Номера без префикса записаны прежним AES/ECB и только расшифровываются.
+// Cipher создаётся один раз на поток: getInstance дорог, а init с новым IV дешёв
 @Component
 public class Encryptor {
-    private static final String ALGORITHM = "AES";
-    private final SecretKeySpec secretKey;
+    private static final String GCM = "AES/GCM/NoPadding";
+    private static final String LEGACY = "AES";
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final char VERSION_PREFIX = 'v';
+    private static final char VERSION_SEPARATOR = ':';
 
-    public Encryptor(@Value("${card-number.encrypt.key}") String key) {
-        this.secretKey = new SecretKeySpec(key.getBytes(), ALGORITHM);
+    private final Map<Integer, SecretKey> keys;
+    private final int activeVersion;
+    private final String activePrefix;
+    private final SecretKeySpec legacyKey;
+    private final ThreadLocal<CipherContext> contexts = ThreadLocal.withInitial(CipherContext::new);
+
+    // keys: "1:<base64>,2:<base64>", ключи AES длиной 16, 24 или 32 байта
+    public Encryptor(@Value("${card-number.encrypt.key}") String legacyKey,
+                     @Value("${card-number.encrypt.keys}") String keys,
+                     @Value("${card-number.encrypt.active-version}") int activeVersion) {
+        this.legacyKey = new SecretKeySpec(legacyKey.getBytes(), LEGACY);
+        this.keys = parseKeys(keys);
+        if (!this.keys.containsKey(activeVersion)) {
+            throw new IllegalStateException("No card number key with active version " + activeVersion);
+        }
+        this.activeVersion = activeVersion;
+        this.activePrefix = versionPrefix(activeVersion);
     }
 
     public String encrypt(String cardNumber) {
         try {
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey);
-            byte[] encrypted = cipher.doFinal(cardNumber.getBytes());
-            return Base64.getEncoder().encodeToString(encrypted);
-        } catch (Exception e) {
+            return contexts.get().encrypt(cardNumber);
+        } catch (GeneralSecurityException e) {
             throw new RuntimeException("Error encrypting card number", e);
         }
     }
 
     public String decrypt(String encryptedCardNumber) {
         try {
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.DECRYPT_MODE, secretKey);
-            byte[] decoded = Base64.getDecoder().decode(encryptedCardNumber);
-            byte[] decrypted = cipher.doFinal(decoded);
-            return new String(decrypted);
-        } catch (Exception e) {
+            return contexts.get().decrypt(encryptedCardNumber);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new RuntimeException("Error decrypting card number", e);
+        }
+    }
+
+    // для списков: контекст потока берётся один раз на весь список
+    public List<String> decryptAll(List<String> encryptedCardNumbers) {
+        CipherContext context = contexts.get();
+        List<String> result = new ArrayList<>(encryptedCardNumbers.size());
+        try {
+            for (String encrypted : encryptedCardNumbers) {
+                result.add(context.decrypt(encrypted));
+            }
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
             throw new RuntimeException("Error decrypting card number", e);
         }
+        return result;
+    }
+
+    public int activeVersion() {
+        return activeVersion;
+    }
+
+    // начало шифротекстов, записанных ключом этой версии
+    public static String versionPrefix(int version) {
+        return VERSION_PREFIX + Integer.toString(version) + VERSION_SEPARATOR;
+    }
+
+    // 0 - номер зашифрован прежним AES/ECB
+    public static int keyVersion(String encryptedCardNumber) {
+        int separator = encryptedCardNumber.indexOf(VERSION_SEPARATOR);
+        if (separator < 0) {
+            return 0;
+        }
+        return Integer.parseInt(encryptedCardNumber, 1, separator, 10);
+    }
+
+    private static Map<Integer, SecretKey> parseKeys(String keys) {
+        Map<Integer, SecretKey> parsed = new HashMap<>();
+        for (String entry : keys.split(",")) {
+            int separator = entry.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalStateException("Card number key must be given as <version>:<base64>");
+            }
+            int version = Integer.parseInt(entry.substring(0, separator).trim());
+            byte[] key = Base64.getDecoder().decode(entry.substring(separator + 1).trim());
+            if (version <= 0 || (key.length != 16 && key.length != 24 && key.length != 32)) {
+                throw new IllegalStateException("Invalid card number key version " + version);
+            }
+            parsed.put(version, new SecretKeySpec(key, "AES"));
+        }
+        return Map.copyOf(parsed);
     }
 
+    private final class CipherContext {
+        private final Cipher gcm;
+        private final SecureRandom random = new SecureRandom();
+        private final byte[] iv = new byte[IV_BYTES];
+        private Cipher legacy;
+
+        private CipherContext() {
+            try {
+                gcm = Cipher.getInstance(GCM);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("AES-GCM is not available", e);
+            }
+        }
+
+        private String encrypt(String cardNumber) throws GeneralSecurityException {
+            byte[] plain = cardNumber.getBytes(StandardCharsets.US_ASCII);
+            random.nextBytes(iv);
+            gcm.init(Cipher.ENCRYPT_MODE, keys.get(activeVersion), new GCMParameterSpec(TAG_BITS, iv));
+            byte[] payload = new byte[IV_BYTES + gcm.getOutputSize(plain.length)];
+            System.arraycopy(iv, 0, payload, 0, IV_BYTES);
+            gcm.doFinal(plain, 0, plain.length, payload, IV_BYTES);
+            return activePrefix + Base64.getEncoder().encodeToString(payload);
+        }
+
+        private String decrypt(String encrypted) throws GeneralSecurityException {
+            int version = keyVersion(encrypted);
+            if (version == 0) {
+                return decryptLegacy(encrypted);
+            }
+            SecretKey key = keys.get(version);
+            if (key == null) {
+                throw new GeneralSecurityException("Unknown card number key version " + version);
+            }
+            byte[] payload = Base64.getDecoder().decode(encrypted.substring(encrypted.indexOf(VERSION_SEPARATOR) + 1));
+            gcm.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, payload, 0, IV_BYTES));
+            return new String(gcm.doFinal(payload, IV_BYTES, payload.length - IV_BYTES), StandardCharsets.US_ASCII);
+        }
+
+        private String decryptLegacy(String encrypted) throws GeneralSecurityException {
+            if (legacy == null) {
+                legacy = Cipher.getInstance(LEGACY);
+            }
+            legacy.init(Cipher.DECRYPT_MODE, legacyKey);
+            return new String(legacy.doFinal(Base64.getDecoder().decode(encrypted)));
+        }
+    }
 }
@@ -0,0 +1,5 @@
+package com.example.bankcards.util.components;
+
+// номер новой карты: зашифрованный целиком, последние четыре цифры открыто и blind index
+public record GeneratedCardNumber(String encrypted, String last4, String numberHash) {
+}
@@ -15,5 +15,34 @@ public class ErrorMessages {
     public static final String DEBIT_AND_CREDIT_CARD_ARE_SAME = "Debit card and credit card cannot be the same.";
     public static final String NOT_ENOUGH_FUNDS = "Not enough funds on the debit card.";
     public static final String CARD_NOT_ACTIVE = "Card not active";
+    public static final String CONCURRENT_UPDATE = "Card is being updated concurrently, try again later.";
+    public static final String BALANCE_ENGINE_OVERLOADED = "Too many balance operations, try again later.";
+    public static final String BALANCE_JOURNAL_UNAVAILABLE = "Balance journal is unavailable, try again later.";
+    public static final String BALANCE_ENGINE_TIMEOUT = "Balance operation was not processed in time and was cancelled, try again later.";
+    public static final String BALANCE_OUTCOME_UNKNOWN = "Balance operation outcome is unknown, check the balance before retrying.";
+    public static final String BATCH_ATOMIC_NOT_SUPPORTED = "Atomic batch transfers are not supported in journal mode.";
+    public static final String HOLD_NOT_FOUND = "Hold not found.";
+    public static final String HOLD_NOT_ACTIVE = "Hold is already captured, released or expired.";
+    public static final String HOLD_EXPIRED = "Hold has expired.";
+    public static final String HOLDS_NOT_SUPPORTED = "Holds are not supported in journal mode.";
+    public static final String STANDING_ORDER_NOT_FOUND = "Standing order not found.";
+    public static final String SWEEP_RULE_NOT_FOUND = "Sweep rule not found.";
+    public static final String SWEEP_RULE_CYCLE = "Sweep rule would move money between these cards in a cycle.";
+    public static final String SWEEP_TARGET_BELOW_THRESHOLD = "Target balance must not be below the threshold.";
+    public static final String DAILY_LIMIT_EXCEEDED = "Daily spending limit exceeded.";
+    public static final String MONTHLY_LIMIT_EXCEEDED = "Monthly spending limit exceeded.";
+    public static final String FX_RATE_NOT_FOUND = "No exchange rate for this currency pair.";
+    public static final String FX_RATE_SAME_CURRENCY = "Exchange rate must be set between different currencies.";
+    public static final String FX_RATE_DUPLICATE_PAIR = "Exchange rate for a currency pair is given more than once.";
+    public static final String CROSS_CURRENCY_NOT_SUPPORTED = "Transfers between cards in different currencies are not supported for this operation.";
+    public static final String OPERATION_BLOCKED_BY_SCREENING = "Operation blocked by fraud screening, card was sent for review.";
+    public static final String INVALID_CURSOR = "Invalid page cursor.";
+    public static final String BALANCE_DATE_IN_FUTURE = "Balance cannot be requested for a future moment.";
+    public static final String IDEMPOTENCY_KEY_REUSED = "Idempotency key was already used for a different request.";
+    public static final String IDEMPOTENT_REQUEST_IN_PROGRESS = "Request with this idempotency key is still being processed.";
+    public static final String NUMBER_ROTATION_ALREADY_RUNNING = "Card number re-encryption to the active key is already running.";
+    public static final String NUMBER_ROTATION_NOT_RUNNING = "Card number re-encryption is not running.";
+    public static final String NUMBER_ROTATION_NOT_PAUSED = "Card number re-encryption is not paused for the active key version, start it again.";
+    public static final String CARD_NUMBER_BACKFILL_PENDING = "Card numbers of existing cards are still being indexed, try again later.";
 
 }
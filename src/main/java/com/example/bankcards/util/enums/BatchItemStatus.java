@@ -0,0 +1,5 @@
+package com.example.bankcards.util.enums;
+
+public enum BatchItemStatus {
+    APPLIED, REJECTED, ROLLED_BACK
+}
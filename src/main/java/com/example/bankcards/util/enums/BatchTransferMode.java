@@ -0,0 +1,6 @@
+package com.example.bankcards.util.enums;
+
+public enum BatchTransferMode {
+    ATOMIC, // все переводы или ни одного
+    BEST_EFFORT // отклонённые переводы пропускаются, остальные применяются
+}
@@ -0,0 +1,9 @@
+package com.example.bankcards.util.enums;
+
+// валюты карт; у всех два знака после запятой, как у Money
+public enum CardCurrency {
+    RUB,
+    USD,
+    EUR,
+    CNY
+}
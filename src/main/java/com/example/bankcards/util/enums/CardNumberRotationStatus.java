@@ -0,0 +1,9 @@
+package com.example.bankcards.util.enums;
+
+public enum CardNumberRotationStatus {
+    IDLE,
+    RUNNING,
+    PAUSED,
+    COMPLETED,
+    INCOMPLETE // проход закончен, но часть номеров не расшифровалась и осталась под прежним ключом
+}
@@ -0,0 +1,6 @@
+package com.example.bankcards.util.enums;
+
+public enum CardTransactionType {
+    DEPOSIT, TRANSFER_IN, TRANSFER_OUT,
+    CAPTURE
+}
@@ -0,0 +1,5 @@
+package com.example.bankcards.util.enums;
+
+public enum ConcurrencyMode {
+    PESSIMISTIC, OPTIMISTIC, SERIALIZABLE, ATOMIC, SHARDED, JOURNAL
+}
@@ -0,0 +1,13 @@
+package com.example.bankcards.util.enums;
+
+public enum DiscrepancyType {
+    // баланс карты со слотами не равен сумме её проводок
+    BALANCE_MISMATCH,
+    NEGATIVE_BALANCE,
+    // held_balance не равен сумме активных удержаний
+    HELD_MISMATCH,
+    // деньги на картах не равны деньгам, пришедшим извне
+    MONEY_NOT_CONSERVED,
+    // сумма всех проводок не нулевая
+    LEDGER_UNBALANCED
+}
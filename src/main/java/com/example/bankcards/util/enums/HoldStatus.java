@@ -0,0 +1,8 @@
+package com.example.bankcards.util.enums;
+
+public enum HoldStatus {
+    ACTIVE,
+    CAPTURED,
+    RELEASED,
+    EXPIRED
+}
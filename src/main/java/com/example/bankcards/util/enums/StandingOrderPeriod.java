@@ -0,0 +1,7 @@
+package com.example.bankcards.util.enums;
+
+public enum StandingOrderPeriod {
+    DAILY,
+    WEEKLY,
+    MONTHLY
+}
@@ -12,14 +12,18 @@ import org.mapstruct.Named;
 @Mapper(componentModel = "spring", uses = {UserMapper.class})
 public interface CardMapper {
 
-    @Mapping(source = "encryptNumber", target = "maskedNumber", qualifiedByName = "maskNumber")
+    @Mapping(source = ".", target = "maskedNumber", qualifiedByName = "maskNumber")
     CardWithOwnerResponse toResponseWithOwner(Card card, @Context CardNumberUtil util);
 
+    // номер расшифровывается, только пока фоновая задача не заполнила last4
     @Named("maskNumber")
-    default String maskNumber(String encryptNumber, @Context CardNumberUtil util) {
-        return util.getCardNumberWithMask(encryptNumber);
+    default String maskNumber(Card card, @Context CardNumberUtil util) {
+        if (card.getLast4() != null) {
+            return util.maskLast4(card.getLast4());
+        }
+        return util.getCardNumberWithMask(card.getEncryptNumber());
     }
 
-    @Mapping(source = "encryptNumber", target = "maskedNumber", qualifiedByName = "maskNumber")
+    @Mapping(source = ".", target = "maskedNumber", qualifiedByName = "maskNumber")
     CardResponse toResponse(Card card, @Context CardNumberUtil util);
 }
@@ -0,0 +1,14 @@
+package com.example.bankcards.util.mappers;
+
+import com.example.bankcards.dto.response.card.StandingOrderExecutionResponse;
+import com.example.bankcards.dto.response.card.StandingOrderResponse;
+import com.example.bankcards.entity.StandingOrder;
+import com.example.bankcards.entity.StandingOrderExecution;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface StandingOrderMapper {
+    StandingOrderResponse toResponse(StandingOrder order);
+
+    StandingOrderExecutionResponse toResponse(StandingOrderExecution execution);
+}
@@ -0,0 +1,10 @@
+package com.example.bankcards.util.mappers;
+
+import com.example.bankcards.dto.response.card.SweepRuleResponse;
+import com.example.bankcards.entity.SweepRule;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring")
+public interface SweepRuleMapper {
+    SweepRuleResponse toResponse(SweepRule rule);
+}
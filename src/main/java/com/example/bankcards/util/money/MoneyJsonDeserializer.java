@@ -0,0 +1,40 @@
+package com.example.bankcards.util.money;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+// принимает число или строку с числом; больше двух знаков после запятой в Money не представить,
+// такая сумма отклоняется как неверный формат тела запроса
+public class MoneyJsonDeserializer extends StdDeserializer<Money> {
+
+    public MoneyJsonDeserializer() {
+        super(Money.class);
+    }
+
+    @Override
+    public Money deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+        BigDecimal amount;
+        if (parser.currentToken() == JsonToken.VALUE_NUMBER_INT || parser.currentToken() == JsonToken.VALUE_NUMBER_FLOAT) {
+            amount = parser.getDecimalValue();
+        } else if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            try {
+                amount = new BigDecimal(parser.getText().trim());
+            } catch (NumberFormatException e) {
+                return (Money) context.handleWeirdStringValue(Money.class, parser.getText(), "not a decimal amount");
+            }
+        } else {
+            return (Money) context.handleUnexpectedToken(Money.class, parser);
+        }
+        try {
+            return Money.of(amount);
+        } catch (ArithmeticException e) {
+            return (Money) context.handleWeirdNumberValue(Money.class, amount,
+                    "amount must have up to %d decimal places", Money.SCALE);
+        }
+    }
+}
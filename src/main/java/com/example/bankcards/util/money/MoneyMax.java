@@ -0,0 +1,23 @@
+package com.example.bankcards.util.money;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// сумма не больше value; null считается допустимым, для обязательности есть @NotNull
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+@Constraint(validatedBy = MoneyMaxValidator.class)
+public @interface MoneyMax {
+    String value();
+
+    String message() default "Amount is above the maximum";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
@@ -0,0 +1,21 @@
+package com.example.bankcards.util.money;
+
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+import java.math.BigDecimal;
+
+public class MoneyMaxValidator implements ConstraintValidator<MoneyMax, Money> {
+
+    private Money bound;
+
+    @Override
+    public void initialize(MoneyMax annotation) {
+        bound = Money.of(new BigDecimal(annotation.value()));
+    }
+
+    @Override
+    public boolean isValid(Money value, ConstraintValidatorContext context) {
+        return value == null || !bound.isLessThan(value);
+    }
+}
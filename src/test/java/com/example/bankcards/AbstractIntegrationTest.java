@@ -0,0 +1,108 @@
+package com.example.bankcards;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.CustomUserDetail;
+import com.example.bankcards.service.ledger.LedgerService;
+import com.example.bankcards.util.enums.CardCurrency;
+import com.example.bankcards.util.money.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+// Основа интеграционных тестов: один контейнер PostgreSQL на весь прогон, контекст Spring
+// общий для классов без своих настроек (дополнительные задаются через @TestPropertySource).
+// База общая, поэтому фоновые опросы отключены - задачи тесты запускают сами,
+// а карты создаются только через createCard, который заводит начальный баланс в журнал проводок.
+// Ключ версии 2 известен всем контекстам: тест перешифровки переводит на него и чужие карты
+@SpringBootTest(properties = {
+        "card-number.encrypt.keys=1:td9Vf7qy+jU3nuH9H5+i7es7oH1loyU1xDZ6mTifuC8=,2:AgICAgICAgICAgICAgICAgICAgICAgICAgICAgICAgI=",
+        "card.sweep.drain-interval-ms=3600000",
+        "card.sweep.reload-interval-ms=3600000",
+        "card.holds.sweep-interval-ms=3600000",
+        "card.standing-orders.poll-interval-ms=3600000",
+        "card-number.rotation.poll-ms=3600000"
+})
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class AbstractIntegrationTest {
+
+    @ServiceConnection
+    protected static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    // без Docker классы отключает @Testcontainers, контейнер не запускается
+    static {
+        if (DockerClientFactory.instance().isDockerAvailable()) {
+            postgres.start();
+        }
+    }
+
+    private static final String OPENING_SQL = """
+            insert into ledger_entry (transaction_id, account_id, amount, operation, created_at)
+            values (?, ?, ?, 'OPENING', ?), (?, ?, ?, 'OPENING', ?)
+            """;
+
+    @Autowired
+    protected CardRepository cardRepository;
+    @Autowired
+    protected UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate fixtureJdbcTemplate;
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    protected UserModel seedUser() {
+        return userRepository.findByUsernameAndIsDeleted("user1", false).orElseThrow();
+    }
+
+    // контекст безопасности потока, в том числе рабочих потоков конкурентных тестов
+    protected static void authenticate(UserModel user) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(new CustomUserDetail(user), null, List.of())
+        );
+    }
+
+    protected Card createCard(UserModel owner, BigDecimal balance) {
+        return createCard(owner, CardCurrency.RUB, balance, UUID.randomUUID().toString());
+    }
+
+    protected Card createCard(UserModel owner, CardCurrency currency, BigDecimal balance) {
+        return createCard(owner, currency, balance, UUID.randomUUID().toString());
+    }
+
+    // ненулевой баланс заводится проводками OPENING против внешнего счёта, как при переходе на журнал
+    protected Card createCard(UserModel owner, CardCurrency currency, BigDecimal balance, String encryptNumber) {
+        Card card = cardRepository.save(
+                Card.builder()
+                        .owner(owner)
+                        .encryptNumber(encryptNumber)
+                        .currency(currency)
+                        .balance(Money.of(balance))
+                        .build()
+        );
+        if (balance.signum() != 0) {
+            Timestamp now = Timestamp.from(Instant.now());
+            fixtureJdbcTemplate.update(OPENING_SQL,
+                    card.getId(), card.getId(), balance, now,
+                    card.getId(), LedgerService.EXTERNAL_ACCOUNT, balance.negate(), now);
+        }
+        return card;
+    }
+}
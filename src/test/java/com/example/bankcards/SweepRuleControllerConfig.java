@@ -0,0 +1,16 @@
+package com.example.bankcards;
+
+import com.example.bankcards.service.interfaces.card.SweepRuleService;
+import org.mockito.Mockito;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+
+@TestConfiguration
+public class SweepRuleControllerConfig {
+    @Bean
+    @Primary
+    public SweepRuleService sweepRuleService() {
+        return Mockito.mock(SweepRuleService.class);
+    }
+}
@@ -3,10 +3,22 @@ package com.example.bankcards.controller;
 import com.example.bankcards.AdminCardControllerConfig;
 import com.example.bankcards.TestConfig;
 import com.example.bankcards.controller.admin.AdminCardController;
+import com.example.bankcards.dto.request.CardLookupRequest;
 import com.example.bankcards.dto.request.CreateCardRequest;
+import com.example.bankcards.dto.request.FxRateRequest;
+import com.example.bankcards.dto.request.FxRateUploadRequest;
+import com.example.bankcards.dto.request.SpendingLimitRequest;
+import com.example.bankcards.dto.response.card.CardBalanceAtResponse;
+import com.example.bankcards.dto.response.card.CardNumberRotationResponse;
 import com.example.bankcards.dto.response.card.CardWithOwnerResponse;
+import com.example.bankcards.dto.response.card.FxRateResponse;
+import com.example.bankcards.dto.response.card.FxRatesResponse;
 import com.example.bankcards.dto.response.card.ListCardResponse;
+import com.example.bankcards.dto.response.card.SpendingLimitResponse;
 import com.example.bankcards.service.interfaces.card.CardAdminService;
+import com.example.bankcards.util.constants.ErrorMessages;
+import com.example.bankcards.util.enums.CardNumberRotationStatus;
+import com.example.bankcards.util.enums.CardCurrency;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,9 +26,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -153,4 +170,164 @@ class AdminCardControllerTest {
         mockMvc.perform(patch("/admin/cards/{id}/block", id))
                 .andExpect(status().isInternalServerError());
     }
+
+    @Test
+    void testSetStriping_Success() throws Exception {
+        UUID id = UUID.randomUUID();
+        CardWithOwnerResponse response = new CardWithOwnerResponse();
+        response.setStriped(true);
+        when(service.setStriping(id, true)).thenReturn(response);
+
+        mockMvc.perform(patch("/admin/cards/{id}/striping", id)
+                        .param("enabled", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.striped").value(true));
+    }
+
+    @Test
+    void testGetBalanceAt_Success() throws Exception {
+        UUID id = UUID.randomUUID();
+        OffsetDateTime at = OffsetDateTime.parse("2026-10-17T12:00:00Z");
+        when(service.getBalanceAt(eq(id), any())).thenReturn(
+                new CardBalanceAtResponse(at, BigDecimal.valueOf(150), LocalDate.parse("2026-10-16")));
+
+        mockMvc.perform(get("/admin/cards/{id}/balance", id)
+                        .param("at", "2026-10-17T12:00:00Z"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(150))
+                .andExpect(jsonPath("$.snapshot_date").value("2026-10-16"));
+    }
+
+    @Test
+    void testGetBalanceAt_InvalidMoment() throws Exception {
+        mockMvc.perform(get("/admin/cards/{id}/balance", UUID.randomUUID())
+                        .param("at", "yesterday"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void testSetStriping_MissingParameter() throws Exception {
+        mockMvc.perform(patch("/admin/cards/{id}/striping", UUID.randomUUID()))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void testSetCardLimits_Success() throws Exception {
+        UUID id = UUID.randomUUID();
+        SpendingLimitRequest request = new SpendingLimitRequest(BigDecimal.valueOf(1000), null);
+        when(service.setCardLimits(eq(id), any())).thenReturn(
+                new SpendingLimitResponse(id, BigDecimal.valueOf(1000), null, BigDecimal.valueOf(250), BigDecimal.valueOf(250)));
+
+        mockMvc.perform(put("/admin/cards/{id}/limits", id)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.daily_limit").value(1000))
+                .andExpect(jsonPath("$.daily_used").value(250));
+    }
+
+    @Test
+    void testSetCardLimits_NegativeLimit() throws Exception {
+        SpendingLimitRequest request = new SpendingLimitRequest(BigDecimal.valueOf(-1), null);
+
+        mockMvc.perform(put("/admin/cards/{id}/limits", UUID.randomUUID())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void testGetUserLimits_Success() throws Exception {
+        UUID userId = UUID.randomUUID();
+        when(service.getUserLimits(userId)).thenReturn(
+                new SpendingLimitResponse(userId, null, BigDecimal.valueOf(5000), BigDecimal.ZERO, BigDecimal.valueOf(700)));
+
+        mockMvc.perform(get("/admin/cards/owners/{userId}/limits", userId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.monthly_limit").value(5000))
+                .andExpect(jsonPath("$.monthly_used").value(700));
+    }
+
+    @Test
+    void testUploadFxRates_Success() throws Exception {
+        FxRateUploadRequest request = new FxRateUploadRequest(List.of(
+                new FxRateRequest(CardCurrency.USD, CardCurrency.RUB, new BigDecimal("92.5"))));
+        when(service.uploadFxRates(any())).thenReturn(new FxRatesResponse(2, OffsetDateTime.now(), List.of(
+                new FxRateResponse(CardCurrency.USD, CardCurrency.RUB, new BigDecimal("92.50000000")),
+                new FxRateResponse(CardCurrency.RUB, CardCurrency.USD, new BigDecimal("0.01081081")))));
+
+        mockMvc.perform(post("/admin/cards/fx-rates")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(2))
+                .andExpect(jsonPath("$.rates[1].base_currency").value("RUB"));
+    }
+
+    @Test
+    void testUploadFxRates_NonPositiveRate() throws Exception {
+        FxRateUploadRequest request = new FxRateUploadRequest(List.of(
+                new FxRateRequest(CardCurrency.USD, CardCurrency.RUB, BigDecimal.ZERO)));
+
+        mockMvc.perform(post("/admin/cards/fx-rates")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void testUploadFxRates_Empty() throws Exception {
+        mockMvc.perform(post("/admin/cards/fx-rates")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new FxRateUploadRequest(List.of()))))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void testFindByNumber_Success() throws Exception {
+        CardWithOwnerResponse response = new CardWithOwnerResponse();
+        response.setMaskedNumber("**** **** **** 9010");
+        when(service.findByNumber(new CardLookupRequest("4000 1234 5678 9010"))).thenReturn(response);
+
+        mockMvc.perform(post("/admin/cards/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CardLookupRequest("4000 1234 5678 9010"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.masked_number").value("**** **** **** 9010"));
+    }
+
+    @Test
+    void testFindByNumber_InvalidNumber() throws Exception {
+        mockMvc.perform(post("/admin/cards/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CardLookupRequest("4000-1234"))))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void testStartNumberRotation_Success() throws Exception {
+        when(service.startNumberRotation()).thenReturn(new CardNumberRotationResponse(
+                CardNumberRotationStatus.RUNNING, 2, 2, null, 0, 0, 120, OffsetDateTime.now()));
+
+        mockMvc.perform(post("/admin/cards/number-rotation/start"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("RUNNING"))
+                .andExpect(jsonPath("$.target_version").value(2))
+                .andExpect(jsonPath("$.remaining").value(120));
+    }
+
+    @Test
+    void testResumeNumberRotation_NotPaused() throws Exception {
+        when(service.resumeNumberRotation())
+                .thenThrow(new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.NUMBER_ROTATION_NOT_PAUSED));
+
+        mockMvc.perform(post("/admin/cards/number-rotation/resume"))
+                .andExpect(status().isConflict());
+    }
 }
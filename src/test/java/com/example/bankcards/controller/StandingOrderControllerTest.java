@@ -0,0 +1,130 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.StandingOrderControllerConfig;
+import com.example.bankcards.TestConfig;
+import com.example.bankcards.dto.request.CreateStandingOrderRequest;
+import com.example.bankcards.dto.response.card.StandingOrderExecutionResponse;
+import com.example.bankcards.dto.response.card.StandingOrderResponse;
+import com.example.bankcards.service.interfaces.card.StandingOrderService;
+import com.example.bankcards.util.constants.ErrorMessages;
+import com.example.bankcards.util.enums.StandingOrderExecutionStatus;
+import com.example.bankcards.util.enums.StandingOrderPeriod;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(StandingOrderController.class)
+@AutoConfigureMockMvc(addFilters = false)
+@Import({TestConfig.class, StandingOrderControllerConfig.class})
+class StandingOrderControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private StandingOrderService service;
+    @Autowired
+    private ObjectMapper objectMapper;
+    private UUID orderId;
+
+    @BeforeEach
+    void setUp() {
+        orderId = UUID.randomUUID();
+        reset(service);
+    }
+
+    @Test
+    void testCreate_Success() throws Exception {
+        CreateStandingOrderRequest request = new CreateStandingOrderRequest(UUID.randomUUID(), UUID.randomUUID(),
+                BigDecimal.valueOf(100), StandingOrderPeriod.MONTHLY, OffsetDateTime.now().plusDays(1));
+        StandingOrderResponse response = new StandingOrderResponse(orderId, request.getDebitCardId(),
+                request.getCreditCardId(), request.getAmount(), request.getPeriod(), request.getStartAt(), true);
+        when(service.create(any(CreateStandingOrderRequest.class))).thenReturn(response);
+
+        mockMvc.perform(post("/cards/standing-orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(orderId.toString()))
+                .andExpect(jsonPath("$.period").value("MONTHLY"));
+    }
+
+    @Test
+    void testCreate_StartInPast_ReturnsBadRequest() throws Exception {
+        CreateStandingOrderRequest request = new CreateStandingOrderRequest(UUID.randomUUID(), UUID.randomUUID(),
+                BigDecimal.valueOf(100), StandingOrderPeriod.DAILY, OffsetDateTime.now().minusDays(1));
+
+        mockMvc.perform(post("/cards/standing-orders")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void testGetMyOrders_Success() throws Exception {
+        when(service.getMyOrders()).thenReturn(List.of(new StandingOrderResponse()));
+
+        mockMvc.perform(get("/cards/standing-orders"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    void testCancel_Success() throws Exception {
+        mockMvc.perform(delete("/cards/standing-orders/{id}", orderId))
+                .andExpect(status().isNoContent());
+
+        verify(service).cancel(orderId);
+    }
+
+    @Test
+    void testCancel_NotFound() throws Exception {
+        doThrow(new ResponseStatusException(HttpStatus.NOT_FOUND, ErrorMessages.STANDING_ORDER_NOT_FOUND))
+                .when(service).cancel(orderId);
+
+        mockMvc.perform(delete("/cards/standing-orders/{id}", orderId))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void testGetExecutions_Success() throws Exception {
+        StandingOrderExecutionResponse execution = new StandingOrderExecutionResponse(OffsetDateTime.now(),
+                OffsetDateTime.now(), StandingOrderExecutionStatus.REJECTED, ErrorMessages.NOT_ENOUGH_FUNDS);
+        when(service.getExecutions(orderId, 20)).thenReturn(List.of(execution));
+
+        mockMvc.perform(get("/cards/standing-orders/{id}/executions", orderId).param("limit", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("REJECTED"))
+                .andExpect(jsonPath("$[0].error").value(ErrorMessages.NOT_ENOUGH_FUNDS));
+    }
+
+    @Test
+    void testGetExecutions_LimitTooLarge_ReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/cards/standing-orders/{id}/executions", orderId).param("limit", "1000"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(service);
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.SweepRuleControllerConfig;
+import com.example.bankcards.TestConfig;
+import com.example.bankcards.dto.request.CreateSweepRuleRequest;
+import com.example.bankcards.dto.response.card.SweepRuleResponse;
+import com.example.bankcards.service.interfaces.card.SweepRuleService;
+import com.example.bankcards.util.constants.ErrorMessages;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(SweepRuleController.class)
+@AutoConfigureMockMvc(addFilters = false)
+@Import({TestConfig.class, SweepRuleControllerConfig.class})
+class SweepRuleControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SweepRuleService service;
+    @Autowired
+    private ObjectMapper objectMapper;
+    private UUID ruleId;
+
+    @BeforeEach
+    void setUp() {
+        ruleId = UUID.randomUUID();
+        reset(service);
+    }
+
+    @Test
+    void testCreate_Success() throws Exception {
+        CreateSweepRuleRequest request = new CreateSweepRuleRequest(UUID.randomUUID(), UUID.randomUUID(),
+                BigDecimal.valueOf(100), BigDecimal.valueOf(300));
+        when(service.create(any(CreateSweepRuleRequest.class))).thenReturn(new SweepRuleResponse(ruleId,
+                request.getWatchedCardId(), request.getSourceCardId(), request.getThreshold(), request.getTargetBalance()));
+
+        mockMvc.perform(post("/cards/sweep-rules")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(ruleId.toString()))
+                .andExpect(jsonPath("$.target_balance").value(300));
+    }
+
+    @Test
+    void testCreate_NegativeThreshold_ReturnsBadRequest() throws Exception {
+        CreateSweepRuleRequest request = new CreateSweepRuleRequest(UUID.randomUUID(), UUID.randomUUID(),
+                BigDecimal.valueOf(-1), null);
+
+        mockMvc.perform(post("/cards/sweep-rules")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(service);
+    }
+
+    @Test
+    void testCreate_Cycle_ReturnsConflict() throws Exception {
+        CreateSweepRuleRequest request = new CreateSweepRuleRequest(UUID.randomUUID(), UUID.randomUUID(),
+                BigDecimal.valueOf(100), null);
+        when(service.create(any(CreateSweepRuleRequest.class)))
+                .thenThrow(new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.SWEEP_RULE_CYCLE));
+
+        mockMvc.perform(post("/cards/sweep-rules")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void testGetMyRules_Success() throws Exception {
+        when(service.getMyRules()).thenReturn(List.of(new SweepRuleResponse()));
+
+        mockMvc.perform(get("/cards/sweep-rules"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    void testDelete_Success() throws Exception {
+        mockMvc.perform(delete("/cards/sweep-rules/{id}", ruleId))
+                .andExpect(status().isNoContent());
+
+        verify(service).delete(ruleId);
+    }
+}
@@ -2,13 +2,25 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.TestConfig;
 import com.example.bankcards.UserCardControllerConfig;
+import com.example.bankcards.dto.request.BatchTransferRequest;
 import com.example.bankcards.dto.request.DepositRequest;
+import com.example.bankcards.dto.request.PlaceHoldRequest;
 import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.dto.response.card.BatchTransferItemResponse;
+import com.example.bankcards.dto.response.card.BatchTransferResponse;
 import com.example.bankcards.dto.response.card.CardBalanceResponse;
+import com.example.bankcards.dto.response.card.CardHoldResponse;
 import com.example.bankcards.dto.response.card.CardNumberResponse;
 import com.example.bankcards.dto.response.card.CardResponse;
+import com.example.bankcards.dto.response.card.CardTransactionPageResponse;
+import com.example.bankcards.dto.response.card.CardTransactionResponse;
 import com.example.bankcards.dto.response.card.ListCardResponse;
 import com.example.bankcards.service.interfaces.card.CardOwnerService;
+import com.example.bankcards.util.enums.BatchItemStatus;
+import com.example.bankcards.util.enums.BatchTransferMode;
+import com.example.bankcards.util.enums.CardTransactionType;
+import com.example.bankcards.util.enums.HoldStatus;
+import com.example.bankcards.util.money.Money;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -21,6 +33,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.RequestBuilder;
 
 import java.math.BigDecimal;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -51,7 +64,7 @@ class UserCardControllerTest {
     @BeforeEach
     void setUp() {
         cardId = UUID.randomUUID();
-        balanceResponse = new CardBalanceResponse(BigDecimal.valueOf(1000));
+        balanceResponse = new CardBalanceResponse(Money.of(1000));
         cardResponse = new CardResponse();
         reset(service);
     }
@@ -59,7 +72,7 @@ class UserCardControllerTest {
     @Test
     void testCheckBalance_Success() throws Exception {
         UUID cardId = UUID.randomUUID();
-        CardBalanceResponse balanceResponse = new CardBalanceResponse(BigDecimal.valueOf(1000));
+        CardBalanceResponse balanceResponse = new CardBalanceResponse(Money.of(1000));
         when(service.showBalance(any(UUID.class))).thenReturn(balanceResponse);
 
         mockMvc.perform(get("/cards/{id}/balance", cardId))
@@ -67,6 +80,20 @@ class UserCardControllerTest {
                 .andExpect(jsonPath("$.balance").value(1000));
     }
 
+    @Test
+    void testDeposit_WithIdempotencyKey() throws Exception {
+        DepositRequest request = new DepositRequest(Money.of(500));
+
+        when(service.deposit(cardId, request, "retry-1")).thenReturn(balanceResponse);
+
+        mockMvc.perform(patch("/cards/{id}/deposit", cardId)
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(1000));
+    }
+
     @Test
     void testGetMyCards_Success() throws Exception {
         ListCardResponse<CardResponse> listResponse = ListCardResponse.of(1L, List.of(cardResponse));
@@ -86,22 +113,137 @@ class UserCardControllerTest {
         TransferRequest request = new TransferRequest();
         request.setDebitCardId(cardId);
         request.setCreditCardId(UUID.randomUUID());
-        request.setAmount(BigDecimal.valueOf(200));
+        request.setAmount(Money.of(200));
 
         mockMvc.perform(post("/cards/transfer")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isNoContent());
 
-        verify(service).transfer(any(TransferRequest.class));
+        verify(service).transfer(any(TransferRequest.class), isNull());
+    }
+
+    @Test
+    void testTransfer_WithIdempotencyKey() throws Exception {
+        TransferRequest request = new TransferRequest(cardId, UUID.randomUUID(), Money.of(200));
+
+        mockMvc.perform(post("/cards/transfer")
+                        .header("Idempotency-Key", "retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isNoContent());
+
+        verify(service).transfer(any(TransferRequest.class), eq("retry-1"));
+    }
+
+    @Test
+    void testTransferBatch_Success() throws Exception {
+        BatchTransferRequest request = new BatchTransferRequest(BatchTransferMode.BEST_EFFORT, List.of(
+                new TransferRequest(cardId, UUID.randomUUID(), Money.of(200))
+        ));
+        when(service.transferBatch(any(BatchTransferRequest.class))).thenReturn(new BatchTransferResponse(
+                1, 0, List.of(new BatchTransferItemResponse(0, BatchItemStatus.APPLIED, null))
+        ));
+
+        mockMvc.perform(post("/cards/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.applied_count").value(1))
+                .andExpect(jsonPath("$.items[0].status").value("APPLIED"));
+    }
+
+    @Test
+    void testTransferBatch_EmptyBatch_BadRequest() throws Exception {
+        BatchTransferRequest request = new BatchTransferRequest(BatchTransferMode.ATOMIC, List.of());
+
+        mockMvc.perform(post("/cards/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verify(service, never()).transferBatch(any());
+    }
+
+    @Test
+    void testPlaceHold_Success() throws Exception {
+        UUID holdId = UUID.randomUUID();
+        PlaceHoldRequest request = new PlaceHoldRequest(Money.of(150), 60);
+        when(service.placeHold(eq(cardId), any(PlaceHoldRequest.class))).thenReturn(
+                new CardHoldResponse(holdId, cardId, Money.of(150), HoldStatus.ACTIVE, OffsetDateTime.now().plusHours(1)));
+
+        mockMvc.perform(post("/cards/{id}/holds", cardId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(holdId.toString()))
+                .andExpect(jsonPath("$.status").value("ACTIVE"));
+    }
+
+    @Test
+    void testPlaceHold_TtlTooLong_BadRequest() throws Exception {
+        PlaceHoldRequest request = new PlaceHoldRequest(Money.of(10), 100000);
+
+        mockMvc.perform(post("/cards/{id}/holds", cardId)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verify(service, never()).placeHold(any(), any());
+    }
+
+    @Test
+    void testCaptureHold_Success() throws Exception {
+        UUID holdId = UUID.randomUUID();
+        when(service.captureHold(cardId, holdId)).thenReturn(
+                new CardHoldResponse(holdId, cardId, Money.of(10), HoldStatus.CAPTURED, OffsetDateTime.now()));
+
+        mockMvc.perform(post("/cards/{id}/holds/{holdId}/capture", cardId, holdId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("CAPTURED"));
+    }
+
+    @Test
+    void testReleaseHold_Success() throws Exception {
+        UUID holdId = UUID.randomUUID();
+        when(service.releaseHold(cardId, holdId)).thenReturn(
+                new CardHoldResponse(holdId, cardId, Money.of(10), HoldStatus.RELEASED, OffsetDateTime.now()));
+
+        mockMvc.perform(post("/cards/{id}/holds/{holdId}/release", cardId, holdId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("RELEASED"));
+    }
+
+    @Test
+    void testGetTransactions_Success() throws Exception {
+        CardTransactionResponse item = new CardTransactionResponse(UUID.randomUUID(), CardTransactionType.DEPOSIT,
+                BigDecimal.TEN, null, OffsetDateTime.now());
+        when(service.getTransactions(cardId, "abc", 10))
+                .thenReturn(new CardTransactionPageResponse(List.of(item), "next"));
+
+        mockMvc.perform(get("/cards/{id}/transactions", cardId)
+                        .param("cursor", "abc")
+                        .param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].type").value("DEPOSIT"))
+                .andExpect(jsonPath("$.next_cursor").value("next"));
+    }
+
+    @Test
+    void testGetTransactions_LimitTooLarge_BadRequest() throws Exception {
+        mockMvc.perform(get("/cards/{id}/transactions", cardId)
+                        .param("limit", "1000"))
+                .andExpect(status().isBadRequest());
+
+        verify(service, never()).getTransactions(any(), any(), anyInt());
     }
 
     @Test
     void testDeposit_Success() throws Exception {
         DepositRequest request = new DepositRequest();
-        request.setAmount(BigDecimal.valueOf(500));
+        request.setAmount(Money.of(500));
 
-        when(service.deposit(cardId, request)).thenReturn(balanceResponse);
+        when(service.deposit(cardId, request, null)).thenReturn(balanceResponse);
 
         mockMvc.perform(patch("/cards/{id}/deposit", cardId)
                         .contentType(MediaType.APPLICATION_JSON)
@@ -0,0 +1,68 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.AbstractIntegrationTest;
+import com.example.bankcards.dto.request.DepositRequest;
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.service.interfaces.card.CardOwnerService;
+import com.example.bankcards.util.money.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = "card.balance.concurrency-mode=SHARDED")
+class BalanceEngineConcurrencyTest extends AbstractIntegrationTest {
+
+    private static final int OPERATIONS = 4000;
+    private static final BigDecimal INITIAL_BALANCE = BigDecimal.valueOf(100000);
+
+    @Autowired
+    private CardOwnerService cardOwnerService;
+
+    @Test
+    void testHotCardDepositsAndCrossingTransfers_AllAppliedOnce() throws Exception {
+        UserModel user = seedUser();
+        Card hot = createCard(user, INITIAL_BALANCE);
+        Card other = createCard(user, INITIAL_BALANCE);
+
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        ExecutorService executor = Executors.newFixedThreadPool(32);
+        for (int i = 0; i < OPERATIONS; i++) {
+            int operation = i % 3;
+            executor.submit(() -> {
+                try {
+                    authenticate(user);
+                    switch (operation) {
+                        case 0 -> cardOwnerService.deposit(hot.getId(), new DepositRequest(Money.of(1)));
+                        case 1 -> cardOwnerService.transfer(new TransferRequest(hot.getId(), other.getId(), Money.of(1)));
+                        default -> cardOwnerService.transfer(new TransferRequest(other.getId(), hot.getId(), Money.of(1)));
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+
+        assertTrue(errors.isEmpty(), () -> "Operations failed: " + errors.peek());
+        long deposits = (OPERATIONS + 2) / 3;
+        BigDecimal total = cardRepository.findById(hot.getId()).orElseThrow().getBalance().toBigDecimal()
+                .add(cardRepository.findById(other.getId()).orElseThrow().getBalance().toBigDecimal());
+        BigDecimal expected = INITIAL_BALANCE.multiply(BigDecimal.valueOf(2)).add(BigDecimal.valueOf(deposits));
+        assertEquals(0, expected.compareTo(total));
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.service.journal.BalanceJournal;
+import com.example.bankcards.service.journal.JournalRecord;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BalanceJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final UUID debitCardId = UUID.randomUUID();
+    private final UUID creditCardId = UUID.randomUUID();
+
+    @Test
+    void testAppendAndRead_ReturnsDurableRecordsInOrder() throws IOException {
+        try (BalanceJournal journal = BalanceJournal.open(directory, 16, 0)) {
+            journal.append(JournalRecord.DEPOSIT, debitCardId, null, 10000);
+            long last = journal.append(JournalRecord.TRANSFER, debitCardId, creditCardId, 2550);
+
+            assertTrue(journal.read(0, 10).isEmpty(), "records must not be visible before sync");
+            journal.sync(last);
+            List<JournalRecord> records = journal.read(0, 10);
+
+            assertEquals(2, records.size());
+            assertEquals(JournalRecord.DEPOSIT, records.get(0).type());
+            assertNull(records.get(0).creditCardId());
+            assertEquals(creditCardId, records.get(1).creditCardId());
+            assertEquals(2550, records.get(1).amountMinor());
+        }
+    }
+
+    @Test
+    void testRecovery_CrashMidSegment_ReplaysTailAfterCheckpoint() throws IOException {
+        BalanceJournal journal = BalanceJournal.open(directory, 16, 0);
+        for (int i = 0; i < 10; i++) {
+            journal.sync(journal.append(JournalRecord.DEPOSIT, debitCardId, null, 100 + i));
+        }
+        journal.close();
+
+        // applier успел применить 4 записи до падения
+        try (BalanceJournal reopened = BalanceJournal.open(directory, 16, 4)) {
+            List<JournalRecord> tail = reopened.read(4, 100);
+
+            assertEquals(10, reopened.lastSequence());
+            assertEquals(6, tail.size());
+            assertEquals(5, tail.get(0).sequence());
+            assertEquals(109, tail.get(5).amountMinor());
+        }
+    }
+
+    @Test
+    void testRecovery_TornRecord_IsDiscardedAndOverwritten() throws IOException {
+        BalanceJournal journal = BalanceJournal.open(directory, 16, 0);
+        for (int i = 0; i < 3; i++) {
+            journal.sync(journal.append(JournalRecord.DEPOSIT, debitCardId, null, 100));
+        }
+        journal.close();
+        // недописанная четвёртая запись: sequence есть, контрольной суммы нет
+        try (RandomAccessFile file = new RandomAccessFile(singleSegment().toFile(), "rw")) {
+            file.seek(3L * BalanceJournal.RECORD_SIZE);
+            file.writeLong(4);
+            file.writeLong(System.currentTimeMillis());
+        }
+
+        try (BalanceJournal reopened = BalanceJournal.open(directory, 16, 0)) {
+            assertEquals(3, reopened.lastSequence());
+            long sequence = reopened.append(JournalRecord.DEPOSIT, debitCardId, null, 700);
+            reopened.sync(sequence);
+
+            assertEquals(4, sequence);
+            assertEquals(700, reopened.read(3, 10).get(0).amountMinor());
+        }
+    }
+
+    @Test
+    void testSegmentRollover_AppliedSegmentsDeleted() throws IOException {
+        try (BalanceJournal journal = BalanceJournal.open(directory, 4, 0)) {
+            long last = 0;
+            for (int i = 0; i < 10; i++) {
+                last = journal.append(JournalRecord.DEPOSIT, debitCardId, null, i);
+            }
+            journal.sync(last);
+            assertEquals(3, segmentCount());
+
+            journal.deleteAppliedSegments(8);
+
+            assertEquals(1, segmentCount());
+            assertEquals(List.of(9L, 10L), journal.read(8, 10).stream().map(JournalRecord::sequence).toList());
+        }
+    }
+
+    private Path singleSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.findFirst().orElseThrow();
+        }
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+}
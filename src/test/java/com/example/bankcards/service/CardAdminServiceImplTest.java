@@ -1,24 +1,48 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.request.CardLookupRequest;
 import com.example.bankcards.dto.request.CreateCardRequest;
+import com.example.bankcards.dto.request.FxRateRequest;
+import com.example.bankcards.dto.request.FxRateUploadRequest;
+import com.example.bankcards.dto.request.SpendingLimitRequest;
+import com.example.bankcards.dto.response.card.CardBalanceAtResponse;
 import com.example.bankcards.dto.response.card.CardWithOwnerResponse;
+import com.example.bankcards.dto.response.card.FxRatesResponse;
+import com.example.bankcards.dto.response.card.SpendingLimitResponse;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.UserModel;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.cardnumber.CardNumberBackfillService;
+import com.example.bankcards.service.cardnumber.CardNumberPool;
+import com.example.bankcards.service.fx.FxRate;
+import com.example.bankcards.service.fx.FxRateService;
+import com.example.bankcards.service.fx.FxRateSnapshot;
 import com.example.bankcards.service.implementation.CardAdminServiceImpl;
+import com.example.bankcards.service.limits.SpendingLimitService;
+import com.example.bankcards.service.limits.SpendingUsage;
+import com.example.bankcards.service.snapshot.CardBalanceSnapshotService;
+import com.example.bankcards.service.striping.StripedBalanceService;
 import com.example.bankcards.util.components.CardNumberUtil;
+import com.example.bankcards.util.components.GeneratedCardNumber;
+import com.example.bankcards.util.enums.CardCurrency;
 import com.example.bankcards.util.enums.CardStatus;
 import com.example.bankcards.util.enums.RoleType;
 import com.example.bankcards.util.mappers.CardMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.hibernate.exception.ConstraintViolationException;
 import org.mockito.*;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.*;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.Instant;
+import java.time.OffsetDateTime;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -34,6 +58,18 @@ class CardAdminServiceImplTest {
     private UserRepository userRepository;
     @Mock
     private CardNumberUtil cardNumberUtil;
+    @Mock
+    private StripedBalanceService stripedBalanceService;
+    @Mock
+    private CardBalanceSnapshotService snapshotService;
+    @Mock
+    private SpendingLimitService spendingLimitService;
+    @Mock
+    private FxRateService fxRateService;
+    @Mock
+    private CardNumberPool cardNumberPool;
+    @Mock
+    private CardNumberBackfillService cardNumberBackfillService;
 
     @InjectMocks
     private CardAdminServiceImpl cardAdminService;
@@ -136,21 +172,63 @@ class CardAdminServiceImplTest {
     }
 
 
+    @Test
+    void testSetStriping_Enable() {
+        when(cardRepository.findByIdAndIsDeleted(id, false)).thenReturn(Optional.of(card));
+        CardWithOwnerResponse response = new CardWithOwnerResponse();
+        when(cardMapper.toResponseWithOwner(card, cardNumberUtil)).thenReturn(response);
+
+        CardWithOwnerResponse result = cardAdminService.setStriping(id, true);
+
+        assertEquals(response, result);
+        verify(stripedBalanceService).enable(id);
+        verify(cardRepository, times(2)).findByIdAndIsDeleted(id, false);
+    }
+
+    @Test
+    void testSetStriping_Disable() {
+        card.setStriped(true);
+        when(cardRepository.findByIdAndIsDeleted(id, false)).thenReturn(Optional.of(card));
+
+        cardAdminService.setStriping(id, false);
+
+        verify(stripedBalanceService).disable(id);
+    }
+
+    @Test
+    void testSetStriping_AlreadyInState_DoesNothing() {
+        when(cardRepository.findByIdAndIsDeleted(id, false)).thenReturn(Optional.of(card));
+
+        cardAdminService.setStriping(id, false);
+
+        verifyNoInteractions(stripedBalanceService);
+    }
+
+    @Test
+    void testSetStriping_NotFound_ThrowsException() {
+        when(cardRepository.findByIdAndIsDeleted(id, false)).thenReturn(Optional.empty());
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> cardAdminService.setStriping(id, true));
+
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
+        verifyNoInteractions(stripedBalanceService);
+    }
+
     @Test
     void testCreate_Success() {
         CreateCardRequest request = new CreateCardRequest();
         request.setOwner(user.getId());
 
         when(userRepository.findByIdAndIsDeleted(user.getId(), false)).thenReturn(Optional.of(user));
-        when(cardNumberUtil.getRandomEncryptedCardNumber()).thenReturn("enc1");
-        when(cardRepository.existsByEncryptNumber("enc1")).thenReturn(false);
+        when(cardNumberPool.take()).thenReturn(new GeneratedCardNumber("enc1", "4242", "hash1"));
 
         Card savedCard = Card.builder()
                 .id(UUID.randomUUID())
                 .encryptNumber("enc1")
                 .owner(user)
                 .build();
-        when(cardRepository.save(any(Card.class))).thenReturn(savedCard);
+        when(cardRepository.saveAndFlush(any(Card.class))).thenReturn(savedCard);
 
         CardWithOwnerResponse response = new CardWithOwnerResponse();
         when(cardMapper.toResponseWithOwner(savedCard, cardNumberUtil)).thenReturn(response);
@@ -158,7 +236,87 @@ class CardAdminServiceImplTest {
         CardWithOwnerResponse result = cardAdminService.create(request);
 
         assertEquals(response, result);
-        verify(cardRepository).save(any(Card.class));
+        verify(cardRepository).saveAndFlush(argThat(saved -> saved.getCurrency() == CardCurrency.RUB
+                && "enc1".equals(saved.getEncryptNumber()) && "4242".equals(saved.getLast4())
+                && "hash1".equals(saved.getNumberHash())));
+    }
+
+    @Test
+    void testCreate_WithCurrency_SetsCurrency() {
+        CreateCardRequest request = new CreateCardRequest(user.getId(), CardCurrency.EUR);
+
+        when(userRepository.findByIdAndIsDeleted(user.getId(), false)).thenReturn(Optional.of(user));
+        when(cardNumberPool.take()).thenReturn(new GeneratedCardNumber("enc1", "4242", "hash1"));
+        when(cardRepository.saveAndFlush(any(Card.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        cardAdminService.create(request);
+
+        verify(cardRepository).saveAndFlush(argThat(saved -> saved.getCurrency() == CardCurrency.EUR));
+    }
+
+    @Test
+    void testCreate_NumberCollision_RetriesWithNewNumber() {
+        CreateCardRequest request = new CreateCardRequest(user.getId());
+
+        when(userRepository.findByIdAndIsDeleted(user.getId(), false)).thenReturn(Optional.of(user));
+        when(cardNumberPool.take()).thenReturn(
+                new GeneratedCardNumber("enc1", "1111", "hash1"),
+                new GeneratedCardNumber("enc2", "2222", "hash2"));
+        when(cardRepository.saveAndFlush(any(Card.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate",
+                        new ConstraintViolationException("duplicate", null, "uq_card_number_hash")))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+
+        cardAdminService.create(request);
+
+        verify(cardRepository, times(2)).saveAndFlush(any(Card.class));
+        verify(cardMapper).toResponseWithOwner(argThat(saved -> "hash2".equals(saved.getNumberHash())), eq(cardNumberUtil));
+    }
+
+    @Test
+    void testCreate_OtherConstraintViolation_NotRetried() {
+        CreateCardRequest request = new CreateCardRequest(user.getId());
+
+        when(userRepository.findByIdAndIsDeleted(user.getId(), false)).thenReturn(Optional.of(user));
+        when(cardNumberPool.take()).thenReturn(new GeneratedCardNumber("enc1", "1111", "hash1"));
+        when(cardRepository.saveAndFlush(any(Card.class))).thenThrow(new DataIntegrityViolationException("fk",
+                new ConstraintViolationException("fk", null, "fk_card_user")));
+
+        assertThrows(DataIntegrityViolationException.class, () -> cardAdminService.create(request));
+        verify(cardRepository, times(1)).saveAndFlush(any(Card.class));
+    }
+
+    @Test
+    void testFindByNumber_LooksUpByBlindIndex() {
+        when(cardNumberUtil.numberHash("4000 1234 5678 9010")).thenReturn("hash1");
+        when(cardRepository.findByNumberHashAndIsDeleted("hash1", false)).thenReturn(Optional.of(card));
+        CardWithOwnerResponse response = new CardWithOwnerResponse();
+        when(cardMapper.toResponseWithOwner(card, cardNumberUtil)).thenReturn(response);
+
+        assertEquals(response, cardAdminService.findByNumber(new CardLookupRequest("4000 1234 5678 9010")));
+    }
+
+    @Test
+    void testFindByNumber_BackfillPending_ServiceUnavailable() {
+        doThrow(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE))
+                .when(cardNumberBackfillService).ensureComplete();
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> cardAdminService.findByNumber(new CardLookupRequest("4000123456789010")));
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.valueOf(ex.getStatusCode().value()));
+        verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    void testFindByNumber_NotFound() {
+        when(cardNumberUtil.numberHash(anyString())).thenReturn("hash1");
+        when(cardRepository.findByNumberHashAndIsDeleted("hash1", false)).thenReturn(Optional.empty());
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> cardAdminService.findByNumber(new CardLookupRequest("4000123456789010")));
+
+        assertEquals(HttpStatus.NOT_FOUND, HttpStatus.valueOf(ex.getStatusCode().value()));
     }
 
     @Test
@@ -192,6 +350,41 @@ class CardAdminServiceImplTest {
     }
 
 
+    @Test
+    void testGetBalanceAt_Success() {
+        OffsetDateTime at = OffsetDateTime.now().minusHours(1);
+        LocalDate snapshotDate = at.toLocalDate().minusDays(1);
+        when(cardRepository.existsById(id)).thenReturn(true);
+        when(snapshotService.balanceAt(id, at.toInstant()))
+                .thenReturn(new CardBalanceSnapshotService.PointInTimeBalance(BigDecimal.TEN, snapshotDate));
+
+        CardBalanceAtResponse response = cardAdminService.getBalanceAt(id, at);
+
+        assertEquals(BigDecimal.TEN, response.getBalance());
+        assertEquals(snapshotDate, response.getSnapshotDate());
+        assertEquals(at, response.getAt());
+    }
+
+    @Test
+    void testGetBalanceAt_FutureMoment() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> cardAdminService.getBalanceAt(id, OffsetDateTime.now().plusDays(1)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, HttpStatus.valueOf(ex.getStatusCode().value()));
+        verifyNoInteractions(snapshotService);
+    }
+
+    @Test
+    void testGetBalanceAt_CardNotFound() {
+        when(cardRepository.existsById(id)).thenReturn(false);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> cardAdminService.getBalanceAt(id, OffsetDateTime.now().minusDays(1)));
+
+        assertEquals(HttpStatus.NOT_FOUND, HttpStatus.valueOf(ex.getStatusCode().value()));
+        verifyNoInteractions(snapshotService);
+    }
+
     @Test
     void testGetAll_WithBlockRequest() {
         Page<Card> page = new PageImpl<>(List.of(card));
@@ -219,5 +412,72 @@ class CardAdminServiceImplTest {
         assertEquals(1, result.getTotal());
         assertEquals(1, result.getItems().size());
     }
-}
 
+    @Test
+    void testSetCardLimits_Success() {
+        when(cardRepository.findByIdAndIsDeleted(id, false)).thenReturn(Optional.of(card));
+        when(spendingLimitService.usage(id)).thenReturn(
+                new SpendingUsage(BigDecimal.valueOf(1000), null, BigDecimal.valueOf(300), BigDecimal.valueOf(300)));
+
+        SpendingLimitResponse result = cardAdminService.setCardLimits(id, new SpendingLimitRequest(BigDecimal.valueOf(1000), null));
+
+        verify(spendingLimitService).setLimits(id, BigDecimal.valueOf(1000), null);
+        assertEquals(id, result.getSubjectId());
+        assertEquals(BigDecimal.valueOf(1000), result.getDailyLimit());
+        assertNull(result.getMonthlyLimit());
+        assertEquals(BigDecimal.valueOf(300), result.getDailyUsed());
+    }
+
+    @Test
+    void testSetCardLimits_CardNotFound() {
+        when(cardRepository.findByIdAndIsDeleted(id, false)).thenReturn(Optional.empty());
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> cardAdminService.setCardLimits(id, new SpendingLimitRequest(BigDecimal.TEN, BigDecimal.TEN)));
+
+        assertEquals(HttpStatus.NOT_FOUND, HttpStatus.valueOf(ex.getStatusCode().value()));
+        verifyNoInteractions(spendingLimitService);
+    }
+
+    @Test
+    void testGetUserLimits_UserNotFound() {
+        UUID userId = user.getId();
+        when(userRepository.findByIdAndIsDeleted(userId, false)).thenReturn(Optional.empty());
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> cardAdminService.getUserLimits(userId));
+
+        assertEquals(HttpStatus.NOT_FOUND, HttpStatus.valueOf(ex.getStatusCode().value()));
+        verifyNoInteractions(spendingLimitService);
+    }
+
+    @Test
+    void testUploadFxRates_ReturnsInstalledSnapshot() {
+        Instant uploadedAt = Instant.parse("2026-10-18T10:00:00Z");
+        FxRateSnapshot snapshot = new FxRateSnapshot(4, uploadedAt, List.of(
+                new FxRate(CardCurrency.USD, CardCurrency.RUB, new BigDecimal("92.50000000"))
+        ));
+        when(fxRateService.upload(List.of(new FxRate(CardCurrency.USD, CardCurrency.RUB, new BigDecimal("92.5")))))
+                .thenReturn(snapshot);
+
+        FxRatesResponse result = cardAdminService.uploadFxRates(new FxRateUploadRequest(List.of(
+                new FxRateRequest(CardCurrency.USD, CardCurrency.RUB, new BigDecimal("92.5"))
+        )));
+
+        assertEquals(4, result.getVersion());
+        assertEquals(uploadedAt, result.getUploadedAt().toInstant());
+        assertEquals(1, result.getRates().size());
+        assertEquals(CardCurrency.USD, result.getRates().get(0).getBaseCurrency());
+    }
+
+    @Test
+    void testGetFxRates_NothingUploaded_VersionZero() {
+        when(fxRateService.current()).thenReturn(FxRateSnapshot.EMPTY);
+
+        FxRatesResponse result = cardAdminService.getFxRates();
+
+        assertEquals(0, result.getVersion());
+        assertNull(result.getUploadedAt());
+        assertTrue(result.getRates().isEmpty());
+    }
+}
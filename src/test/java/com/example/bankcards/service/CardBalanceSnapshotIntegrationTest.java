@@ -0,0 +1,69 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.AbstractIntegrationTest;
+import com.example.bankcards.dto.request.DepositRequest;
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.service.interfaces.card.CardOwnerService;
+import com.example.bankcards.service.snapshot.CardBalanceSnapshotService;
+import com.example.bankcards.util.money.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = "card.balance-snapshot.batch-size=2")
+class CardBalanceSnapshotIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private CardOwnerService cardOwnerService;
+    @Autowired
+    private CardBalanceSnapshotService snapshotService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testDailySnapshot_ExcludesLaterMovementsAndAnswersPointInTime() {
+        UserModel user = seedUser();
+        authenticate(user);
+        Card first = createCard(user, BigDecimal.valueOf(1000));
+        Card second = createCard(user, BigDecimal.ZERO);
+        createCard(user, BigDecimal.ONE);
+
+        // сегодняшние движения не должны попасть в остаток на конец вчерашнего дня
+        cardOwnerService.deposit(first.getId(), new DepositRequest(Money.of(200)));
+        cardOwnerService.transfer(new TransferRequest(first.getId(), second.getId(), Money.of(50)));
+
+        LocalDate yesterday = LocalDate.now(ZoneOffset.UTC).minusDays(1);
+        int cards = snapshotService.takeDailySnapshot(yesterday);
+        // повторный запуск перезаписывает те же строки
+        snapshotService.takeDailySnapshot(yesterday);
+
+        assertEquals(cardRepository.count(), cards);
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(snapshotBalance(first.getId(), yesterday)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(snapshotBalance(second.getId(), yesterday)));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from card_balance_snapshot where card_id = ?", Integer.class, first.getId()));
+
+        CardBalanceSnapshotService.PointInTimeBalance now = snapshotService.balanceAt(first.getId(), Instant.now());
+        assertEquals(yesterday, now.snapshotDate());
+        assertEquals(0, BigDecimal.valueOf(1150).compareTo(now.balance()));
+        assertEquals(0, BigDecimal.valueOf(50).compareTo(snapshotService.balanceAt(second.getId(), Instant.now()).balance()));
+    }
+
+    private BigDecimal snapshotBalance(UUID cardId, LocalDate day) {
+        return jdbcTemplate.queryForObject(
+                "select balance from card_balance_snapshot where card_id = ? and snapshot_date = ?",
+                BigDecimal.class, cardId, Date.valueOf(day));
+    }
+}
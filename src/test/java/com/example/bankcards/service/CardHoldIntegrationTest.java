@@ -0,0 +1,86 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.AbstractIntegrationTest;
+import com.example.bankcards.dto.request.PlaceHoldRequest;
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.dto.response.card.CardHoldResponse;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.service.hold.CardHoldService;
+import com.example.bankcards.service.interfaces.card.CardOwnerService;
+import com.example.bankcards.util.enums.HoldStatus;
+import com.example.bankcards.util.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardHoldIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private CardOwnerService cardOwnerService;
+    @Autowired
+    private CardHoldService cardHoldService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UserModel user;
+
+    @BeforeEach
+    void setUp() {
+        user = seedUser();
+        authenticate(user);
+    }
+
+    @Test
+    void testHoldLifecycle_ReservesThenCaptures() {
+        Card card = createCard(user, BigDecimal.valueOf(1000));
+        Card other = createCard(user, BigDecimal.ZERO);
+
+        CardHoldResponse hold = cardOwnerService.placeHold(card.getId(), new PlaceHoldRequest(Money.of(700), null));
+        assertEquals(Money.of(300), cardOwnerService.showBalance(card.getId()).getAvailableBalance());
+
+        // удержанные деньги нельзя перевести
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> cardOwnerService.transfer(
+                new TransferRequest(card.getId(), other.getId(), Money.of(400))));
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        assertThrows(ResponseStatusException.class, () -> cardOwnerService.placeHold(
+                card.getId(), new PlaceHoldRequest(Money.of(400), null)));
+
+        CardHoldResponse captured = cardOwnerService.captureHold(card.getId(), hold.getId());
+        assertEquals(HoldStatus.CAPTURED, captured.getStatus());
+        Card reloaded = cardRepository.findById(card.getId()).orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(300).compareTo(reloaded.getBalance().toBigDecimal()));
+        assertEquals(0, BigDecimal.ZERO.compareTo(reloaded.getHeldBalance().toBigDecimal()));
+
+        // повторное списание отклоняется
+        ResponseStatusException again = assertThrows(ResponseStatusException.class,
+                () -> cardOwnerService.captureHold(card.getId(), hold.getId()));
+        assertEquals(HttpStatus.CONFLICT, again.getStatusCode());
+    }
+
+    @Test
+    void testExpiredHolds_ReleasedInBulk() {
+        Card card = createCard(user, BigDecimal.valueOf(100));
+        for (int i = 0; i < 5; i++) {
+            cardOwnerService.placeHold(card.getId(), new PlaceHoldRequest(Money.of(10), 1));
+        }
+        CardHoldResponse kept = cardOwnerService.placeHold(card.getId(), new PlaceHoldRequest(Money.of(10), 60));
+        jdbcTemplate.update("update card_hold set expires_at = now() - interval '1 minute' where card_id = ? and id <> ?",
+                card.getId(), kept.getId());
+
+        // просроченные удержания других тестов в общей базе тоже снимаются
+        assertTrue(cardHoldService.expire(2) >= 5);
+        assertEquals(5, jdbcTemplate.queryForObject(
+                "select count(*) from card_hold where card_id = ? and status = 'EXPIRED'", Integer.class, card.getId()));
+        Card reloaded = cardRepository.findById(card.getId()).orElseThrow();
+        assertEquals(0, BigDecimal.TEN.compareTo(reloaded.getHeldBalance().toBigDecimal()));
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(reloaded.getBalance().toBigDecimal()));
+    }
+}
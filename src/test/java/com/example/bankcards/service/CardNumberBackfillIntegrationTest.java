@@ -0,0 +1,101 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.AbstractIntegrationTest;
+import com.example.bankcards.dto.request.CardLookupRequest;
+import com.example.bankcards.dto.request.CreateCardRequest;
+import com.example.bankcards.dto.response.card.CardWithOwnerResponse;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.service.cardnumber.CardNumberBackfillService;
+import com.example.bankcards.service.interfaces.card.CardAdminService;
+import com.example.bankcards.util.components.CardNumberUtil;
+import com.example.bankcards.util.components.Encryptor;
+import com.example.bankcards.util.enums.CardCurrency;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardNumberBackfillIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private CardNumberBackfillService backfillService;
+    @Autowired
+    private Encryptor encryptor;
+    @Autowired
+    private CardNumberUtil cardNumberUtil;
+    @Autowired
+    private CardAdminService cardAdminService;
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Test
+    void testBackfill_FillsOldCardsAndSkipsUndecryptable() {
+        UserModel user = seedUser();
+        Card old = createCard(user, CardCurrency.RUB, BigDecimal.ZERO, encryptor.encrypt("2200123456789012"));
+        Card broken = createCard(user, CardCurrency.RUB, BigDecimal.ZERO, "broken-" + old.getId());
+
+        backfillService.backfill();
+
+        assertEquals("9012", last4(old));
+        assertEquals(cardNumberUtil.numberHash("2200123456789012"), column(old, "number_hash"));
+        assertNull(last4(broken));
+        assertEquals(0, backfillService.backfill().filled());
+    }
+
+    @Test
+    void testBackfill_DuplicateNumber_OtherCardsStillFilled() {
+        UserModel user = seedUser();
+        Card first = createCard(user, CardCurrency.RUB, BigDecimal.ZERO, encryptor.encrypt("2200555566667777"));
+        Card duplicate = createCard(user, CardCurrency.RUB, BigDecimal.ZERO, encryptor.encrypt("2200555566667777"));
+
+        assertEquals(0, backfillService.backfill().failedChunks());
+
+        // hash достаётся одной из двух карт, last4 - обеим
+        assertEquals("7777", last4(first));
+        assertEquals("7777", last4(duplicate));
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from card where id in (:ids) and number_hash is not null",
+                Map.of("ids", List.of(first.getId(), duplicate.getId())), Integer.class));
+        assertTrue(backfillService.isComplete());
+    }
+
+    @Test
+    void testJpaSave_DoesNotOverwriteFilledLast4() {
+        UserModel user = seedUser();
+        Card card = createCard(user, CardCurrency.RUB, BigDecimal.ZERO, encryptor.encrypt("2200123456784321"));
+
+        backfillService.backfill();
+        // сущность прочитана до заполнения, last4 в ней пустой
+        card.setBlockRequested(true);
+        cardRepository.save(card);
+
+        assertEquals("4321", last4(card));
+    }
+
+    @Test
+    void testCreate_LookupByNumber() {
+        UserModel user = seedUser();
+        CardWithOwnerResponse created = cardAdminService.create(new CreateCardRequest(user.getId()));
+        Card card = cardRepository.findById(created.getId()).orElseThrow();
+        String number = encryptor.decrypt(card.getEncryptNumber());
+
+        CardWithOwnerResponse found = cardAdminService.findByNumber(new CardLookupRequest(number));
+
+        assertEquals(created.getId(), found.getId());
+        assertEquals("**** **** **** " + number.substring(12), found.getMaskedNumber());
+    }
+
+    private String last4(Card card) {
+        return column(card, "last4");
+    }
+
+    private String column(Card card, String column) {
+        return jdbcTemplate.queryForObject("select " + column + " from card where id = :id",
+                Map.of("id", card.getId()), String.class);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.util.components.Encryptor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Запуск: mvn test -Dgroups=benchmark -Dsurefire.excludedGroups=
+// Шифрование номеров карт на 1, 8 и 32 потоках: Encryptor с Cipher на поток против
+// Cipher.getInstance на каждый вызов, плюс расшифровка страницы из 50 номеров одним decryptAll
+@Slf4j
+@Tag("benchmark")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CardNumberCryptoBenchmarkTest {
+
+    private static final int NUMBERS = 1024;
+    private static final int PAGE = 50;
+    private static final byte[] KEY = new byte[32];
+    private static final Encryptor ENCRYPTOR = new Encryptor("ncmopiu34nrnakj2ofnmisan",
+            "1:" + Base64.getEncoder().encodeToString(KEY), 1);
+
+    @State(Scope.Thread)
+    public static class Numbers {
+        String[] plain = new String[NUMBERS];
+        String[] encrypted = new String[NUMBERS];
+        List<String> page;
+        SecretKeySpec key = new SecretKeySpec(KEY, "AES");
+        SecureRandom random = new SecureRandom();
+        int next;
+
+        @Setup
+        public void setUp() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < NUMBERS; i++) {
+                plain[i] = String.format("4000%012d", random.nextLong(1_000_000_000_000L));
+                encrypted[i] = ENCRYPTOR.encrypt(plain[i]);
+            }
+            page = new ArrayList<>(List.of(encrypted).subList(0, PAGE));
+        }
+
+        int nextIndex() {
+            next = (next + 1) & (NUMBERS - 1);
+            return next;
+        }
+    }
+
+    @Benchmark
+    public String encryptPooled(Numbers state) {
+        return ENCRYPTOR.encrypt(state.plain[state.nextIndex()]);
+    }
+
+    @Benchmark
+    public String decryptPooled(Numbers state) {
+        return ENCRYPTOR.decrypt(state.encrypted[state.nextIndex()]);
+    }
+
+    // прежний подход: новый Cipher на каждый номер
+    @Benchmark
+    public byte[] encryptPerCall(Numbers state) throws Exception {
+        byte[] iv = new byte[12];
+        state.random.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.ENCRYPT_MODE, state.key, new GCMParameterSpec(128, iv));
+        return cipher.doFinal(state.plain[state.nextIndex()].getBytes(StandardCharsets.US_ASCII));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAGE)
+    public List<String> decryptPage(Numbers state) {
+        return ENCRYPTOR.decryptAll(state.page);
+    }
+
+    @Test
+    void benchmarkCardNumberCrypto_PooledVsPerCall() throws RunnerException {
+        for (int threads : new int[]{1, 8, 32}) {
+            Collection<RunResult> results = new Runner(new OptionsBuilder()
+                    .include(CardNumberCryptoBenchmarkTest.class.getName() + "\\.")
+                    .threads(threads)
+                    .build()).run();
+
+            Map<String, Double> scores = new HashMap<>();
+            for (RunResult result : results) {
+                String benchmark = result.getParams().getBenchmark();
+                scores.put(benchmark.substring(benchmark.lastIndexOf('.') + 1), result.getPrimaryResult().getScore());
+            }
+            log.info("{} threads, ns/op: encrypt pooled={}, per call={}; decrypt={}, page={} per number",
+                    threads, scores.get("encryptPooled"), scores.get("encryptPerCall"),
+                    scores.get("decryptPooled"), scores.get("decryptPage"));
+
+            assertTrue(scores.get("encryptPooled") < scores.get("encryptPerCall"));
+        }
+    }
+}
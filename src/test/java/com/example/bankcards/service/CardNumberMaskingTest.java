@@ -0,0 +1,80 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.response.card.CardResponse;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.util.components.CardNumberBlindIndex;
+import com.example.bankcards.util.components.CardNumberUtil;
+import com.example.bankcards.util.components.Encryptor;
+import com.example.bankcards.util.components.GeneratedCardNumber;
+import com.example.bankcards.util.components.RandomNumberGenerator;
+import com.example.bankcards.util.mappers.CardMapper;
+import com.example.bankcards.util.mappers.CardMapperImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class CardNumberMaskingTest {
+
+    private Encryptor encryptor;
+    private CardNumberUtil cardNumberUtil;
+    private final CardMapper cardMapper = new CardMapperImpl();
+
+    @BeforeEach
+    void setUp() {
+        encryptor = spy(new Encryptor("ncmopiu34nrnakj2ofnmisan", "1:" + EncryptorTest.key(1), 1));
+        cardNumberUtil = new CardNumberUtil(new RandomNumberGenerator(), encryptor, new CardNumberBlindIndex("index-key"));
+    }
+
+    @Test
+    void testGenerateCardNumber_Last4MatchesEncryptedNumber() {
+        GeneratedCardNumber number = cardNumberUtil.generateCardNumber();
+
+        String plain = encryptor.decrypt(number.encrypted());
+        assertEquals(16, plain.length());
+        assertEquals(plain.substring(12), number.last4());
+        assertEquals(cardNumberUtil.numberHash(plain), number.numberHash());
+    }
+
+    @Test
+    void testBlindIndex_IgnoresSeparatorsAndDependsOnKey() {
+        CardNumberBlindIndex index = new CardNumberBlindIndex("index-key");
+
+        String hash = index.of("4000123412345678");
+
+        assertEquals(64, hash.length());
+        assertEquals(hash, index.of("4000 1234 1234 5678"));
+        assertNotEquals(hash, index.of("4000123412345679"));
+        assertNotEquals(hash, new CardNumberBlindIndex("other-key").of("4000123412345678"));
+    }
+
+    @Test
+    void testMapper_Last4Present_DoesNotDecrypt() {
+        Card card = Card.builder()
+                .id(UUID.randomUUID())
+                .encryptNumber("not-decryptable")
+                .last4("1234")
+                .build();
+
+        CardResponse response = cardMapper.toResponse(card, cardNumberUtil);
+
+        assertEquals("**** **** **** 1234", response.getMaskedNumber());
+        verify(encryptor, never()).decrypt(anyString());
+    }
+
+    @Test
+    void testMapper_Last4NotFilledYet_FallsBackToDecrypt() {
+        Card card = Card.builder()
+                .id(UUID.randomUUID())
+                .encryptNumber(encryptor.encrypt("4000123412345678"))
+                .build();
+
+        CardResponse response = cardMapper.toResponse(card, cardNumberUtil);
+
+        assertEquals("**** **** **** 5678", response.getMaskedNumber());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.service.cardnumber.CardNumberPool;
+import com.example.bankcards.util.components.CardNumberUtil;
+import com.example.bankcards.util.components.GeneratedCardNumber;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CardNumberPoolTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private CardNumberUtil cardNumberUtil;
+
+    private MeterRegistry meterRegistry;
+    private CardNumberPool pool;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        pool = new CardNumberPool(jdbcTemplate, cardNumberUtil, meterRegistry, 3);
+    }
+
+    @Test
+    void testRefill_QueuesOnlyReservedNumbers() {
+        when(cardNumberUtil.generateCardNumber()).thenReturn(
+                new GeneratedCardNumber("enc1", "1111", "hash1"),
+                new GeneratedCardNumber("enc2", "2222", "hash2"),
+                new GeneratedCardNumber("enc3", "3333", "hash3"));
+        when(jdbcTemplate.batchUpdate(contains("card_number_reservation"), any(SqlParameterSource[].class)))
+                .thenReturn(new int[]{1, 0, 1});
+
+        assertEquals(2, pool.refill());
+
+        assertEquals(2, pool.depth());
+        assertEquals(2, meterRegistry.get("card.number.pool.depth").gauge().value());
+        assertEquals(1, meterRegistry.get("card.number.pool.refill").timer().count());
+        assertEquals("enc1", pool.take().encrypted());
+        assertEquals("enc3", pool.take().encrypted());
+        verify(jdbcTemplate).update(contains("delete from card_number_reservation"), anyMap());
+    }
+
+    @Test
+    void testRefill_DuplicateInBatchGeneratedAgain() {
+        when(cardNumberUtil.generateCardNumber()).thenReturn(
+                new GeneratedCardNumber("enc1", "1111", "hash1"),
+                new GeneratedCardNumber("enc1", "1111", "hash1"),
+                new GeneratedCardNumber("enc2", "2222", "hash2"),
+                new GeneratedCardNumber("enc3", "3333", "hash3"));
+        when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class))).thenReturn(new int[]{1, 1, 1});
+
+        pool.refill();
+
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat((SqlParameterSource[] batch) -> batch.length == 3));
+        assertEquals(3, pool.depth());
+    }
+
+    @Test
+    void testRefill_FullQueue_NoRoundTrip() {
+        when(cardNumberUtil.generateCardNumber()).thenReturn(new GeneratedCardNumber("enc", "0000", "hash"));
+        when(jdbcTemplate.batchUpdate(anyString(), any(SqlParameterSource[].class))).thenReturn(new int[]{1});
+        pool = new CardNumberPool(jdbcTemplate, cardNumberUtil, meterRegistry, 1);
+        pool.refill();
+        clearInvocations(jdbcTemplate);
+
+        assertEquals(0, pool.refill());
+
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testTake_EmptyPool_GeneratesInPlace() {
+        when(cardNumberUtil.generateCardNumber()).thenReturn(new GeneratedCardNumber("enc9", "9999", "hash9"));
+
+        assertEquals("enc9", pool.take().encrypted());
+
+        assertEquals(1, meterRegistry.get("card.number.pool.misses").counter().count());
+        verifyNoInteractions(jdbcTemplate);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.AbstractIntegrationTest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.service.cardnumber.CardNumberRotationService;
+import com.example.bankcards.service.cardnumber.CardNumberRotationState;
+import com.example.bankcards.util.components.Encryptor;
+import com.example.bankcards.util.enums.CardCurrency;
+import com.example.bankcards.util.enums.CardNumberRotationStatus;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// ключи версий 1 и 2 заданы в AbstractIntegrationTest, здесь активна версия 2
+@TestPropertySource(properties = {
+        "card-number.encrypt.active-version=2",
+        "card-number.rotation.chunk=3",
+        "card-number.rotation.parallelism=2"
+})
+class CardNumberRotationIntegrationTest extends AbstractIntegrationTest {
+
+    private static final Encryptor PREVIOUS_KEY = new Encryptor("ncmopiu34nrnakj2ofnmisan",
+            "1:td9Vf7qy+jU3nuH9H5+i7es7oH1loyU1xDZ6mTifuC8=", 1);
+
+    @Autowired
+    private CardNumberRotationService rotationService;
+    @Autowired
+    private Encryptor encryptor;
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Test
+    void testRun_ReencryptsAllCardsUnderActiveKey() {
+        List<Card> cards = createCards("2200", 7);
+        Card broken = createCard(seedUser(), CardCurrency.RUB, BigDecimal.ZERO, "broken-" + UUID.randomUUID());
+
+        rotationService.start();
+        rotationService.run();
+
+        for (int i = 0; i < cards.size(); i++) {
+            String number = encryptNumber(cards.get(i));
+            assertEquals(2, Encryptor.keyVersion(number));
+            assertEquals(String.format("2200%012d", i), encryptor.decrypt(number));
+        }
+        assertEquals(broken.getEncryptNumber(), encryptNumber(broken));
+        // нерасшифрованный номер остаётся под прежним ключом, задача не считается завершённой
+        CardNumberRotationState state = rotationService.state();
+        assertEquals(CardNumberRotationStatus.INCOMPLETE, state.status());
+        assertEquals(2, state.targetVersion());
+        assertTrue(state.rotated() >= cards.size());
+        assertTrue(state.failed() >= 1);
+        assertTrue(state.remaining() >= 1);
+    }
+
+    @Test
+    void testRun_PausedJobDoesNotRunUntilResumed() {
+        Card card = createCards("4000", 1).get(0);
+        rotationService.start();
+        rotationService.pause();
+
+        assertEquals(0, rotationService.run());
+        assertEquals(1, Encryptor.keyVersion(encryptNumber(card)));
+        assertEquals(CardNumberRotationStatus.PAUSED, rotationService.state().status());
+        assertThrows(ResponseStatusException.class, () -> rotationService.pause());
+
+        rotationService.resume();
+        rotationService.run();
+
+        assertEquals(2, Encryptor.keyVersion(encryptNumber(card)));
+        // в общей базе могут лежать нерасшифровываемые номера других тестов
+        CardNumberRotationState state = rotationService.state();
+        assertEquals(state.remaining() == 0 ? CardNumberRotationStatus.COMPLETED : CardNumberRotationStatus.INCOMPLETE,
+                state.status());
+        assertThrows(ResponseStatusException.class, () -> rotationService.resume());
+    }
+
+    @Test
+    void testRun_CardsBehindCheckpoint_RescannedBeforeFinish() {
+        List<Card> cards = createCards("5100", 5);
+        List<UUID> ordered = jdbcTemplate.queryForList("select id from card where id in (:ids) order by id",
+                Map.of("ids", cards.stream().map(Card::getId).toList()), UUID.class);
+        rotationService.start();
+        // как будто прошлый запуск прошёл вторую карту, а первые две записал узел со старым активным ключом
+        jdbcTemplate.update("update card_number_rotation set last_id = :lastId where id = 1",
+                Map.of("lastId", ordered.get(1)));
+
+        rotationService.run();
+
+        for (UUID id : ordered) {
+            String number = jdbcTemplate.queryForObject("select encrypt_number from card where id = :id",
+                    Map.of("id", id), String.class);
+            assertEquals(2, Encryptor.keyVersion(number));
+        }
+        assertNotEquals(CardNumberRotationStatus.RUNNING, rotationService.state().status());
+    }
+
+    private List<Card> createCards(String bin, int count) {
+        UserModel user = seedUser();
+        List<Card> cards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            cards.add(createCard(user, CardCurrency.RUB, BigDecimal.ZERO, PREVIOUS_KEY.encrypt(String.format("%s%012d", bin, i))));
+        }
+        return cards;
+    }
+
+    private String encryptNumber(Card card) {
+        return jdbcTemplate.queryForObject("select encrypt_number from card where id = :id",
+                Map.of("id", card.getId()), String.class);
+    }
+}
@@ -1,18 +1,47 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.request.BatchTransferRequest;
 import com.example.bankcards.dto.request.DepositRequest;
+import com.example.bankcards.dto.request.PlaceHoldRequest;
 import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.dto.response.card.BatchTransferResponse;
 import com.example.bankcards.dto.response.card.CardBalanceResponse;
+import com.example.bankcards.dto.response.card.CardHoldResponse;
 import com.example.bankcards.dto.response.card.CardNumberResponse;
 import com.example.bankcards.dto.response.card.CardResponse;
+import com.example.bankcards.dto.response.card.CardTransactionPageResponse;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.exception.BalanceOutcomeUnknownException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.projection.TransferBalances;
 import com.example.bankcards.security.CustomUserDetail;
+import com.example.bankcards.service.concurrency.CardTransactionExecutor;
+import com.example.bankcards.service.engine.BalanceEngine;
+import com.example.bankcards.service.fx.FxConversion;
+import com.example.bankcards.service.fx.FxRateService;
+import com.example.bankcards.service.history.CardTransactionService;
+import com.example.bankcards.service.hold.CardHoldService;
+import com.example.bankcards.service.idempotency.IdempotencyService;
 import com.example.bankcards.service.implementation.CardOwnerServiceImpl;
+import com.example.bankcards.service.journal.JournalBalanceService;
+import com.example.bankcards.service.ledger.LedgerService;
+import com.example.bankcards.service.limits.SpendingLimitService;
+import com.example.bankcards.service.screening.FraudScreeningService;
+import com.example.bankcards.service.screening.ScreeningVerdict;
+import com.example.bankcards.service.limits.SpendingReservation;
+import com.example.bankcards.service.striping.StripedBalanceService;
+import com.example.bankcards.service.sweep.SweepRuleIndex;
 import com.example.bankcards.util.components.CardNumberUtil;
+import com.example.bankcards.util.constants.ErrorMessages;
+import com.example.bankcards.util.enums.BatchItemStatus;
+import com.example.bankcards.util.enums.BatchTransferMode;
+import com.example.bankcards.util.enums.CardCurrency;
 import com.example.bankcards.util.enums.CardStatus;
+import com.example.bankcards.util.enums.ConcurrencyMode;
+import com.example.bankcards.util.enums.HoldStatus;
 import com.example.bankcards.util.mappers.CardMapper;
+import com.example.bankcards.util.money.Money;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
@@ -23,12 +52,18 @@ import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -44,6 +79,42 @@ class CardOwnerServiceImplTest {
     @Mock
     private CardNumberUtil cardNumberUtil;
 
+    @Mock
+    private CardTransactionExecutor transactionExecutor;
+
+    @Mock
+    private BalanceEngine balanceEngine;
+
+    @Mock
+    private JournalBalanceService journalBalanceService;
+
+    @Mock
+    private StripedBalanceService stripedBalanceService;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private LedgerService ledgerService;
+
+    @Mock
+    private CardTransactionService cardTransactionService;
+
+    @Mock
+    private CardHoldService cardHoldService;
+
+    @Mock
+    private SweepRuleIndex sweepRuleIndex;
+
+    @Mock
+    private SpendingLimitService spendingLimitService;
+
+    @Mock
+    private FraudScreeningService fraudScreeningService;
+
+    @Mock
+    private FxRateService fxRateService;
+
     @InjectMocks
     private CardOwnerServiceImpl cardOwnerService;
 
@@ -65,14 +136,14 @@ class CardOwnerServiceImplTest {
                 .id(cardId)
                 .owner(currentUser)
                 .status(CardStatus.ACTIVE)
-                .balance(BigDecimal.valueOf(1000))
+                .balance(Money.of(1000))
                 .build();
 
         inactiveCard = Card.builder()
                 .id(UUID.randomUUID())
                 .owner(currentUser)
                 .status(CardStatus.BLOCKED)
-                .balance(BigDecimal.valueOf(500))
+                .balance(Money.of(500))
                 .build();
 
         // Настройка SecurityContext для текущего пользователя
@@ -81,22 +152,231 @@ class CardOwnerServiceImplTest {
         SecurityContext context = mock(SecurityContext.class);
         when(context.getAuthentication()).thenReturn(auth);
         SecurityContextHolder.setContext(context);
+
+        when(transactionExecutor.execute(any(), anyString(), any()))
+                .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(2).get());
+        when(spendingLimitService.tryReserve(any(), any(), any())).thenAnswer(invocation -> new SpendingReservation(
+                invocation.getArgument(0), invocation.getArgument(1), invocation.getArgument(2), invocation.getArgument(2),
+                Instant.now(), null));
+        when(fraudScreeningService.screenDeposit(any(), any())).thenReturn(ScreeningVerdict.ALLOW);
+        when(fraudScreeningService.screenTransfer(any(), any(), any(), any())).thenReturn(ScreeningVerdict.ALLOW);
     }
 
 
     @Test
     void testDeposit_Success() {
         DepositRequest request = new DepositRequest();
-        request.setAmount(BigDecimal.valueOf(200));
+        request.setAmount(Money.of(200));
+
+        when(cardRepository.findCardWithLock(cardId, currentUser, false)).thenReturn(Optional.of(activeCard));
+
+        CardBalanceResponse response = cardOwnerService.deposit(cardId, request);
+
+        assertEquals(Money.of(1200), response.getBalance());
+        verify(cardRepository).save(activeCard);
+        verify(ledgerService).recordDeposit(cardId, Money.of(200));
+        verify(sweepRuleIndex).onBalanceChanged(cardId);
+        verify(fraudScreeningService).recordDeposit(cardId, Money.of(200), ScreeningVerdict.ALLOW);
+    }
+
+    @Test
+    void testDeposit_BlockedByScreening_NotApplied() {
+        DepositRequest request = new DepositRequest();
+        request.setAmount(Money.of(5));
+
+        when(fraudScreeningService.screenDeposit(cardId, request.getAmount()))
+                .thenThrow(new ResponseStatusException(HttpStatus.FORBIDDEN));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> cardOwnerService.deposit(cardId, request));
+
+        assertEquals(HttpStatus.FORBIDDEN, HttpStatus.valueOf(ex.getStatusCode().value()));
+        verifyNoInteractions(cardRepository);
+        verify(fraudScreeningService, never()).recordDeposit(any(), any(), any());
+    }
+
+    @Test
+    void testDeposit_FlaggedByScreening_AppliedAndRecorded() {
+        DepositRequest request = new DepositRequest();
+        request.setAmount(Money.of(5));
+
+        when(fraudScreeningService.screenDeposit(cardId, request.getAmount())).thenReturn(ScreeningVerdict.FLAG);
+        when(cardRepository.findCardWithLock(cardId, currentUser, false)).thenReturn(Optional.of(activeCard));
+
+        cardOwnerService.deposit(cardId, request);
+
+        verify(cardRepository).save(activeCard);
+        verify(fraudScreeningService).recordDeposit(cardId, Money.of(5), ScreeningVerdict.FLAG);
+    }
+
+    @Test
+    void testDeposit_OptimisticMode_ReadsWithoutLock() {
+        ReflectionTestUtils.setField(cardOwnerService, "concurrencyMode", ConcurrencyMode.OPTIMISTIC);
+        DepositRequest request = new DepositRequest();
+        request.setAmount(Money.of(200));
+
+        when(cardRepository.findByIdAndOwnerAndIsDeleted(cardId, currentUser, false)).thenReturn(Optional.of(activeCard));
+
+        CardBalanceResponse response = cardOwnerService.deposit(cardId, request);
+
+        assertEquals(Money.of(1200), response.getBalance());
+        verify(cardRepository, never()).findCardWithLock(any(), any(), any());
+        verify(transactionExecutor).execute(eq(ConcurrencyMode.OPTIMISTIC), eq("deposit"), any());
+    }
+
+    @Test
+    void testDeposit_AtomicMode_SingleUpdate() {
+        ReflectionTestUtils.setField(cardOwnerService, "concurrencyMode", ConcurrencyMode.ATOMIC);
+        DepositRequest request = new DepositRequest();
+        request.setAmount(Money.of(200));
+
+        when(cardRepository.depositIfActive(cardId, currentUser.getId(), CardStatus.ACTIVE.ordinal(), request.getAmount().toBigDecimal()))
+                .thenReturn(Optional.of(BigDecimal.valueOf(1200)));
+
+        CardBalanceResponse response = cardOwnerService.deposit(cardId, request);
+
+        assertEquals(Money.of(1200), response.getBalance());
+        verify(cardRepository, never()).findByIdAndOwnerAndIsDeleted(any(), any(), any());
+        verify(cardRepository, never()).save(any());
+    }
+
+    @Test
+    void testDeposit_AtomicMode_CardNotActive_ThrowsException() {
+        ReflectionTestUtils.setField(cardOwnerService, "concurrencyMode", ConcurrencyMode.ATOMIC);
+        DepositRequest request = new DepositRequest();
+        request.setAmount(Money.of(200));
+
+        when(cardRepository.depositIfActive(any(), any(), anyInt(), any())).thenReturn(Optional.empty());
+        when(cardRepository.findByIdAndOwnerAndIsDeleted(cardId, currentUser, false)).thenReturn(Optional.of(inactiveCard));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> cardOwnerService.deposit(cardId, request));
+
+        assertEquals(HttpStatus.CONFLICT, HttpStatus.valueOf(ex.getStatusCode().value()));
+    }
+
+    @Test
+    void testDeposit_AtomicMode_CardNotFound_ThrowsException() {
+        ReflectionTestUtils.setField(cardOwnerService, "concurrencyMode", ConcurrencyMode.ATOMIC);
+        DepositRequest request = new DepositRequest();
+        request.setAmount(Money.of(200));
+
+        when(cardRepository.depositIfActive(any(), any(), anyInt(), any())).thenReturn(Optional.empty());
+        when(cardRepository.findByIdAndOwnerAndIsDeleted(cardId, currentUser, false)).thenReturn(Optional.empty());
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> cardOwnerService.deposit(cardId, request));
+
+        assertEquals(HttpStatus.NOT_FOUND, HttpStatus.valueOf(ex.getStatusCode().value()));
+    }
+
+    @Test
+    void testDeposit_ShardedMode_DelegatesToEngine() {
+        ReflectionTestUtils.setField(cardOwnerService, "concurrencyMode", ConcurrencyMode.SHARDED);
+        DepositRequest request = new DepositRequest();
+        request.setAmount(Money.of(200));
+
+        when(balanceEngine.deposit(eq(cardId), eq(currentUser.getId()), eq(request.getAmount()), any())).thenReturn(Money.of(1200));
+
+        CardBalanceResponse response = cardOwnerService.deposit(cardId, request);
+
+        assertEquals(Money.of(1200), response.getBalance());
+        verifyNoInteractions(cardRepository, transactionExecutor);
+    }
+
+    @Test
+    void testDeposit_WithIdempotencyKey_ReturnsStoredResponse() {
+        DepositRequest request = new DepositRequest(Money.of(200));
+        CardBalanceResponse stored = new CardBalanceResponse(Money.of(1200));
+
+        when(idempotencyService.execute(eq(currentUser.getId()), eq("retry-1"), eq("deposit:" + cardId + ":20000"),
+                eq(CardBalanceResponse.class), any())).thenReturn(stored);
+
+        CardBalanceResponse response = cardOwnerService.deposit(cardId, request, "retry-1");
+
+        assertSame(stored, response);
+        verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    void testTransfer_WithIdempotencyKey_RunsThroughIdempotencyService() {
+        UUID creditCardId = UUID.randomUUID();
+        TransferRequest request = new TransferRequest(cardId, creditCardId, Money.of(300));
+
+        cardOwnerService.transfer(request, "retry-2");
+
+        verify(idempotencyService).execute(eq(currentUser.getId()), eq("retry-2"),
+                eq("transfer:" + cardId + ":" + creditCardId + ":30000"), eq(Void.class), any());
+        verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    void testDeposit_StripedCard_CreditsSlotWithoutLock() {
+        DepositRequest request = new DepositRequest(Money.of(200));
+
+        when(stripedBalanceService.isStriped(cardId)).thenReturn(true);
+        when(stripedBalanceService.credit(cardId, currentUser.getId(), request.getAmount())).thenReturn(true);
+        when(stripedBalanceService.totalBalance(cardId)).thenReturn(Money.of(1200));
+
+        CardBalanceResponse response = cardOwnerService.deposit(cardId, request);
+
+        assertEquals(Money.of(1200), response.getBalance());
+        verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    void testDeposit_StripedCardRejected_FallsBackToLock() {
+        DepositRequest request = new DepositRequest(Money.of(200));
 
+        when(stripedBalanceService.isStriped(cardId)).thenReturn(true);
+        when(stripedBalanceService.credit(cardId, currentUser.getId(), request.getAmount())).thenReturn(false);
         when(cardRepository.findCardWithLock(cardId, currentUser, false)).thenReturn(Optional.of(activeCard));
 
         CardBalanceResponse response = cardOwnerService.deposit(cardId, request);
 
-        assertEquals(BigDecimal.valueOf(1200), response.getBalance());
+        assertEquals(Money.of(1200), response.getBalance());
         verify(cardRepository).save(activeCard);
     }
 
+    @Test
+    void testTransfer_StripedDebitCard_DrainsSlots() {
+        UUID creditCardId = UUID.randomUUID();
+        Card creditCard = Card.builder()
+                .id(creditCardId)
+                .owner(currentUser)
+                .status(CardStatus.ACTIVE)
+                .balance(Money.of(500))
+                .build();
+        activeCard.setStriped(true);
+
+        TransferRequest request = new TransferRequest();
+        request.setDebitCardId(cardId);
+        request.setCreditCardId(creditCardId);
+        request.setAmount(Money.of(1100));
+
+        when(cardRepository.findCardsWithLock(List.of(cardId, creditCardId), currentUser, false))
+                .thenReturn(List.of(activeCard, creditCard));
+        when(stripedBalanceService.drainSlots(cardId)).thenReturn(Money.of(300));
+
+        cardOwnerService.transfer(request);
+
+        assertEquals(Money.of(200), activeCard.getBalance());
+        assertEquals(Money.of(1600), creditCard.getBalance());
+        verify(cardRepository).save(activeCard);
+    }
+
+    @Test
+    void testShowBalance_StripedCard_AggregatesSlots() {
+        activeCard.setStriped(true);
+        when(cardRepository.findByIdAndOwnerAndIsDeleted(cardId, currentUser, false))
+                .thenReturn(Optional.of(activeCard));
+        when(stripedBalanceService.totalBalance(cardId)).thenReturn(Money.of(1750));
+
+        CardBalanceResponse response = cardOwnerService.showBalance(cardId);
+
+        assertEquals(Money.of(1750), response.getBalance());
+    }
+
     @Test
     void testDeposit_CardNotFound_ThrowsException() {
         DepositRequest request = new DepositRequest();
@@ -111,7 +391,7 @@ class CardOwnerServiceImplTest {
     @Test
     void testDeposit_CardNotActive_ThrowsException() {
         DepositRequest request = new DepositRequest();
-        request.setAmount(BigDecimal.valueOf(100));
+        request.setAmount(Money.of(100));
         when(cardRepository.findCardWithLock(cardId, currentUser, false)).thenReturn(Optional.of(inactiveCard));
 
         ResponseStatusException ex = assertThrows(ResponseStatusException.class,
@@ -121,6 +401,142 @@ class CardOwnerServiceImplTest {
     }
 
 
+    @Test
+    void testTransfer_HeldFundsNotAvailable_ThrowsException() {
+        UUID creditCardId = UUID.randomUUID();
+        Card creditCard = Card.builder()
+                .id(creditCardId)
+                .owner(currentUser)
+                .status(CardStatus.ACTIVE)
+                .balance(Money.of(500))
+                .build();
+        activeCard.setHeldBalance(Money.of(800));
+
+        TransferRequest request = new TransferRequest(cardId, creditCardId, Money.of(300));
+        when(cardRepository.findCardsWithLock(List.of(cardId, creditCardId), currentUser, false))
+                .thenReturn(List.of(activeCard, creditCard));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> cardOwnerService.transfer(request));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        assertEquals(ErrorMessages.NOT_ENOUGH_FUNDS, ex.getReason());
+        verify(cardRepository, never()).save(any());
+    }
+
+    @Test
+    void testShowBalance_WithHolds_ReturnsAvailableBalance() {
+        activeCard.setHeldBalance(Money.of(250));
+        when(cardRepository.findByIdAndOwnerAndIsDeleted(cardId, currentUser, false))
+                .thenReturn(Optional.of(activeCard));
+
+        CardBalanceResponse response = cardOwnerService.showBalance(cardId);
+
+        assertEquals(Money.of(1000), response.getBalance());
+        assertEquals(Money.of(750), response.getAvailableBalance());
+    }
+
+    @Test
+    void testPlaceHold_Success() {
+        CardHoldResponse hold = new CardHoldResponse(UUID.randomUUID(), cardId, Money.of(100),
+                HoldStatus.ACTIVE, OffsetDateTime.now().plusMinutes(30));
+        when(cardHoldService.place(cardId, currentUser.getId(), Money.of(100), Duration.ofMinutes(30)))
+                .thenReturn(Optional.of(hold));
+
+        CardHoldResponse response = cardOwnerService.placeHold(cardId, new PlaceHoldRequest(Money.of(100), 30));
+
+        assertSame(hold, response);
+        verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    void testPlaceHold_StripedCard_FoldsAndRetries() {
+        CardHoldResponse hold = new CardHoldResponse(UUID.randomUUID(), cardId, Money.of(100),
+                HoldStatus.ACTIVE, OffsetDateTime.now().plusDays(7));
+        when(stripedBalanceService.isStriped(cardId)).thenReturn(true);
+        when(cardHoldService.place(cardId, currentUser.getId(), Money.of(100), Duration.ofDays(7)))
+                .thenReturn(Optional.empty(), Optional.of(hold));
+
+        CardHoldResponse response = cardOwnerService.placeHold(cardId, new PlaceHoldRequest(Money.of(100), null));
+
+        assertSame(hold, response);
+        verify(stripedBalanceService).fold(cardId);
+    }
+
+    @Test
+    void testPlaceHold_NotEnoughAvailable_ThrowsException() {
+        activeCard.setHeldBalance(Money.of(950));
+        when(cardHoldService.place(any(), any(), any(), any())).thenReturn(Optional.empty());
+        when(cardRepository.findByIdAndOwnerAndIsDeleted(cardId, currentUser, false))
+                .thenReturn(Optional.of(activeCard));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> cardOwnerService.placeHold(cardId, new PlaceHoldRequest(Money.of(100), null)));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        assertEquals(ErrorMessages.NOT_ENOUGH_FUNDS, ex.getReason());
+    }
+
+    @Test
+    void testPlaceHold_JournalMode_ThrowsException() {
+        ReflectionTestUtils.setField(cardOwnerService, "concurrencyMode", ConcurrencyMode.JOURNAL);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> cardOwnerService.placeHold(cardId, new PlaceHoldRequest(Money.of(10), null)));
+
+        assertEquals(ErrorMessages.HOLDS_NOT_SUPPORTED, ex.getReason());
+        verifyNoInteractions(cardHoldService);
+    }
+
+    @Test
+    void testCaptureHold_Success() {
+        UUID holdId = UUID.randomUUID();
+        CardHoldResponse captured = new CardHoldResponse(holdId, cardId, Money.of(10),
+                HoldStatus.CAPTURED, OffsetDateTime.now().plusDays(1));
+        when(cardHoldService.capture(cardId, holdId, currentUser.getId())).thenReturn(Optional.of(captured));
+
+        assertSame(captured, cardOwnerService.captureHold(cardId, holdId));
+    }
+
+    @Test
+    void testCaptureHold_AlreadyReleased_ThrowsException() {
+        UUID holdId = UUID.randomUUID();
+        when(cardHoldService.capture(cardId, holdId, currentUser.getId())).thenReturn(Optional.empty());
+        when(cardHoldService.find(cardId, holdId, currentUser.getId())).thenReturn(Optional.of(
+                new CardHoldResponse(holdId, cardId, Money.of(10), HoldStatus.RELEASED, OffsetDateTime.now().plusDays(1))));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> cardOwnerService.captureHold(cardId, holdId));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        assertEquals(ErrorMessages.HOLD_NOT_ACTIVE, ex.getReason());
+    }
+
+    @Test
+    void testCaptureHold_Expired_ThrowsException() {
+        UUID holdId = UUID.randomUUID();
+        when(cardHoldService.capture(cardId, holdId, currentUser.getId())).thenReturn(Optional.empty());
+        when(cardHoldService.find(cardId, holdId, currentUser.getId())).thenReturn(Optional.of(
+                new CardHoldResponse(holdId, cardId, Money.of(10), HoldStatus.ACTIVE, OffsetDateTime.now().minusMinutes(1))));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> cardOwnerService.captureHold(cardId, holdId));
+
+        assertEquals(ErrorMessages.HOLD_EXPIRED, ex.getReason());
+    }
+
+    @Test
+    void testReleaseHold_NotFound_ThrowsException() {
+        UUID holdId = UUID.randomUUID();
+        when(cardHoldService.release(cardId, holdId, currentUser.getId())).thenReturn(Optional.empty());
+        when(cardHoldService.find(cardId, holdId, currentUser.getId())).thenReturn(Optional.empty());
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> cardOwnerService.releaseHold(cardId, holdId));
+
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
+    }
+
     @Test
     void testTransfer_Success() {
         UUID creditCardId = UUID.randomUUID();
@@ -128,23 +544,240 @@ class CardOwnerServiceImplTest {
                 .id(creditCardId)
                 .owner(currentUser)
                 .status(CardStatus.ACTIVE)
-                .balance(BigDecimal.valueOf(500))
+                .balance(Money.of(500))
                 .build();
 
         TransferRequest request = new TransferRequest();
         request.setDebitCardId(cardId);
         request.setCreditCardId(creditCardId);
-        request.setAmount(BigDecimal.valueOf(300));
+        request.setAmount(Money.of(300));
 
-        when(cardRepository.findCardWithLock(cardId, currentUser, false)).thenReturn(Optional.of(activeCard));
-        when(cardRepository.findCardWithLock(creditCardId, currentUser, false)).thenReturn(Optional.of(creditCard));
+        when(cardRepository.findCardsWithLock(List.of(cardId, creditCardId), currentUser, false))
+                .thenReturn(List.of(activeCard, creditCard));
 
         cardOwnerService.transfer(request);
 
-        assertEquals(BigDecimal.valueOf(700), activeCard.getBalance());
-        assertEquals(BigDecimal.valueOf(800), creditCard.getBalance());
+        assertEquals(Money.of(700), activeCard.getBalance());
+        assertEquals(Money.of(800), creditCard.getBalance());
         verify(cardRepository).save(activeCard);
         verify(cardRepository).save(creditCard);
+        verify(ledgerService).recordTransfer(cardId, creditCardId, Money.of(300));
+        verify(sweepRuleIndex).onBalanceChanged(cardId);
+        verify(sweepRuleIndex).onBalanceChanged(creditCardId);
+        verify(fraudScreeningService).recordTransfer(currentUser.getId(), cardId, creditCardId,
+                Money.of(300), ScreeningVerdict.ALLOW);
+    }
+
+    @Test
+    void testTransfer_CrossCurrency_CreditsConvertedAmount() {
+        UUID creditCardId = UUID.randomUUID();
+        Card creditCard = Card.builder()
+                .id(creditCardId)
+                .owner(currentUser)
+                .status(CardStatus.ACTIVE)
+                .currency(CardCurrency.USD)
+                .balance(Money.of(10))
+                .build();
+        TransferRequest request = new TransferRequest(cardId, creditCardId, Money.of(300));
+        FxConversion conversion = new FxConversion(7, CardCurrency.RUB, CardCurrency.USD,
+                new BigDecimal("0.01100000"), Money.of(300), Money.of(new BigDecimal("3.30")));
+
+        when(cardRepository.findCardsWithLock(List.of(cardId, creditCardId), currentUser, false))
+                .thenReturn(List.of(activeCard, creditCard));
+        when(fxRateService.convert(Money.of(300), CardCurrency.RUB, CardCurrency.USD)).thenReturn(conversion);
+
+        cardOwnerService.transfer(request);
+
+        assertEquals(Money.of(700), activeCard.getBalance());
+        assertEquals(Money.of(new BigDecimal("13.30")), creditCard.getBalance());
+        verify(ledgerService).recordConversion(cardId, creditCardId, conversion);
+        verify(ledgerService, never()).recordTransfer(any(), any(), any());
+    }
+
+    @Test
+    void testTransfer_CrossCurrency_NoRate_NothingChanged() {
+        UUID creditCardId = UUID.randomUUID();
+        Card creditCard = Card.builder()
+                .id(creditCardId)
+                .owner(currentUser)
+                .status(CardStatus.ACTIVE)
+                .currency(CardCurrency.EUR)
+                .balance(Money.of(10))
+                .build();
+        TransferRequest request = new TransferRequest(cardId, creditCardId, Money.of(300));
+
+        when(cardRepository.findCardsWithLock(List.of(cardId, creditCardId), currentUser, false))
+                .thenReturn(List.of(activeCard, creditCard));
+        when(fxRateService.convert(any(), any(), any()))
+                .thenThrow(new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.FX_RATE_NOT_FOUND));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> cardOwnerService.transfer(request));
+
+        assertEquals(ErrorMessages.FX_RATE_NOT_FOUND, ex.getReason());
+        assertEquals(Money.of(1000), activeCard.getBalance());
+        verify(cardRepository, never()).save(any());
+    }
+
+    @Test
+    void testTransfer_Rejected_DoesNotEvaluateSweepRules() {
+        UUID creditCardId = UUID.randomUUID();
+        TransferRequest request = new TransferRequest(cardId, creditCardId, Money.of(300));
+
+        when(cardRepository.findCardsWithLock(List.of(cardId, creditCardId), currentUser, false))
+                .thenReturn(List.of());
+
+        assertThrows(ResponseStatusException.class, () -> cardOwnerService.transfer(request));
+        verifyNoInteractions(sweepRuleIndex);
+    }
+
+    @Test
+    void testTransfer_AtomicMode_SingleStatement() {
+        ReflectionTestUtils.setField(cardOwnerService, "concurrencyMode", ConcurrencyMode.ATOMIC);
+        UUID creditCardId = UUID.randomUUID();
+        TransferRequest request = new TransferRequest(cardId, creditCardId, Money.of(300));
+
+        when(cardRepository.transferIfAllowed(cardId, creditCardId, currentUser.getId(),
+                CardStatus.ACTIVE.ordinal(), request.getAmount().toBigDecimal()))
+                .thenReturn(Optional.of(mock(TransferBalances.class)));
+
+        cardOwnerService.transfer(request);
+
+        verify(cardRepository, never()).findCardsWithLock(any(), any(), any());
+        verify(cardRepository, never()).findByIdInAndOwnerAndIsDeleted(any(), any(), any());
+        verify(cardRepository, never()).save(any());
+    }
+
+    @Test
+    void testTransfer_AtomicMode_NotEnoughFunds_ThrowsException() {
+        ReflectionTestUtils.setField(cardOwnerService, "concurrencyMode", ConcurrencyMode.ATOMIC);
+        UUID creditCardId = UUID.randomUUID();
+        Card creditCard = Card.builder()
+                .id(creditCardId)
+                .owner(currentUser)
+                .status(CardStatus.ACTIVE)
+                .balance(Money.of(500))
+                .build();
+        TransferRequest request = new TransferRequest(cardId, creditCardId, Money.of(2000));
+
+        when(cardRepository.transferIfAllowed(any(), any(), any(), anyInt(), any())).thenReturn(Optional.empty());
+        when(cardRepository.findByIdInAndOwnerAndIsDeleted(List.of(cardId, creditCardId), currentUser, false))
+                .thenReturn(List.of(activeCard, creditCard));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> cardOwnerService.transfer(request));
+
+        assertEquals(HttpStatus.CONFLICT, HttpStatus.valueOf(ex.getStatusCode().value()));
+        assertEquals(ErrorMessages.NOT_ENOUGH_FUNDS, ex.getReason());
+    }
+
+    @Test
+    void testTransfer_AtomicMode_CrossCurrency_FallsBackToLockedRows() {
+        ReflectionTestUtils.setField(cardOwnerService, "concurrencyMode", ConcurrencyMode.ATOMIC);
+        UUID creditCardId = UUID.randomUUID();
+        Card creditCard = Card.builder()
+                .id(creditCardId)
+                .owner(currentUser)
+                .status(CardStatus.ACTIVE)
+                .currency(CardCurrency.USD)
+                .balance(Money.of(0))
+                .build();
+        TransferRequest request = new TransferRequest(cardId, creditCardId, Money.of(100));
+        FxConversion conversion = new FxConversion(3, CardCurrency.RUB, CardCurrency.USD,
+                new BigDecimal("0.01100000"), Money.of(100), Money.of(new BigDecimal("1.10")));
+
+        when(cardRepository.transferIfAllowed(any(), any(), any(), anyInt(), any())).thenReturn(Optional.empty());
+        when(cardRepository.findByIdInAndOwnerAndIsDeleted(List.of(cardId, creditCardId), currentUser, false))
+                .thenReturn(List.of(activeCard, creditCard));
+        when(cardRepository.findCardsWithLock(List.of(cardId, creditCardId), currentUser, false))
+                .thenReturn(List.of(activeCard, creditCard));
+        when(fxRateService.convert(Money.of(100), CardCurrency.RUB, CardCurrency.USD)).thenReturn(conversion);
+
+        cardOwnerService.transfer(request);
+
+        assertEquals(Money.of(900), activeCard.getBalance());
+        assertEquals(Money.of(new BigDecimal("1.10")), creditCard.getBalance());
+        verify(ledgerService).recordConversion(cardId, creditCardId, conversion);
+    }
+
+    @Test
+    void testTransfer_AtomicMode_CardNotFound_ThrowsException() {
+        ReflectionTestUtils.setField(cardOwnerService, "concurrencyMode", ConcurrencyMode.ATOMIC);
+        UUID creditCardId = UUID.randomUUID();
+        TransferRequest request = new TransferRequest(cardId, creditCardId, Money.of(100));
+
+        when(cardRepository.transferIfAllowed(any(), any(), any(), anyInt(), any())).thenReturn(Optional.empty());
+        when(cardRepository.findByIdInAndOwnerAndIsDeleted(List.of(cardId, creditCardId), currentUser, false))
+                .thenReturn(List.of(activeCard));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> cardOwnerService.transfer(request));
+
+        assertEquals(HttpStatus.NOT_FOUND, HttpStatus.valueOf(ex.getStatusCode().value()));
+    }
+
+    @Test
+    void testTransfer_ShardedMode_DelegatesToEngine() {
+        ReflectionTestUtils.setField(cardOwnerService, "concurrencyMode", ConcurrencyMode.SHARDED);
+        UUID creditCardId = UUID.randomUUID();
+        TransferRequest request = new TransferRequest(cardId, creditCardId, Money.of(300));
+
+        cardOwnerService.transfer(request);
+
+        verify(balanceEngine).transfer(eq(cardId), eq(creditCardId), eq(currentUser.getId()), eq(request.getAmount()), any());
+        verify(spendingLimitService).reserve(currentUser.getId(), cardId, request.getAmount());
+        verifyNoInteractions(cardRepository);
+    }
+
+    @Test
+    void testTransfer_ShardedMode_EngineRejects_ReleasesLimits() {
+        ReflectionTestUtils.setField(cardOwnerService, "concurrencyMode", ConcurrencyMode.SHARDED);
+        UUID creditCardId = UUID.randomUUID();
+        TransferRequest request = new TransferRequest(cardId, creditCardId, Money.of(300));
+        SpendingReservation reservation = new SpendingReservation(
+                currentUser.getId(), cardId, request.getAmount(), request.getAmount(), Instant.now(), null);
+        when(spendingLimitService.reserve(currentUser.getId(), cardId, request.getAmount())).thenReturn(reservation);
+        doThrow(new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.NOT_ENOUGH_FUNDS))
+                .when(balanceEngine).transfer(eq(cardId), eq(creditCardId), eq(currentUser.getId()), eq(request.getAmount()), any());
+
+        assertThrows(ResponseStatusException.class, () -> cardOwnerService.transfer(request));
+
+        verify(spendingLimitService).release(reservation);
+    }
+
+    @Test
+    void testTransfer_ShardedMode_OutcomeUnknown_KeepsLimits() {
+        ReflectionTestUtils.setField(cardOwnerService, "concurrencyMode", ConcurrencyMode.SHARDED);
+        UUID creditCardId = UUID.randomUUID();
+        TransferRequest request = new TransferRequest(cardId, creditCardId, Money.of(300));
+        doThrow(new BalanceOutcomeUnknownException())
+                .when(balanceEngine).transfer(eq(cardId), eq(creditCardId), eq(currentUser.getId()), eq(request.getAmount()), any());
+
+        assertThrows(BalanceOutcomeUnknownException.class, () -> cardOwnerService.transfer(request));
+
+        verify(spendingLimitService, never()).release(any());
+    }
+
+    @Test
+    void testTransfer_LimitExceeded_ThrowsException() {
+        UUID creditCardId = UUID.randomUUID();
+        Card creditCard = Card.builder()
+                .id(creditCardId)
+                .owner(currentUser)
+                .status(CardStatus.ACTIVE)
+                .balance(Money.of(500))
+                .build();
+        TransferRequest request = new TransferRequest(cardId, creditCardId, Money.of(300));
+        when(cardRepository.findCardsWithLock(List.of(cardId, creditCardId), currentUser, false))
+                .thenReturn(List.of(activeCard, creditCard));
+        when(spendingLimitService.reserve(currentUser.getId(), cardId, request.getAmount()))
+                .thenThrow(new ResponseStatusException(HttpStatus.CONFLICT, ErrorMessages.DAILY_LIMIT_EXCEEDED));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> cardOwnerService.transfer(request));
+
+        assertEquals(ErrorMessages.DAILY_LIMIT_EXCEEDED, ex.getReason());
+        verifyNoInteractions(sweepRuleIndex);
     }
 
     @Test
@@ -152,7 +785,7 @@ class CardOwnerServiceImplTest {
         TransferRequest request = new TransferRequest();
         request.setDebitCardId(cardId);
         request.setCreditCardId(cardId);
-        request.setAmount(BigDecimal.valueOf(100));
+        request.setAmount(Money.of(100));
 
         ResponseStatusException ex = assertThrows(ResponseStatusException.class,
                 () -> cardOwnerService.transfer(request));
@@ -166,9 +799,10 @@ class CardOwnerServiceImplTest {
         TransferRequest request = new TransferRequest();
         request.setDebitCardId(cardId);
         request.setCreditCardId(creditCardId);
-        request.setAmount(BigDecimal.valueOf(100));
+        request.setAmount(Money.of(100));
 
-        when(cardRepository.findCardWithLock(cardId, currentUser, false)).thenReturn(Optional.empty());
+        when(cardRepository.findCardsWithLock(List.of(cardId, creditCardId), currentUser, false))
+                .thenReturn(List.of());
 
         ResponseStatusException ex = assertThrows(ResponseStatusException.class,
                 () -> cardOwnerService.transfer(request));
@@ -182,10 +816,10 @@ class CardOwnerServiceImplTest {
         TransferRequest request = new TransferRequest();
         request.setDebitCardId(cardId);
         request.setCreditCardId(creditCardId);
-        request.setAmount(BigDecimal.valueOf(100));
+        request.setAmount(Money.of(100));
 
-        when(cardRepository.findCardWithLock(cardId, currentUser, false)).thenReturn(Optional.of(activeCard));
-        when(cardRepository.findCardWithLock(creditCardId, currentUser, false)).thenReturn(Optional.empty());
+        when(cardRepository.findCardsWithLock(List.of(cardId, creditCardId), currentUser, false))
+                .thenReturn(List.of(activeCard));
 
         ResponseStatusException ex = assertThrows(ResponseStatusException.class,
                 () -> cardOwnerService.transfer(request));
@@ -200,16 +834,16 @@ class CardOwnerServiceImplTest {
                 .id(creditCardId)
                 .owner(currentUser)
                 .status(CardStatus.ACTIVE)
-                .balance(BigDecimal.valueOf(500))
+                .balance(Money.of(500))
                 .build();
 
         TransferRequest request = new TransferRequest();
         request.setDebitCardId(cardId);
         request.setCreditCardId(creditCardId);
-        request.setAmount(BigDecimal.valueOf(2000)); // больше чем баланс
+        request.setAmount(Money.of(2000)); // больше чем баланс
 
-        when(cardRepository.findCardWithLock(cardId, currentUser, false)).thenReturn(Optional.of(activeCard));
-        when(cardRepository.findCardWithLock(creditCardId, currentUser, false)).thenReturn(Optional.of(creditCard));
+        when(cardRepository.findCardsWithLock(List.of(cardId, creditCardId), currentUser, false))
+                .thenReturn(List.of(activeCard, creditCard));
 
         ResponseStatusException ex = assertThrows(ResponseStatusException.class,
                 () -> cardOwnerService.transfer(request));
@@ -224,16 +858,16 @@ class CardOwnerServiceImplTest {
                 .id(creditCardId)
                 .owner(currentUser)
                 .status(CardStatus.BLOCKED)
-                .balance(BigDecimal.valueOf(500))
+                .balance(Money.of(500))
                 .build();
 
         TransferRequest request = new TransferRequest();
         request.setDebitCardId(cardId);
         request.setCreditCardId(creditCardId);
-        request.setAmount(BigDecimal.valueOf(100));
+        request.setAmount(Money.of(100));
 
-        when(cardRepository.findCardWithLock(cardId, currentUser, false)).thenReturn(Optional.of(activeCard));
-        when(cardRepository.findCardWithLock(creditCardId, currentUser, false)).thenReturn(Optional.of(creditCard));
+        when(cardRepository.findCardsWithLock(List.of(cardId, creditCardId), currentUser, false))
+                .thenReturn(List.of(activeCard, creditCard));
 
         ResponseStatusException ex = assertThrows(ResponseStatusException.class,
                 () -> cardOwnerService.transfer(request));
@@ -241,6 +875,176 @@ class CardOwnerServiceImplTest {
         assertEquals(HttpStatus.CONFLICT, HttpStatus.valueOf(ex.getStatusCode().value()));
     }
 
+    @Test
+    void testTransferBatch_Atomic_LocksOnceAndAppliesAll() {
+        Card creditCard = Card.builder()
+                .id(UUID.randomUUID())
+                .owner(currentUser)
+                .status(CardStatus.ACTIVE)
+                .balance(Money.of(500))
+                .build();
+        BatchTransferRequest request = new BatchTransferRequest(BatchTransferMode.ATOMIC, List.of(
+                new TransferRequest(cardId, creditCard.getId(), Money.of(300)),
+                new TransferRequest(creditCard.getId(), cardId, Money.of(100)),
+                new TransferRequest(cardId, creditCard.getId(), Money.of(800))
+        ));
+        when(cardRepository.findCardsWithLock(Set.of(cardId, creditCard.getId()), currentUser, false))
+                .thenReturn(List.of(activeCard, creditCard));
+
+        BatchTransferResponse response = cardOwnerService.transferBatch(request);
+
+        assertEquals(3, response.getAppliedCount());
+        assertEquals(0, response.getRejectedCount());
+        assertEquals(Money.ZERO, activeCard.getBalance());
+        assertEquals(Money.of(1500), creditCard.getBalance());
+        verify(cardRepository, times(1)).findCardsWithLock(anyCollection(), any(), any());
+        verify(cardRepository).saveAll(anyCollection());
+        verify(ledgerService).write(argThat(postings -> postings.size() == 6));
+    }
+
+    @Test
+    void testTransferBatch_Atomic_OneRejected_NothingApplied() {
+        Card creditCard = Card.builder()
+                .id(UUID.randomUUID())
+                .owner(currentUser)
+                .status(CardStatus.ACTIVE)
+                .balance(Money.of(500))
+                .build();
+        BatchTransferRequest request = new BatchTransferRequest(BatchTransferMode.ATOMIC, List.of(
+                new TransferRequest(cardId, creditCard.getId(), Money.of(300)),
+                new TransferRequest(cardId, creditCard.getId(), Money.of(800))
+        ));
+        when(cardRepository.findCardsWithLock(Set.of(cardId, creditCard.getId()), currentUser, false))
+                .thenReturn(List.of(activeCard, creditCard));
+
+        BatchTransferResponse response = cardOwnerService.transferBatch(request);
+
+        assertEquals(0, response.getAppliedCount());
+        assertEquals(BatchItemStatus.ROLLED_BACK, response.getItems().get(0).getStatus());
+        assertEquals(BatchItemStatus.REJECTED, response.getItems().get(1).getStatus());
+        assertEquals(ErrorMessages.NOT_ENOUGH_FUNDS, response.getItems().get(1).getError());
+        assertEquals(Money.of(1000), activeCard.getBalance());
+        verify(cardRepository, never()).saveAll(anyCollection());
+        verifyNoInteractions(ledgerService);
+        // учёт в лимитах откатывается вместе с транзакцией, вручную ничего не возвращается
+        verify(spendingLimitService, never()).release(any());
+    }
+
+    @Test
+    void testTransferBatch_BestEffort_LimitRejectsOnlyItsItem() {
+        Card creditCard = Card.builder()
+                .id(UUID.randomUUID())
+                .owner(currentUser)
+                .status(CardStatus.ACTIVE)
+                .balance(Money.of(500))
+                .build();
+        BatchTransferRequest request = new BatchTransferRequest(BatchTransferMode.BEST_EFFORT, List.of(
+                new TransferRequest(cardId, creditCard.getId(), Money.of(100)),
+                new TransferRequest(cardId, creditCard.getId(), Money.of(200))
+        ));
+        when(cardRepository.findCardsWithLock(Set.of(cardId, creditCard.getId()), currentUser, false))
+                .thenReturn(List.of(activeCard, creditCard));
+        when(spendingLimitService.tryReserve(currentUser.getId(), cardId, Money.of(200)))
+                .thenReturn(new SpendingReservation(currentUser.getId(), cardId, Money.of(200), Money.of(200), Instant.now(),
+                        ErrorMessages.MONTHLY_LIMIT_EXCEEDED));
+
+        BatchTransferResponse response = cardOwnerService.transferBatch(request);
+
+        assertEquals(1, response.getAppliedCount());
+        assertEquals(ErrorMessages.MONTHLY_LIMIT_EXCEEDED, response.getItems().get(1).getError());
+        assertEquals(Money.of(900), activeCard.getBalance());
+        verify(spendingLimitService, never()).release(any());
+    }
+
+    @Test
+    void testTransferBatch_BestEffort_SkipsRejected() {
+        UUID foreignCardId = UUID.randomUUID();
+        BatchTransferRequest request = new BatchTransferRequest(BatchTransferMode.BEST_EFFORT, List.of(
+                new TransferRequest(cardId, inactiveCard.getId(), Money.of(100)),
+                new TransferRequest(cardId, foreignCardId, Money.of(100)),
+                new TransferRequest(inactiveCard.getId(), cardId, Money.of(100))
+        ));
+        inactiveCard.setStatus(CardStatus.ACTIVE);
+        when(cardRepository.findCardsWithLock(Set.of(cardId, inactiveCard.getId(), foreignCardId), currentUser, false))
+                .thenReturn(List.of(activeCard, inactiveCard));
+
+        BatchTransferResponse response = cardOwnerService.transferBatch(request);
+
+        assertEquals(2, response.getAppliedCount());
+        assertEquals(1, response.getRejectedCount());
+        assertEquals(ErrorMessages.CARD_NOT_FOUND, response.getItems().get(1).getError());
+        assertEquals(Money.of(1000), activeCard.getBalance());
+        assertEquals(Money.of(500), inactiveCard.getBalance());
+        verify(cardRepository).saveAll(anyCollection());
+    }
+
+    @Test
+    void testTransferBatch_BestEffort_ScreeningBlocksOnlyItsItemAndRecordsApplied() {
+        Card creditCard = Card.builder()
+                .id(UUID.randomUUID())
+                .owner(currentUser)
+                .status(CardStatus.ACTIVE)
+                .balance(Money.of(500))
+                .build();
+        BatchTransferRequest request = new BatchTransferRequest(BatchTransferMode.BEST_EFFORT, List.of(
+                new TransferRequest(cardId, creditCard.getId(), Money.of(100)),
+                new TransferRequest(creditCard.getId(), cardId, Money.of(100))
+        ));
+        when(cardRepository.findCardsWithLock(Set.of(cardId, creditCard.getId()), currentUser, false))
+                .thenReturn(List.of(activeCard, creditCard));
+        when(fraudScreeningService.screenTransfer(currentUser.getId(), creditCard.getId(), cardId, Money.of(100)))
+                .thenThrow(new ResponseStatusException(HttpStatus.FORBIDDEN, ErrorMessages.OPERATION_BLOCKED_BY_SCREENING));
+
+        BatchTransferResponse response = cardOwnerService.transferBatch(request);
+
+        assertEquals(1, response.getAppliedCount());
+        assertEquals(ErrorMessages.OPERATION_BLOCKED_BY_SCREENING, response.getItems().get(1).getError());
+        assertEquals(Money.of(900), activeCard.getBalance());
+        verify(fraudScreeningService).recordTransfer(
+                currentUser.getId(), cardId, creditCard.getId(), Money.of(100), ScreeningVerdict.ALLOW);
+        verify(fraudScreeningService, times(1)).recordTransfer(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testTransferBatch_Atomic_ScreeningBlock_NothingAppliedOrRecorded() {
+        Card creditCard = Card.builder()
+                .id(UUID.randomUUID())
+                .owner(currentUser)
+                .status(CardStatus.ACTIVE)
+                .balance(Money.of(500))
+                .build();
+        BatchTransferRequest request = new BatchTransferRequest(BatchTransferMode.ATOMIC, List.of(
+                new TransferRequest(cardId, creditCard.getId(), Money.of(100)),
+                new TransferRequest(creditCard.getId(), cardId, Money.of(100))
+        ));
+        when(cardRepository.findCardsWithLock(Set.of(cardId, creditCard.getId()), currentUser, false))
+                .thenReturn(List.of(activeCard, creditCard));
+        when(fraudScreeningService.screenTransfer(currentUser.getId(), creditCard.getId(), cardId, Money.of(100)))
+                .thenThrow(new ResponseStatusException(HttpStatus.FORBIDDEN, ErrorMessages.OPERATION_BLOCKED_BY_SCREENING));
+
+        BatchTransferResponse response = cardOwnerService.transferBatch(request);
+
+        assertEquals(0, response.getAppliedCount());
+        assertEquals(BatchItemStatus.ROLLED_BACK, response.getItems().get(0).getStatus());
+        assertEquals(ErrorMessages.OPERATION_BLOCKED_BY_SCREENING, response.getItems().get(1).getError());
+        assertEquals(Money.of(1000), activeCard.getBalance());
+        verify(fraudScreeningService, never()).recordTransfer(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void testTransferBatch_JournalModeAtomic_ThrowsException() {
+        ReflectionTestUtils.setField(cardOwnerService, "concurrencyMode", ConcurrencyMode.JOURNAL);
+        BatchTransferRequest request = new BatchTransferRequest(BatchTransferMode.ATOMIC, List.of(
+                new TransferRequest(cardId, UUID.randomUUID(), Money.of(10))
+        ));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> cardOwnerService.transferBatch(request));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        verifyNoInteractions(journalBalanceService);
+    }
+
     @Test
     void testBlockRequest_Success() {
         when(cardRepository.findByIdAndOwnerAndIsDeleted(cardId, currentUser, false))
@@ -280,13 +1084,39 @@ class CardOwnerServiceImplTest {
 
     @Test
     void testShowBalance_Success() {
-        activeCard.setBalance(BigDecimal.valueOf(1234));
+        activeCard.setBalance(Money.of(1234));
+        when(cardRepository.findByIdAndOwnerAndIsDeleted(cardId, currentUser, false))
+                .thenReturn(Optional.of(activeCard));
+
+        CardBalanceResponse response = cardOwnerService.showBalance(cardId);
+
+        assertEquals(Money.of(1234), response.getBalance());
+    }
+
+    @Test
+    void testShowBalance_JournalMode_ReturnsJournaledBalance() {
+        ReflectionTestUtils.setField(cardOwnerService, "concurrencyMode", ConcurrencyMode.JOURNAL);
         when(cardRepository.findByIdAndOwnerAndIsDeleted(cardId, currentUser, false))
                 .thenReturn(Optional.of(activeCard));
+        when(journalBalanceService.currentBalance(cardId)).thenReturn(Optional.of(Money.of(1500)));
 
         CardBalanceResponse response = cardOwnerService.showBalance(cardId);
 
-        assertEquals(BigDecimal.valueOf(1234), response.getBalance());
+        assertEquals(Money.of(1500), response.getBalance());
+    }
+
+    @Test
+    void testDeposit_JournalMode_DelegatesToJournal() {
+        ReflectionTestUtils.setField(cardOwnerService, "concurrencyMode", ConcurrencyMode.JOURNAL);
+        DepositRequest request = new DepositRequest(Money.of(200));
+
+        when(journalBalanceService.deposit(cardId, currentUser.getId(), request.getAmount()))
+                .thenReturn(Money.of(1200));
+
+        CardBalanceResponse response = cardOwnerService.deposit(cardId, request);
+
+        assertEquals(Money.of(1200), response.getBalance());
+        verifyNoInteractions(cardRepository, transactionExecutor);
     }
 
     @Test
@@ -300,6 +1130,28 @@ class CardOwnerServiceImplTest {
         assertEquals(HttpStatus.NOT_FOUND, HttpStatus.valueOf(ex.getStatusCode().value()));
     }
 
+    @Test
+    void testGetTransactions_Success() {
+        CardTransactionPageResponse page = new CardTransactionPageResponse(List.of(), null);
+        when(cardRepository.findByIdAndOwnerAndIsDeleted(cardId, currentUser, false))
+                .thenReturn(Optional.of(activeCard));
+        when(cardTransactionService.page(cardId, "cursor", 20)).thenReturn(page);
+
+        assertSame(page, cardOwnerService.getTransactions(cardId, "cursor", 20));
+    }
+
+    @Test
+    void testGetTransactions_CardNotFound_ThrowsException() {
+        when(cardRepository.findByIdAndOwnerAndIsDeleted(cardId, currentUser, false))
+                .thenReturn(Optional.empty());
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> cardOwnerService.getTransactions(cardId, null, 20));
+
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
+        verifyNoInteractions(cardTransactionService);
+    }
+
     @Test
     void testShowNumber_Success() {
         activeCard.setEncryptNumber("encryptedNumber");
@@ -0,0 +1,84 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.service.concurrency.CardTransactionExecutor;
+import com.example.bankcards.util.enums.ConcurrencyMode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class CardTransactionExecutorTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private CardTransactionExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        executor = new CardTransactionExecutor(mock(PlatformTransactionManager.class), meterRegistry);
+    }
+
+    @Test
+    void testExecute_OptimisticConflict_RetriesUntilSuccess() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = executor.execute(ConcurrencyMode.OPTIMISTIC, "deposit", () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new ObjectOptimisticLockingFailureException("Card", "id");
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(3, calls.get());
+        assertEquals(2, meterRegistry.counter("card.balance.retries",
+                "operation", "deposit", "mode", "OPTIMISTIC").count());
+    }
+
+    @Test
+    void testExecute_RetriesExhausted_ThrowsConflict() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> executor.execute(ConcurrencyMode.SERIALIZABLE, "transfer", () -> {
+                    throw new ObjectOptimisticLockingFailureException("Card", "id");
+                }));
+
+        assertEquals(HttpStatus.CONFLICT, HttpStatus.valueOf(ex.getStatusCode().value()));
+        assertEquals(1, meterRegistry.counter("card.balance.retries.exhausted",
+                "operation", "transfer", "mode", "SERIALIZABLE").count());
+    }
+
+    @Test
+    void testExecute_PessimisticMode_DoesNotRetry() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(ResponseStatusException.class,
+                () -> executor.execute(ConcurrencyMode.PESSIMISTIC, "deposit", () -> {
+                    calls.incrementAndGet();
+                    throw new ObjectOptimisticLockingFailureException("Card", "id");
+                }));
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void testExecute_BusinessError_NotRetried() {
+        AtomicInteger calls = new AtomicInteger();
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> executor.execute(ConcurrencyMode.OPTIMISTIC, "deposit", () -> {
+                    calls.incrementAndGet();
+                    throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+                }));
+
+        assertEquals(HttpStatus.NOT_FOUND, HttpStatus.valueOf(ex.getStatusCode().value()));
+        assertEquals(1, calls.get());
+    }
+}
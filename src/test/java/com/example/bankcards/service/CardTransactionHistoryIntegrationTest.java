@@ -0,0 +1,106 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.AbstractIntegrationTest;
+import com.example.bankcards.dto.request.DepositRequest;
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.dto.response.card.CardTransactionPageResponse;
+import com.example.bankcards.dto.response.card.CardTransactionResponse;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.service.history.CardTransactionPartitionManager;
+import com.example.bankcards.service.interfaces.card.CardOwnerService;
+import com.example.bankcards.util.enums.CardTransactionType;
+import com.example.bankcards.util.money.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardTransactionHistoryIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private CardOwnerService cardOwnerService;
+    @Autowired
+    private CardTransactionPartitionManager partitionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void testKeysetPagination_WalksWholeHistoryWithoutGapsOrDuplicates() {
+        UserModel user = seedUser();
+        authenticate(user);
+        Card card = createCard(user, BigDecimal.ZERO);
+        Card other = createCard(user, BigDecimal.ZERO);
+        for (int i = 0; i < 23; i++) {
+            cardOwnerService.deposit(card.getId(), new DepositRequest(Money.of(10)));
+        }
+        cardOwnerService.transfer(new TransferRequest(card.getId(), other.getId(), Money.of(1)));
+
+        List<CardTransactionResponse> all = new ArrayList<>();
+        String cursor = null;
+        do {
+            CardTransactionPageResponse page = cardOwnerService.getTransactions(card.getId(), cursor, 5);
+            all.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(24, all.size());
+        assertEquals(24, new HashSet<>(all.stream().map(CardTransactionResponse::getId).toList()).size());
+        assertEquals(CardTransactionType.TRANSFER_OUT, all.get(0).getType());
+        assertEquals(other.getId(), all.get(0).getCounterpartCardId());
+        CardTransactionResponse incoming = cardOwnerService.getTransactions(other.getId(), null, 5).getItems().get(0);
+        assertEquals(CardTransactionType.TRANSFER_IN, incoming.getType());
+    }
+
+    @Test
+    void testPartitionMaintenance_CreatesAheadAndDropsExpired() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        YearMonth old = current.minusYears(5);
+        partitionManager.createAhead(old, 0);
+        partitionManager.createAhead(current, 4);
+
+        int dropped = partitionManager.dropOlderThan(current.minusMonths(12));
+
+        assertEquals(1, dropped);
+        List<String> partitions = jdbcTemplate.queryForList(
+                "select child.relname from pg_inherits join pg_class child on child.oid = pg_inherits.inhrelid"
+                        + " join pg_class parent on parent.oid = pg_inherits.inhparent"
+                        + " where parent.relname = 'card_transaction'", String.class);
+        assertTrue(partitions.contains(String.format("card_transaction_y%dm%02d",
+                current.plusMonths(4).getYear(), current.plusMonths(4).getMonthValue())));
+        assertFalse(partitions.contains(String.format("card_transaction_y%dm%02d", old.getYear(), old.getMonthValue())));
+        assertTrue(partitions.contains(CardTransactionPartitionManager.DEFAULT_PARTITION));
+    }
+
+    @Test
+    void testRowsWithoutPartition_LandInDefaultAndMoveToNewPartition() {
+        YearMonth month = YearMonth.now(ZoneOffset.UTC).plusYears(3);
+        UUID cardId = UUID.randomUUID();
+        OffsetDateTime createdAt = month.atDay(10).atStartOfDay().atOffset(ZoneOffset.UTC);
+        jdbcTemplate.update("insert into card_transaction (id, transaction_id, card_id, type, amount, created_at)"
+                + " values (?, ?, ?, 'DEPOSIT', 10, ?)", UUID.randomUUID(), UUID.randomUUID(), cardId, createdAt);
+
+        assertEquals(1, countFor(CardTransactionPartitionManager.DEFAULT_PARTITION, cardId));
+        assertTrue(partitionManager.countDefaultRows() >= 1);
+
+        partitionManager.createAhead(month, 0);
+
+        String name = String.format("card_transaction_y%dm%02d", month.getYear(), month.getMonthValue());
+        assertEquals(0, countFor(CardTransactionPartitionManager.DEFAULT_PARTITION, cardId));
+        assertEquals(1, countFor(name, cardId));
+    }
+
+    private int countFor(String partition, UUID cardId) {
+        return jdbcTemplate.queryForObject("select count(*) from " + partition + " where card_id = ?", Integer.class, cardId);
+    }
+}
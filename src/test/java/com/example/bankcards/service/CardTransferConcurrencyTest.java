@@ -0,0 +1,119 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.AbstractIntegrationTest;
+import com.example.bankcards.dto.request.DepositRequest;
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.service.interfaces.card.CardOwnerService;
+import com.example.bankcards.service.striping.StripedBalanceService;
+import com.example.bankcards.util.money.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardTransferConcurrencyTest extends AbstractIntegrationTest {
+
+    private static final int TRANSFERS = 4000;
+    private static final int THREADS = 16;
+    private static final BigDecimal INITIAL_BALANCE = BigDecimal.valueOf(100000);
+
+    @Autowired
+    private CardOwnerService cardOwnerService;
+    @Autowired
+    private StripedBalanceService stripedBalanceService;
+
+    @Test
+    void testCrossingTransfers_NoDeadlocksAndBalanceConserved() throws Exception {
+        UserModel user = seedUser();
+        Card first = createCard(user, INITIAL_BALANCE);
+        Card second = createCard(user, INITIAL_BALANCE);
+
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < TRANSFERS; i++) {
+            // чередуем направление, чтобы переводы A->B и B->A шли одновременно
+            boolean forward = i % 2 == 0;
+            TransferRequest request = new TransferRequest(
+                    forward ? first.getId() : second.getId(),
+                    forward ? second.getId() : first.getId(),
+                    Money.of(1)
+            );
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    authenticate(user);
+                    cardOwnerService.transfer(request);
+                } catch (Throwable e) {
+                    errors.add(e);
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+
+        assertTrue(errors.isEmpty(), () -> "Transfers failed: " + errors.peek());
+        BigDecimal total = cardRepository.findById(first.getId()).orElseThrow().getBalance().toBigDecimal()
+                .add(cardRepository.findById(second.getId()).orElseThrow().getBalance().toBigDecimal());
+        assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.valueOf(2)).compareTo(total));
+    }
+
+    @Test
+    void testStripedCard_DepositsTransfersAndFold_BalanceConserved() throws Exception {
+        UserModel user = seedUser();
+        Card hot = createCard(user, INITIAL_BALANCE);
+        Card other = createCard(user, INITIAL_BALANCE);
+        stripedBalanceService.enable(hot.getId());
+
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        for (int i = 0; i < TRANSFERS; i++) {
+            int operation = i % 4;
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    authenticate(user);
+                    // в основном зачисления на горячую карту, вперемешку со списаниями и свёрткой
+                    switch (operation) {
+                        case 0 -> cardOwnerService.transfer(new TransferRequest(hot.getId(), other.getId(), Money.of(1)));
+                        case 1 -> stripedBalanceService.fold(hot.getId());
+                        default -> cardOwnerService.deposit(hot.getId(), new DepositRequest(Money.of(1)));
+                    }
+                } catch (Throwable e) {
+                    errors.add(e);
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.MINUTES));
+
+        assertTrue(errors.isEmpty(), () -> "Operations failed: " + errors.peek());
+        BigDecimal deposits = BigDecimal.valueOf(TRANSFERS / 2);
+        BigDecimal total = stripedBalanceService.totalBalance(hot.getId()).toBigDecimal()
+                .add(cardRepository.findById(other.getId()).orElseThrow().getBalance().toBigDecimal());
+        assertEquals(0, INITIAL_BALANCE.multiply(BigDecimal.valueOf(2)).add(deposits).compareTo(total));
+
+        stripedBalanceService.disable(hot.getId());
+        Card folded = cardRepository.findById(hot.getId()).orElseThrow();
+        assertFalse(folded.getStriped());
+        assertEquals(0, total.compareTo(folded.getBalance().toBigDecimal().add(cardRepository.findById(other.getId()).orElseThrow().getBalance().toBigDecimal())));
+    }
+}
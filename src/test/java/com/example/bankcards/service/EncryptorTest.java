@@ -0,0 +1,108 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.util.components.Encryptor;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EncryptorTest {
+
+    static final String LEGACY_KEY = "ncmopiu34nrnakj2ofnmisan";
+
+    private final Encryptor encryptor = new Encryptor(LEGACY_KEY, "1:" + key(1), 1);
+
+    static String key(int seed) {
+        byte[] key = new byte[32];
+        Arrays.fill(key, (byte) seed);
+        return Base64.getEncoder().encodeToString(key);
+    }
+
+    @Test
+    void testEncrypt_RandomizedWithVersionPrefix() {
+        String first = encryptor.encrypt("4000123412345678");
+        String second = encryptor.encrypt("4000123412345678");
+
+        assertNotEquals(first, second);
+        assertTrue(first.startsWith("v1:"));
+        assertEquals(1, Encryptor.keyVersion(first));
+        assertTrue(first.length() <= 128);
+        assertEquals("4000123412345678", encryptor.decrypt(first));
+        assertEquals("4000123412345678", encryptor.decrypt(second));
+    }
+
+    @Test
+    void testDecrypt_LegacyEcbNumber() throws Exception {
+        Cipher cipher = Cipher.getInstance("AES");
+        cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(LEGACY_KEY.getBytes(), "AES"));
+        String legacy = Base64.getEncoder().encodeToString(cipher.doFinal("2200123456789012".getBytes()));
+
+        assertEquals(0, Encryptor.keyVersion(legacy));
+        assertEquals("2200123456789012", encryptor.decrypt(legacy));
+    }
+
+    @Test
+    void testDecrypt_OldKeyStillLiveAfterActiveVersionChanged() {
+        String underOldKey = encryptor.encrypt("4000123412345678");
+        Encryptor rotated = new Encryptor(LEGACY_KEY, "1:" + key(1) + ",2:" + key(2), 2);
+
+        assertEquals("4000123412345678", rotated.decrypt(underOldKey));
+        assertTrue(rotated.encrypt("4000123412345678").startsWith("v2:"));
+    }
+
+    @Test
+    void testDecrypt_TamperedOrUnknownVersion_Throws() {
+        String encrypted = encryptor.encrypt("4000123412345678");
+        byte[] payload = Base64.getDecoder().decode(encrypted.substring(3));
+        payload[payload.length - 1] ^= 1;
+
+        assertThrows(RuntimeException.class,
+                () -> encryptor.decrypt("v1:" + Base64.getEncoder().encodeToString(payload)));
+        assertThrows(RuntimeException.class, () -> encryptor.decrypt("v7:" + encrypted.substring(3)));
+    }
+
+    @Test
+    void testConstructor_ActiveVersionWithoutKey_Throws() {
+        assertThrows(IllegalStateException.class, () -> new Encryptor(LEGACY_KEY, "1:" + key(1), 2));
+    }
+
+    @Test
+    void testDecryptAll_KeepsOrder() {
+        List<String> numbers = IntStream.range(0, 50).mapToObj(i -> String.format("40001234%08d", i)).toList();
+
+        List<String> decrypted = encryptor.decryptAll(numbers.stream().map(encryptor::encrypt).toList());
+
+        assertEquals(numbers, decrypted);
+    }
+
+    // у каждого потока свой Cipher, общий экземпляр Encryptor безопасен
+    @Test
+    void testConcurrentUse_EachThreadRoundTrips() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = IntStream.range(0, 8).mapToObj(t -> pool.submit(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    String number = String.format("%08d%08d", t, i);
+                    if (!number.equals(encryptor.decrypt(encryptor.encrypt(number)))) {
+                        return false;
+                    }
+                }
+                return true;
+            })).toList();
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.service.screening.DepositBurstRule;
+import com.example.bankcards.service.screening.FraudScreeningService;
+import com.example.bankcards.service.screening.ScreeningVerdict;
+import com.example.bankcards.service.screening.TransferPingPongRule;
+import com.example.bankcards.util.money.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+// Запуск: mvn test -Dgroups=benchmark -Dsurefire.excludedGroups=
+// Стадия проверки на частом пути (карта и пользователь уже в таблице, вердикт ALLOW):
+// p99 screen + record должен укладываться в 50 мкс, память не выделяется
+@Slf4j
+@Tag("benchmark")
+class FraudScreeningBenchmarkTest {
+
+    private static final int CARDS = 1000;
+    private static final int WARMUP = 200_000;
+    private static final int OPERATIONS = 1_000_000;
+
+    @Test
+    void benchmarkScreening_LatencyAndAllocation() {
+        FraudScreeningService screeningService = new FraudScreeningService(
+                List.of(new DepositBurstRule(), new TransferPingPongRule()),
+                mock(NamedParameterJdbcTemplate.class), new SimpleMeterRegistry(), true, 65536, 32, 60000);
+        UUID[] cards = new UUID[CARDS];
+        for (int i = 0; i < CARDS; i++) {
+            cards[i] = UUID.randomUUID();
+        }
+        UUID userId = UUID.randomUUID();
+        Money amount = Money.of(1500);
+
+        for (int i = 0; i < WARMUP; i++) {
+            operation(screeningService, userId, cards, i, amount);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long[] latencies = new long[OPERATIONS];
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < OPERATIONS; i++) {
+            long started = System.nanoTime();
+            operation(screeningService, userId, cards, i, amount);
+            latencies[i] = System.nanoTime() - started;
+        }
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+
+        Arrays.sort(latencies);
+        long p50 = latencies[OPERATIONS / 2];
+        long p99 = latencies[(int) (OPERATIONS * 0.99)];
+        log.info("Screening: p50={} ns, p99={} ns, allocated {} bytes over {} operations",
+                p50, p99, allocated, OPERATIONS);
+
+        assertTrue(p99 < 50_000, "p99 " + p99 + " ns");
+        // запас на служебные выделения JVM, не зависящие от числа операций
+        assertTrue(allocated < 64 * 1024, "allocated " + allocated + " bytes");
+    }
+
+    private static void operation(FraudScreeningService screeningService, UUID userId, UUID[] cards, int i, Money amount) {
+        UUID card = cards[i % CARDS];
+        if ((i & 1) == 0) {
+            ScreeningVerdict verdict = screeningService.screenDeposit(card, amount);
+            screeningService.recordDeposit(card, amount, verdict);
+        } else {
+            UUID credit = cards[(i * 7 + 1) % CARDS];
+            ScreeningVerdict verdict = screeningService.screenTransfer(userId, card, credit, amount);
+            screeningService.recordTransfer(userId, card, credit, amount, verdict);
+        }
+    }
+}
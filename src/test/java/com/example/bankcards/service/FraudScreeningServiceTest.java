@@ -0,0 +1,123 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.service.screening.DepositBurstRule;
+import com.example.bankcards.service.screening.FraudScreeningService;
+import com.example.bankcards.service.screening.ScreeningVerdict;
+import com.example.bankcards.service.screening.TransferPingPongRule;
+import com.example.bankcards.util.money.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FraudScreeningServiceTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private FraudScreeningService screeningService;
+    private UUID userId;
+    private UUID cardId;
+    private UUID otherCardId;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        screeningService = new FraudScreeningService(List.of(new DepositBurstRule(), new TransferPingPongRule()),
+                jdbcTemplate, new SimpleMeterRegistry(), true, 65536, 32, 60000);
+        userId = UUID.randomUUID();
+        cardId = UUID.randomUUID();
+        otherCardId = UUID.randomUUID();
+    }
+
+    @Test
+    void testDeposit_SmallBurst_FlagsThenBlocks() {
+        Money small = Money.of(5);
+        for (int i = 1; i < 10; i++) {
+            assertEquals(ScreeningVerdict.ALLOW, deposit(small));
+        }
+        // десятое мелкое пополнение за окно
+        assertEquals(ScreeningVerdict.FLAG, deposit(small));
+        verify(jdbcTemplate).update(anyString(), eq(Map.of("ids", List.of(cardId))));
+
+        for (int i = 11; i < 20; i++) {
+            deposit(small);
+        }
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> screeningService.screenDeposit(cardId, small));
+        assertEquals(HttpStatus.FORBIDDEN, HttpStatus.valueOf(ex.getStatusCode().value()));
+        // повторные пометки в пределах reflag-ms в БД не ходят
+        verify(jdbcTemplate, times(1)).update(anyString(), anyMap());
+    }
+
+    @Test
+    void testDeposit_LargeAmounts_NotCounted() {
+        for (int i = 0; i < 30; i++) {
+            assertEquals(ScreeningVerdict.ALLOW, deposit(Money.of(5000)));
+        }
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testTransfer_PingPong_FlagsBothCards() {
+        Money amount = Money.of(100);
+        assertEquals(ScreeningVerdict.ALLOW, transfer(cardId, otherCardId, amount));
+        assertEquals(ScreeningVerdict.ALLOW, transfer(otherCardId, cardId, amount));
+        assertEquals(ScreeningVerdict.ALLOW, transfer(cardId, otherCardId, amount));
+        // третья смена направления
+        assertEquals(ScreeningVerdict.FLAG, transfer(otherCardId, cardId, amount));
+
+        verify(jdbcTemplate).update(anyString(), eq(Map.of("ids", List.of(otherCardId, cardId))));
+    }
+
+    @Test
+    void testTransfer_SameDirectionRepeated_Allowed() {
+        for (int i = 0; i < 30; i++) {
+            assertEquals(ScreeningVerdict.ALLOW, transfer(cardId, otherCardId, Money.of(10)));
+        }
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testTransfer_UnrelatedPairsDoNotCount() {
+        UUID thirdCardId = UUID.randomUUID();
+        for (int i = 0; i < 10; i++) {
+            assertEquals(ScreeningVerdict.ALLOW, transfer(cardId, otherCardId, Money.of(10)));
+            assertEquals(ScreeningVerdict.ALLOW, transfer(thirdCardId, cardId, Money.of(10)));
+        }
+    }
+
+    @Test
+    void testDisabled_AllowsAndRecordsNothing() {
+        screeningService = new FraudScreeningService(List.of(new DepositBurstRule()),
+                jdbcTemplate, new SimpleMeterRegistry(), false, 65536, 32, 60000);
+        for (int i = 0; i < 30; i++) {
+            assertEquals(ScreeningVerdict.ALLOW, deposit(Money.of(1)));
+        }
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private ScreeningVerdict deposit(Money amount) {
+        ScreeningVerdict verdict = screeningService.screenDeposit(cardId, amount);
+        screeningService.recordDeposit(cardId, amount, verdict);
+        return verdict;
+    }
+
+    private ScreeningVerdict transfer(UUID debit, UUID credit, Money amount) {
+        ScreeningVerdict verdict = screeningService.screenTransfer(userId, debit, credit, amount);
+        screeningService.recordTransfer(userId, debit, credit, amount, verdict);
+        return verdict;
+    }
+}
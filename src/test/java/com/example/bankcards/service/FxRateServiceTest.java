@@ -0,0 +1,128 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.service.fx.FxConversion;
+import com.example.bankcards.service.fx.FxRate;
+import com.example.bankcards.service.fx.FxRateService;
+import com.example.bankcards.service.fx.FxRateSnapshot;
+import com.example.bankcards.util.constants.ErrorMessages;
+import com.example.bankcards.util.enums.CardCurrency;
+import com.example.bankcards.util.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class FxRateServiceTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private FxRateService fxRateService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        fxRateService = new FxRateService(jdbcTemplate, transactionManager);
+    }
+
+    @Test
+    void testSnapshotConvert_RoundsHalfEvenToMinorUnits() {
+        FxRateSnapshot snapshot = new FxRateSnapshot(3, Instant.now(), List.of(
+                new FxRate(CardCurrency.RUB, CardCurrency.USD, new BigDecimal("0.01085000"))
+        ));
+
+        FxConversion conversion = snapshot.convert(Money.of(new BigDecimal("150.00")), CardCurrency.RUB, CardCurrency.USD);
+
+        // 150 * 0.01085 = 1.6275 -> 1.63
+        assertEquals(Money.of(new BigDecimal("1.63")), conversion.creditAmount());
+        assertEquals(Money.of(150), conversion.debitAmount());
+        assertEquals(3, conversion.rateVersion());
+        assertNull(snapshot.convert(Money.of(1), CardCurrency.USD, CardCurrency.EUR));
+    }
+
+    @Test
+    void testConvert_NoRate_ThrowsConflict() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> fxRateService.convert(Money.of(10), CardCurrency.RUB, CardCurrency.CNY));
+
+        assertEquals(HttpStatus.CONFLICT, HttpStatus.valueOf(ex.getStatusCode().value()));
+        assertEquals(ErrorMessages.FX_RATE_NOT_FOUND, ex.getReason());
+    }
+
+    @Test
+    void testUpload_AddsInverseRateAndInstallsNewVersion() {
+        when(jdbcTemplate.queryForObject(contains("nextval"), anyMap(), eq(Long.class))).thenReturn(5L);
+
+        FxRateSnapshot snapshot = fxRateService.upload(List.of(
+                new FxRate(CardCurrency.USD, CardCurrency.RUB, new BigDecimal("80"))
+        ));
+
+        assertEquals(5, snapshot.version());
+        assertSame(snapshot, fxRateService.current());
+        assertEquals(new BigDecimal("0.01250000"), snapshot.rate(CardCurrency.RUB, CardCurrency.USD));
+        verify(jdbcTemplate).batchUpdate(contains("insert into fx_rate"), argThat((SqlParameterSource[] batch) -> batch.length == 2));
+    }
+
+    @Test
+    void testUpload_ExplicitInverseRateKept() {
+        when(jdbcTemplate.queryForObject(contains("nextval"), anyMap(), eq(Long.class))).thenReturn(1L);
+
+        FxRateSnapshot snapshot = fxRateService.upload(List.of(
+                new FxRate(CardCurrency.USD, CardCurrency.RUB, new BigDecimal("80")),
+                new FxRate(CardCurrency.RUB, CardCurrency.USD, new BigDecimal("0.0124"))
+        ));
+
+        assertEquals(new BigDecimal("0.0124"), snapshot.rate(CardCurrency.RUB, CardCurrency.USD));
+        assertEquals(2, snapshot.rates().size());
+    }
+
+    @Test
+    void testUpload_SameCurrency_Rejected() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> fxRateService.upload(List.of(
+                new FxRate(CardCurrency.EUR, CardCurrency.EUR, BigDecimal.ONE)
+        )));
+
+        assertEquals(ErrorMessages.FX_RATE_SAME_CURRENCY, ex.getReason());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testUpload_DuplicatePair_Rejected() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> fxRateService.upload(List.of(
+                new FxRate(CardCurrency.USD, CardCurrency.RUB, new BigDecimal("80")),
+                new FxRate(CardCurrency.USD, CardCurrency.RUB, new BigDecimal("81"))
+        )));
+
+        assertEquals(ErrorMessages.FX_RATE_DUPLICATE_PAIR, ex.getReason());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void testRefresh_SameVersion_DoesNotReloadRates() {
+        when(jdbcTemplate.queryForObject(contains("nextval"), anyMap(), eq(Long.class))).thenReturn(2L);
+        fxRateService.upload(List.of(new FxRate(CardCurrency.USD, CardCurrency.RUB, new BigDecimal("80"))));
+        when(jdbcTemplate.queryForObject(contains("max(version)"), anyMap(), eq(Long.class))).thenReturn(2L);
+
+        fxRateService.refresh();
+
+        verify(jdbcTemplate, never()).query(anyString(), anyMap(), any(RowCallbackHandler.class));
+        assertEquals(2, fxRateService.current().version());
+    }
+}
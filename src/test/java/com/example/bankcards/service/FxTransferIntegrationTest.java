@@ -0,0 +1,111 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.AbstractIntegrationTest;
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.service.fx.FxRate;
+import com.example.bankcards.service.fx.FxRateService;
+import com.example.bankcards.service.fx.FxRateSnapshot;
+import com.example.bankcards.service.interfaces.card.CardOwnerService;
+import com.example.bankcards.service.ledger.LedgerService;
+import com.example.bankcards.util.constants.ErrorMessages;
+import com.example.bankcards.util.enums.CardCurrency;
+import com.example.bankcards.util.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FxTransferIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private CardOwnerService cardOwnerService;
+    @Autowired
+    private FxRateService fxRateService;
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private UserModel user;
+
+    @BeforeEach
+    void setUp() {
+        user = seedUser();
+        authenticate(user);
+    }
+
+    @Test
+    void testTransfer_RecordsRateVersionAndBalancedPostings() {
+        Card rub = createCard(user, CardCurrency.RUB, BigDecimal.valueOf(10000));
+        Card usd = createCard(user, CardCurrency.USD, BigDecimal.ZERO);
+        long version = fxRateService.upload(List.of(
+                new FxRate(CardCurrency.USD, CardCurrency.RUB, new BigDecimal("80"))
+        )).version();
+
+        cardOwnerService.transfer(new TransferRequest(rub.getId(), usd.getId(), Money.of(4000)));
+
+        assertEquals(Money.of(6000), cardRepository.findById(rub.getId()).orElseThrow().getBalance());
+        assertEquals(Money.of(50), cardRepository.findById(usd.getId()).orElseThrow().getBalance());
+        Map<String, Object> conversion = jdbcTemplate.queryForMap(
+                "select transaction_id, rate_version, rate from fx_conversion where transaction_id = "
+                        + "(select transaction_id from ledger_entry where account_id = :id)",
+                Map.of("id", usd.getId()));
+        assertEquals(version, ((Number) conversion.get("rate_version")).longValue());
+        assertEquals(0, new BigDecimal("0.0125").compareTo((BigDecimal) conversion.get("rate")));
+        BigDecimal total = jdbcTemplate.queryForObject(
+                "select sum(amount) from ledger_entry where transaction_id = :tx",
+                Map.of("tx", conversion.get("transaction_id")), BigDecimal.class);
+        assertEquals(0, total.signum());
+        BigDecimal fx = jdbcTemplate.queryForObject(
+                "select sum(amount) from ledger_entry where transaction_id = :tx and account_id = :fx",
+                Map.of("tx", conversion.get("transaction_id"), "fx", LedgerService.FX_ACCOUNT), BigDecimal.class);
+        assertEquals(0, new BigDecimal("3950").compareTo(fx));
+    }
+
+    @Test
+    void testTransfer_NewVersionUsedByNextTransfer() {
+        Card eur = createCard(user, CardCurrency.EUR, BigDecimal.valueOf(100));
+        Card cny = createCard(user, CardCurrency.CNY, BigDecimal.ZERO);
+        fxRateService.upload(List.of(new FxRate(CardCurrency.EUR, CardCurrency.CNY, new BigDecimal("7.5"))));
+        cardOwnerService.transfer(new TransferRequest(eur.getId(), cny.getId(), Money.of(10)));
+
+        fxRateService.upload(List.of(new FxRate(CardCurrency.EUR, CardCurrency.CNY, new BigDecimal("8"))));
+        cardOwnerService.transfer(new TransferRequest(eur.getId(), cny.getId(), Money.of(10)));
+
+        assertEquals(Money.of(155), cardRepository.findById(cny.getId()).orElseThrow().getBalance());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testTransfer_NoRatesLoaded_NonRubCardTransfersAndCrossCurrencyConflicts() {
+        Card usd = createCard(user, CardCurrency.USD, BigDecimal.valueOf(100));
+        Card otherUsd = createCard(user, CardCurrency.USD, BigDecimal.ZERO);
+        Card eur = createCard(user, CardCurrency.EUR, BigDecimal.ZERO);
+        // узел только поднялся: ни одной версии курсов ещё не загружено
+        AtomicReference<FxRateSnapshot> snapshot =
+                (AtomicReference<FxRateSnapshot>) ReflectionTestUtils.getField(fxRateService, "snapshot");
+        snapshot.set(FxRateSnapshot.EMPTY);
+        try {
+            cardOwnerService.transfer(new TransferRequest(usd.getId(), otherUsd.getId(), Money.of(10)));
+            assertEquals(Money.of(10), cardRepository.findById(otherUsd.getId()).orElseThrow().getBalance());
+
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> cardOwnerService.transfer(
+                    new TransferRequest(usd.getId(), eur.getId(), Money.of(10))));
+            assertEquals(HttpStatus.CONFLICT, HttpStatus.valueOf(ex.getStatusCode().value()));
+            assertEquals(ErrorMessages.FX_RATE_NOT_FOUND, ex.getReason());
+            assertEquals(Money.of(90), cardRepository.findById(usd.getId()).orElseThrow().getBalance());
+        } finally {
+            fxRateService.refresh();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.service.standing.HashedTimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HashedTimingWheelTest {
+
+    @Test
+    void testAdvance_FiresOnlyDueTasks() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 8, 0);
+        wheel.schedule("a", 250);
+        wheel.schedule("b", 500);
+
+        assertTrue(wheel.advance(200).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(300));
+        assertEquals(List.of("b"), wheel.advance(500));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testAdvance_TaskBeyondOneRevolutionWaitsForItsRound() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(10, 4, 0);
+        // 4 корзины по 10 мс: срок 130 мс лежит в той же корзине, что и 10 мс, но на 3 оборота дальше
+        wheel.schedule("late", 130);
+        wheel.schedule("early", 10);
+
+        assertEquals(List.of("early"), wheel.advance(100));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("late"), wheel.advance(130));
+    }
+
+    @Test
+    void testSchedule_OverdueTaskFiresOnNextTick() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 16, 1000);
+        wheel.advance(1500);
+
+        wheel.schedule("overdue", 200);
+
+        assertTrue(wheel.advance(1550).isEmpty());
+        assertEquals(List.of("overdue"), wheel.advance(1600));
+    }
+
+    @Test
+    void testConstructor_NormalizesSizeToPowerOfTwo() {
+        HashedTimingWheel<Integer> wheel = new HashedTimingWheel<>(1, 5, 0);
+        for (int i = 0; i < 20; i++) {
+            wheel.schedule(i, i);
+        }
+
+        assertEquals(20, wheel.advance(19).size());
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.response.card.CardBalanceResponse;
+import com.example.bankcards.service.idempotency.IdempotencyService;
+import com.example.bankcards.util.money.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private IdempotencyService idempotencyService;
+    private UUID userId;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        idempotencyService = new IdempotencyService(jdbcTemplate, new ObjectMapper(), new SimpleMeterRegistry(), 100, 24);
+        userId = UUID.randomUUID();
+    }
+
+    @Test
+    void testExecute_Replay_ServedFromCacheWithoutAction() {
+        when(jdbcTemplate.update(contains("insert into idempotency_record"), anyMap())).thenReturn(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        CardBalanceResponse first = idempotencyService.execute(userId, "key", "deposit:1", CardBalanceResponse.class,
+                () -> new CardBalanceResponse(Money.of(calls.incrementAndGet())));
+        CardBalanceResponse second = idempotencyService.execute(userId, "key", "deposit:1", CardBalanceResponse.class,
+                () -> new CardBalanceResponse(Money.of(calls.incrementAndGet())));
+
+        assertEquals(1, calls.get());
+        assertEquals(first.getBalance(), second.getBalance());
+        verify(jdbcTemplate, times(1)).update(contains("insert into idempotency_record"), anyMap());
+        verify(jdbcTemplate).update(contains("set response_body"), anyMap());
+    }
+
+    @Test
+    void testExecute_KeyReusedForDifferentRequest_ThrowsException() {
+        when(jdbcTemplate.update(contains("insert into idempotency_record"), anyMap())).thenReturn(1);
+        idempotencyService.execute(userId, "key", "deposit:1", CardBalanceResponse.class,
+                () -> new CardBalanceResponse(Money.of(1)));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> idempotencyService.execute(userId, "key", "deposit:2", CardBalanceResponse.class,
+                        () -> new CardBalanceResponse(Money.of(10))));
+
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, ex.getStatusCode());
+    }
+
+    @Test
+    void testExecute_ClaimedByConcurrentRequest_ThrowsInProgress() throws Exception {
+        AtomicReference<Object> claimedHash = new AtomicReference<>();
+        when(jdbcTemplate.update(contains("insert into idempotency_record"), anyMap())).thenAnswer(invocation -> {
+            claimedHash.set(invocation.<Map<String, Object>>getArgument(1).get("requestHash"));
+            return 0;
+        });
+        // первый запрос захватил ключ, но ответа ещё нет
+        ResultSet row = mock(ResultSet.class);
+        when(row.getString("request_hash")).thenAnswer(invocation -> claimedHash.get());
+        when(row.getTimestamp("created_at")).thenReturn(new Timestamp(System.currentTimeMillis()));
+        when(jdbcTemplate.query(anyString(), anyMap(), any(RowMapper.class)))
+                .thenAnswer(invocation -> List.of(invocation.<RowMapper<?>>getArgument(2).mapRow(row, 0)));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> idempotencyService.execute(userId, "key", "deposit:1", CardBalanceResponse.class,
+                        () -> fail("action must not run")));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+    }
+
+    @Test
+    void testExecute_ActionFails_ReleasesKey() {
+        when(jdbcTemplate.update(contains("insert into idempotency_record"), anyMap())).thenReturn(1);
+
+        assertThrows(ResponseStatusException.class,
+                () -> idempotencyService.execute(userId, "key", "deposit:1", CardBalanceResponse.class, () -> {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT);
+                }));
+
+        verify(jdbcTemplate).update(contains("delete from idempotency_record"), anyMap());
+        verify(jdbcTemplate, never()).update(contains("set response_body"), anyMap());
+    }
+
+    @Test
+    void testExecute_OutcomeUnknown_KeepsKey() {
+        when(jdbcTemplate.update(contains("insert into idempotency_record"), anyMap())).thenReturn(1);
+
+        assertThrows(ResponseStatusException.class,
+                () -> idempotencyService.execute(userId, "key", "deposit:1", CardBalanceResponse.class, () -> {
+                    throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE);
+                }));
+
+        verify(jdbcTemplate, never()).update(contains("delete from idempotency_record"), anyMap());
+    }
+
+    @Test
+    void testExecute_ResponseStoredByOperation_NotWrittenAgain() {
+        when(jdbcTemplate.update(contains("insert into idempotency_record"), anyMap())).thenReturn(1);
+
+        CardBalanceResponse response = idempotencyService.execute(userId, "key", "deposit:1", CardBalanceResponse.class, () -> {
+            CardBalanceResponse applied = new CardBalanceResponse(Money.of(10));
+            idempotencyService.storeResponse(applied);
+            return applied;
+        });
+
+        assertEquals(Money.of(10), response.getBalance());
+        verify(jdbcTemplate, times(1)).update(contains("set response_body"), anyMap());
+        assertNull(idempotencyService.currentClaim());
+    }
+
+    @Test
+    void testExecute_FailsAfterResponseStored_KeepsKey() {
+        when(jdbcTemplate.update(contains("insert into idempotency_record"), anyMap())).thenReturn(1);
+
+        assertThrows(ResponseStatusException.class,
+                () -> idempotencyService.execute(userId, "key", "deposit:1", CardBalanceResponse.class, () -> {
+                    idempotencyService.storeResponse(new CardBalanceResponse(Money.of(10)));
+                    throw new ResponseStatusException(HttpStatus.CONFLICT);
+                }));
+
+        verify(jdbcTemplate, never()).update(contains("delete from idempotency_record"), anyMap());
+    }
+
+    @Test
+    void testPurgeExpired_DeletesInBatchesUntilExhausted() {
+        when(jdbcTemplate.update(contains("ctid"), anyMap())).thenReturn(10, 10, 3);
+
+        int deleted = idempotencyService.purgeExpired(10);
+
+        assertEquals(23, deleted);
+        verify(jdbcTemplate, times(3)).update(contains("ctid"), anyMap());
+    }
+}
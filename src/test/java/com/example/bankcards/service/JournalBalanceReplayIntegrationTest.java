@@ -0,0 +1,127 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.AbstractIntegrationTest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.service.journal.JournalBalanceService;
+import com.example.bankcards.service.ledger.LedgerService;
+import com.example.bankcards.util.constants.ErrorMessages;
+import com.example.bankcards.util.enums.ConcurrencyMode;
+import com.example.bankcards.util.money.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalBalanceReplayIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private LedgerService ledgerService;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testApplierKilled_RecordsReplayedOnRestart() throws Exception {
+        UserModel user = seedUser();
+        Card first = createCard(user, BigDecimal.valueOf(100));
+        Card second = createCard(user, BigDecimal.ZERO);
+
+        // applier засыпает до первой записи и не просыпается до остановки
+        JournalBalanceService crashed = start(3600000, 1000);
+        Thread applier = (Thread) ReflectionTestUtils.getField(crashed, "applier");
+        while (applier.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(5);
+        }
+        crashed.deposit(first.getId(), user.getId(), Money.of(50));
+        crashed.transfer(first.getId(), second.getId(), user.getId(), Money.of(30));
+        applier.interrupt();
+        crashed.stop();
+
+        // подтверждённые операции есть только в журнале
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(balance(first)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(balance(second)));
+
+        JournalBalanceService restarted = start(10, 1000);
+        try {
+            assertEquals(0, BigDecimal.valueOf(120).compareTo(balance(first)));
+            assertEquals(0, BigDecimal.valueOf(30).compareTo(balance(second)));
+            assertEquals(0, BigDecimal.valueOf(120).compareTo(ledgerService.balanceAt(first.getId(), Instant.now())));
+            assertEquals(Money.of(120), restarted.currentBalance(first.getId()).orElseThrow());
+            assertEquals(Money.of(170), restarted.deposit(first.getId(), user.getId(), Money.of(50)));
+        } finally {
+            restarted.stop();
+        }
+    }
+
+    @Test
+    void testHeldChangedInSql_SeenAfterReload() throws Exception {
+        UserModel user = seedUser();
+        Card debit = createCard(user, BigDecimal.valueOf(100));
+        Card credit = createCard(user, BigDecimal.ZERO);
+
+        JournalBalanceService service = start(10, 0);
+        try {
+            service.transfer(debit.getId(), credit.getId(), user.getId(), Money.of(10));
+            // удержание поставлено мимо журнала, как делают удержания и их истечение
+            jdbcTemplate.update("update card set held_balance = 85 where id = :id", Map.of("id", debit.getId()));
+
+            ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                    () -> service.transfer(debit.getId(), credit.getId(), user.getId(), Money.of(10)));
+            assertEquals(ErrorMessages.NOT_ENOUGH_FUNDS, ex.getReason());
+
+            jdbcTemplate.update("update card set held_balance = 0 where id = :id", Map.of("id", debit.getId()));
+            service.transfer(debit.getId(), credit.getId(), user.getId(), Money.of(10));
+            assertEquals(Money.of(80), service.currentBalance(debit.getId()).orElseThrow());
+        } finally {
+            service.stop();
+        }
+    }
+
+    @Test
+    void testSecondNode_RefusesToStartWhileFirstRuns() throws Exception {
+        JournalBalanceService first = start(10, 1000);
+        try {
+            IllegalStateException ex = assertThrows(IllegalStateException.class, () -> start(10, 1000));
+            assertTrue(ex.getMessage().contains("another node"));
+        } finally {
+            first.stop();
+        }
+
+        // после остановки первого узла блокировка свободна
+        start(10, 1000).stop();
+    }
+
+    private JournalBalanceService start(long applyIntervalMs, long cardTtlMs) throws Exception {
+        JournalBalanceService service = new JournalBalanceService(jdbcTemplate, dataSource, transactionManager,
+                new SimpleMeterRegistry(), ledgerService);
+        ReflectionTestUtils.setField(service, "concurrencyMode", ConcurrencyMode.JOURNAL);
+        ReflectionTestUtils.setField(service, "directory", directory.toString());
+        ReflectionTestUtils.setField(service, "applyIntervalMs", applyIntervalMs);
+        ReflectionTestUtils.setField(service, "cardTtlMs", cardTtlMs);
+        service.start();
+        return service;
+    }
+
+    private BigDecimal balance(Card card) {
+        return cardRepository.findById(card.getId()).orElseThrow().getBalance().toBigDecimal();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.AbstractIntegrationTest;
+import com.example.bankcards.dto.request.DepositRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.service.interfaces.card.CardOwnerService;
+import com.example.bankcards.util.enums.ConcurrencyMode;
+import com.example.bankcards.util.money.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Запуск: mvn test -Dgroups=benchmark -Dsurefire.excludedGroups=
+@Slf4j
+@Tag("benchmark")
+@TestPropertySource(properties = {
+        "card.balance.concurrency-mode=JOURNAL",
+        "card.balance.journal.directory=target/benchmark-journal"
+})
+class JournalThroughputBenchmarkTest extends AbstractIntegrationTest {
+
+    private static final int OPERATIONS = 20000;
+    private static final int THREADS = 16;
+
+    @Autowired
+    private CardOwnerService cardOwnerService;
+
+    @Test
+    void benchmarkDeposits_JournalVsJpa() throws Exception {
+        UserModel user = seedUser();
+        Object service = AopTestUtils.getTargetObject(cardOwnerService);
+
+        Card journalCard = createCard(user, BigDecimal.ZERO);
+        double journalOps = runDeposits(user, journalCard.getId());
+
+        ReflectionTestUtils.setField(service, "concurrencyMode", ConcurrencyMode.PESSIMISTIC);
+        Card jpaCard = createCard(user, BigDecimal.ZERO);
+        double jpaOps = runDeposits(user, jpaCard.getId());
+        ReflectionTestUtils.setField(service, "concurrencyMode", ConcurrencyMode.JOURNAL);
+
+        log.info("Deposits/s: JOURNAL={}, PESSIMISTIC (JPA)={}", journalOps, jpaOps);
+
+        // applier должен догнать журнал
+        BigDecimal expected = BigDecimal.valueOf(OPERATIONS);
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        BigDecimal applied;
+        do {
+            Thread.sleep(100);
+            applied = cardRepository.findById(journalCard.getId()).orElseThrow().getBalance().toBigDecimal();
+        } while (applied.compareTo(expected) != 0 && System.currentTimeMillis() < deadline);
+        assertEquals(0, expected.compareTo(applied));
+    }
+
+    private double runDeposits(UserModel user, UUID cardId) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            executor.submit(() -> {
+                authenticate(user);
+                try {
+                    cardOwnerService.deposit(cardId, new DepositRequest(Money.of(1)));
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.MINUTES));
+        return OPERATIONS / ((System.nanoTime() - start) / 1e9);
+    }
+}
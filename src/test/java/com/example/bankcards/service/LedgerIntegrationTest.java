@@ -0,0 +1,112 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.AbstractIntegrationTest;
+import com.example.bankcards.dto.request.DepositRequest;
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.service.interfaces.card.CardOwnerService;
+import com.example.bankcards.service.ledger.LedgerService;
+import com.example.bankcards.util.money.Money;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LedgerIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private CardOwnerService cardOwnerService;
+    @Autowired
+    private LedgerService ledgerService;
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    void testOperations_LedgerBalancedAndMatchesProjection() throws Exception {
+        UserModel user = seedUser();
+        authenticate(user);
+        Card first = createCard(user, BigDecimal.ZERO);
+        Card second = createCard(user, BigDecimal.ZERO);
+
+        cardOwnerService.deposit(first.getId(), new DepositRequest(Money.of(500)));
+        Instant afterDeposit = Instant.now();
+        Thread.sleep(10);
+        ledgerService.takeSnapshots();
+        cardOwnerService.transfer(new TransferRequest(first.getId(), second.getId(), Money.of(120)));
+        cardOwnerService.transfer(new TransferRequest(second.getId(), first.getId(), Money.of(20)));
+
+        // каждая операция сбалансирована
+        Integer unbalanced = jdbcTemplate.queryForObject("""
+                select count(*) from (
+                    select transaction_id from ledger_entry group by transaction_id having sum(amount) <> 0
+                ) t
+                """, Map.of(), Integer.class);
+        assertEquals(0, unbalanced);
+
+        // проекция совпадает с суммой проводок, в том числе через снимок
+        ledgerService.takeSnapshots();
+        Instant now = Instant.now();
+        assertEquals(0, cardRepository.findById(first.getId()).orElseThrow().getBalance().toBigDecimal()
+                .compareTo(ledgerService.balanceAt(first.getId(), now)));
+        assertEquals(0, cardRepository.findById(second.getId()).orElseThrow().getBalance().toBigDecimal()
+                .compareTo(ledgerService.balanceAt(second.getId(), now)));
+        assertEquals(0, BigDecimal.valueOf(500).compareTo(ledgerService.balanceAt(first.getId(), afterDeposit)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(ledgerService.balanceAt(second.getId(), afterDeposit)));
+    }
+
+    @Test
+    void testSnapshot_EntryCommittedAfterHigherId_NotSkipped() throws Exception {
+        UUID account = UUID.randomUUID();
+        UUID counter = UUID.randomUUID();
+        try (Connection late = dataSource.getConnection()) {
+            late.setAutoCommit(false);
+            // проводка получает меньший id, но коммитится после проводки с большим id
+            insertEntry(late, account, counter, BigDecimal.TEN);
+            try (Connection early = dataSource.getConnection()) {
+                insertEntry(early, account, counter, BigDecimal.valueOf(20));
+            }
+            ledgerService.takeSnapshots();
+            late.commit();
+        }
+        ledgerService.takeSnapshots();
+
+        assertEquals(0, BigDecimal.valueOf(30).compareTo(ledgerService.balanceAt(account, Instant.now())));
+        BigDecimal snapshotted = jdbcTemplate.queryForObject(
+                "select coalesce(max(balance), 0) from ledger_balance_snapshot where account_id = :id",
+                Map.of("id", account), BigDecimal.class);
+        // снимок либо ещё не взят, либо содержит обе проводки
+        assertTrue(snapshotted.signum() == 0 || snapshotted.compareTo(BigDecimal.valueOf(30)) == 0);
+    }
+
+    // сбалансированная пара проводок между двумя счетами вне карт
+    private static void insertEntry(Connection connection, UUID account, UUID counter, BigDecimal amount) throws Exception {
+        UUID transactionId = UUID.randomUUID();
+        Timestamp createdAt = Timestamp.from(Instant.now());
+        try (PreparedStatement statement = connection.prepareStatement(
+                "insert into ledger_entry (transaction_id, account_id, amount, operation, created_at) values (?, ?, ?, 'DEPOSIT', ?), (?, ?, ?, 'DEPOSIT', ?)")) {
+            statement.setObject(1, transactionId);
+            statement.setObject(2, account);
+            statement.setBigDecimal(3, amount);
+            statement.setTimestamp(4, createdAt);
+            statement.setObject(5, transactionId);
+            statement.setObject(6, counter);
+            statement.setBigDecimal(7, amount.negate());
+            statement.setTimestamp(8, createdAt);
+            statement.executeUpdate();
+        }
+    }
+}
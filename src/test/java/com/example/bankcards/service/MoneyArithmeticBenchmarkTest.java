@@ -0,0 +1,243 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.request.DepositRequest;
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.dto.response.card.CardBalanceResponse;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.security.CustomUserDetail;
+import com.example.bankcards.service.concurrency.CardTransactionExecutor;
+import com.example.bankcards.service.engine.BalanceEngine;
+import com.example.bankcards.service.fx.FxRateService;
+import com.example.bankcards.service.history.CardTransactionService;
+import com.example.bankcards.service.hold.CardHoldService;
+import com.example.bankcards.service.idempotency.IdempotencyService;
+import com.example.bankcards.service.implementation.CardOwnerServiceImpl;
+import com.example.bankcards.service.journal.JournalBalanceService;
+import com.example.bankcards.service.ledger.LedgerService;
+import com.example.bankcards.service.limits.SpendingLimitService;
+import com.example.bankcards.service.screening.FraudScreeningService;
+import com.example.bankcards.service.screening.ScreeningVerdict;
+import com.example.bankcards.service.striping.StripedBalanceService;
+import com.example.bankcards.service.sweep.SweepRuleIndex;
+import com.example.bankcards.util.components.CardNumberUtil;
+import com.example.bankcards.util.enums.CardStatus;
+import com.example.bankcards.util.mappers.CardMapper;
+import com.example.bankcards.util.money.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+// Запуск: mvn test -Dgroups=benchmark -Dsurefire.excludedGroups=
+// Арифметика баланса на частом пути: пополнение (сложение) и перевод (проверка доступного остатка,
+// списание, зачисление) на BigDecimal и на Money в копейках. Баланс и суммы с двумя знаками, как в card.
+// depositService/transferService гоняют настоящие deposit/transfer из CardOwnerServiceImpl в режиме PESSIMISTIC,
+// репозиторий и остальные зависимости заменены заглушками, так что меряется только логика сервиса
+@Slf4j
+@Tag("benchmark")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoneyArithmeticBenchmarkTest {
+
+    private static final int CARDS = 1024;
+
+    @State(Scope.Thread)
+    public static class Balances {
+        BigDecimal[] decimalBalances = new BigDecimal[CARDS];
+        BigDecimal[] decimalHeld = new BigDecimal[CARDS];
+        BigDecimal[] decimalAmounts = new BigDecimal[CARDS];
+        Money[] moneyBalances = new Money[CARDS];
+        Money[] moneyHeld = new Money[CARDS];
+        Money[] moneyAmounts = new Money[CARDS];
+        int next;
+
+        @Setup
+        public void setUp() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < CARDS; i++) {
+                long balance = random.nextLong(1_000_000, 100_000_000);
+                long held = random.nextLong(0, 100_000);
+                long amount = random.nextLong(100, 100_000);
+                decimalBalances[i] = BigDecimal.valueOf(balance, 2);
+                decimalHeld[i] = BigDecimal.valueOf(held, 2);
+                decimalAmounts[i] = BigDecimal.valueOf(amount, 2);
+                moneyBalances[i] = Money.ofMinor(balance);
+                moneyHeld[i] = Money.ofMinor(held);
+                moneyAmounts[i] = Money.ofMinor(amount);
+            }
+        }
+
+        int nextIndex() {
+            next = (next + 1) & (CARDS - 1);
+            return next;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Service {
+        CardOwnerServiceImpl service;
+        UUID debitId;
+        DepositRequest deposit = new DepositRequest(Money.ofMinor(12345));
+        TransferRequest forward;
+        TransferRequest backward;
+        boolean flip;
+
+        @Setup
+        public void setUp() {
+            UserModel user = UserModel.builder().id(UUID.randomUUID()).username("benchmark").build();
+            Card debit = Card.builder().id(UUID.randomUUID()).owner(user).status(CardStatus.ACTIVE)
+                    .balance(Money.ofMinor(1L << 50)).build();
+            Card credit = Card.builder().id(UUID.randomUUID()).owner(user).status(CardStatus.ACTIVE)
+                    .balance(Money.ofMinor(1L << 50)).build();
+            debitId = debit.getId();
+            forward = new TransferRequest(debit.getId(), credit.getId(), Money.ofMinor(12345));
+            backward = new TransferRequest(credit.getId(), debit.getId(), Money.ofMinor(12345));
+
+            CardRepository cardRepository = stub(CardRepository.class);
+            when(cardRepository.findCardWithLock(debit.getId(), user, false)).thenReturn(Optional.of(debit));
+            when(cardRepository.findCardsWithLock(List.of(debit.getId(), credit.getId()), user, false))
+                    .thenReturn(List.of(debit, credit));
+            when(cardRepository.findCardsWithLock(List.of(credit.getId(), debit.getId()), user, false))
+                    .thenReturn(List.of(credit, debit));
+            CardTransactionExecutor transactionExecutor = stub(CardTransactionExecutor.class);
+            when(transactionExecutor.execute(any(), anyString(), any()))
+                    .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(2).get());
+            FraudScreeningService fraudScreeningService = stub(FraudScreeningService.class);
+            when(fraudScreeningService.screenDeposit(any(), any())).thenReturn(ScreeningVerdict.ALLOW);
+            when(fraudScreeningService.screenTransfer(any(), any(), any(), any())).thenReturn(ScreeningVerdict.ALLOW);
+
+            service = new CardOwnerServiceImpl(cardRepository, stub(CardMapper.class), stub(CardNumberUtil.class),
+                    transactionExecutor, stub(BalanceEngine.class), stub(JournalBalanceService.class),
+                    stub(StripedBalanceService.class), stub(IdempotencyService.class), stub(LedgerService.class),
+                    stub(CardTransactionService.class), stub(CardHoldService.class), stub(SweepRuleIndex.class),
+                    stub(SpendingLimitService.class), fraudScreeningService, stub(FxRateService.class));
+            SecurityContextHolder.getContext().setAuthentication(
+                    new UsernamePasswordAuthenticationToken(new CustomUserDetail(user), null, List.of())
+            );
+        }
+
+        @TearDown
+        public void tearDown() {
+            SecurityContextHolder.clearContext();
+        }
+
+        // заглушки не запоминают вызовы, иначе за замер копится история мока
+        private static <T> T stub(Class<T> type) {
+            return mock(type, withSettings().stubOnly());
+        }
+    }
+
+    @Benchmark
+    public BigDecimal depositBigDecimal(Balances state) {
+        int i = state.nextIndex();
+        BigDecimal balance = state.decimalBalances[i].add(state.decimalAmounts[i]);
+        state.decimalBalances[i] = balance;
+        return balance;
+    }
+
+    @Benchmark
+    public Money depositMoney(Balances state) {
+        int i = state.nextIndex();
+        Money balance = state.moneyBalances[i].plus(state.moneyAmounts[i]);
+        state.moneyBalances[i] = balance;
+        return balance;
+    }
+
+    // списанное возвращается зачислением на соседнюю карту, поэтому балансы не уходят в минус
+    @Benchmark
+    public boolean transferBigDecimal(Balances state) {
+        int debit = state.nextIndex();
+        int credit = (debit + 1) & (CARDS - 1);
+        BigDecimal amount = state.decimalAmounts[debit];
+        if (state.decimalBalances[debit].subtract(state.decimalHeld[debit]).compareTo(amount) < 0) {
+            return false;
+        }
+        state.decimalBalances[debit] = state.decimalBalances[debit].subtract(amount);
+        state.decimalBalances[credit] = state.decimalBalances[credit].add(amount);
+        return true;
+    }
+
+    @Benchmark
+    public boolean transferMoney(Balances state) {
+        int debit = state.nextIndex();
+        int credit = (debit + 1) & (CARDS - 1);
+        Money amount = state.moneyAmounts[debit];
+        if (state.moneyBalances[debit].minus(state.moneyHeld[debit]).isLessThan(amount)) {
+            return false;
+        }
+        state.moneyBalances[debit] = state.moneyBalances[debit].minus(amount);
+        state.moneyBalances[credit] = state.moneyBalances[credit].plus(amount);
+        return true;
+    }
+
+    @Benchmark
+    public CardBalanceResponse depositService(Service state) {
+        return state.service.deposit(state.debitId, state.deposit);
+    }
+
+    // направление чередуется, чтобы балансы обеих карт оставались на месте
+    @Benchmark
+    public void transferService(Service state) {
+        state.flip = !state.flip;
+        state.service.transfer(state.flip ? state.forward : state.backward);
+    }
+
+    @Test
+    void benchmarkMoneyArithmetic_LongVsBigDecimal() throws RunnerException {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(MoneyArithmeticBenchmarkTest.class.getName() + "\\.")
+                .build()).run();
+
+        Map<String, Double> scores = new HashMap<>();
+        for (RunResult result : results) {
+            String benchmark = result.getParams().getBenchmark();
+            scores.put(benchmark.substring(benchmark.lastIndexOf('.') + 1), result.getPrimaryResult().getScore());
+        }
+        log.info("Deposit, ns/op: BigDecimal={}, Money={}, service={}",
+                scores.get("depositBigDecimal"), scores.get("depositMoney"), scores.get("depositService"));
+        log.info("Transfer, ns/op: BigDecimal={}, Money={}, service={}",
+                scores.get("transferBigDecimal"), scores.get("transferMoney"), scores.get("transferService"));
+
+        assertTrue(scores.get("depositMoney") < scores.get("depositBigDecimal"));
+        assertTrue(scores.get("transferMoney") < scores.get("transferBigDecimal"));
+    }
+}
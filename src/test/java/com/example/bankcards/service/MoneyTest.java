@@ -0,0 +1,57 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.request.DepositRequest;
+import com.example.bankcards.util.money.Money;
+import com.example.bankcards.util.money.MoneyConverter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testOf_KeepsMinorUnitsExactly() {
+        assertEquals(12345, Money.of(new BigDecimal("123.45")).minorUnits());
+        assertEquals(Money.of(100), Money.of(new BigDecimal("100.000")));
+        assertEquals(new BigDecimal("0.30"), Money.ofMinor(10).plus(Money.ofMinor(20)).toBigDecimal());
+    }
+
+    @Test
+    void testOf_MoreThanTwoDecimals_Throws() {
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1.005")));
+    }
+
+    @Test
+    void testPlus_Overflow_Throws() {
+        assertThrows(ArithmeticException.class, () -> Money.ofMinor(Long.MAX_VALUE).plus(Money.ofMinor(1)));
+    }
+
+    @Test
+    void testConverter_RoundTripsNumericScaleTwo() {
+        MoneyConverter converter = new MoneyConverter();
+
+        BigDecimal column = converter.convertToDatabaseColumn(Money.ofMinor(-1050));
+
+        assertEquals(new BigDecimal("-10.50"), column);
+        assertEquals(Money.ofMinor(-1050), converter.convertToEntityAttribute(column));
+    }
+
+    @Test
+    void testJson_NumberAndStringAccepted_WrittenAsNumber() throws Exception {
+        assertEquals(Money.ofMinor(50025), objectMapper.readValue("{\"amount\":500.25}", DepositRequest.class).getAmount());
+        assertEquals(Money.ofMinor(50025), objectMapper.readValue("{\"amount\":\"500.25\"}", DepositRequest.class).getAmount());
+        assertEquals("{\"amount\":500.25}", objectMapper.writeValueAsString(new DepositRequest(Money.ofMinor(50025))));
+    }
+
+    @Test
+    void testJson_MoreThanTwoDecimals_Rejected() {
+        assertThrows(InvalidFormatException.class,
+                () -> objectMapper.readValue("{\"amount\":1.001}", DepositRequest.class));
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.AbstractIntegrationTest;
+import com.example.bankcards.dto.request.DepositRequest;
+import com.example.bankcards.dto.request.PlaceHoldRequest;
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.service.interfaces.card.CardOwnerService;
+import com.example.bankcards.service.reconciliation.ReconciliationResult;
+import com.example.bankcards.service.reconciliation.ReconciliationService;
+import com.example.bankcards.util.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = "card.reconciliation.ranges=8")
+class ReconciliationIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private CardOwnerService cardOwnerService;
+    @Autowired
+    private ReconciliationService reconciliationService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UserModel user;
+
+    @BeforeEach
+    void setUp() {
+        user = seedUser();
+        authenticate(user);
+    }
+
+    @Test
+    void testRun_ConsistentBalances_NoDiscrepancies_CorruptedCardReported() {
+        Card first = createCard(user, BigDecimal.ZERO);
+        Card second = createCard(user, BigDecimal.ZERO);
+        cardOwnerService.deposit(first.getId(), new DepositRequest(Money.of(1000)));
+        cardOwnerService.transfer(new TransferRequest(first.getId(), second.getId(), Money.of(250)));
+        cardOwnerService.placeHold(second.getId(), new PlaceHoldRequest(Money.of(50), null));
+
+        ReconciliationResult clean = reconciliationService.run(LocalDate.of(2026, 1, 1));
+
+        // база общая с другими тестами, поэтому проверяются только свои карты и сдвиг итога по деньгам
+        assertTrue(clean.completed());
+        assertTrue(cardDiscrepancies(clean.runId(), first, second).isEmpty());
+        assertEquals(cardRepository.count(), clean.cardsChecked());
+        BigDecimal gapBefore = conservationGap(clean.runId());
+
+        // баланс изменён мимо журнала проводок
+        jdbcTemplate.update("update card set balance = balance + 5 where id = ?", second.getId());
+        ReconciliationResult broken = reconciliationService.run(LocalDate.of(2026, 1, 2));
+
+        List<Map<String, Object>> report = cardDiscrepancies(broken.runId(), first, second);
+        assertEquals(1, report.size());
+        assertEquals("BALANCE_MISMATCH", report.get(0).get("type"));
+        assertEquals(second.getId(), report.get(0).get("card_id"));
+        assertEquals(0, BigDecimal.valueOf(250).compareTo((BigDecimal) report.get(0).get("expected")));
+        assertEquals(0, BigDecimal.valueOf(255).compareTo((BigDecimal) report.get(0).get("actual")));
+        assertEquals(0, gapBefore.add(BigDecimal.valueOf(5)).compareTo(conservationGap(broken.runId())));
+    }
+
+    @Test
+    void testRun_SameBusinessDateTwice_SecondSkipped() {
+        LocalDate date = LocalDate.of(2026, 2, 1);
+
+        assertNotNull(reconciliationService.run(date));
+        assertNull(reconciliationService.run(date));
+        assertEquals("COMPLETED", jdbcTemplate.queryForObject(
+                "select status from reconciliation_run where business_date = ?", String.class, date));
+    }
+
+    @Test
+    void testRun_FailedOrAbandonedRun_ReclaimedWithSameId() {
+        LocalDate failed = LocalDate.of(2026, 3, 1);
+        UUID failedId = reconciliationService.run(failed).runId();
+        jdbcTemplate.update("update reconciliation_run set status = 'FAILED' where id = ?", failedId);
+        jdbcTemplate.update("insert into reconciliation_discrepancy (run_id, type, expected, actual, detected_at) "
+                + "values (?, 'LEDGER_UNBALANCED', 0, 1, now())", failedId);
+
+        ReconciliationResult retried = reconciliationService.run(failed);
+
+        assertEquals(failedId, retried.runId());
+        assertTrue(retried.completed());
+        // отчёт прошлой попытки не смешивается с новым
+        assertEquals(retried.discrepancies(), jdbcTemplate.queryForObject(
+                "select count(*) from reconciliation_discrepancy where run_id = ?", Integer.class, failedId));
+
+        // узел умер посреди запуска: пока аренда жива, дату никто не трогает, после истечения она забирается
+        LocalDate abandoned = LocalDate.of(2026, 3, 2);
+        jdbcTemplate.update("insert into reconciliation_run (id, business_date, status, ranges, started_at, claimed_by, claimed_until) "
+                + "values (?, ?, 'RUNNING', 8, now(), ?, now() + interval '1 hour')", UUID.randomUUID(), abandoned, UUID.randomUUID());
+        assertNull(reconciliationService.run(abandoned));
+        assertFalse(reconciliationService.unfinishedDates().contains(abandoned));
+
+        jdbcTemplate.update("update reconciliation_run set claimed_until = now() - interval '1 minute' where business_date = ?", abandoned);
+        assertTrue(reconciliationService.unfinishedDates().contains(abandoned));
+        assertTrue(reconciliationService.run(abandoned).completed());
+        assertEquals("COMPLETED", jdbcTemplate.queryForObject(
+                "select status from reconciliation_run where business_date = ?", String.class, abandoned));
+    }
+
+    @Test
+    void testPartition_CoversWholeIdSpaceInOrder() {
+        List<ReconciliationService.IdRange> ranges = ReconciliationService.partition(4);
+
+        assertEquals(4, ranges.size());
+        assertEquals(new UUID(0, 0), ranges.get(0).from());
+        assertEquals(UUID.fromString("40000000-0000-0000-0000-000000000000"), ranges.get(1).from());
+        assertEquals(UUID.fromString("c0000000-0000-0000-0000-000000000000"), ranges.get(3).from());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(ranges.get(i + 1).from(), ranges.get(i).to());
+        }
+        assertNull(ranges.get(3).to());
+    }
+
+    private List<Map<String, Object>> cardDiscrepancies(UUID runId, Card first, Card second) {
+        return jdbcTemplate.queryForList(
+                "select card_id, type, expected, actual from reconciliation_discrepancy where run_id = ? and card_id in (?, ?) order by type",
+                runId, first.getId(), second.getId());
+    }
+
+    private BigDecimal conservationGap(UUID runId) {
+        return jdbcTemplate.queryForObject(
+                "select coalesce(sum(actual - expected), 0) from reconciliation_discrepancy where run_id = ? and type = 'MONEY_NOT_CONSERVED'",
+                BigDecimal.class, runId);
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.AbstractIntegrationTest;
+import com.example.bankcards.dto.request.BatchTransferRequest;
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.dto.response.card.BatchTransferResponse;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.service.fx.FxRate;
+import com.example.bankcards.service.fx.FxRateService;
+import com.example.bankcards.service.interfaces.card.CardOwnerService;
+import com.example.bankcards.service.limits.SpendingLimitService;
+import com.example.bankcards.service.limits.SpendingUsage;
+import com.example.bankcards.util.constants.ErrorMessages;
+import com.example.bankcards.util.enums.BatchTransferMode;
+import com.example.bankcards.util.enums.CardCurrency;
+import com.example.bankcards.util.money.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpendingLimitIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private CardOwnerService cardOwnerService;
+    @Autowired
+    private SpendingLimitService spendingLimitService;
+    @Autowired
+    private FxRateService fxRateService;
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private UserModel user;
+
+    @BeforeEach
+    void setUp() {
+        user = seedUser();
+        authenticate(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        spendingLimitService.setLimits(user.getId(), null, null);
+    }
+
+    @Test
+    void testCardDailyLimit_RejectsTransferOverLimit() {
+        Card card = createCard(user, BigDecimal.valueOf(1000));
+        Card other = createCard(user, BigDecimal.ZERO);
+        spendingLimitService.setLimits(card.getId(), BigDecimal.valueOf(500), null);
+
+        cardOwnerService.transfer(new TransferRequest(card.getId(), other.getId(), Money.of(300)));
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> cardOwnerService.transfer(
+                new TransferRequest(card.getId(), other.getId(), Money.of(300))));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        assertEquals(ErrorMessages.DAILY_LIMIT_EXCEEDED, ex.getReason());
+        assertEquals(0, BigDecimal.valueOf(700).compareTo(cardRepository.findById(card.getId()).orElseThrow().getBalance().toBigDecimal()));
+        // отклонённое списание не остаётся в счётчике
+        assertEquals(0, BigDecimal.valueOf(300).compareTo(spendingLimitService.usage(card.getId()).dailyUsed()));
+    }
+
+    @Test
+    void testAtomicBatchRejected_LimitUsageRolledBack() {
+        Card card = createCard(user, BigDecimal.valueOf(1000));
+        Card other = createCard(user, BigDecimal.ZERO);
+        spendingLimitService.setLimits(card.getId(), BigDecimal.valueOf(5000), null);
+
+        BatchTransferResponse response = cardOwnerService.transferBatch(new BatchTransferRequest(
+                BatchTransferMode.ATOMIC, List.of(
+                        new TransferRequest(card.getId(), other.getId(), Money.of(300)),
+                        new TransferRequest(card.getId(), other.getId(), Money.of(800))
+                )));
+
+        assertEquals(0, response.getAppliedCount());
+        assertEquals(0, BigDecimal.ZERO.compareTo(spendingLimitService.usage(card.getId()).dailyUsed()));
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(
+                cardRepository.findById(card.getId()).orElseThrow().getBalance().toBigDecimal()));
+    }
+
+    @Test
+    void testUserLimit_SharedAcrossCardsAndNodes() {
+        Card first = createCard(user, BigDecimal.valueOf(1000));
+        Card second = createCard(user, BigDecimal.valueOf(1000));
+        Card target = createCard(user, BigDecimal.ZERO);
+        BigDecimal alreadySpent = spendingLimitService.usage(user.getId()).monthlyUsed();
+        spendingLimitService.setLimits(user.getId(), null, alreadySpent.add(BigDecimal.valueOf(500)));
+
+        cardOwnerService.transfer(new TransferRequest(first.getId(), target.getId(), Money.of(400)));
+
+        // второй узел со своим пустым кэшем видит то же использование
+        SpendingLimitService otherNode = new SpendingLimitService(jdbcTemplate, fxRateService, 100, CardCurrency.RUB, 60000);
+        SpendingUsage usage = otherNode.usage(user.getId());
+        assertEquals(0, alreadySpent.add(BigDecimal.valueOf(400)).compareTo(usage.monthlyUsed()));
+        assertFalse(otherNode.tryReserve(user.getId(), second.getId(), Money.of(200)).accepted());
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> cardOwnerService.transfer(
+                new TransferRequest(second.getId(), target.getId(), Money.of(200))));
+        assertEquals(ErrorMessages.MONTHLY_LIMIT_EXCEEDED, ex.getReason());
+    }
+
+    @Test
+    void testUserLimit_ForeignCurrencyDebitsCountedInLimitCurrency() {
+        Card usd = createCard(user, CardCurrency.USD, BigDecimal.valueOf(100));
+        Card target = createCard(user, CardCurrency.USD, BigDecimal.ZERO);
+        fxRateService.upload(List.of(new FxRate(CardCurrency.USD, CardCurrency.RUB, new BigDecimal("80"))));
+        BigDecimal alreadySpent = spendingLimitService.usage(user.getId()).monthlyUsed();
+        spendingLimitService.setLimits(user.getId(), null, alreadySpent.add(BigDecimal.valueOf(1000)));
+
+        cardOwnerService.transfer(new TransferRequest(usd.getId(), target.getId(), Money.of(10)));
+
+        assertEquals(0, alreadySpent.add(BigDecimal.valueOf(800)).compareTo(spendingLimitService.usage(user.getId()).monthlyUsed()));
+        // лимит карты по-прежнему в валюте карты
+        assertEquals(0, BigDecimal.TEN.compareTo(spendingLimitService.usage(usd.getId()).monthlyUsed()));
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> cardOwnerService.transfer(
+                new TransferRequest(usd.getId(), target.getId(), Money.of(3))));
+        assertEquals(ErrorMessages.MONTHLY_LIMIT_EXCEEDED, ex.getReason());
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.AbstractIntegrationTest;
+import com.example.bankcards.dto.request.CreateStandingOrderRequest;
+import com.example.bankcards.dto.response.card.StandingOrderResponse;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.service.interfaces.card.StandingOrderService;
+import com.example.bankcards.service.standing.StandingOrderDispatcher;
+import com.example.bankcards.util.constants.ErrorMessages;
+import com.example.bankcards.util.enums.StandingOrderPeriod;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StandingOrderIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private StandingOrderService standingOrderService;
+    @Autowired
+    private StandingOrderDispatcher dispatcher;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UserModel user;
+
+    @BeforeEach
+    void setUp() {
+        user = seedUser();
+        authenticate(user);
+    }
+
+    @Test
+    void testDueOrder_ExecutesOnceAndMovesToNextPeriod() throws InterruptedException {
+        Card debit = createCard(user, BigDecimal.valueOf(1000));
+        Card credit = createCard(user, BigDecimal.ZERO);
+        StandingOrderResponse order = createDueOrder(debit, credit, BigDecimal.valueOf(100));
+
+        dispatcher.claimDue();
+        // повторный опрос до исполнения не должен положить заказ в колесо второй раз
+        dispatcher.claimDue();
+        Map<String, Object> execution = awaitExecution(order.getId());
+
+        assertEquals("APPLIED", execution.get("status"));
+        assertEquals(0, BigDecimal.valueOf(900).compareTo(balance(debit)));
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(balance(credit)));
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "select run_count, next_run_at > now() as in_future, claimed_until from standing_order where id = ?",
+                order.getId());
+        assertEquals(1L, row.get("run_count"));
+        assertEquals(true, row.get("in_future"));
+        assertNull(row.get("claimed_until"));
+
+        assertEquals(0, dispatcher.claimDue());
+        assertEquals(1, executions(order.getId()));
+    }
+
+    @Test
+    void testDueOrder_NotEnoughFunds_RecordsRejection() throws InterruptedException {
+        Card debit = createCard(user, BigDecimal.TEN);
+        Card credit = createCard(user, BigDecimal.ZERO);
+        StandingOrderResponse order = createDueOrder(debit, credit, BigDecimal.valueOf(100));
+
+        dispatcher.claimDue();
+        Map<String, Object> execution = awaitExecution(order.getId());
+
+        assertEquals("REJECTED", execution.get("status"));
+        assertEquals(ErrorMessages.NOT_ENOUGH_FUNDS, execution.get("error"));
+        assertEquals(0, BigDecimal.TEN.compareTo(balance(debit)));
+        assertEquals(1L, jdbcTemplate.queryForObject(
+                "select run_count from standing_order where id = ?", Long.class, order.getId()));
+    }
+
+    @Test
+    void testCancelledOrder_IsNotClaimed() {
+        Card debit = createCard(user, BigDecimal.valueOf(1000));
+        Card credit = createCard(user, BigDecimal.ZERO);
+        StandingOrderResponse order = createDueOrder(debit, credit, BigDecimal.valueOf(100));
+
+        standingOrderService.cancel(order.getId());
+
+        assertEquals(0, dispatcher.claimDue());
+        assertEquals(0, executions(order.getId()));
+    }
+
+    private StandingOrderResponse createDueOrder(Card debit, Card credit, BigDecimal amount) {
+        StandingOrderResponse order = standingOrderService.create(new CreateStandingOrderRequest(
+                debit.getId(), credit.getId(), amount, StandingOrderPeriod.DAILY, OffsetDateTime.now().plusDays(1)));
+        // срок первого запуска переносится в прошлое, чтобы заказ был к исполнению уже сейчас
+        jdbcTemplate.update("update standing_order set start_at = now() - interval '1 second',"
+                + " next_run_at = now() - interval '1 second' where id = ?", order.getId());
+        return order;
+    }
+
+    private Map<String, Object> awaitExecution(UUID orderId) throws InterruptedException {
+        for (int i = 0; i < 100 && executions(orderId) == 0; i++) {
+            Thread.sleep(50);
+        }
+        return jdbcTemplate.queryForMap("select status, error from standing_order_execution where order_id = ?", orderId);
+    }
+
+    private int executions(UUID orderId) {
+        return jdbcTemplate.queryForObject(
+                "select count(*) from standing_order_execution where order_id = ?", Integer.class, orderId);
+    }
+
+    private BigDecimal balance(Card card) {
+        return cardRepository.findById(card.getId()).orElseThrow().getBalance().toBigDecimal();
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.request.CreateStandingOrderRequest;
+import com.example.bankcards.dto.response.card.StandingOrderExecutionResponse;
+import com.example.bankcards.dto.response.card.StandingOrderResponse;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.StandingOrder;
+import com.example.bankcards.entity.StandingOrderExecution;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.StandingOrderExecutionRepository;
+import com.example.bankcards.repository.StandingOrderRepository;
+import com.example.bankcards.security.CustomUserDetail;
+import com.example.bankcards.service.implementation.StandingOrderServiceImpl;
+import com.example.bankcards.util.constants.ErrorMessages;
+import com.example.bankcards.util.enums.StandingOrderPeriod;
+import com.example.bankcards.util.mappers.StandingOrderMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class StandingOrderServiceImplTest {
+
+    @Mock
+    private StandingOrderRepository standingOrderRepository;
+    @Mock
+    private StandingOrderExecutionRepository executionRepository;
+    @Mock
+    private CardRepository cardRepository;
+    @Mock
+    private StandingOrderMapper standingOrderMapper;
+
+    @InjectMocks
+    private StandingOrderServiceImpl standingOrderService;
+
+    private UserModel currentUser;
+    private UUID debitCardId;
+    private UUID creditCardId;
+    private OffsetDateTime startAt;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        currentUser = UserModel.builder()
+                .id(UUID.randomUUID())
+                .username("user")
+                .isDeleted(false)
+                .build();
+        debitCardId = UUID.randomUUID();
+        creditCardId = UUID.randomUUID();
+        startAt = OffsetDateTime.now().plusDays(1);
+
+        Authentication auth = mock(Authentication.class);
+        when(auth.getPrincipal()).thenReturn(new CustomUserDetail(currentUser));
+        SecurityContext context = mock(SecurityContext.class);
+        when(context.getAuthentication()).thenReturn(auth);
+        SecurityContextHolder.setContext(context);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testCreate_Success() {
+        CreateStandingOrderRequest request = new CreateStandingOrderRequest(
+                debitCardId, creditCardId, BigDecimal.TEN, StandingOrderPeriod.MONTHLY, startAt);
+        when(cardRepository.findByIdInAndOwnerAndIsDeleted(List.of(debitCardId, creditCardId), currentUser, false))
+                .thenReturn(List.of(new Card(), new Card()));
+        when(standingOrderRepository.save(any(StandingOrder.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(standingOrderMapper.toResponse(any(StandingOrder.class))).thenReturn(new StandingOrderResponse());
+
+        assertNotNull(standingOrderService.create(request));
+
+        ArgumentCaptor<StandingOrder> captor = ArgumentCaptor.forClass(StandingOrder.class);
+        verify(standingOrderRepository).save(captor.capture());
+        StandingOrder saved = captor.getValue();
+        assertEquals(currentUser, saved.getOwner());
+        assertEquals(startAt, saved.getNextRunAt());
+        assertEquals(0L, saved.getRunCount());
+        assertTrue(saved.getActive());
+    }
+
+    @Test
+    void testCreate_SameCards_ThrowsConflict() {
+        CreateStandingOrderRequest request = new CreateStandingOrderRequest(
+                debitCardId, debitCardId, BigDecimal.TEN, StandingOrderPeriod.DAILY, startAt);
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> standingOrderService.create(request));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        assertEquals(ErrorMessages.DEBIT_AND_CREDIT_CARD_ARE_SAME, ex.getReason());
+        verify(standingOrderRepository, never()).save(any());
+    }
+
+    @Test
+    void testCreate_ForeignCard_ThrowsNotFound() {
+        CreateStandingOrderRequest request = new CreateStandingOrderRequest(
+                debitCardId, creditCardId, BigDecimal.TEN, StandingOrderPeriod.WEEKLY, startAt);
+        when(cardRepository.findByIdInAndOwnerAndIsDeleted(anyCollection(), eq(currentUser), eq(false)))
+                .thenReturn(List.of(new Card()));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> standingOrderService.create(request));
+
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
+        assertEquals(ErrorMessages.CARD_NOT_FOUND, ex.getReason());
+        verify(standingOrderRepository, never()).save(any());
+    }
+
+    @Test
+    void testCancel_Success() {
+        UUID id = UUID.randomUUID();
+        StandingOrder order = StandingOrder.builder().id(id).owner(currentUser).build();
+        when(standingOrderRepository.findByIdAndOwner(id, currentUser)).thenReturn(Optional.of(order));
+
+        standingOrderService.cancel(id);
+
+        assertFalse(order.getActive());
+        verify(standingOrderRepository).save(order);
+    }
+
+    @Test
+    void testCancel_NotFound() {
+        UUID id = UUID.randomUUID();
+        when(standingOrderRepository.findByIdAndOwner(id, currentUser)).thenReturn(Optional.empty());
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> standingOrderService.cancel(id));
+
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
+        assertEquals(ErrorMessages.STANDING_ORDER_NOT_FOUND, ex.getReason());
+    }
+
+    @Test
+    void testGetExecutions_Success() {
+        UUID id = UUID.randomUUID();
+        StandingOrderExecution execution = new StandingOrderExecution();
+        when(standingOrderRepository.findByIdAndOwner(id, currentUser))
+                .thenReturn(Optional.of(StandingOrder.builder().id(id).build()));
+        when(executionRepository.findByOrderIdOrderByScheduledAtDesc(eq(id), any(Pageable.class)))
+                .thenReturn(List.of(execution));
+        when(standingOrderMapper.toResponse(execution)).thenReturn(new StandingOrderExecutionResponse());
+
+        assertEquals(1, standingOrderService.getExecutions(id, 10).size());
+
+        ArgumentCaptor<Pageable> captor = ArgumentCaptor.forClass(Pageable.class);
+        verify(executionRepository).findByOrderIdOrderByScheduledAtDesc(eq(id), captor.capture());
+        assertEquals(10, captor.getValue().getPageSize());
+    }
+
+    @Test
+    void testGetExecutions_ForeignOrder_ThrowsNotFound() {
+        UUID id = UUID.randomUUID();
+        when(standingOrderRepository.findByIdAndOwner(id, currentUser)).thenReturn(Optional.empty());
+
+        assertThrows(ResponseStatusException.class, () -> standingOrderService.getExecutions(id, 10));
+        verifyNoInteractions(executionRepository);
+    }
+}
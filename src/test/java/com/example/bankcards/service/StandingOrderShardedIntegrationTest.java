@@ -0,0 +1,104 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.AbstractIntegrationTest;
+import com.example.bankcards.dto.request.CreateStandingOrderRequest;
+import com.example.bankcards.dto.response.card.StandingOrderResponse;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.service.engine.BalanceEngine;
+import com.example.bankcards.service.interfaces.card.StandingOrderService;
+import com.example.bankcards.service.standing.StandingOrderDispatcher;
+import com.example.bankcards.util.enums.StandingOrderPeriod;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = "card.balance.concurrency-mode=SHARDED")
+class StandingOrderShardedIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private StandingOrderService standingOrderService;
+    @Autowired
+    private StandingOrderDispatcher dispatcher;
+    @Autowired
+    private BalanceEngine balanceEngine;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private UserModel user;
+
+    @BeforeEach
+    void setUp() {
+        user = seedUser();
+        authenticate(user);
+    }
+
+    @Test
+    void testEngineFailure_ClaimUndoneAndRunRetried() throws InterruptedException {
+        Card debit = createCard(user, BigDecimal.valueOf(1000));
+        Card credit = createCard(user, BigDecimal.ZERO);
+        StandingOrderResponse order = standingOrderService.create(new CreateStandingOrderRequest(
+                debit.getId(), credit.getId(), BigDecimal.valueOf(100), StandingOrderPeriod.DAILY,
+                OffsetDateTime.now().plusDays(1)));
+        jdbcTemplate.update("update standing_order set start_at = now() - interval '1 second',"
+                + " next_run_at = now() - interval '1 second' where id = ?", order.getId());
+
+        // движок без шардов отвечает IllegalStateException уже после коммита сдвига заказа
+        Object shards = ReflectionTestUtils.getField(balanceEngine, "shards");
+        ReflectionTestUtils.setField(balanceEngine, "shards", null);
+        try {
+            assertEquals(1, dispatcher.claimDue());
+            for (int i = 0; i < 100 && !returned(order.getId()); i++) {
+                Thread.sleep(50);
+            }
+        } finally {
+            ReflectionTestUtils.setField(balanceEngine, "shards", shards);
+        }
+
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "select run_count, next_run_at <= now() as due, claimed_until from standing_order where id = ?",
+                order.getId());
+        assertEquals(0L, row.get("run_count"));
+        assertEquals(true, row.get("due"));
+        assertNull(row.get("claimed_until"));
+        assertEquals(0, executions(order.getId()));
+        assertEquals(0, BigDecimal.valueOf(1000).compareTo(balance(debit)));
+
+        // следующий опрос исполняет тот же запуск; запись APPLIED коммитится раньше баланса, ждём баланс
+        assertEquals(1, dispatcher.claimDue());
+        for (int i = 0; i < 100 && BigDecimal.valueOf(900).compareTo(balance(debit)) != 0; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals("APPLIED", jdbcTemplate.queryForObject(
+                "select status from standing_order_execution where order_id = ?", String.class, order.getId()));
+        assertEquals(0, BigDecimal.valueOf(900).compareTo(balance(debit)));
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(balance(credit)));
+        assertEquals(1L, jdbcTemplate.queryForObject(
+                "select run_count from standing_order where id = ?", Long.class, order.getId()));
+    }
+
+    // аренда снята, а сдвиг откатан: до claimRun аренда ещё стоит, после него run_count = 1
+    private boolean returned(UUID orderId) {
+        return jdbcTemplate.queryForObject(
+                "select claimed_until is null and run_count = 0 from standing_order where id = ?", Boolean.class, orderId);
+    }
+
+    private int executions(UUID orderId) {
+        return jdbcTemplate.queryForObject(
+                "select count(*) from standing_order_execution where order_id = ?", Integer.class, orderId);
+    }
+
+    private BigDecimal balance(Card card) {
+        return cardRepository.findById(card.getId()).orElseThrow().getBalance().toBigDecimal();
+    }
+}
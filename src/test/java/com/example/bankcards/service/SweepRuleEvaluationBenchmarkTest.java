@@ -0,0 +1,83 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.AbstractIntegrationTest;
+import com.example.bankcards.dto.request.DepositRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.service.interfaces.card.CardOwnerService;
+import com.example.bankcards.service.sweep.ActiveSweepRule;
+import com.example.bankcards.service.sweep.SweepRuleIndex;
+import com.example.bankcards.util.money.Money;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Запуск: mvn test -Dgroups=benchmark -Dsurefire.excludedGroups=
+// Сравнивает задержку пополнения без правил и со 100 000 правил в индексе, часть из которых
+// смотрит на пополняемую карту; проверка правил в пути пополнения - это поиск в хеш-таблице
+@Slf4j
+@Tag("benchmark")
+class SweepRuleEvaluationBenchmarkTest extends AbstractIntegrationTest {
+
+    private static final int OPERATIONS = 5000;
+    private static final int RULES = 100_000;
+    private static final int INDEX_CALLS = 10_000_000;
+
+    @Autowired
+    private CardOwnerService cardOwnerService;
+    @Autowired
+    private SweepRuleIndex sweepRuleIndex;
+
+    @Test
+    void benchmarkDeposit_WithAndWithoutRules() {
+        UserModel user = seedUser();
+        authenticate(user);
+        try {
+            Card card = createCard(user, BigDecimal.ZERO);
+            runDeposits(card.getId(), OPERATIONS / 5);
+            double withoutRules = runDeposits(card.getId(), OPERATIONS);
+
+            for (int i = 0; i < RULES; i++) {
+                // каждое сотое правило пополняет карту бенчмарка, правила не срабатывают: порог ниже остатка
+                UUID watched = i % 100 == 0 ? card.getId() : UUID.randomUUID();
+                sweepRuleIndex.put(new ActiveSweepRule(UUID.randomUUID(), user.getId(), watched, UUID.randomUUID(),
+                        BigDecimal.ONE, BigDecimal.ONE));
+            }
+            sweepRuleIndex.drain(Integer.MAX_VALUE);
+            double withRules = runDeposits(card.getId(), OPERATIONS);
+            double indexNanos = measureIndexCalls(card.getId());
+
+            log.info("Deposit latency: without rules={} us, with {} rules={} us; index lookup={} ns",
+                    withoutRules, RULES, withRules, indexNanos);
+            assertEquals(RULES / 100, sweepRuleIndex.pending());
+            // поиск правил на порядки дешевле одной транзакции пополнения
+            assertTrue(indexNanos * 100 < withoutRules * 1000);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    // средняя задержка пополнения в микросекундах
+    private double runDeposits(UUID cardId, int operations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < operations; i++) {
+            cardOwnerService.deposit(cardId, new DepositRequest(Money.of(1)));
+        }
+        return (System.nanoTime() - start) / 1e3 / operations;
+    }
+
+    private double measureIndexCalls(UUID cardId) {
+        long start = System.nanoTime();
+        for (int i = 0; i < INDEX_CALLS; i++) {
+            sweepRuleIndex.onBalanceChanged(cardId);
+        }
+        return (double) (System.nanoTime() - start) / INDEX_CALLS;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.repository.SweepRuleRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.interfaces.card.CardOwnerService;
+import com.example.bankcards.service.journal.JournalBalanceService;
+import com.example.bankcards.service.sweep.ActiveSweepRule;
+import com.example.bankcards.service.sweep.SweepRuleExecutor;
+import com.example.bankcards.service.sweep.SweepRuleIndex;
+import com.example.bankcards.util.enums.ConcurrencyMode;
+import com.example.bankcards.util.money.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SweepRuleExecutorTest {
+
+    @Mock
+    private SweepRuleIndex sweepRuleIndex;
+    @Mock
+    private SweepRuleRepository sweepRuleRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private CardOwnerService cardOwnerService;
+    @Mock
+    private JournalBalanceService journalBalanceService;
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private SweepRuleExecutor executor;
+    private UserModel owner;
+    private UUID watchedCardId;
+    private UUID sourceCardId;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        executor = new SweepRuleExecutor(sweepRuleIndex, sweepRuleRepository, userRepository, cardOwnerService,
+                journalBalanceService, jdbcTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(executor, "concurrencyMode", ConcurrencyMode.JOURNAL);
+        owner = UserModel.builder().id(UUID.randomUUID()).build();
+        watchedCardId = UUID.randomUUID();
+        sourceCardId = UUID.randomUUID();
+        when(userRepository.findByIdAndIsDeleted(owner.getId(), false)).thenReturn(Optional.of(owner));
+    }
+
+    @Test
+    void testDrain_JournalMode_SubtractsHeldFromJournalBalance() throws Exception {
+        when(sweepRuleIndex.drain(10)).thenReturn(List.of(new ActiveSweepRule(UUID.randomUUID(), owner.getId(),
+                watchedCardId, sourceCardId, BigDecimal.valueOf(100), BigDecimal.valueOf(500))));
+        // строки card: у пополняемой карты 150 на балансе и 80 удержано
+        stubRows(Map.of(watchedCardId, new BigDecimal[]{BigDecimal.valueOf(80), BigDecimal.valueOf(70)},
+                sourceCardId, new BigDecimal[]{BigDecimal.ZERO, BigDecimal.valueOf(1000)}));
+        // журнал успел зачислить ещё 20
+        when(journalBalanceService.currentBalance(watchedCardId)).thenReturn(Optional.of(Money.of(170)));
+        when(journalBalanceService.currentBalance(sourceCardId)).thenReturn(Optional.of(Money.of(1000)));
+
+        assertEquals(1, executor.drain(10));
+
+        // доступно 170 - 80 = 90, до целевых 500 не хватает 410
+        verify(cardOwnerService).transferAs(eq(owner), argThat((TransferRequest request) ->
+                BigDecimal.valueOf(410).compareTo(request.getAmount().toBigDecimal()) == 0), any());
+    }
+
+    @Test
+    void testDrain_JournalMode_CardNotInJournalCache_UsesRow() throws Exception {
+        when(sweepRuleIndex.drain(10)).thenReturn(List.of(new ActiveSweepRule(UUID.randomUUID(), owner.getId(),
+                watchedCardId, sourceCardId, BigDecimal.valueOf(100), BigDecimal.valueOf(200))));
+        stubRows(Map.of(watchedCardId, new BigDecimal[]{BigDecimal.valueOf(60), BigDecimal.valueOf(90)},
+                sourceCardId, new BigDecimal[]{BigDecimal.ZERO, BigDecimal.valueOf(1000)}));
+        when(journalBalanceService.currentBalance(any())).thenReturn(Optional.empty());
+
+        assertEquals(1, executor.drain(10));
+
+        verify(cardOwnerService).transferAs(eq(owner), argThat((TransferRequest request) ->
+                BigDecimal.valueOf(110).compareTo(request.getAmount().toBigDecimal()) == 0), any());
+    }
+
+    // значения строки: удержано и доступно по таблице card
+    private void stubRows(Map<UUID, BigDecimal[]> rows) {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(2);
+            for (Map.Entry<UUID, BigDecimal[]> row : rows.entrySet()) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getObject("id", UUID.class)).thenReturn(row.getKey());
+                when(rs.getBigDecimal("held_balance")).thenReturn(row.getValue()[0]);
+                when(rs.getBigDecimal("available")).thenReturn(row.getValue()[1]);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), anyMap(), any(RowCallbackHandler.class));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.service.sweep.ActiveSweepRule;
+import com.example.bankcards.service.sweep.SweepRuleIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SweepRuleIndexTest {
+
+    private SweepRuleIndex index;
+    private UUID watched;
+    private UUID source;
+    private ActiveSweepRule rule;
+
+    @BeforeEach
+    void setUp() {
+        index = new SweepRuleIndex();
+        watched = UUID.randomUUID();
+        source = UUID.randomUUID();
+        rule = new ActiveSweepRule(UUID.randomUUID(), UUID.randomUUID(), watched, source,
+                BigDecimal.valueOf(100), BigDecimal.valueOf(200));
+        index.put(rule);
+        index.drain(100);
+    }
+
+    @Test
+    void testOnBalanceChanged_QueuesRulesOfWatchedAndSourceCards() {
+        index.onBalanceChanged(watched);
+        assertEquals(List.of(rule), index.drain(100));
+
+        index.onBalanceChanged(source);
+        assertEquals(List.of(rule), index.drain(100));
+    }
+
+    @Test
+    void testOnBalanceChanged_UnrelatedCard_QueuesNothing() {
+        index.onBalanceChanged(UUID.randomUUID());
+
+        assertEquals(0, index.pending());
+    }
+
+    @Test
+    void testOnBalanceChanged_RepeatedChanges_QueueRuleOnce() {
+        for (int i = 0; i < 10; i++) {
+            index.onBalanceChanged(watched);
+        }
+
+        assertEquals(1, index.drain(100).size());
+        assertTrue(index.drain(100).isEmpty());
+    }
+
+    @Test
+    void testRemove_StopsEvaluation() {
+        index.onBalanceChanged(watched);
+        index.remove(rule.id());
+        index.onBalanceChanged(watched);
+
+        assertTrue(index.drain(100).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    void testReload_ReplacesRulesAndQueuesNewOnes() {
+        ActiveSweepRule other = new ActiveSweepRule(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), source,
+                BigDecimal.ONE, BigDecimal.TEN);
+
+        index.reload(List.of(other));
+
+        assertEquals(1, index.size());
+        assertEquals(List.of(other), index.drain(100));
+        index.onBalanceChanged(watched);
+        assertTrue(index.drain(100).isEmpty());
+    }
+
+    @Test
+    void testDrain_RespectsBatchSize() {
+        UUID card = UUID.randomUUID();
+        for (int i = 0; i < 5; i++) {
+            index.put(new ActiveSweepRule(UUID.randomUUID(), UUID.randomUUID(), card, UUID.randomUUID(),
+                    BigDecimal.ONE, BigDecimal.TEN));
+        }
+        index.drain(100);
+        index.onBalanceChanged(card);
+
+        assertEquals(3, index.drain(3).size());
+        assertEquals(2, index.drain(3).size());
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.AbstractIntegrationTest;
+import com.example.bankcards.dto.request.CreateSweepRuleRequest;
+import com.example.bankcards.dto.request.DepositRequest;
+import com.example.bankcards.dto.request.TransferRequest;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.service.interfaces.card.CardOwnerService;
+import com.example.bankcards.service.interfaces.card.SweepRuleService;
+import com.example.bankcards.service.sweep.SweepRuleExecutor;
+import com.example.bankcards.util.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// фоновая проверка правил отключена, пачки запускаются из теста
+class SweepRuleIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private SweepRuleService sweepRuleService;
+    @Autowired
+    private SweepRuleExecutor sweepRuleExecutor;
+    @Autowired
+    private CardOwnerService cardOwnerService;
+
+    private UserModel user;
+
+    @BeforeEach
+    void setUp() {
+        user = seedUser();
+        authenticate(user);
+        sweepRuleExecutor.drain(Integer.MAX_VALUE);
+    }
+
+    @Test
+    void testTransferBelowThreshold_TopsUpFromSource() {
+        Card watched = createCard(user, BigDecimal.valueOf(500));
+        Card source = createCard(user, BigDecimal.valueOf(1000));
+        Card other = createCard(user, BigDecimal.ZERO);
+        sweepRuleService.create(new CreateSweepRuleRequest(watched.getId(), source.getId(),
+                BigDecimal.valueOf(100), BigDecimal.valueOf(300)));
+        // остаток выше порога: правило проверено, но не сработало
+        assertEquals(0, sweepRuleExecutor.drain(100));
+
+        cardOwnerService.transfer(new TransferRequest(watched.getId(), other.getId(), Money.of(450)));
+        assertEquals(1, sweepRuleExecutor.drain(100));
+
+        assertEquals(0, BigDecimal.valueOf(300).compareTo(balance(watched)));
+        assertEquals(0, BigDecimal.valueOf(750).compareTo(balance(source)));
+        // пополнение само меняет балансы, повторная проверка ничего не переводит
+        assertEquals(0, sweepRuleExecutor.drain(100));
+    }
+
+    @Test
+    void testSourceWithoutFunds_RetriesAfterSourceDeposit() {
+        Card watched = createCard(user, BigDecimal.TEN);
+        Card source = createCard(user, BigDecimal.ZERO);
+        sweepRuleService.create(new CreateSweepRuleRequest(watched.getId(), source.getId(),
+                BigDecimal.valueOf(100), null));
+
+        assertEquals(0, sweepRuleExecutor.drain(100));
+        assertEquals(0, BigDecimal.TEN.compareTo(balance(watched)));
+
+        cardOwnerService.deposit(source.getId(), new DepositRequest(Money.of(500)));
+        assertEquals(1, sweepRuleExecutor.drain(100));
+
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(balance(watched)));
+        assertEquals(0, BigDecimal.valueOf(410).compareTo(balance(source)));
+    }
+
+    @Test
+    void testDeletedRule_IsNotApplied() {
+        Card watched = createCard(user, BigDecimal.TEN);
+        Card source = createCard(user, BigDecimal.valueOf(1000));
+        UUID ruleId = sweepRuleService.create(new CreateSweepRuleRequest(watched.getId(), source.getId(),
+                BigDecimal.valueOf(100), null)).getId();
+
+        sweepRuleService.delete(ruleId);
+
+        assertEquals(0, sweepRuleExecutor.drain(100));
+        assertEquals(0, BigDecimal.TEN.compareTo(balance(watched)));
+    }
+
+    private BigDecimal balance(Card card) {
+        return cardRepository.findById(card.getId()).orElseThrow().getBalance().toBigDecimal();
+    }
+}
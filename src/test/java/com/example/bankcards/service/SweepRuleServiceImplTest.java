@@ -0,0 +1,177 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.request.CreateSweepRuleRequest;
+import com.example.bankcards.dto.response.card.SweepRuleResponse;
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.SweepRule;
+import com.example.bankcards.entity.UserModel;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.SweepRuleRepository;
+import com.example.bankcards.security.CustomUserDetail;
+import com.example.bankcards.service.implementation.SweepRuleServiceImpl;
+import com.example.bankcards.service.sweep.ActiveSweepRule;
+import com.example.bankcards.service.sweep.SweepRuleIndex;
+import com.example.bankcards.util.constants.ErrorMessages;
+import com.example.bankcards.util.mappers.SweepRuleMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SweepRuleServiceImplTest {
+
+    @Mock
+    private SweepRuleRepository sweepRuleRepository;
+    @Mock
+    private CardRepository cardRepository;
+    @Mock
+    private SweepRuleIndex sweepRuleIndex;
+    @Mock
+    private SweepRuleMapper sweepRuleMapper;
+
+    @InjectMocks
+    private SweepRuleServiceImpl sweepRuleService;
+
+    private UserModel currentUser;
+    private UUID watchedCardId;
+    private UUID sourceCardId;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        currentUser = UserModel.builder()
+                .id(UUID.randomUUID())
+                .username("user")
+                .isDeleted(false)
+                .build();
+        watchedCardId = UUID.randomUUID();
+        sourceCardId = UUID.randomUUID();
+
+        Authentication auth = mock(Authentication.class);
+        when(auth.getPrincipal()).thenReturn(new CustomUserDetail(currentUser));
+        SecurityContext context = mock(SecurityContext.class);
+        when(context.getAuthentication()).thenReturn(auth);
+        SecurityContextHolder.setContext(context);
+
+        when(cardRepository.findByIdInAndOwnerAndIsDeleted(anyCollection(), eq(currentUser), eq(false)))
+                .thenReturn(List.of(new Card(), new Card()));
+        when(sweepRuleRepository.save(any(SweepRule.class))).thenAnswer(invocation -> {
+            SweepRule rule = invocation.getArgument(0);
+            rule.setId(UUID.randomUUID());
+            return rule;
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void testCreate_Success_IndexesRule() {
+        when(sweepRuleMapper.toResponse(any(SweepRule.class))).thenReturn(new SweepRuleResponse());
+
+        assertNotNull(sweepRuleService.create(new CreateSweepRuleRequest(
+                watchedCardId, sourceCardId, BigDecimal.valueOf(100), BigDecimal.valueOf(500))));
+
+        ArgumentCaptor<ActiveSweepRule> captor = ArgumentCaptor.forClass(ActiveSweepRule.class);
+        verify(sweepRuleIndex).put(captor.capture());
+        assertEquals(watchedCardId, captor.getValue().watchedCardId());
+        assertEquals(sourceCardId, captor.getValue().sourceCardId());
+        assertEquals(currentUser.getId(), captor.getValue().ownerId());
+        assertEquals(BigDecimal.valueOf(500), captor.getValue().targetBalance());
+    }
+
+    @Test
+    void testCreate_NoTarget_TopsUpToThreshold() {
+        sweepRuleService.create(new CreateSweepRuleRequest(watchedCardId, sourceCardId, BigDecimal.valueOf(100), null));
+
+        ArgumentCaptor<SweepRule> captor = ArgumentCaptor.forClass(SweepRule.class);
+        verify(sweepRuleRepository).save(captor.capture());
+        assertEquals(BigDecimal.valueOf(100), captor.getValue().getTargetBalance());
+    }
+
+    @Test
+    void testCreate_TargetBelowThreshold_ThrowsBadRequest() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> sweepRuleService.create(
+                new CreateSweepRuleRequest(watchedCardId, sourceCardId, BigDecimal.valueOf(100), BigDecimal.TEN)));
+
+        assertEquals(HttpStatus.BAD_REQUEST, ex.getStatusCode());
+        assertEquals(ErrorMessages.SWEEP_TARGET_BELOW_THRESHOLD, ex.getReason());
+    }
+
+    @Test
+    void testCreate_ForeignCard_ThrowsNotFound() {
+        when(cardRepository.findByIdInAndOwnerAndIsDeleted(anyCollection(), eq(currentUser), eq(false)))
+                .thenReturn(List.of(new Card()));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> sweepRuleService.create(
+                new CreateSweepRuleRequest(watchedCardId, sourceCardId, BigDecimal.TEN, null)));
+
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
+        verifyNoInteractions(sweepRuleIndex);
+    }
+
+    @Test
+    void testCreate_Cycle_ThrowsConflict() {
+        UUID thirdCardId = UUID.randomUUID();
+        // source <- third <- watched уже есть: source -> watched замкнёт круг
+        when(sweepRuleRepository.findByOwnerAndActiveOrderByCreatedAt(currentUser, true)).thenReturn(List.of(
+                SweepRule.builder().watchedCardId(sourceCardId).sourceCardId(thirdCardId).build(),
+                SweepRule.builder().watchedCardId(thirdCardId).sourceCardId(watchedCardId).build()
+        ));
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> sweepRuleService.create(
+                new CreateSweepRuleRequest(watchedCardId, sourceCardId, BigDecimal.TEN, null)));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        assertEquals(ErrorMessages.SWEEP_RULE_CYCLE, ex.getReason());
+        verify(sweepRuleRepository, never()).save(any());
+    }
+
+    @Test
+    void testCreate_SameCard_ThrowsConflict() {
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> sweepRuleService.create(
+                new CreateSweepRuleRequest(watchedCardId, watchedCardId, BigDecimal.TEN, null)));
+
+        assertEquals(HttpStatus.CONFLICT, ex.getStatusCode());
+        assertEquals(ErrorMessages.DEBIT_AND_CREDIT_CARD_ARE_SAME, ex.getReason());
+    }
+
+    @Test
+    void testDelete_Success_RemovesFromIndex() {
+        UUID id = UUID.randomUUID();
+        SweepRule rule = SweepRule.builder().id(id).owner(currentUser).build();
+        when(sweepRuleRepository.findByIdAndOwnerAndActive(id, currentUser, true)).thenReturn(Optional.of(rule));
+
+        sweepRuleService.delete(id);
+
+        assertFalse(rule.getActive());
+        verify(sweepRuleRepository).save(rule);
+        verify(sweepRuleIndex).remove(id);
+    }
+
+    @Test
+    void testDelete_NotFound() {
+        UUID id = UUID.randomUUID();
+        when(sweepRuleRepository.findByIdAndOwnerAndActive(id, currentUser, true)).thenReturn(Optional.empty());
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class, () -> sweepRuleService.delete(id));
+
+        assertEquals(HttpStatus.NOT_FOUND, ex.getStatusCode());
+        assertEquals(ErrorMessages.SWEEP_RULE_NOT_FOUND, ex.getReason());
+    }
+}